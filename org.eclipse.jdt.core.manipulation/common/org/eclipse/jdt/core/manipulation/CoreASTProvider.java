@@ -30,12 +30,18 @@ import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 
 import org.eclipse.jdt.internal.core.manipulation.JavaManipulationPlugin;
+import org.eclipse.jdt.internal.core.manipulation.SharedASTCache;
 import org.eclipse.jdt.internal.corext.dom.ASTNodes;
 import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
 
 /**
  * The {@link CoreASTProvider} provides access to the {@link CompilationUnit AST root} used by
  * the current active Java editor.
+ * <p>
+ * The ASTs of Java elements that have been active before are kept in a bounded
+ * least-recently-used cache, so switching between editors does not require
+ * the AST to be created again.
+ * </p>
  *
  * The {@link CoreASTProvider} contains all methods/functionality that are
  * not dependent on the UI, from org.eclipse.jdt.internal.ui.javaeditor.ASTProvider
@@ -58,6 +64,7 @@ public final class CoreASTProvider {
 	private volatile ITypeRoot fReconcilingJavaElement;
 	private ITypeRoot fActiveJavaElement;
 	private CompilationUnit fAST;
+	private final SharedASTCache fASTCache= new SharedASTCache();
 	private Object fReconcileLock= new Object();
 	private Object fWaitLock= new Object();
 	private volatile boolean fIsReconciling;
@@ -134,6 +141,14 @@ public final class CoreASTProvider {
 		synchronized (this) {
 			isActiveElement= input.equals(fActiveJavaElement);
 			if (isActiveElement) {
+				if (fAST == null && !isReconciling(input)) {
+					fAST= fASTCache.get(input);
+					if (fAST != null) {
+						fASTCache.remove(input);
+						if (JavaManipulationPlugin.DEBUG_AST_PROVIDER)
+							System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "restored AST from cache:" + toString(fAST) + " for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					}
+				}
 				if (fAST != null) {
 					if (JavaManipulationPlugin.DEBUG_AST_PROVIDER)
 						System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "returning cached AST:" + toString(fAST) + " for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -147,6 +162,14 @@ public final class CoreASTProvider {
 					return null;
 
 				}
+			} else if (waitFlag == CoreASTProvider.WAIT_YES) {
+				CompilationUnit cachedAST= fASTCache.get(input);
+				if (cachedAST != null) {
+					if (JavaManipulationPlugin.DEBUG_AST_PROVIDER)
+						System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "returning AST from cache:" + toString(cachedAST) + " for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+					return cachedAST;
+				}
 			}
 		}
 
@@ -232,6 +255,7 @@ public final class CoreASTProvider {
 			fReconcilingJavaElement= javaElement;
 			fIsReconciling= true;
 		}
+		fASTCache.remove(javaElement);
 		cache(null, javaElement);
 	}
 
@@ -390,6 +414,61 @@ public final class CoreASTProvider {
 		cache(null, null);
 	}
 
+	/**
+	 * Disposes all ASTs kept in the cache of previously active Java elements.
+	 *
+	 * @since 1.12
+	 */
+	public void disposeCachedASTs() {
+		fASTCache.dispose();
+	}
+
+	/**
+	 * @return The number of requests for an inactive Java element that have been answered
+	 *         from the AST cache.
+	 * @since 1.12
+	 */
+	public long getCacheHitCount() {
+		return fASTCache.getHits();
+	}
+
+	/**
+	 * @return The number of requests for an inactive Java element that could not be answered
+	 *         from the AST cache.
+	 * @since 1.12
+	 */
+	public long getCacheMissCount() {
+		return fASTCache.getMisses();
+	}
+
+	/**
+	 * @return The number of ASTs that have been evicted from the AST cache because its limits
+	 *         were exceeded or the source of the Java element has changed.
+	 * @since 1.12
+	 */
+	public long getCacheEvictionCount() {
+		return fASTCache.getEvictions();
+	}
+
+	/**
+	 * @return The number of ASTs currently kept in the AST cache.
+	 * @since 1.12
+	 */
+	public int getCacheSize() {
+		return fASTCache.size();
+	}
+
+	/**
+	 * Sets the limits of the cache that keeps the ASTs of previously active Java elements.
+	 *
+	 * @param maxEntries the maximum number of cached ASTs, <code>0</code> disables the cache
+	 * @param maxSourceLength the maximum accumulated source length of the cached ASTs
+	 * @since 1.12
+	 */
+	public void setCacheLimits(int maxEntries, long maxSourceLength) {
+		fASTCache.setLimits(maxEntries, maxSourceLength);
+	}
+
 	/**
 	 * Returns a string for the given Java element used for debugging.
 	 *
@@ -468,9 +547,12 @@ public final class CoreASTProvider {
 
 	/**
 	 * Set the active java element that is currently active.
+	 * The AST of the previously active java element is kept in the AST cache.
 	 * @param activeJavaElement the java element.
 	 */
-	public void setActiveJavaElement (ITypeRoot activeJavaElement) {
+	public synchronized void setActiveJavaElement (ITypeRoot activeJavaElement) {
+		if (fActiveJavaElement != null && fAST != null && !fActiveJavaElement.equals(activeJavaElement) && !isReconciling(fActiveJavaElement))
+			fASTCache.put(fActiveJavaElement, fAST);
 		fActiveJavaElement = activeJavaElement;
 	}
 
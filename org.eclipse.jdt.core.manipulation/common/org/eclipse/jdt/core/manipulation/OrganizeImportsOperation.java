@@ -73,6 +73,7 @@ import org.eclipse.jdt.internal.corext.dom.Bindings;
 import org.eclipse.jdt.internal.corext.dom.ScopeAnalyzer;
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
 import org.eclipse.jdt.internal.corext.util.JdtFlags;
+import org.eclipse.jdt.internal.corext.util.TypeNameMatchIndex;
 
 
 
@@ -353,12 +354,19 @@ public class OrganizeImportsOperation implements IWorkspaceRunnable {
 				for (Iterator<String> iter= fUnresolvedTypes.keySet().iterator(); iter.hasNext();) {
 					allTypes[i++]= iter.next().toCharArray();
 				}
-				final ArrayList<TypeNameMatch> typesFound= new ArrayList<>();
+				final List<TypeNameMatch> typesFound;
 				final IJavaProject project= fCurrPackage.getJavaProject();
 				boolean excludeTestCode= !((IPackageFragmentRoot)fCurrPackage.getParent()).getResolvedClasspathEntry().isTest();
-				IJavaSearchScope scope= SearchEngine.createJavaSearchScope(excludeTestCode, new IJavaElement[] { project }, true);
-				TypeNameMatchCollector collector= new TypeNameMatchCollector(typesFound);
-				new SearchEngine().searchAllTypeNames(null, allTypes, scope, collector, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+				TypeNameMatchIndex index= TypeNameMatchIndex.getShared();
+				if (index != null) {
+					// batch run: names already searched for other compilation units are not searched again
+					typesFound= index.searchAllTypeNames(project, excludeTestCode, allTypes, monitor);
+				} else {
+					typesFound= new ArrayList<>();
+					IJavaSearchScope scope= SearchEngine.createJavaSearchScope(excludeTestCode, new IJavaElement[] { project }, true);
+					TypeNameMatchCollector collector= new TypeNameMatchCollector(typesFound);
+					new SearchEngine().searchAllTypeNames(null, allTypes, scope, collector, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+				}
 
 				boolean is50OrHigher= JavaModelUtil.is50OrHigher(project);
 
@@ -27,8 +27,9 @@ import org.eclipse.jdt.core.manipulation.CoreASTProvider;
  * The {@link SharedASTProviderCore} provides access to the {@link CompilationUnit AST root} used by
  * the current active Java editor.
  *
- * <p>For performance reasons, not more than one AST should be kept in memory at a time. Therefore, clients must
- * not keep any references to the shared AST or its nodes or bindings.
+ * <p>For performance reasons, clients must not keep any references to the shared AST or its nodes or bindings.
+ * The ASTs of recently active Java elements are kept in a bounded cache that can be inspected with
+ * {@link #getCacheHitCount()}, {@link #getCacheMissCount()} and {@link #getCacheEvictionCount()}.
  * </p>
  * <p>Clients can make the following assumptions about the AST:
  * <dl>
@@ -138,6 +139,39 @@ public class SharedASTProviderCore {
 		return CoreASTProvider.getInstance().getAST(element, finalWaitFlag, progressMonitor);
 	}
 
+	/**
+	 * Returns the number of AST requests for Java elements that are not the input of the active
+	 * Java editor and that have been answered from the cache of recently active elements.
+	 *
+	 * @return the number of cache hits
+	 * @since 1.12
+	 */
+	public static long getCacheHitCount() {
+		return CoreASTProvider.getInstance().getCacheHitCount();
+	}
+
+	/**
+	 * Returns the number of AST requests for Java elements that are not the input of the active
+	 * Java editor and that could not be answered from the cache of recently active elements.
+	 *
+	 * @return the number of cache misses
+	 * @since 1.12
+	 */
+	public static long getCacheMissCount() {
+		return CoreASTProvider.getInstance().getCacheMissCount();
+	}
+
+	/**
+	 * Returns the number of ASTs that have been evicted from the cache of recently active
+	 * elements, either because the cache limits were exceeded or because the source changed.
+	 *
+	 * @return the number of evictions
+	 * @since 1.12
+	 */
+	public static long getCacheEvictionCount() {
+		return CoreASTProvider.getInstance().getCacheEvictionCount();
+	}
+
 	protected SharedASTProviderCore() {
 		// Prevent instantiation.
 	}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.manipulation;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IBuffer;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.internal.corext.util.JavaElementDeltaUtil;
+
+/**
+ * Bounded least-recently-used cache of shared ASTs of Java elements that have been the
+ * input of the active Java editor before.
+ * <p>
+ * Entries are keyed by {@link ITypeRoot} and validated against a modification stamp that
+ * combines the stamp of the underlying resource with a hash of the buffer contents, so an
+ * AST is never returned for a different source. The bindings of an AST also depend on other
+ * compilation units and on the class path, so all entries are removed whenever the structure of
+ * the Java model changes, see {@link JavaElementDeltaUtil#isStructuralChange(org.eclipse.jdt.core.IJavaElementDelta)}.
+ * Changes of method bodies keep the entries of other elements. The cache is bounded by the number of
+ * entries and by the accumulated source length of the cached ASTs. ASTs are only softly
+ * referenced and can be reclaimed by the garbage collector under memory pressure.
+ * </p>
+ * <p>
+ * The limits can be configured with the system properties
+ * <code>org.eclipse.jdt.core.manipulation.astCache.size</code> (number of entries) and
+ * <code>org.eclipse.jdt.core.manipulation.astCache.weight</code> (accumulated source length).
+ * </p>
+ */
+public final class SharedASTCache implements IElementChangedListener {
+
+	private static final int DEFAULT_MAX_ENTRIES= 5;
+	private static final int DEFAULT_MAX_WEIGHT= 2000000;
+
+	private static class Entry {
+		final SoftReference<CompilationUnit> fAST;
+		final long fStamp;
+		final int fWeight;
+
+		Entry(CompilationUnit ast, long stamp, int weight) {
+			fAST= new SoftReference<>(ast);
+			fStamp= stamp;
+			fWeight= weight;
+		}
+	}
+
+	private final LinkedHashMap<ITypeRoot, Entry> fEntries= new LinkedHashMap<>(16, 0.75f, true);
+	private int fMaxEntries;
+	private long fMaxWeight;
+	private long fWeight;
+
+	private long fHits;
+	private long fMisses;
+	private long fEvictions;
+
+	private boolean fListening;
+
+	public SharedASTCache() {
+		fMaxEntries= Integer.getInteger("org.eclipse.jdt.core.manipulation.astCache.size", DEFAULT_MAX_ENTRIES).intValue(); //$NON-NLS-1$
+		fMaxWeight= Integer.getInteger("org.eclipse.jdt.core.manipulation.astCache.weight", DEFAULT_MAX_WEIGHT).intValue(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the cached AST for the given Java element if its source has not changed since
+	 * the AST was cached.
+	 *
+	 * @param typeRoot the Java element
+	 * @return the AST or <code>null</code> if no valid AST is cached
+	 */
+	public synchronized CompilationUnit get(ITypeRoot typeRoot) {
+		Entry entry= fEntries.get(typeRoot);
+		if (entry != null) {
+			CompilationUnit ast= entry.fAST.get();
+			if (ast != null && entry.fStamp != IResource.NULL_STAMP && entry.fStamp == getModificationStamp(typeRoot)) {
+				fHits++;
+				return ast;
+			}
+			removeEntry(typeRoot);
+			fEvictions++;
+		}
+		fMisses++;
+		return null;
+	}
+
+	/**
+	 * Caches the AST for the given Java element, evicting least recently used entries if the
+	 * limits are exceeded.
+	 *
+	 * @param typeRoot the Java element
+	 * @param ast the AST created from the current source of the element
+	 */
+	public synchronized void put(ITypeRoot typeRoot, CompilationUnit ast) {
+		if (typeRoot == null || ast == null || fMaxEntries <= 0)
+			return;
+
+		removeEntry(typeRoot);
+		int weight= ast.getLength();
+		if (weight > fMaxWeight)
+			return;
+
+		if (!fListening) {
+			JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+			fListening= true;
+		}
+		fEntries.put(typeRoot, new Entry(ast, getModificationStamp(typeRoot), weight));
+		fWeight+= weight;
+
+		evictEntries();
+	}
+
+	/**
+	 * Removes the AST of the given Java element from the cache.
+	 *
+	 * @param typeRoot the Java element
+	 */
+	public synchronized void remove(ITypeRoot typeRoot) {
+		removeEntry(typeRoot);
+	}
+
+	/**
+	 * Removes all ASTs from the cache.
+	 */
+	public synchronized void clear() {
+		fEntries.clear();
+		fWeight= 0;
+	}
+
+	/**
+	 * Stops listening to Java element changes and removes all ASTs from the cache.
+	 */
+	public synchronized void dispose() {
+		if (fListening) {
+			JavaCore.removeElementChangedListener(this);
+			fListening= false;
+		}
+		clear();
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		synchronized (this) {
+			if (fEntries.isEmpty())
+				return;
+		}
+		if (JavaElementDeltaUtil.isStructuralChange(event.getDelta())) {
+			synchronized (this) {
+				fEvictions+= fEntries.size();
+				clear();
+			}
+		}
+	}
+
+	/**
+	 * Sets the limits of this cache and evicts entries that no longer fit.
+	 *
+	 * @param maxEntries the maximum number of cached ASTs, <code>0</code> disables the cache
+	 * @param maxWeight the maximum accumulated source length of the cached ASTs
+	 */
+	public synchronized void setLimits(int maxEntries, long maxWeight) {
+		fMaxEntries= maxEntries;
+		fMaxWeight= maxWeight;
+		evictEntries();
+	}
+
+	public synchronized int size() {
+		return fEntries.size();
+	}
+
+	public synchronized long getHits() {
+		return fHits;
+	}
+
+	public synchronized long getMisses() {
+		return fMisses;
+	}
+
+	public synchronized long getEvictions() {
+		return fEvictions;
+	}
+
+	private void evictEntries() {
+		Iterator<Map.Entry<ITypeRoot, Entry>> iter= fEntries.entrySet().iterator();
+		while ((fEntries.size() > fMaxEntries || fWeight > fMaxWeight) && iter.hasNext()) {
+			Entry eldest= iter.next().getValue();
+			iter.remove();
+			fWeight-= eldest.fWeight;
+			fEvictions++;
+		}
+	}
+
+	private void removeEntry(ITypeRoot typeRoot) {
+		Entry entry= fEntries.remove(typeRoot);
+		if (entry != null)
+			fWeight-= entry.fWeight;
+	}
+
+	/**
+	 * Computes a stamp for the current source of the given Java element.
+	 *
+	 * @param typeRoot the Java element
+	 * @return the stamp, or {@link IResource#NULL_STAMP} if the element has no source
+	 */
+	private static long getModificationStamp(ITypeRoot typeRoot) {
+		try {
+			IBuffer buffer= typeRoot.getBuffer();
+			if (buffer == null)
+				return IResource.NULL_STAMP;
+
+			char[] contents= buffer.getCharacters();
+			if (contents == null)
+				return IResource.NULL_STAMP;
+
+			int hash= contents.length;
+			for (int i= 0; i < contents.length; i++)
+				hash= 31 * hash + contents[i];
+
+			IResource resource= typeRoot.getResource();
+			long resourceStamp= resource != null ? resource.getModificationStamp() : IResource.NULL_STAMP;
+			return (resourceStamp << 32) ^ (hash & 0xFFFFFFFFL);
+		} catch (JavaModelException e) {
+			return IResource.NULL_STAMP;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.util;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+
+/**
+ * Utility methods for the Java element deltas received by caches of information derived from the
+ * Java model.
+ */
+public final class JavaElementDeltaUtil {
+
+	private JavaElementDeltaUtil() {
+	}
+
+	/**
+	 * Tells whether the given delta changes the structure of the Java model, i.e. anything else
+	 * than the bodies of methods and initializers. Such changes can change the bindings, the type
+	 * hierarchies and the members of types in any compilation unit.
+	 * <p>
+	 * Added and removed elements, changes of members, imports, class files and class paths, and
+	 * content changes of a compilation unit which are not reported as a fine grained delta, e.g.
+	 * when a file is saved or replaced, are structural changes.
+	 * </p>
+	 *
+	 * @param delta the Java element delta
+	 * @return <code>true</code> if the delta changes the structure of the Java model
+	 */
+	public static boolean isStructuralChange(IJavaElementDelta delta) {
+		if (delta.getKind() != IJavaElementDelta.CHANGED)
+			return true;
+		int flags= delta.getFlags();
+		switch (delta.getElement().getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				break;
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				// content changes of these elements are changes of non-Java resources
+				if ((flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) != 0)
+					return true;
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+				// a body only change is reported as a fine grained delta without affected children
+				if ((flags & IJavaElementDelta.F_CONTENT) != 0 && (flags & IJavaElementDelta.F_FINE_GRAINED) == 0)
+					return true;
+				break;
+			default:
+				// any change to a member, an import or a class file
+				return true;
+		}
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (isStructuralChange(children[i]))
+				return true;
+		}
+		return false;
+	}
+}
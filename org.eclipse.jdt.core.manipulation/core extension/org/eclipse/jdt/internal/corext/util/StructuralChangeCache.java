@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.util;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Base class of caches of search results which are cleared when the Java model changes.
+ * <p>
+ * The searches run without holding the lock of the cache. A client gets the generation with
+ * {@link #getGeneration()} before it starts a search and stores the result only if
+ * {@link #isCurrent(long)} still answers <code>true</code> for that generation, so that results
+ * computed from a model which has changed in the meantime are dropped. The cache starts to listen
+ * to element changes when the generation is first requested.
+ * </p>
+ * <p>
+ * By default the cache is cleared on structural changes, see
+ * {@link JavaElementDeltaUtil#isStructuralChange(IJavaElementDelta)}.
+ * </p>
+ */
+public abstract class StructuralChangeCache implements IElementChangedListener {
+
+	/** Incremented whenever the cache is cleared */
+	private long fGeneration;
+
+	private boolean fListening;
+
+	/**
+	 * Returns the current generation, to be passed to the put methods after the search.
+	 *
+	 * @return the generation
+	 */
+	public synchronized long getGeneration() {
+		if (!fListening) {
+			JavaCore.addElementChangedListener(this, getEventMask());
+			fListening= true;
+		}
+		return fGeneration;
+	}
+
+	/**
+	 * Tells whether the cache has not been cleared since the given generation has been returned
+	 * by {@link #getGeneration()}. Must be called while holding the lock of the cache.
+	 *
+	 * @param generation the generation
+	 * @return <code>true</code> if results of a search started at the given generation can be
+	 *         stored
+	 */
+	protected boolean isCurrent(long generation) {
+		return generation == fGeneration;
+	}
+
+	/**
+	 * Clears the cache.
+	 */
+	public synchronized void clear() {
+		clearEntries();
+		fGeneration++;
+	}
+
+	/**
+	 * Removes all entries. Called while holding the lock of the cache.
+	 */
+	protected abstract void clearEntries();
+
+	/**
+	 * Stops listening to Java element changes and clears the cache.
+	 */
+	public synchronized void dispose() {
+		if (fListening) {
+			JavaCore.removeElementChangedListener(this);
+			fListening= false;
+		}
+		clear();
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		if (isAffectingEntries(event.getDelta()))
+			clear();
+	}
+
+	/**
+	 * Returns the types of the element changed events the cache listens to. By default the
+	 * changes of working copies are seen when they are reconciled.
+	 *
+	 * @return a combination of the event types of {@link ElementChangedEvent}
+	 */
+	protected int getEventMask() {
+		return ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE;
+	}
+
+	/**
+	 * Tells whether the given delta can change the cached results.
+	 *
+	 * @param delta the Java element delta
+	 * @return <code>true</code> if the cache has to be cleared
+	 */
+	protected boolean isAffectingEntries(IJavaElementDelta delta) {
+		return JavaElementDeltaUtil.isStructuralChange(delta);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,7 +15,8 @@ package org.eclipse.jdt.internal.corext.util;
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
@@ -26,6 +27,14 @@ import org.eclipse.jdt.core.JavaModelException;
 
 /**
  * A thread-safe cache for super type hierarchies.
+ * <p>
+ * Every type contained in a cached hierarchy is indexed in a concurrent map, so lookups do not
+ * take a global lock. The cache is bounded by the number of hierarchies and by their weight, the
+ * accumulated number of types they contain. The method override testers are kept in separately
+ * locked shards. The limits can be configured with the system properties
+ * <code>org.eclipse.jdt.core.manipulation.typeHierarchyCache.size</code> and
+ * <code>org.eclipse.jdt.core.manipulation.typeHierarchyCache.weight</code>.
+ * </p>
  */
 // @see JDTUIHelperClasses
 public class SuperTypeHierarchyCache {
@@ -33,10 +42,14 @@ public class SuperTypeHierarchyCache {
 	private static class HierarchyCacheEntry implements ITypeHierarchyChangedListener {
 
 		private ITypeHierarchy fTypeHierarchy;
-		private long fLastAccess;
+		private final IType fType;
+		private final IType[] fTypes;
+		private volatile long fLastAccess;
 
 		public HierarchyCacheEntry(ITypeHierarchy hierarchy) {
 			fTypeHierarchy= hierarchy;
+			fType= hierarchy.getType();
+			fTypes= hierarchy.getAllTypes();
 			fTypeHierarchy.addTypeHierarchyChangedListener(this);
 			markAsAccessed();
 		}
@@ -46,19 +59,31 @@ public class SuperTypeHierarchyCache {
 			removeHierarchyEntryFromCache(this);
 		}
 
-		public ITypeHierarchy getTypeHierarchy() {
+		public synchronized ITypeHierarchy getTypeHierarchy() {
 			return fTypeHierarchy;
 		}
 
+		public IType getType() {
+			return fType;
+		}
+
+		public IType[] getTypes() {
+			return fTypes;
+		}
+
+		public int getWeight() {
+			return fTypes.length;
+		}
+
 		public void markAsAccessed() {
-			fLastAccess= System.currentTimeMillis();
+			fLastAccess= System.nanoTime();
 		}
 
 		public long getLastAccess() {
 			return fLastAccess;
 		}
 
-		public void dispose() {
+		public synchronized void dispose() {
 			if (fTypeHierarchy != null) {
 				fTypeHierarchy.removeTypeHierarchyChangedListener(this);
 				fTypeHierarchy= null;
@@ -67,19 +92,95 @@ public class SuperTypeHierarchyCache {
 
 		@Override
 		public String toString() {
-			return "Super hierarchy of: " + fTypeHierarchy.getType().getElementName(); //$NON-NLS-1$
+			return "Super hierarchy of: " + fType.getElementName(); //$NON-NLS-1$
 		}
 
 	}
 
+	/**
+	 * A snapshot of the statistics of the super type hierarchy cache.
+	 */
+	public static final class CacheStatistics {
+
+		private final long fHits;
+		private final long fMisses;
+		private final long fEvictions;
+		private final int fSize;
+		private final int fWeight;
 
-	private static final int CACHE_SIZE= 8;
+		CacheStatistics(long hits, long misses, long evictions, int size, int weight) {
+			fHits= hits;
+			fMisses= misses;
+			fEvictions= evictions;
+			fSize= size;
+			fWeight= weight;
+		}
 
-	private static ArrayList<HierarchyCacheEntry> fgHierarchyCache= new ArrayList<>(CACHE_SIZE);
-	private static Map<IType, MethodOverrideTester> fgMethodOverrideTesterCache= new LRUMap<>(CACHE_SIZE);
+		/**
+		 * @return the number of requests that could be answered from the cache
+		 */
+		public long getHits() {
+			return fHits;
+		}
 
-	private static int fgCacheHits= 0;
-	private static int fgCacheMisses= 0;
+		/**
+		 * @return the number of requests that required to build a new hierarchy
+		 */
+		public long getMisses() {
+			return fMisses;
+		}
+
+		/**
+		 * @return the number of hierarchies removed to respect the limits of the cache
+		 */
+		public long getEvictions() {
+			return fEvictions;
+		}
+
+		/**
+		 * @return the number of cached hierarchies
+		 */
+		public int getSize() {
+			return fSize;
+		}
+
+		/**
+		 * @return the accumulated number of types in the cached hierarchies
+		 */
+		public int getWeight() {
+			return fWeight;
+		}
+
+		/**
+		 * @return the fraction of requests answered from the cache, or 0 if there were no requests
+		 */
+		public double getHitRate() {
+			long total= fHits + fMisses;
+			return total == 0 ? 0 : (double) fHits / total;
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + fHits + ", misses=" + fMisses + ", evictions=" + fEvictions + ", size=" + fSize + ", weight=" + fWeight; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		}
+	}
+
+
+	private static final int DEFAULT_CACHE_SIZE= 32;
+	private static final int DEFAULT_CACHE_WEIGHT= 20000;
+	private static final int SHARD_COUNT= 8;
+
+	private static int fgMaxSize= Integer.getInteger("org.eclipse.jdt.core.manipulation.typeHierarchyCache.size", DEFAULT_CACHE_SIZE).intValue(); //$NON-NLS-1$
+	private static int fgMaxWeight= Integer.getInteger("org.eclipse.jdt.core.manipulation.typeHierarchyCache.weight", DEFAULT_CACHE_WEIGHT).intValue(); //$NON-NLS-1$
+
+	private static ArrayList<HierarchyCacheEntry> fgHierarchyCache= new ArrayList<>(DEFAULT_CACHE_SIZE);
+	private static int fgCacheWeight= 0;
+	private static ConcurrentHashMap<IType, HierarchyCacheEntry> fgTypeIndex= new ConcurrentHashMap<>();
+	private static LRUMap<IType, MethodOverrideTester>[] fgMethodOverrideTesterCaches= createMethodOverrideTesterCaches();
+
+	private static final AtomicLong fgCacheHits= new AtomicLong();
+	private static final AtomicLong fgCacheMisses= new AtomicLong();
+	private static final AtomicLong fgCacheEvictions= new AtomicLong();
 
 	/**
 	 * Returns a super type hierarchy that contains the given type.
@@ -97,29 +198,48 @@ public class SuperTypeHierarchyCache {
 	}
 
 	public static MethodOverrideTester getMethodOverrideTester(IType type) throws JavaModelException {
+		LRUMap<IType, MethodOverrideTester> cache= getMethodOverrideTesterCache(type);
 		MethodOverrideTester test= null;
-		synchronized (fgMethodOverrideTesterCache) {
-			test= fgMethodOverrideTesterCache.get(type);
+		synchronized (cache) {
+			test= cache.get(type);
 		}
 		if (test == null) {
 			ITypeHierarchy hierarchy= getTypeHierarchy(type); // don't nest the locks
-			synchronized (fgMethodOverrideTesterCache) {
-				test= fgMethodOverrideTesterCache.get(type); // test again after waiting a long time for 'getTypeHierarchy'
+			synchronized (cache) {
+				test= cache.get(type); // test again after waiting a long time for 'getTypeHierarchy'
 				if (test == null) {
 					test= new MethodOverrideTester(type, hierarchy);
-					fgMethodOverrideTesterCache.put(type, test);
+					cache.put(type, test);
 				}
 			}
 		}
 		return test;
 	}
 
+	@SuppressWarnings("unchecked")
+	private static LRUMap<IType, MethodOverrideTester>[] createMethodOverrideTesterCaches() {
+		LRUMap<IType, MethodOverrideTester>[] caches= new LRUMap[SHARD_COUNT];
+		int shardSize= Math.max(1, (fgMaxSize + SHARD_COUNT - 1) / SHARD_COUNT);
+		for (int i= 0; i < caches.length; i++) {
+			caches[i]= new LRUMap<>(shardSize);
+		}
+		return caches;
+	}
+
+	private static LRUMap<IType, MethodOverrideTester> getMethodOverrideTesterCache(IType type) {
+		int hash= type.hashCode();
+		return fgMethodOverrideTesterCaches[(hash ^ (hash >>> 16)) & (SHARD_COUNT - 1)];
+	}
+
 	private static void removeMethodOverrideTester(ITypeHierarchy hierarchy) {
-		synchronized (fgMethodOverrideTesterCache) {
-			for (Iterator<MethodOverrideTester> iter= fgMethodOverrideTesterCache.values().iterator(); iter.hasNext();) {
-				MethodOverrideTester curr= iter.next();
-				if (curr.getTypeHierarchy().equals(hierarchy)) {
-					iter.remove();
+		for (int i= 0; i < fgMethodOverrideTesterCaches.length; i++) {
+			LRUMap<IType, MethodOverrideTester> cache= fgMethodOverrideTesterCaches[i];
+			synchronized (cache) {
+				for (Iterator<MethodOverrideTester> iter= cache.values().iterator(); iter.hasNext();) {
+					MethodOverrideTester curr= iter.next();
+					if (curr.getTypeHierarchy().equals(hierarchy)) {
+						iter.remove();
+					}
 				}
 			}
 		}
@@ -140,43 +260,54 @@ public class SuperTypeHierarchyCache {
 	public static ITypeHierarchy getTypeHierarchy(IType type, IProgressMonitor progressMonitor) throws JavaModelException {
 		ITypeHierarchy hierarchy= findTypeHierarchyInCache(type);
 		if (hierarchy == null) {
-			fgCacheMisses++;
+			fgCacheMisses.incrementAndGet();
 			hierarchy= type.newSupertypeHierarchy(progressMonitor);
 			addTypeHierarchyToCache(hierarchy);
 		} else {
-			fgCacheHits++;
+			fgCacheHits.incrementAndGet();
 		}
 		return hierarchy;
 	}
 
 	private static void addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
+		HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
 		synchronized (fgHierarchyCache) {
-			int nEntries= fgHierarchyCache.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently accessed
-				HierarchyCacheEntry oldest= null;
-				ArrayList<HierarchyCacheEntry> obsoleteHierarchies= new ArrayList<>(CACHE_SIZE);
-				for (int i= 0; i < nEntries; i++) {
-					HierarchyCacheEntry entry= fgHierarchyCache.get(i);
-					ITypeHierarchy curr= entry.getTypeHierarchy();
-					if (!curr.exists() || hierarchy.contains(curr.getType())) {
-						obsoleteHierarchies.add(entry);
-					} else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
-							oldest= entry;
-						}
-					}
-				}
-				if (!obsoleteHierarchies.isEmpty()) {
-					for (int i= 0; i < obsoleteHierarchies.size(); i++) {
-						removeHierarchyEntryFromCache(obsoleteHierarchies.get(i));
-					}
-				} else if (oldest != null) {
-					removeHierarchyEntryFromCache(oldest);
+			// remove obsolete entries, the new hierarchy contains their focus types
+			for (int i= fgHierarchyCache.size() - 1; i >= 0; i--) {
+				HierarchyCacheEntry entry= fgHierarchyCache.get(i);
+				ITypeHierarchy curr= entry.getTypeHierarchy();
+				if (curr == null || !curr.exists() || hierarchy.contains(entry.getType())) {
+					removeHierarchyEntryFromCache(entry);
 				}
 			}
-			HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
 			fgHierarchyCache.add(newEntry);
+			fgCacheWeight+= newEntry.getWeight();
+			IType[] types= newEntry.getTypes();
+			for (int i= 0; i < types.length; i++) {
+				fgTypeIndex.put(types[i], newEntry);
+			}
+			evictEntries(newEntry);
+		}
+	}
+
+	/**
+	 * Removes the least recently accessed entries until the cache respects its limits.
+	 *
+	 * @param keep the entry that must not be removed, can be <code>null</code>
+	 */
+	private static void evictEntries(HierarchyCacheEntry keep) {
+		while (fgHierarchyCache.size() > fgMaxSize || fgCacheWeight > fgMaxWeight) {
+			HierarchyCacheEntry oldest= null;
+			for (int i= 0; i < fgHierarchyCache.size(); i++) {
+				HierarchyCacheEntry entry= fgHierarchyCache.get(i);
+				if (entry != keep && (oldest == null || entry.getLastAccess() < oldest.getLastAccess())) {
+					oldest= entry;
+				}
+			}
+			if (oldest == null)
+				break;
+			removeHierarchyEntryFromCache(oldest);
+			fgCacheEvictions.incrementAndGet();
 		}
 	}
 
@@ -192,15 +323,25 @@ public class SuperTypeHierarchyCache {
 
 
 	private static ITypeHierarchy findTypeHierarchyInCache(IType type) {
+		HierarchyCacheEntry indexed= fgTypeIndex.get(type);
+		if (indexed != null) {
+			ITypeHierarchy hierarchy= indexed.getTypeHierarchy();
+			if (hierarchy != null && hierarchy.exists() && hierarchy.contains(type)) {
+				indexed.markAsAccessed();
+				return hierarchy;
+			}
+		}
+		// the type can still be contained in an older hierarchy whose index entry has been replaced
 		synchronized (fgHierarchyCache) {
 			for (int i= fgHierarchyCache.size() - 1; i>= 0; i--) {
 				HierarchyCacheEntry curr= fgHierarchyCache.get(i);
 				ITypeHierarchy hierarchy= curr.getTypeHierarchy();
-				if (!hierarchy.exists()) {
+				if (hierarchy == null || !hierarchy.exists()) {
 					removeHierarchyEntryFromCache(curr);
 				} else {
 					if (hierarchy.contains(type)) {
 						curr.markAsAccessed();
+						fgTypeIndex.put(type, curr);
 						return hierarchy;
 					}
 				}
@@ -211,19 +352,96 @@ public class SuperTypeHierarchyCache {
 
 	private static void removeHierarchyEntryFromCache(HierarchyCacheEntry entry) {
 		synchronized (fgHierarchyCache) {
-			removeMethodOverrideTester(entry.getTypeHierarchy());
+			if (!fgHierarchyCache.remove(entry))
+				return;
+			fgCacheWeight-= entry.getWeight();
+			IType[] types= entry.getTypes();
+			for (int i= 0; i < types.length; i++) {
+				fgTypeIndex.remove(types[i], entry);
+			}
+			ITypeHierarchy hierarchy= entry.getTypeHierarchy();
+			if (hierarchy != null)
+				removeMethodOverrideTester(hierarchy);
 			entry.dispose();
-			fgHierarchyCache.remove(entry);
 		}
 	}
 
+	/**
+	 * Sets the limits of the cache and removes the least recently accessed hierarchies that no
+	 * longer fit.
+	 *
+	 * @param maxSize the maximum number of cached hierarchies
+	 * @param maxWeight the maximum accumulated number of types in the cached hierarchies
+	 */
+	public static void setCacheLimits(int maxSize, int maxWeight) {
+		synchronized (fgHierarchyCache) {
+			fgMaxSize= maxSize;
+			fgMaxWeight= maxWeight;
+			evictEntries(null);
+		}
+	}
+
+	/**
+	 * Returns the maximum number of cached hierarchies.
+	 *
+	 * @return the maximum number of cached hierarchies
+	 * @see #setCacheLimits(int, int)
+	 */
+	public static int getMaxCacheSize() {
+		synchronized (fgHierarchyCache) {
+			return fgMaxSize;
+		}
+	}
+
+	/**
+	 * Returns the maximum accumulated number of types in the cached hierarchies.
+	 *
+	 * @return the maximum accumulated number of types
+	 * @see #setCacheLimits(int, int)
+	 */
+	public static int getMaxCacheWeight() {
+		synchronized (fgHierarchyCache) {
+			return fgMaxWeight;
+		}
+	}
+
+	/**
+	 * Removes all hierarchies and method override testers from the cache.
+	 */
+	public static void flushCache() {
+		synchronized (fgHierarchyCache) {
+			for (int i= fgHierarchyCache.size() - 1; i >= 0; i--) {
+				removeHierarchyEntryFromCache(fgHierarchyCache.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Returns a snapshot of the statistics of the cache.
+	 *
+	 * @return the statistics
+	 */
+	public static CacheStatistics getStatistics() {
+		synchronized (fgHierarchyCache) {
+			return new CacheStatistics(fgCacheHits.get(), fgCacheMisses.get(), fgCacheEvictions.get(), fgHierarchyCache.size(), fgCacheWeight);
+		}
+	}
+
+	/**
+	 * Resets the hit, miss and eviction counters.
+	 */
+	public static void resetStatistics() {
+		fgCacheHits.set(0);
+		fgCacheMisses.set(0);
+		fgCacheEvictions.set(0);
+	}
 
 	/**
 	 * Gets the number of times the hierarchy could be taken from the hierarchy.
 	 * @return Returns a int
 	 */
 	public static int getCacheHits() {
-		return fgCacheHits;
+		return (int) fgCacheHits.get();
 	}
 
 	/**
@@ -231,6 +449,6 @@ public class SuperTypeHierarchyCache {
 	 * @return Returns a int
 	 */
 	public static int getCacheMisses() {
-		return fgCacheMisses;
+		return (int) fgCacheMisses.get();
 	}
 }
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.manipulation.TypeNameMatchCollector;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+
+/**
+ * An index from simple type names to the {@link TypeNameMatch}es found by
+ * {@link SearchEngine#searchAllTypeNames(char[][], char[][], IJavaSearchScope, org.eclipse.jdt.core.search.TypeNameMatchRequestor, int, IProgressMonitor)}
+ * in the scope of a project, shared by the operations of a batch.
+ * <p>
+ * Every simple name is searched only once per project scope while the index is acquired. The
+ * index is cleared when a Java element delta adds, removes or changes the modifiers of a type,
+ * or changes a classpath. The shared index is available between {@link #acquire()} and the
+ * matching {@link #release()}; if the system property
+ * <code>org.eclipse.jdt.core.manipulation.typeNameIndex.session</code> is <code>true</code>, it is
+ * kept for the whole session.
+ * </p>
+ */
+public final class TypeNameMatchIndex implements IElementChangedListener {
+
+	private static final boolean SESSION_SCOPED= Boolean.getBoolean("org.eclipse.jdt.core.manipulation.typeNameIndex.session"); //$NON-NLS-1$
+
+	private static TypeNameMatchIndex fgShared;
+	private static int fgAcquireCount;
+
+	/**
+	 * Acquires the shared index. Every call must be followed by a call to {@link #release()}.
+	 */
+	public static synchronized void acquire() {
+		if (fgShared == null) {
+			fgShared= new TypeNameMatchIndex();
+			JavaCore.addElementChangedListener(fgShared);
+		}
+		fgAcquireCount++;
+	}
+
+	/**
+	 * Releases the shared index. The index is discarded when it has been released as often as it
+	 * has been acquired, unless it is session scoped.
+	 */
+	public static synchronized void release() {
+		if (fgAcquireCount == 0)
+			return;
+		fgAcquireCount--;
+		if (fgAcquireCount == 0 && !SESSION_SCOPED && fgShared != null) {
+			JavaCore.removeElementChangedListener(fgShared);
+			fgShared= null;
+		}
+	}
+
+	/**
+	 * Returns the shared index.
+	 *
+	 * @return the shared index, or <code>null</code> if it has not been acquired and is not
+	 *         session scoped
+	 */
+	public static synchronized TypeNameMatchIndex getShared() {
+		if (fgShared == null && SESSION_SCOPED) {
+			fgShared= new TypeNameMatchIndex();
+			JavaCore.addElementChangedListener(fgShared);
+		}
+		return fgShared;
+	}
+
+	/** The matches by simple name, by scope key */
+	private final Map<String, Map<String, List<TypeNameMatch>>> fMatches= new HashMap<>();
+	/** Incremented whenever the index is cleared */
+	private long fGeneration;
+
+	private TypeNameMatchIndex() {
+	}
+
+	/**
+	 * Searches the types with the given simple names in the given project, like
+	 * <code>searchAllTypeNames(null, simpleNames, SearchEngine.createJavaSearchScope(excludeTestCode, new IJavaElement[] { project }, true), new TypeNameMatchCollector(result), IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor)</code>
+	 * does. Only the names which have not been searched in this scope before are searched.
+	 *
+	 * @param project the project
+	 * @param excludeTestCode whether types in test code are excluded
+	 * @param simpleNames the simple type names
+	 * @param monitor the progress monitor, or <code>null</code>
+	 * @return the matches
+	 * @throws JavaModelException if the search fails
+	 */
+	public List<TypeNameMatch> searchAllTypeNames(IJavaProject project, boolean excludeTestCode, char[][] simpleNames, IProgressMonitor monitor) throws JavaModelException {
+		String scopeKey= project.getHandleIdentifier() + (excludeTestCode ? "/main" : "/all"); //$NON-NLS-1$ //$NON-NLS-2$
+		List<TypeNameMatch> result= new ArrayList<>();
+		List<char[]> missingNames= new ArrayList<>();
+		long generation;
+		synchronized (this) {
+			generation= fGeneration;
+			Map<String, List<TypeNameMatch>> matches= fMatches.get(scopeKey);
+			for (int i= 0; i < simpleNames.length; i++) {
+				List<TypeNameMatch> cached= matches != null ? matches.get(new String(simpleNames[i])) : null;
+				if (cached != null)
+					result.addAll(cached);
+				else
+					missingNames.add(simpleNames[i]);
+			}
+		}
+		if (missingNames.isEmpty())
+			return result;
+
+		List<TypeNameMatch> typesFound= new ArrayList<>();
+		IJavaSearchScope scope= SearchEngine.createJavaSearchScope(excludeTestCode, new IJavaElement[] { project }, true);
+		new SearchEngine().searchAllTypeNames(null, missingNames.toArray(new char[missingNames.size()][]), scope, new TypeNameMatchCollector(typesFound), IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+		result.addAll(typesFound);
+
+		Map<String, List<TypeNameMatch>> found= new HashMap<>();
+		for (int i= 0, n= missingNames.size(); i < n; i++)
+			found.put(new String(missingNames.get(i)), new ArrayList<TypeNameMatch>(1));
+		for (int i= 0, n= typesFound.size(); i < n; i++) {
+			TypeNameMatch match= typesFound.get(i);
+			List<TypeNameMatch> matches= found.get(match.getSimpleTypeName());
+			if (matches != null)
+				matches.add(match);
+		}
+		synchronized (this) {
+			// don't store the matches if the index has been cleared during the search
+			if (generation == fGeneration) {
+				Map<String, List<TypeNameMatch>> matches= fMatches.get(scopeKey);
+				if (matches == null) {
+					matches= new HashMap<>();
+					fMatches.put(scopeKey, matches);
+				}
+				matches.putAll(found);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Clears the index.
+	 */
+	public synchronized void clear() {
+		fMatches.clear();
+		fGeneration++;
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		if (isTypeSetChanged(event.getDelta()))
+			clear();
+	}
+
+	/**
+	 * Computes whether the given delta can add or remove types or change their modifiers.
+	 *
+	 * @param delta the Java element delta
+	 * @return <code>true</code> if the searched types may have changed
+	 */
+	private static boolean isTypeSetChanged(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		boolean isChanged= delta.getKind() == IJavaElementDelta.CHANGED;
+		int flags= delta.getFlags();
+
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				return isChildrenTypeSetChanged(delta);
+			case IJavaElement.JAVA_PROJECT:
+				if (!isChanged || (flags & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0)
+					return true;
+				return isChildrenTypeSetChanged(delta);
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				if (!isChanged || (flags & (IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH)) != 0)
+					return true;
+				return isChildrenTypeSetChanged(delta);
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (!isChanged)
+					return true;
+				return isChildrenTypeSetChanged(delta);
+			case IJavaElement.CLASS_FILE:
+				return true;
+			case IJavaElement.COMPILATION_UNIT:
+				// only primary compilation units are searched
+				if (!JavaModelUtil.isPrimary((ICompilationUnit) element))
+					return false;
+				if (!isChanged || (flags & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED)) == IJavaElementDelta.F_CONTENT)
+					return true;
+				return isChildrenTypeSetChanged(delta);
+			case IJavaElement.TYPE:
+				if (!isChanged || (flags & IJavaElementDelta.F_MODIFIERS) != 0)
+					return true;
+				return isChildrenTypeSetChanged(delta);
+			default:
+				// fields, methods, imports etc.
+				return false;
+		}
+	}
+
+	private static boolean isChildrenTypeSetChanged(IJavaElementDelta delta) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (isTypeSetChanged(children[i]))
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IType;
+
+/**
+ * A test finder which looks up the results of another test finder in the {@link TestSearchCache}
+ * before searching.
+ */
+public class CachingTestFinder implements ITestFinder {
+
+	private final String fKindId;
+	private final ITestFinder fFinder;
+
+	/**
+	 * @param kindId the id of the test kind of the finder
+	 * @param finder the finder which searches the tests
+	 */
+	public CachingTestFinder(String kindId, ITestFinder finder) {
+		fKindId= kindId;
+		fFinder= finder;
+	}
+
+	@Override
+	public void findTestsInContainer(IJavaElement element, Set<IType> result, IProgressMonitor pm) throws CoreException {
+		if (element == null || result == null) {
+			throw new IllegalArgumentException();
+		}
+		if (!isCacheable(element)) {
+			fFinder.findTestsInContainer(element, result, pm);
+			return;
+		}
+
+		TestSearchCache cache= TestSearchCache.getDefault();
+		Set<IType> tests= cache.getTests(fKindId, element);
+		if (tests == null) {
+			long generation= cache.getGeneration();
+			tests= new HashSet<>();
+			fFinder.findTestsInContainer(element, tests, pm);
+			if (pm == null || !pm.isCanceled())
+				cache.putTests(fKindId, element, tests, generation);
+		}
+		result.addAll(tests);
+	}
+
+	@Override
+	public boolean isTest(IType type) throws CoreException {
+		if (!isCacheable(type))
+			return fFinder.isTest(type);
+
+		TestSearchCache cache= TestSearchCache.getDefault();
+		Boolean isTest= cache.isTest(fKindId, type);
+		if (isTest == null) {
+			long generation= cache.getGeneration();
+			isTest= Boolean.valueOf(fFinder.isTest(type));
+			cache.putTest(fKindId, type, isTest.booleanValue(), generation);
+		}
+		return isTest.booleanValue();
+	}
+
+	/**
+	 * @return the finder which searches the tests
+	 */
+	public ITestFinder getFinder() {
+		return fFinder;
+	}
+
+	/*
+	 * Elements of working copies which are not primary have the same handle identifier as their
+	 * primary elements.
+	 */
+	static boolean isCacheable(IJavaElement element) {
+		ICompilationUnit cu= (ICompilationUnit) element.getAncestor(IJavaElement.COMPILATION_UNIT);
+		return cu == null || cu.getOwner() == null;
+	}
+}
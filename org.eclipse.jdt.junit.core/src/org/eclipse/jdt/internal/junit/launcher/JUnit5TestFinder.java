@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 IBM Corporation and others.
+ * Copyright (c) 2016, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -220,7 +220,7 @@ public class JUnit5TestFinder implements ITestFinder {
 
 			// search for all types with references to RunWith and Test and all subclasses
 			for (IType type : allClasses) {
-				if (internalIsTest(type, pm) && region.contains(type)) {
+				if (region.contains(type) && isCachedTest(type, pm)) {
 					addTypeAndSubtypes(type, result, hierarchy);
 				}
 			}
@@ -252,6 +252,22 @@ public class JUnit5TestFinder implements ITestFinder {
 		return internalIsTest(type, null);
 	}
 
+	/*
+	 * The types of a region are parsed one by one, share the results with isTest(IType).
+	 */
+	private boolean isCachedTest(IType type, IProgressMonitor monitor) throws JavaModelException {
+		if (!CachingTestFinder.isCacheable(type))
+			return internalIsTest(type, monitor);
+		TestSearchCache cache= TestSearchCache.getDefault();
+		Boolean isTest= cache.isTest(TestKindRegistry.JUNIT5_TEST_KIND_ID, type);
+		if (isTest == null) {
+			long generation= cache.getGeneration();
+			isTest= Boolean.valueOf(internalIsTest(type, monitor));
+			cache.putTest(TestKindRegistry.JUNIT5_TEST_KIND_ID, type, isTest.booleanValue(), generation);
+		}
+		return isTest.booleanValue();
+	}
+
 	private boolean internalIsTest(IType type, IProgressMonitor monitor) throws JavaModelException {
 		if (CoreTestSearchEngine.isAccessibleClass(type, TestKindRegistry.JUNIT5_TEST_KIND_ID)) {
 			if (CoreTestSearchEngine.hasSuiteMethod(type)) { // since JUnit 4.3.1
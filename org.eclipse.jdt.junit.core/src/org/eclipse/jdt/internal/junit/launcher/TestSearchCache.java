@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Caches which types are tests and which tests are found in a container, per test kind. The
+ * cache is shared by all test finders, see {@link CachingTestFinder}.
+ * <p>
+ * Whether a type is a test depends on its annotations, modifiers, members and super types, which
+ * may be declared in other compilation units. The cache is therefore kept as long as only method
+ * bodies are edited, any other change to a compilation unit, an added or removed element or a
+ * class path change clears the cache.
+ * </p>
+ */
+public class TestSearchCache implements IElementChangedListener {
+
+	private static TestSearchCache fgDefault;
+
+	/**
+	 * Returns the cache shared by the test finders.
+	 *
+	 * @return the cache
+	 */
+	public static synchronized TestSearchCache getDefault() {
+		if (fgDefault == null) {
+			fgDefault= new TestSearchCache();
+			JavaCore.addElementChangedListener(fgDefault, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Stops listening to Java element changes and discards the shared cache.
+	 */
+	public static synchronized void disposeDefault() {
+		if (fgDefault != null) {
+			JavaCore.removeElementChangedListener(fgDefault);
+			fgDefault.clear();
+			fgDefault= null;
+		}
+	}
+
+	/** Key is test kind id and handle identifier of the type */
+	private final Map<String, Boolean> fTests= new HashMap<>();
+
+	/** Key is test kind id and handle identifier of the container */
+	private final Map<String, Set<IType>> fContainerTests= new HashMap<>();
+
+	/** Incremented whenever the cache is cleared */
+	private long fGeneration;
+
+	private TestSearchCache() {
+	}
+
+	/**
+	 * Returns the current generation, to be passed to the put methods after the search.
+	 *
+	 * @return the generation
+	 */
+	public synchronized long getGeneration() {
+		return fGeneration;
+	}
+
+	/**
+	 * Tells whether the given type has been found to be a test before.
+	 *
+	 * @param kindId the id of the test kind
+	 * @param type the type
+	 * @return whether the type is a test, or <code>null</code> if this is not known
+	 */
+	public synchronized Boolean isTest(String kindId, IType type) {
+		return fTests.get(getKey(kindId, type));
+	}
+
+	/**
+	 * Stores whether the given type is a test, unless the cache has been cleared since the search
+	 * has been started.
+	 *
+	 * @param kindId the id of the test kind
+	 * @param type the type
+	 * @param isTest whether the type is a test
+	 * @param generation the generation returned by {@link #getGeneration()} before the search
+	 */
+	public synchronized void putTest(String kindId, IType type, boolean isTest, long generation) {
+		if (generation == fGeneration)
+			fTests.put(getKey(kindId, type), Boolean.valueOf(isTest));
+	}
+
+	/**
+	 * Returns the tests which have been found in the given container before.
+	 *
+	 * @param kindId the id of the test kind
+	 * @param container the container
+	 * @return a copy of the tests, or <code>null</code> if they are not known
+	 */
+	public synchronized Set<IType> getTests(String kindId, IJavaElement container) {
+		Set<IType> tests= fContainerTests.get(getKey(kindId, container));
+		return tests != null ? new HashSet<>(tests) : null;
+	}
+
+	/**
+	 * Stores the tests found in the given container, unless the cache has been cleared since the
+	 * search has been started.
+	 *
+	 * @param kindId the id of the test kind
+	 * @param container the container
+	 * @param tests the tests
+	 * @param generation the generation returned by {@link #getGeneration()} before the search
+	 */
+	public synchronized void putTests(String kindId, IJavaElement container, Set<IType> tests, long generation) {
+		if (generation == fGeneration)
+			fContainerTests.put(getKey(kindId, container), new HashSet<>(tests));
+	}
+
+	/**
+	 * Clears the cache.
+	 */
+	public synchronized void clear() {
+		fTests.clear();
+		fContainerTests.clear();
+		fGeneration++;
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		if (isAffectingTests(event.getDelta()))
+			clear();
+	}
+
+	private static boolean isAffectingTests(IJavaElementDelta delta) {
+		if (delta.getKind() != IJavaElementDelta.CHANGED)
+			return true;
+		int flags= delta.getFlags();
+		switch (delta.getElement().getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				break;
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				// content changes of these elements are changes of non-Java resources
+				if ((flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) != 0)
+					return true;
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+				// a body only change is reported as a fine grained delta without affected children
+				if ((flags & IJavaElementDelta.F_CONTENT) != 0 && (flags & IJavaElementDelta.F_FINE_GRAINED) == 0)
+					return true;
+				break;
+			default:
+				// any change to a member, an import or a class file
+				return true;
+		}
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (isAffectingTests(children[i]))
+				return true;
+		}
+		return false;
+	}
+
+	private static String getKey(String kindId, IJavaElement element) {
+		return kindId + '|' + element.getHandleIdentifier();
+	}
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.internal.junit.model.TestElement;
+import org.eclipse.jdt.internal.junit.model.TestRunHistory;
+
+/**
+ * Splits the test types of a launch into shards which are run by concurrent test runners.
+ * <p>
+ * The shards should take about the same time, so the types are distributed using the time they
+ * took in earlier runs of the same launch configuration, see {@link TestRunHistory}: the longest
+ * types are assigned first, each to the shard which takes the least time so far. Types which have
+ * not been run before are assumed to take the average time of the known types. Types with failed
+ * tests are assigned before all others, so that they are spread over the shards and run first in
+ * their shard.
+ * </p>
+ */
+public class TestSharder {
+
+	private static class ShardedType {
+		final IJavaElement fElement;
+		final double fDuration;
+		final boolean fHasFailures;
+
+		ShardedType(IJavaElement element, double duration, boolean hasFailures) {
+			fElement= element;
+			fDuration= duration;
+			fHasFailures= hasFailures;
+		}
+	}
+
+	private TestSharder() {
+	}
+
+	/**
+	 * Splits the given test types into at most <code>shardCount</code> shards.
+	 *
+	 * @param testElements the test types
+	 * @param shardCount the number of shards
+	 * @param durations the time in seconds the types took before, keyed by fully qualified name
+	 * @param failedClassNames the fully qualified names of the types with failed tests
+	 * @return the shards, none of which is empty
+	 */
+	public static IJavaElement[][] split(IJavaElement[] testElements, int shardCount, Map<String, Double> durations, Set<String> failedClassNames) {
+		int count= Math.max(1, Math.min(shardCount, testElements.length));
+		if (count == 1)
+			return new IJavaElement[][] { testElements };
+
+		double knownDuration= 0;
+		int knownCount= 0;
+		for (IJavaElement element : testElements) {
+			Double duration= durations.get(getClassName(element));
+			if (duration != null) {
+				knownDuration+= duration.doubleValue();
+				knownCount++;
+			}
+		}
+		double defaultDuration= knownCount > 0 ? knownDuration / knownCount : 1;
+
+		List<ShardedType> types= new ArrayList<>(testElements.length);
+		for (IJavaElement element : testElements) {
+			String className= getClassName(element);
+			Double duration= durations.get(className);
+			types.add(new ShardedType(element, duration != null ? duration.doubleValue() : defaultDuration, failedClassNames.contains(className)));
+		}
+		types.sort(new Comparator<ShardedType>() {
+			@Override
+			public int compare(ShardedType t1, ShardedType t2) {
+				if (t1.fHasFailures != t2.fHasFailures)
+					return t1.fHasFailures ? -1 : 1;
+				return Double.compare(t2.fDuration, t1.fDuration);
+			}
+		});
+
+		List<List<IJavaElement>> shards= new ArrayList<>(count);
+		double[] shardDurations= new double[count];
+		for (int i= 0; i < count; i++) {
+			shards.add(new ArrayList<IJavaElement>());
+		}
+		for (ShardedType type : types) {
+			int shortest= 0;
+			for (int i= 1; i < count; i++) {
+				if (shardDurations[i] < shardDurations[shortest])
+					shortest= i;
+			}
+			shards.get(shortest).add(type.fElement);
+			shardDurations[shortest]+= type.fDuration;
+		}
+
+		IJavaElement[][] result= new IJavaElement[count][];
+		for (int i= 0; i < count; i++) {
+			List<IJavaElement> shard= shards.get(i);
+			result[i]= shard.toArray(new IJavaElement[shard.size()]);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the names of the classes with failed tests from a file written for the
+	 * <code>-testfailures</code> argument of the test runner.
+	 *
+	 * @param failureNamesFile the file name, may be empty
+	 * @return the fully qualified class names
+	 */
+	public static Set<String> readFailedClassNames(String failureNamesFile) {
+		Set<String> classNames= new HashSet<>();
+		if (failureNamesFile.isEmpty())
+			return classNames;
+		try (BufferedReader reader= new BufferedReader(new InputStreamReader(new FileInputStream(new File(failureNamesFile)), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line= reader.readLine()) != null) {
+				if (!line.isEmpty())
+					classNames.add(TestElement.extractRawClassName(line).replace('$', '.'));
+			}
+		} catch (IOException e) {
+			// the failures are only used to order the tests
+		}
+		return classNames;
+	}
+
+	/**
+	 * Tells whether the given test elements can be split, i.e. whether there are several of them
+	 * and all are types.
+	 *
+	 * @param testElements the test elements of a launch
+	 * @return <code>true</code> if the elements can be split into shards
+	 */
+	public static boolean canSplit(IJavaElement[] testElements) {
+		return testElements.length > 1 && Arrays.stream(testElements).allMatch(e -> e instanceof IType);
+	}
+
+	private static String getClassName(IJavaElement element) {
+		return ((IType) element).getFullyQualifiedName('.');
+	}
+}
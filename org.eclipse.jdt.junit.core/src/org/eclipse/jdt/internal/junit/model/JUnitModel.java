@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -125,16 +125,26 @@ public final class JUnitModel {
 			if (portStr == null)
 				return;
 			try {
-				final int port= Integer.parseInt(portStr);
+				final int[] ports;
+				String shardPortsStr= launch.getAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_PORTS);
+				if (shardPortsStr != null) {
+					String[] shardPorts= shardPortsStr.split(","); //$NON-NLS-1$
+					ports= new int[shardPorts.length];
+					for (int i= 0; i < shardPorts.length; i++) {
+						ports[i]= Integer.parseInt(shardPorts[i]);
+					}
+				} else {
+					ports= new int[] { Integer.parseInt(portStr) };
+				}
 				fTrackedLaunches.remove(launch);
-				connectTestRunner(launch, javaProject, port);
+				connectTestRunner(launch, javaProject, ports);
 			} catch (NumberFormatException e) {
 				return;
 			}
 		}
 
-		private void connectTestRunner(ILaunch launch, IJavaProject javaProject, int port) {
-			TestRunSession testRunSession= new TestRunSession(launch, javaProject, port);
+		private void connectTestRunner(ILaunch launch, IJavaProject javaProject, int[] ports) {
+			TestRunSession testRunSession= new TestRunSession(launch, javaProject, ports);
 			addTestRunSession(testRunSession);
 			
 			for (TestRunListener listener : JUnitCorePlugin.getDefault().getNewTestRunListeners()) {
@@ -341,6 +351,42 @@ public final class JUnitModel {
 		return new ArrayList<>(fTestRunSessions);
 	}
 
+	/**
+	 * Returns the history of the tests of the given launch configuration, derived from the active
+	 * {@link TestRunSession}s of the configuration.
+	 *
+	 * @param testRunName the name of the launch configuration
+	 * @param project the launched project
+	 * @return the history
+	 */
+	public TestRunHistory getTestRunHistory(String testRunName, IJavaProject project) {
+		return new TestRunHistory(getTestRunSessions(), testRunName, project);
+	}
+
+	/**
+	 * Writes the history of the tests of the given launch configuration to a temporary file, which
+	 * is passed to the test runner to order the tests.
+	 *
+	 * @param testRunName the name of the launch configuration
+	 * @param project the launched project
+	 * @return the absolute path of the file, or <code>null</code> if no test of the configuration
+	 *         has been run before
+	 * @throws CoreException if the file cannot be written
+	 */
+	public String createTestHistoryFile(String testRunName, IJavaProject project) throws CoreException {
+		TestRunHistory history= getTestRunHistory(testRunName, project);
+		if (history.isEmpty())
+			return null;
+		try {
+			File file= File.createTempFile("testHistory", ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+			file.deleteOnExit();
+			history.write(file);
+			return file.getAbsolutePath();
+		} catch (IOException e) {
+			throw new CoreException(new org.eclipse.core.runtime.Status(IStatus.ERROR, JUnitCorePlugin.CORE_PLUGIN_ID, IStatus.ERROR, "", e)); //$NON-NLS-1$
+		}
+	}
+
 	/**
 	 * Adds the given {@link TestRunSession} and notifies all registered
 	 * {@link ITestRunSessionListener}s.
@@ -15,7 +15,12 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.junit.model;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
@@ -30,6 +35,7 @@ import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.SafeRunner;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.runner.BinaryMessageSender;
 import org.eclipse.jdt.internal.junit.runner.MessageIds;
 import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
 
@@ -228,6 +234,11 @@ public class RemoteTestRunnerClient {
 	private int fPort= -1;
 	private PrintWriter fWriter;
 	private PushbackReader fPushbackReader;
+	private DataInputStream fBinaryInput;
+	/**
+	 * The test names received in the binary protocol, indexed by test id
+	 */
+	private String[] fTestNames= new String[0];
 	private String fLastLineDelimiter;
 	/**
 	 * The protocol version
@@ -266,11 +277,20 @@ public class RemoteTestRunnerClient {
 					System.out.println("Creating server socket "+fServerPort); //$NON-NLS-1$
 				fServerSocket= new ServerSocket(fServerPort);
 				fSocket= fServerSocket.accept();
-				fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(fSocket.getInputStream(), StandardCharsets.UTF_8)));
 				fWriter= new PrintWriter(new OutputStreamWriter(fSocket.getOutputStream(), StandardCharsets.UTF_8), true);
-				String message;
-				while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
-					receiveMessage(message);
+				// read the first line byte-wise, the RemoteTestRunner may switch to the binary protocol after it
+				BufferedInputStream in= new BufferedInputStream(fSocket.getInputStream());
+				String message= readFirstMessage(in);
+				if (message != null && message.equals(MessageIds.PROTOCOL + MessageIds.BINARY_PROTOCOL_V1)) {
+					fBinaryInput= new DataInputStream(in);
+					readBinaryMessages(fBinaryInput);
+				} else {
+					if (message != null)
+						receiveMessage(message);
+					fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+					while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
+						receiveMessage(message);
+				}
 			} catch (SocketException e) {
 				notifyTestRunTerminated();
 			} catch (IOException e) {
@@ -326,6 +346,13 @@ public class RemoteTestRunnerClient {
 			}
 		} catch(IOException e) {
 		}
+		try {
+			if (fBinaryInput != null) {
+				fBinaryInput.close();
+				fBinaryInput= null;
+			}
+		} catch(IOException e) {
+		}
 		try {
 			if (fSocket != null) {
 				fSocket.close();
@@ -372,6 +399,122 @@ public class RemoteTestRunnerClient {
 		return buf.toString();
 	}
 
+	/**
+	 * Reads the first line of the message stream. The line is read byte-wise so that no bytes
+	 * following it are consumed.
+	 *
+	 * @param in the input stream
+	 * @return the line or <code>null</code> if the stream is empty
+	 * @throws IOException if reading fails
+	 */
+	private String readFirstMessage(BufferedInputStream in) throws IOException {
+		ByteArrayOutputStream buf= new ByteArrayOutputStream(128);
+		int b;
+		while ((b= in.read()) != -1) {
+			if (b == '\n') {
+				fLastLineDelimiter= "\n"; //$NON-NLS-1$
+				return new String(buf.toByteArray(), StandardCharsets.UTF_8);
+			} else if (b == '\r') {
+				in.mark(1);
+				if (in.read() == '\n') {
+					fLastLineDelimiter= "\r\n"; //$NON-NLS-1$
+				} else {
+					in.reset();
+					fLastLineDelimiter= "\r"; //$NON-NLS-1$
+				}
+				return new String(buf.toByteArray(), StandardCharsets.UTF_8);
+			} else {
+				buf.write(b);
+			}
+		}
+		fLastLineDelimiter= null;
+		if (buf.size() == 0)
+			return null;
+		return new String(buf.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads frames of the binary protocol until the stream ends.
+	 *
+	 * @param in the input stream
+	 * @throws IOException if reading fails
+	 * @see BinaryMessageSender
+	 */
+	private void readBinaryMessages(DataInputStream in) throws IOException {
+		byte[] frame= new byte[BinaryMessageSender.MAX_FRAME_SIZE];
+		while (true) {
+			int length;
+			try {
+				length= in.readInt();
+			} catch (EOFException e) {
+				return;
+			}
+			if (length > frame.length)
+				frame= new byte[length];
+			in.readFully(frame, 0, length);
+			DataInputStream frameIn= new DataInputStream(new ByteArrayInputStream(frame, 0, length));
+			while (frameIn.available() > 0)
+				receiveBinaryMessage(frameIn);
+		}
+	}
+
+	private void receiveBinaryMessage(DataInputStream in) throws IOException {
+		int code= in.readUnsignedByte();
+		int opcode= code & BinaryMessageSender.OPCODE_MASK;
+		if (opcode == BinaryMessageSender.OP_RAW) {
+			receiveMessage(BinaryMessageSender.readString(in));
+			return;
+		}
+		String header= BinaryMessageSender.getMessageHeader(opcode);
+		if (header == null)
+			throw new IOException("Unknown opcode: " + code); //$NON-NLS-1$
+
+		String arg;
+		if ((code & BinaryMessageSender.FLAG_PLAIN) != 0) {
+			arg= BinaryMessageSender.readString(in);
+		} else if (opcode == BinaryMessageSender.OP_TEST_TREE) {
+			int id= BinaryMessageSender.readVarInt(in);
+			arg= id + "," + BinaryMessageSender.readString(in); //$NON-NLS-1$
+		} else if (BinaryMessageSender.isTestMessage(opcode)) {
+			int id= BinaryMessageSender.readVarInt(in);
+			String name;
+			if ((code & BinaryMessageSender.FLAG_INTERNED) != 0) {
+				name= id < fTestNames.length ? fTestNames[id] : null;
+				if (name == null)
+					throw new IOException("Unknown test id: " + id); //$NON-NLS-1$
+			} else {
+				name= BinaryMessageSender.readString(in);
+				if (id >= fTestNames.length) {
+					String[] names= new String[Math.max(id + 1, fTestNames.length * 2)];
+					System.arraycopy(fTestNames, 0, names, 0, fTestNames.length);
+					fTestNames= names;
+				}
+				fTestNames[id]= name;
+			}
+			arg= id + "," + name; //$NON-NLS-1$
+		} else {
+			arg= BinaryMessageSender.readString(in);
+		}
+
+		// dispatch the frequent messages directly, the others through the state machine
+		if (fCurrentState == fDefaultState) {
+			switch (opcode) {
+				case BinaryMessageSender.OP_TEST_START:
+					notifyTestStarted(arg);
+					return;
+				case BinaryMessageSender.OP_TEST_END:
+					notifyTestEnded(arg);
+					return;
+				case BinaryMessageSender.OP_TEST_TREE:
+					notifyTestTreeEntry(arg);
+					return;
+				default:
+					break;
+			}
+		}
+		receiveMessage(header + arg);
+	}
+
 	private void receiveMessage(String message) {
 	    fCurrentState= fCurrentState.readMessage(message);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -197,6 +197,12 @@ public abstract class TestElement implements ITestElement {
 
 	private boolean fAssumptionFailed;
 
+	/**
+	 * The store from which the failure trace of this element has to be loaded, or
+	 * <code>null</code> if the failure trace is in memory.
+	 */
+	private TestRunSessionStore fFailureStore;
+
 	/**
 	 * Running time in seconds. Contents depend on the current {@link #getProgressState()}:
 	 * <ul>
@@ -262,6 +268,7 @@ public abstract class TestElement implements ITestElement {
 	@Override
 	public FailureTrace getFailureTrace() {
 		Result testResult= getTestResult(false);
+		loadFailure();
 		if (testResult == Result.ERROR || testResult == Result.FAILURE
 				|| (testResult == Result.IGNORED && fTrace != null)) {
 			return new FailureTrace(fTrace, fExpected, fActual);
@@ -305,6 +312,7 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public void setStatus(Status status, String trace, String expected, String actual) {
+		loadFailure();
 		if (trace != null && fTrace != null) {
 			//don't overwrite first trace if same test run logs multiple errors
 			fTrace= fTrace + trace;
@@ -321,21 +329,57 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public String getTrace() {
+		loadFailure();
 		return fTrace;
 	}
 
 	public String getExpected() {
+		loadFailure();
 		return fExpected;
 	}
 
 	public String getActual() {
+		loadFailure();
 		return fActual;
 	}
 
 	public boolean isComparisonFailure() {
+		loadFailure();
 		return fExpected != null && fActual != null;
 	}
 
+	/**
+	 * Sets the status of this element as read from a {@link TestRunSessionStore}, without
+	 * updating the elapsed time or notifying the parent.
+	 *
+	 * @param status the status
+	 */
+	void restoreStatus(Status status) {
+		fStatus= status;
+	}
+
+	/**
+	 * Defers loading the failure trace of this element until it is accessed.
+	 *
+	 * @param store the store that contains the failure trace of this element
+	 */
+	void setFailureStore(TestRunSessionStore store) {
+		fFailureStore= store;
+	}
+
+	private void loadFailure() {
+		TestRunSessionStore store= fFailureStore;
+		if (store == null)
+			return;
+		FailureTrace failureTrace= store.readFailure(fId);
+		if (failureTrace != null) {
+			fTrace= failureTrace.getTrace();
+			fExpected= failureTrace.getExpected();
+			fActual= failureTrace.getActual();
+		}
+		fFailureStore= null;
+	}
+
 	/**
 	 * @return return the class name
 	 * @see org.eclipse.jdt.internal.junit.runner.ITestIdentifier#getName()
@@ -345,7 +389,7 @@ public abstract class TestElement implements ITestElement {
 		return extractClassName(getTestName());
 	}
 
-	private static String extractClassName(String testNameString) {
+	static String extractClassName(String testNameString) {
 		testNameString= extractRawClassName(testNameString);
 		testNameString= testNameString.replace('$', '.'); // see bug 178503
 		return testNameString;
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.IJavaProject;
+
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+import org.eclipse.jdt.internal.junit.model.TestRunSessionStore.ITestCaseVisitor;
+
+/**
+ * The history of the tests of a launch configuration, derived from the earlier test run sessions
+ * of the configuration which are kept by the {@link JUnitModel}.
+ */
+public class TestRunHistory {
+
+	/**
+	 * The history of one test.
+	 */
+	private static class Entry {
+		final String fClassName;
+		int fRuns;
+		int fFailures;
+		int fTimedRuns;
+		double fElapsedTime;
+
+		Entry(String className) {
+			fClassName= className;
+		}
+
+		/**
+		 * @return the average time of the test in seconds
+		 */
+		double getAverageTime() {
+			return fTimedRuns > 0 ? fElapsedTime / fTimedRuns : 0;
+		}
+	}
+
+	/** Map from test name to history */
+	private final Map<String, Entry> fEntries= new LinkedHashMap<>();
+
+	/**
+	 * Creates the history of the tests of the given launch configuration.
+	 *
+	 * @param sessions the test run sessions
+	 * @param testRunName the name of the launch configuration
+	 * @param project the launched project
+	 */
+	TestRunHistory(List<TestRunSession> sessions, String testRunName, IJavaProject project) {
+		ITestCaseVisitor visitor= new ITestCaseVisitor() {
+			@Override
+			public void visit(String testName, Status status, boolean ignored, double elapsedTime) {
+				addTest(testName, status, ignored, elapsedTime);
+			}
+		};
+		for (TestRunSession session : sessions) {
+			// swapped out sessions are read from their swap file and stay swapped out
+			if (!session.isRunning() && testRunName.equals(session.getTestRunName()) && project.equals(session.getLaunchedProject()))
+				session.visitTestCases(visitor);
+		}
+	}
+
+	private void addTest(String testName, Status status, boolean ignored, double elapsedTime) {
+		if (status.isNotRun() || status.isRunning() || ignored)
+			return;
+		Entry entry= fEntries.get(testName);
+		if (entry == null) {
+			entry= new Entry(TestElement.extractClassName(testName));
+			fEntries.put(testName, entry);
+		}
+		entry.fRuns++;
+		if (status.isErrorOrFailure())
+			entry.fFailures++;
+		if (!Double.isNaN(elapsedTime)) {
+			entry.fTimedRuns++;
+			entry.fElapsedTime+= elapsedTime;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if no test has been run before
+	 */
+	public boolean isEmpty() {
+		return fEntries.isEmpty();
+	}
+
+	/**
+	 * Returns the average time the test classes took.
+	 *
+	 * @return the time in seconds, keyed by fully qualified class name
+	 */
+	public Map<String, Double> getClassDurations() {
+		Map<String, Double> durations= new HashMap<>();
+		for (Entry entry : fEntries.values()) {
+			Double duration= durations.get(entry.fClassName);
+			durations.put(entry.fClassName, Double.valueOf(duration != null ? duration.doubleValue() + entry.getAverageTime() : entry.getAverageTime()));
+		}
+		return durations;
+	}
+
+	/**
+	 * Writes the history to a file which can be passed to the test runner. Each line describes
+	 * one test: <code>runs failures averageMillis testName</code>.
+	 *
+	 * @param file the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(File file) throws IOException {
+		try (BufferedWriter bw= new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+			for (Map.Entry<String, Entry> mapEntry : fEntries.entrySet()) {
+				Entry entry= mapEntry.getValue();
+				bw.write(entry.fRuns + " " + entry.fFailures + " " + Math.round(entry.getAverageTime() * 1000) + " " + mapEntry.getKey()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				bw.newLine();
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,6 +16,7 @@
 package org.eclipse.jdt.internal.junit.model;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -45,6 +46,7 @@ import org.eclipse.jdt.internal.junit.JUnitMessages;
 import org.eclipse.jdt.internal.junit.launcher.ITestKind;
 import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
 import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+import org.eclipse.jdt.internal.junit.model.TestRunSessionStore.ITestCaseVisitor;
 import org.eclipse.jdt.internal.junit.runner.MessageIds;
 
 
@@ -67,9 +69,9 @@ public class TestRunSession implements ITestRunSession {
 	private final ITestKind fTestRunnerKind;
 
 	/**
-	 * Test runner client or <code>null</code>.
+	 * Test runner clients, one per shard of the launch, or <code>null</code>.
 	 */
-	private RemoteTestRunnerClient fTestRunnerClient;
+	private RemoteTestRunnerClient[] fTestRunnerClients;
 
 	private final ListenerList<ITestSessionListener> fSessionListeners;
 
@@ -83,6 +85,21 @@ public class TestRunSession implements ITestRunSession {
 	 */
 	private Result fTestResult;
 
+	/**
+	 * The cached status of the model root, or <code>null</code> if <code>fTestRoot != null</code>.
+	 */
+	private Status fTestRootStatus;
+
+	/**
+	 * The cached elapsed time of the model root, only valid if <code>fTestRoot == null</code>.
+	 */
+	private double fTestRootElapsedTime= Double.NaN;
+
+	/**
+	 * The store to which the model is swapped out, or <code>null</code> if never swapped out.
+	 */
+	private TestRunSessionStore fSwapStore;
+
 	/**
 	 * Map from testId to testElement.
 	 */
@@ -100,6 +117,12 @@ public class TestRunSession implements ITestRunSession {
 	 */
 	private TestSuiteElement fUnrootedSuite;
 
+	/**
+	 * Prefix of the test ids of the tree entry which is added, makes the ids of the shards of a
+	 * launch unique.
+	 */
+	private String fIdPrefix= EMPTY_STRING;
+
 	private static final String EMPTY_STRING= ""; //$NON-NLS-1$
 
 	/**
@@ -169,14 +192,27 @@ public class TestRunSession implements ITestRunSession {
 		fTestRoot= new TestRoot(this);
 		fIdToTest= new HashMap<>();
 
-		fTestRunnerClient= null;
+		fTestRunnerClients= null;
 
 		fSessionListeners= new ListenerList<>();
 	}
 
 
 	public TestRunSession(ILaunch launch, IJavaProject project, int port) {
+		this(launch, project, new int[] { port });
+	}
+
+	/**
+	 * Creates a test run session for a launch whose tests are split into shards, which are run by
+	 * concurrent test runners. The events of the test runners are merged into one test run.
+	 *
+	 * @param launch the launch
+	 * @param project the launched project
+	 * @param ports the ports of the test runners, one per shard
+	 */
+	public TestRunSession(ILaunch launch, IJavaProject project, int[] ports) {
 		Assert.isNotNull(launch);
+		Assert.isTrue(ports.length > 0);
 
 		fLaunch= launch;
 		fProject= project;
@@ -193,16 +229,25 @@ public class TestRunSession implements ITestRunSession {
 		fTestRoot= new TestRoot(this);
 		fIdToTest= new HashMap<>();
 
-		fTestRunnerClient= new RemoteTestRunnerClient();
-		fTestRunnerClient.startListening(new ITestRunListener2[] { new TestSessionNotifier() }, port);
+		TestSessionNotifier notifier= new TestSessionNotifier();
+		ShardedRun shardedRun= new ShardedRun(ports.length);
+		fTestRunnerClients= new RemoteTestRunnerClient[ports.length];
+		for (int i= 0; i < ports.length; i++) {
+			ITestRunListener2 listener= ports.length == 1 ? notifier : new ShardNotifier(notifier, shardedRun, i);
+			fTestRunnerClients[i]= new RemoteTestRunnerClient();
+			fTestRunnerClients[i].startListening(new ITestRunListener2[] { listener }, ports[i]);
+		}
 
 		final ILaunchManager launchManager= DebugPlugin.getDefault().getLaunchManager();
 		launchManager.addLaunchListener(new ILaunchesListener2() {
 			@Override
 			public void launchesTerminated(ILaunch[] launches) {
 				if (Arrays.asList(launches).contains(fLaunch)) {
-					if (fTestRunnerClient != null) {
-						fTestRunnerClient.stopWaiting();
+					RemoteTestRunnerClient[] clients= fTestRunnerClients;
+					if (clients != null) {
+						for (RemoteTestRunnerClient client : clients) {
+							client.stopWaiting();
+						}
 					}
 					launchManager.removeLaunchListener(this);
 				}
@@ -210,8 +255,11 @@ public class TestRunSession implements ITestRunSession {
 			@Override
 			public void launchesRemoved(ILaunch[] launches) {
 				if (Arrays.asList(launches).contains(fLaunch)) {
-					if (fTestRunnerClient != null) {
-						fTestRunnerClient.stopWaiting();
+					RemoteTestRunnerClient[] clients= fTestRunnerClients;
+					if (clients != null) {
+						for (RemoteTestRunnerClient client : clients) {
+							client.stopWaiting();
+						}
 					}
 					launchManager.removeLaunchListener(this);
 				}
@@ -282,11 +330,59 @@ public class TestRunSession implements ITestRunSession {
 	}
 
 
+	/**
+	 * Returns the model root. Swaps in the session if it has been swapped out.
+	 *
+	 * @return the model root
+	 * @see #getTestRootStatus()
+	 */
 	public synchronized TestRoot getTestRoot() {
-		swapIn(); //TODO: TestRoot should stay (e.g. for getTestRoot().getStatus())
+		swapIn();
 		return fTestRoot;
 	}
 
+	/**
+	 * Visits the test cases of this session. Does not swap in the session if it has been swapped
+	 * out, but reads the test cases from the swap file.
+	 *
+	 * @param visitor the visitor which is informed about each test case
+	 */
+	public synchronized void visitTestCases(ITestCaseVisitor visitor) {
+		if (fTestRoot != null) {
+			visitTestCases(fTestRoot, visitor);
+			return;
+		}
+		try {
+			getSwapStore().visitTestCases(visitor);
+		} catch (IllegalStateException e) {
+			JUnitCorePlugin.log(e);
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+		}
+	}
+
+	private static void visitTestCases(TestSuiteElement suite, ITestCaseVisitor visitor) {
+		for (ITestElement child : suite.getChildren()) {
+			if (child instanceof TestSuiteElement) {
+				visitTestCases((TestSuiteElement) child, visitor);
+			} else if (child instanceof TestCaseElement) {
+				TestCaseElement testCase= (TestCaseElement) child;
+				visitor.visit(testCase.getTestName(), testCase.getStatus(), testCase.isIgnored(), testCase.getElapsedTimeInSeconds());
+			}
+		}
+	}
+
+	/**
+	 * Returns the status of the model root without swapping in the session.
+	 *
+	 * @return the status of the model root
+	 */
+	public synchronized Status getTestRootStatus() {
+		if (fTestRoot != null)
+			return fTestRoot.getStatus();
+		return fTestRootStatus;
+	}
+
 	/*
 	 * @see org.eclipse.jdt.junit.model.ITestRunSession#getJavaProject()
 	 */
@@ -368,12 +464,12 @@ public class TestRunSession implements ITestRunSession {
 		}
 
 		try {
-			File swapFile= getSwapFile();
-
-			JUnitModel.exportTestRunSession(this, swapFile);
+			getSwapStore().write(fTestRoot);
 			fTestResult= fTestRoot.getTestResult(true);
+			fTestRootStatus= fTestRoot.getStatus();
+			fTestRootElapsedTime= fTestRoot.getElapsedTimeInSeconds();
 			fTestRoot= null;
-			fTestRunnerClient= null;
+			fTestRunnerClients= null;
 			fIdToTest= new HashMap<>();
 			fIncompleteTestSuites= null;
 			fFactoryTestSuites= null;
@@ -381,7 +477,7 @@ public class TestRunSession implements ITestRunSession {
 
 		} catch (IllegalStateException e) {
 			JUnitCorePlugin.log(e);
-		} catch (CoreException e) {
+		} catch (IOException e) {
 			JUnitCorePlugin.log(e);
 		}
 	}
@@ -400,42 +496,61 @@ public class TestRunSession implements ITestRunSession {
 	private File getSwapFile() throws IllegalStateException {
 		File historyDir= JUnitCorePlugin.getHistoryDirectory();
 		String isoTime= new SimpleDateFormat("yyyyMMdd-HHmmss.SSS").format(new Date(getStartTime())); //$NON-NLS-1$
-		String swapFileName= isoTime + ".xml"; //$NON-NLS-1$
+		String swapFileName= isoTime + ".session"; //$NON-NLS-1$
 		return new File(historyDir, swapFileName);
 	}
 
+	private TestRunSessionStore getSwapStore() throws IllegalStateException {
+		if (fSwapStore == null)
+			fSwapStore= new TestRunSessionStore(getSwapFile());
+		return fSwapStore;
+	}
 
+
+	/**
+	 * Swaps in the test tree. Failure traces are only loaded from the swap file when they are
+	 * accessed.
+	 */
 	public synchronized void swapIn() {
 		if (fTestRoot != null)
 			return;
 
+		HashMap<String, TestElement> idToTest= new HashMap<>();
 		try {
-			JUnitModel.importIntoTestRunSession(getSwapFile(), this);
+			fTestRoot= getSwapStore().read(this, idToTest);
+			fIdToTest= idToTest;
 		} catch (IllegalStateException e) {
 			JUnitCorePlugin.log(e);
 			fTestRoot= new TestRoot(this);
-			fTestResult= null;
-		} catch (CoreException e) {
+		} catch (IOException e) {
 			JUnitCorePlugin.log(e);
 			fTestRoot= new TestRoot(this);
-			fTestResult= null;
 		}
+		fTestResult= null;
+		fTestRootStatus= null;
 	}
 
 	public void stopTestRun() {
 		if (isRunning() || ! isKeptAlive())
 			fIsStopped= true;
-		if (fTestRunnerClient != null)
-			fTestRunnerClient.stopTest();
+		RemoteTestRunnerClient[] clients= fTestRunnerClients;
+		if (clients != null) {
+			for (RemoteTestRunnerClient client : clients) {
+				client.stopTest();
+			}
+		}
 	}
 
 	/**
 	 * @return <code>true</code> iff the runtime VM of this test session is still alive
 	 */
 	public boolean isKeptAlive() {
-		if (fTestRunnerClient != null
+		RemoteTestRunnerClient[] clients= fTestRunnerClients;
+		// sharded launches are never kept alive
+		if (clients != null
+				&& clients.length == 1
 				&& fLaunch != null
-				&& fTestRunnerClient.isRunning()
+				&& clients[0].isRunning()
 				&& ILaunchManager.DEBUG_MODE.equals(fLaunch.getLaunchMode())) {
 			ILaunchConfiguration config= fLaunch.getLaunchConfiguration();
 			try {
@@ -473,7 +588,7 @@ public class TestRunSession implements ITestRunSession {
 			} else if (status == Status.FAILURE) {
 				fFailureCount--;
 			}
-			fTestRunnerClient.rerunTest(testId, className, testName);
+			fTestRunnerClients[0].rerunTest(testId, className, testName);
 			return true;
 		}
 		return false;
@@ -486,7 +601,7 @@ public class TestRunSession implements ITestRunSession {
 	private TestElement addTreeEntry(String treeEntry) {
 		// format: testId","testName","isSuite","testcount","isDynamicTest","parentId","displayName","parameterTypes","uniqueId
 		int index0= treeEntry.indexOf(',');
-		String id= treeEntry.substring(0, index0);
+		String id= fIdPrefix + treeEntry.substring(0, index0);
 
 		StringBuffer testNameBuffer= new StringBuffer(100);
 		int index1= scanTestName(treeEntry, index0 + 1, testNameBuffer);
@@ -522,6 +637,8 @@ public class TestRunSession implements ITestRunSession {
 			parentId= treeEntry.substring(index4 + 1, index5);
 			if (parentId.equals("-1")) { //$NON-NLS-1$
 				parentId= null;
+			} else {
+				parentId= fIdPrefix + parentId;
 			}
 
 			int index6= scanTestName(treeEntry, index5 + 1, displayNameBuffer);
@@ -808,6 +925,142 @@ public class TestRunSession implements ITestRunSession {
 		}
 	}
 
+	/**
+	 * The state of a test run whose tests are split into shards. Used as lock for the events of the
+	 * shards.
+	 */
+	private static class ShardedRun {
+		final int fShardCount;
+		int fStartedCount;
+		int fFinishedCount;
+		boolean fIsStopped;
+		boolean fIsTerminated;
+
+		ShardedRun(int shardCount) {
+			fShardCount= shardCount;
+		}
+	}
+
+	/**
+	 * Forwards the events of the test runner of one shard to the {@link TestSessionNotifier}. The
+	 * test ids of the shard are prefixed with the index of the shard, the test run starts when the
+	 * first shard starts and ends when all shards have finished. Each test runner reports from its
+	 * own thread, so the events are forwarded one at a time.
+	 */
+	private class ShardNotifier implements ITestRunListener2 {
+
+		private final TestSessionNotifier fNotifier;
+		private final ShardedRun fRun;
+		private final String fShardIdPrefix;
+
+		/**
+		 * The suites of this shard for which additional children are expected.
+		 */
+		private final List<IncompleteTestSuite> fShardIncompleteTestSuites= new ArrayList<>();
+		private final List<IncompleteTestSuite> fShardFactoryTestSuites= new ArrayList<>();
+
+		private boolean fIsFinished;
+
+		ShardNotifier(TestSessionNotifier notifier, ShardedRun run, int shardIndex) {
+			fNotifier= notifier;
+			fRun= run;
+			fShardIdPrefix= shardIndex + ":"; //$NON-NLS-1$
+		}
+
+		@Override
+		public void testRunStarted(int testCount) {
+			synchronized (fRun) {
+				if (fRun.fStartedCount++ == 0) {
+					fNotifier.testRunStarted(testCount);
+				} else {
+					fTotalCount+= testCount;
+				}
+			}
+		}
+
+		@Override
+		public void testRunEnded(long elapsedTime) {
+			synchronized (fRun) {
+				finish();
+			}
+		}
+
+		@Override
+		public void testRunStopped(long elapsedTime) {
+			synchronized (fRun) {
+				fRun.fIsStopped= true;
+				finish();
+			}
+		}
+
+		@Override
+		public void testRunTerminated() {
+			synchronized (fRun) {
+				fRun.fIsTerminated= true;
+				finish();
+			}
+		}
+
+		private void finish() {
+			if (fIsFinished)
+				return;
+			fIsFinished= true;
+			if (++fRun.fFinishedCount < fRun.fShardCount)
+				return;
+
+			long elapsedTime= fStartTime > 0 ? System.currentTimeMillis() - fStartTime : 0;
+			if (fRun.fIsTerminated) {
+				fNotifier.testRunTerminated();
+			} else if (fRun.fIsStopped) {
+				fNotifier.testRunStopped(elapsedTime);
+			} else {
+				fNotifier.testRunEnded(elapsedTime);
+			}
+		}
+
+		@Override
+		public void testTreeEntry(String description) {
+			synchronized (fRun) {
+				fIncompleteTestSuites= fShardIncompleteTestSuites;
+				fFactoryTestSuites= fShardFactoryTestSuites;
+				fIdPrefix= fShardIdPrefix;
+				try {
+					fNotifier.testTreeEntry(description);
+				} finally {
+					fIdPrefix= EMPTY_STRING;
+				}
+			}
+		}
+
+		@Override
+		public void testStarted(String testId, String testName) {
+			synchronized (fRun) {
+				fNotifier.testStarted(fShardIdPrefix + testId, testName);
+			}
+		}
+
+		@Override
+		public void testEnded(String testId, String testName) {
+			synchronized (fRun) {
+				fNotifier.testEnded(fShardIdPrefix + testId, testName);
+			}
+		}
+
+		@Override
+		public void testFailed(int statusCode, String testId, String testName, String trace, String expected, String actual) {
+			synchronized (fRun) {
+				fNotifier.testFailed(statusCode, fShardIdPrefix + testId, testName, trace, expected, actual);
+			}
+		}
+
+		@Override
+		public void testReran(String testId, String className, String testName, int statusCode, String trace, String expectedResult, String actualResult) {
+			synchronized (fRun) {
+				fNotifier.testReran(fShardIdPrefix + testId, className, testName, statusCode, trace, expectedResult, actualResult);
+			}
+		}
+	}
+
 	private static class IncompleteTestSuite {
 		public TestSuiteElement fTestSuiteElement;
 		public int fOutstandingChildren;
@@ -875,7 +1128,7 @@ public class TestRunSession implements ITestRunSession {
 	@Override
 	public double getElapsedTimeInSeconds() {
 		if (fTestRoot == null)
-			return Double.NaN;
+			return fTestRootElapsedTime;
 
 		return fTestRoot.getElapsedTimeInSeconds();
 	}
@@ -0,0 +1,425 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.junit.model.ITestElement;
+import org.eclipse.jdt.junit.model.ITestElement.FailureTrace;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+
+/**
+ * The on-disk store of a swapped out {@link TestRunSession}.
+ * <p>
+ * The store is a binary file with the following sections:
+ * </p>
+ * <ul>
+ * <li>a header with the magic number and the version</li>
+ * <li>the test tree, depth-first starting with the {@link TestRoot}: the kind, id, names, status
+ * and elapsed time of each element, and the children of each suite. Failure traces are not
+ * part of the tree</li>
+ * <li>the failures: the id, trace, expected and actual value of each element that has a
+ * failure trace</li>
+ * <li>the index: the offset of each failure in the file by test id</li>
+ * <li>a trailer with the offset of the index and the magic number</li>
+ * </ul>
+ * <p>
+ * {@link #read(TestRunSession, Map)} only reads the test tree. Elements with a failure trace
+ * load it by test id from the failures section when it is first accessed, see
+ * {@link #readFailure(String)}. {@link #visitTestCases(ITestCaseVisitor)} reads the test cases
+ * without building the test tree.
+ * </p>
+ */
+public final class TestRunSessionStore {
+
+	/**
+	 * Visits the test cases of a test run session.
+	 *
+	 * @see TestRunSession#visitTestCases(ITestCaseVisitor)
+	 */
+	public interface ITestCaseVisitor {
+
+		/**
+		 * @param testName the test name
+		 * @param status the status of the test case
+		 * @param ignored <code>true</code> if the test case has been ignored
+		 * @param elapsedTime the elapsed time in seconds, or {@link Double#NaN} if unknown
+		 */
+		void visit(String testName, Status status, boolean ignored, double elapsedTime);
+	}
+
+	private static final int MAGIC= 0x4A545253; // "JTRS"
+	private static final int VERSION= 1;
+	private static final int TRAILER_LENGTH= 8 + 4;
+
+	private static final byte KIND_ROOT= 0;
+	private static final byte KIND_SUITE= 1;
+	private static final byte KIND_CASE= 2;
+
+	private static final int FLAG_ASSUMPTION_FAILED= 0x01;
+	private static final int FLAG_IGNORED= 0x02;
+	private static final int FLAG_DYNAMIC_TEST= 0x04;
+	private static final int FLAG_HAS_FAILURE= 0x08;
+
+	private static final Status[] STATUS_CODES= {
+		Status.NOT_RUN,
+		Status.RUNNING,
+		Status.RUNNING_ERROR,
+		Status.RUNNING_FAILURE,
+		Status.OK,
+		Status.ERROR,
+		Status.FAILURE,
+	};
+
+	private final File fFile;
+
+	/**
+	 * Map from testId to the offset of its failure, or <code>null</code> if not loaded yet.
+	 */
+	private Map<String, Integer> fFailureIndex;
+
+	/**
+	 * @param file the file of this store
+	 */
+	public TestRunSessionStore(File file) {
+		fFile= file;
+	}
+
+	public File getFile() {
+		return fFile;
+	}
+
+	/**
+	 * Writes the given test tree to this store, replacing its previous contents.
+	 *
+	 * @param testRoot the test root
+	 * @throws IOException if writing fails
+	 */
+	public synchronized void write(TestRoot testRoot) throws IOException {
+		File tempFile= new File(fFile.getPath() + ".tmp"); //$NON-NLS-1$
+		try (DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 64 * 1024))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+
+			List<TestElement> failures= new ArrayList<>();
+			writeElement(out, testRoot, failures);
+
+			int[] failureOffsets= new int[failures.size()];
+			for (int i= 0; i < failureOffsets.length; i++) {
+				TestElement failure= failures.get(i);
+				failureOffsets[i]= out.size();
+				writeString(out, failure.getTrace());
+				writeString(out, failure.getExpected());
+				writeString(out, failure.getActual());
+			}
+
+			long indexOffset= out.size();
+			out.writeInt(failureOffsets.length);
+			for (int i= 0; i < failureOffsets.length; i++) {
+				writeString(out, failures.get(i).getId());
+				out.writeInt(failureOffsets[i]);
+			}
+
+			out.writeLong(indexOffset);
+			out.writeInt(MAGIC);
+		}
+		// all failures of elements that were read from the previous contents have been loaded above
+		Files.move(tempFile.toPath(), fFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		fFailureIndex= null;
+	}
+
+	private static void writeElement(DataOutputStream out, TestElement element, List<TestElement> failures) throws IOException {
+		int flags= 0;
+		if (element.isAssumptionFailure())
+			flags|= FLAG_ASSUMPTION_FAILED;
+		if (element.getTrace() != null || element.getExpected() != null || element.getActual() != null) {
+			flags|= FLAG_HAS_FAILURE;
+			failures.add(element);
+		}
+
+		if (element instanceof TestSuiteElement) {
+			TestSuiteElement suite= (TestSuiteElement) element;
+			out.writeByte(element instanceof TestRoot ? KIND_ROOT : KIND_SUITE);
+			writeCommon(out, element, flags);
+			Status childrenStatus= suite.getChildrenStatus();
+			out.writeByte(childrenStatus == null ? -1 : getStatusCode(childrenStatus));
+			ITestElement[] children= suite.getChildren();
+			out.writeInt(children.length);
+			for (int i= 0; i < children.length; i++) {
+				writeElement(out, (TestElement) children[i], failures);
+			}
+
+		} else {
+			TestCaseElement testCase= (TestCaseElement) element;
+			if (testCase.isIgnored())
+				flags|= FLAG_IGNORED;
+			if (testCase.isDynamicTest())
+				flags|= FLAG_DYNAMIC_TEST;
+			out.writeByte(KIND_CASE);
+			writeCommon(out, element, flags);
+		}
+	}
+
+	private static void writeCommon(DataOutputStream out, TestElement element, int flags) throws IOException {
+		out.writeByte(flags);
+		writeString(out, element.getId());
+		writeString(out, element.getTestName());
+		writeString(out, element.getDisplayName());
+		String[] parameterTypes= element.getParameterTypes();
+		if (parameterTypes == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(parameterTypes.length);
+			for (int i= 0; i < parameterTypes.length; i++) {
+				writeString(out, parameterTypes[i]);
+			}
+		}
+		writeString(out, element.getUniqueId());
+		Status status= element instanceof TestSuiteElement ? ((TestSuiteElement) element).getSuiteStatus() : element.getStatus();
+		out.writeByte(getStatusCode(status));
+		out.writeDouble(element.fTime);
+	}
+
+	/**
+	 * Reads the test tree of this store. Failure traces are loaded on demand.
+	 *
+	 * @param session the test run session
+	 * @param idToTest the map to which all read elements except the root are added
+	 * @return the test root
+	 * @throws IOException if the store cannot be read
+	 */
+	public synchronized TestRoot read(TestRunSession session, Map<String, TestElement> idToTest) throws IOException {
+		fFailureIndex= null;
+		try (DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(fFile), 64 * 1024))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException("Not a test run session store: " + fFile); //$NON-NLS-1$
+			if (in.readByte() != KIND_ROOT)
+				throw new IOException("Missing test root: " + fFile); //$NON-NLS-1$
+			TestRoot testRoot= new TestRoot(session);
+			readCommon(in, testRoot);
+			readChildren(in, testRoot, idToTest);
+			return testRoot;
+		}
+	}
+
+	private void readChildren(DataInputStream in, TestSuiteElement suite, Map<String, TestElement> idToTest) throws IOException {
+		int childrenStatus= in.readByte();
+		if (childrenStatus >= 0)
+			suite.restoreChildrenStatus(getStatus(childrenStatus));
+		int childCount= in.readInt();
+		for (int i= 0; i < childCount; i++) {
+			byte kind= in.readByte();
+			int flags= in.readByte();
+			String id= readString(in);
+			String testName= readString(in);
+			String displayName= readString(in);
+			String[] parameterTypes= readStringArray(in);
+			String uniqueId= readString(in);
+
+			TestElement element;
+			if (kind == KIND_SUITE) {
+				element= new TestSuiteElement(suite, id, testName, 0, displayName, parameterTypes, uniqueId);
+			} else if (kind == KIND_CASE) {
+				TestCaseElement testCase= new TestCaseElement(suite, id, testName, displayName, (flags & FLAG_DYNAMIC_TEST) != 0, parameterTypes, uniqueId);
+				testCase.setIgnored((flags & FLAG_IGNORED) != 0);
+				element= testCase;
+			} else {
+				throw new IOException("Unknown element kind " + kind + ": " + fFile); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			restoreState(in, element, flags);
+			idToTest.put(id, element);
+			if (kind == KIND_SUITE)
+				readChildren(in, (TestSuiteElement) element, idToTest);
+		}
+	}
+
+	/**
+	 * Reads the test cases of this store without building the test tree.
+	 *
+	 * @param visitor the visitor which is informed about each test case
+	 * @throws IOException if the store cannot be read
+	 */
+	public synchronized void visitTestCases(ITestCaseVisitor visitor) throws IOException {
+		try (DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(fFile), 64 * 1024))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException("Not a test run session store: " + fFile); //$NON-NLS-1$
+			if (in.readByte() != KIND_ROOT)
+				throw new IOException("Missing test root: " + fFile); //$NON-NLS-1$
+			skipCommon(in);
+			visitChildren(in, visitor);
+		}
+	}
+
+	private void visitChildren(DataInputStream in, ITestCaseVisitor visitor) throws IOException {
+		in.readByte(); // childrenStatus
+		int childCount= in.readInt();
+		for (int i= 0; i < childCount; i++) {
+			byte kind= in.readByte();
+			if (kind == KIND_SUITE) {
+				skipCommon(in);
+				visitChildren(in, visitor);
+			} else if (kind == KIND_CASE) {
+				int flags= in.readByte();
+				readString(in); // id
+				String testName= readString(in);
+				readString(in); // displayName
+				readStringArray(in);
+				readString(in); // uniqueId
+				Status status= getStatus(in.readByte());
+				double time= in.readDouble();
+				visitor.visit(testName, status, (flags & FLAG_IGNORED) != 0, time < 0.0d ? Double.NaN : time);
+			} else {
+				throw new IOException("Unknown element kind " + kind + ": " + fFile); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	private void skipCommon(DataInputStream in) throws IOException {
+		in.readByte(); // flags
+		readString(in); // id
+		readString(in); // testName
+		readString(in); // displayName
+		readStringArray(in);
+		readString(in); // uniqueId
+		getStatus(in.readByte());
+		in.readDouble(); // time
+	}
+
+	private void readCommon(DataInputStream in, TestElement element) throws IOException {
+		int flags= in.readByte();
+		readString(in); // id
+		readString(in); // testName
+		readString(in); // displayName
+		readStringArray(in);
+		readString(in); // uniqueId
+		restoreState(in, element, flags);
+	}
+
+	private void restoreState(DataInputStream in, TestElement element, int flags) throws IOException {
+		element.restoreStatus(getStatus(in.readByte()));
+		element.fTime= in.readDouble();
+		if ((flags & FLAG_ASSUMPTION_FAILED) != 0)
+			element.setAssumptionFailed(true);
+		if ((flags & FLAG_HAS_FAILURE) != 0)
+			element.setFailureStore(this);
+	}
+
+	/**
+	 * Reads the failure trace of a test element.
+	 *
+	 * @param testId the id of the test element
+	 * @return the failure trace, or <code>null</code> if the test element has no failure trace
+	 *         in this store or the store cannot be read
+	 */
+	public synchronized FailureTrace readFailure(String testId) {
+		try (RandomAccessFile file= new RandomAccessFile(fFile, "r")) { //$NON-NLS-1$
+			if (fFailureIndex == null)
+				fFailureIndex= readFailureIndex(file);
+			Integer offset= fFailureIndex.get(testId);
+			if (offset == null)
+				return null;
+			file.seek(offset.intValue());
+			String trace= readString(file);
+			String expected= readString(file);
+			String actual= readString(file);
+			return new FailureTrace(trace, expected, actual);
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+			return null;
+		}
+	}
+
+	private Map<String, Integer> readFailureIndex(RandomAccessFile file) throws IOException {
+		long length= file.length();
+		file.seek(length - TRAILER_LENGTH);
+		long indexOffset= file.readLong();
+		if (file.readInt() != MAGIC || indexOffset < 0 || indexOffset > length - TRAILER_LENGTH)
+			throw new IOException("Corrupt test run session store: " + fFile); //$NON-NLS-1$
+		byte[] index= new byte[(int) (length - TRAILER_LENGTH - indexOffset)];
+		file.seek(indexOffset);
+		file.readFully(index);
+
+		DataInputStream in= new DataInputStream(new ByteArrayInputStream(index));
+		int count= in.readInt();
+		Map<String, Integer> failureIndex= new HashMap<>(count * 4 / 3 + 1);
+		for (int i= 0; i < count; i++) {
+			String testId= readString(in);
+			failureIndex.put(testId, Integer.valueOf(in.readInt()));
+		}
+		return failureIndex;
+	}
+
+	private static int getStatusCode(Status status) {
+		for (int i= 0; i < STATUS_CODES.length; i++) {
+			if (STATUS_CODES[i] == status)
+				return i;
+		}
+		throw new IllegalArgumentException(String.valueOf(status));
+	}
+
+	private Status getStatus(int code) throws IOException {
+		if (code < 0 || code >= STATUS_CODES.length)
+			throw new IOException("Unknown status " + code + ": " + fFile); //$NON-NLS-1$ //$NON-NLS-2$
+		return STATUS_CODES[code];
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes= s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		int length= in.readInt();
+		if (length < 0)
+			return null;
+		byte[] bytes= new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String[] readStringArray(DataInput in) throws IOException {
+		int length= in.readInt();
+		if (length < 0)
+			return null;
+		String[] strings= new String[length];
+		for (int i= 0; i < length; i++) {
+			strings[i]= readString(in);
+		}
+		return strings;
+	}
+}
@@ -90,6 +90,24 @@ public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 		return super.getStatus();
 	}
 
+	/**
+	 * @return the cumulated status of the children, or <code>null</code> if no child has
+	 *         changed its status yet
+	 */
+	Status getChildrenStatus() {
+		return fChildrenStatus;
+	}
+
+	/**
+	 * Sets the cumulated status of the children as read from a {@link TestRunSessionStore},
+	 * without updating the elapsed time or notifying the parent.
+	 *
+	 * @param status the status
+	 */
+	void restoreChildrenStatus(Status status) {
+		fChildrenStatus= status;
+	}
+
 	public void childChangedStatus(TestElement child, Status childStatus) {
 		int childCount= fChildren.size();
 		if (child == fChildren.get(0) && childStatus.isRunning()) {
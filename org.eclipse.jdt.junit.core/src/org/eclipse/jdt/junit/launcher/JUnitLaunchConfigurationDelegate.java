@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -66,11 +66,14 @@ import org.eclipse.jdt.core.JavaModelException;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
 import org.eclipse.jdt.internal.junit.JUnitMessages;
+import org.eclipse.jdt.internal.junit.JUnitPreferencesConstants;
 import org.eclipse.jdt.internal.junit.Messages;
 import org.eclipse.jdt.internal.junit.launcher.ITestKind;
 import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
 import org.eclipse.jdt.internal.junit.launcher.JUnitRuntimeClasspathEntry;
 import org.eclipse.jdt.internal.junit.launcher.TestKindRegistry;
+import org.eclipse.jdt.internal.junit.launcher.TestSharder;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
 import org.eclipse.jdt.internal.junit.util.CoreTestSearchEngine;
 import org.eclipse.jdt.internal.junit.util.IJUnitStatusConstants;
 
@@ -97,6 +100,19 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 	private int fPort;
 	private IJavaElement[] fTestElements;
 
+	/**
+	 * The test elements and ports of the test runners of a sharded launch, the first shard is
+	 * also stored in {@link #fTestElements} and {@link #fPort}.
+	 */
+	private IJavaElement[][] fShards;
+	private int[] fShardPorts;
+
+	/**
+	 * The file with the history of the tests, or <code>null</code> if the tests are not ordered by
+	 * their history.
+	 */
+	private String fTestHistoryFile;
+
 	private static final String DEFAULT= "<default>"; //$NON-NLS-1$
 
 	@Override
@@ -154,11 +170,12 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 
 			fKeepAlive= mode.equals(ILaunchManager.DEBUG_MODE) && configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_KEEPRUNNING, false);
 			fPort= evaluatePort();
-			launch.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PORT, String.valueOf(fPort));
 
 			ITestKind testKind= getTestRunnerKind(configuration);
 			IJavaProject javaProject= getJavaProject(configuration);
-			if (TestKindRegistry.JUNIT3_TEST_KIND_ID.equals(testKind.getId()) || TestKindRegistry.JUNIT4_TEST_KIND_ID.equals(testKind.getId())) {
+			int shardCount= fKeepAlive ? 1 : configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_COUNT, 1);
+			if (TestKindRegistry.JUNIT3_TEST_KIND_ID.equals(testKind.getId()) || TestKindRegistry.JUNIT4_TEST_KIND_ID.equals(testKind.getId()) || shardCount > 1) {
+				// the types of a container are only known if they are searched
 				fTestElements= evaluateTests(configuration, new SubProgressMonitor(monitor, 1));
 			} else {
 				IJavaElement testTarget= getTestTarget(configuration, javaProject);
@@ -169,78 +186,133 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 				}
 			}
 
-			String mainTypeName= verifyMainTypeName(configuration);
-			
+			if (configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_ORDER_BY_HISTORY, false)) {
+				fTestHistoryFile= JUnitCorePlugin.getModel().createTestHistoryFile(configuration.getName(), javaProject);
+			} else {
+				fTestHistoryFile= null;
+			}
 
-			File workingDir = verifyWorkingDirectory(configuration);
-			String workingDirName = null;
-			if (workingDir != null) {
-				workingDirName= workingDir.getAbsolutePath();
+			if (shardCount > 1 && TestSharder.canSplit(fTestElements)) {
+				evaluateShards(configuration, launch, javaProject, shardCount);
+			} else {
+				fShards= null;
+				fShardPorts= null;
 			}
+			// JUnitModel creates the test run session once the port is set, so the shard ports have to be set before
+			launch.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PORT, String.valueOf(fPort));
 
-			// Environment variables
-			String[] envp= getEnvironment(configuration);
+			runConfig= createVMRunnerConfiguration(configuration, mode, javaProject);
 
-			ArrayList<String> vmArguments= new ArrayList<>();
-			ArrayList<String> programArguments= new ArrayList<>();
-			collectExecutionArguments(configuration, vmArguments, programArguments);
-			vmArguments.addAll(Arrays.asList(DebugPlugin.parseArguments(getVMArguments(configuration, mode))));
-			if (JavaRuntime.isModularProject(javaProject)) {
-				vmArguments.add("--add-modules=ALL-MODULE-PATH"); //$NON-NLS-1$
+			// check for cancellation
+			if (monitor.isCanceled()) {
+				return null;
 			}
+		}finally {
+			// done the verification phase
+			monitor.worked(1);
+		}
+		return runConfig;
+	}
 
-			// VM-specific attributes
-			Map<String, Object> vmAttributesMap= getVMSpecificAttributesMap(configuration);
+	/**
+	 * Splits the test types into shards and evaluates a port for the test runner of each shard.
+	 * The first shard is run by the test runner which listens on {@link #fPort}.
+	 */
+	private void evaluateShards(ILaunchConfiguration configuration, ILaunch launch, IJavaProject javaProject, int shardCount) throws CoreException {
+		Map<String, Double> durations= JUnitCorePlugin.getModel().getTestRunHistory(configuration.getName(), javaProject).getClassDurations();
+		String failureNamesFile= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_FAILURES_NAMES, ""); //$NON-NLS-1$
+		fShards= TestSharder.split(fTestElements, shardCount, durations, TestSharder.readFailedClassNames(failureNamesFile));
+		fTestElements= fShards[0];
+
+		fShardPorts= new int[fShards.length];
+		fShardPorts[0]= fPort;
+		StringBuilder ports= new StringBuilder(String.valueOf(fPort));
+		for (int i= 1; i < fShards.length; i++) {
+			int port;
+			do {
+				port= evaluatePort();
+			} while (contains(fShardPorts, i, port));
+			fShardPorts[i]= port;
+			ports.append(',').append(port);
+		}
+		launch.setAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_PORTS, ports.toString());
+	}
 
-			// Classpath and modulepath
-			String[][] classpathAndModulepath= getClasspathAndModulepath(configuration);
-			String[] classpath= classpathAndModulepath[0];
-			String[] modulepath= classpathAndModulepath[1];
+	private static boolean contains(int[] ports, int length, int port) {
+		for (int i= 0; i < length; i++) {
+			if (ports[i] == port)
+				return true;
+		}
+		return false;
+	}
 
-			if (TestKindRegistry.JUNIT5_TEST_KIND_ID.equals(getTestRunnerKind(configuration).getId())) {
-				if (!configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_DONT_ADD_MISSING_JUNIT5_DEPENDENCY, false)) {
-					if (!Arrays.stream(classpath).anyMatch(s -> s.contains("junit-platform-launcher") || s.contains("org.junit.platform.launcher"))) { //$NON-NLS-1$ //$NON-NLS-2$
-						try {
-							JUnitRuntimeClasspathEntry x= new JUnitRuntimeClasspathEntry("org.junit.platform.launcher", null); //$NON-NLS-1$
-							String entryString= new ClasspathLocalizer(Platform.inDevelopmentMode()).entryString(x);
-							int length= classpath.length;
-							System.arraycopy(classpath, 0, classpath= new String[length + 1], 0, length);
-							classpath[length]= entryString;
-						} catch (IOException | URISyntaxException e) {
-							throw new CoreException(new Status(IStatus.ERROR, JUnitCorePlugin.CORE_PLUGIN_ID, IStatus.ERROR, "", e)); //$NON-NLS-1$
-						}
+	/**
+	 * Creates the configuration of a test runner which runs the current {@link #fTestElements} and
+	 * reports to {@link #fPort}.
+	 */
+	private VMRunnerConfiguration createVMRunnerConfiguration(ILaunchConfiguration configuration, String mode, IJavaProject javaProject) throws CoreException {
+		String mainTypeName= verifyMainTypeName(configuration);
+
+		File workingDir = verifyWorkingDirectory(configuration);
+		String workingDirName = null;
+		if (workingDir != null) {
+			workingDirName= workingDir.getAbsolutePath();
+		}
+
+		// Environment variables
+		String[] envp= getEnvironment(configuration);
+
+		ArrayList<String> vmArguments= new ArrayList<>();
+		ArrayList<String> programArguments= new ArrayList<>();
+		collectExecutionArguments(configuration, vmArguments, programArguments);
+		vmArguments.addAll(Arrays.asList(DebugPlugin.parseArguments(getVMArguments(configuration, mode))));
+		if (JavaRuntime.isModularProject(javaProject)) {
+			vmArguments.add("--add-modules=ALL-MODULE-PATH"); //$NON-NLS-1$
+		}
+
+		// VM-specific attributes
+		Map<String, Object> vmAttributesMap= getVMSpecificAttributesMap(configuration);
+
+		// Classpath and modulepath
+		String[][] classpathAndModulepath= getClasspathAndModulepath(configuration);
+		String[] classpath= classpathAndModulepath[0];
+		String[] modulepath= classpathAndModulepath[1];
+
+		if (TestKindRegistry.JUNIT5_TEST_KIND_ID.equals(getTestRunnerKind(configuration).getId())) {
+			if (!configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_DONT_ADD_MISSING_JUNIT5_DEPENDENCY, false)) {
+				if (!Arrays.stream(classpath).anyMatch(s -> s.contains("junit-platform-launcher") || s.contains("org.junit.platform.launcher"))) { //$NON-NLS-1$ //$NON-NLS-2$
+					try {
+						JUnitRuntimeClasspathEntry x= new JUnitRuntimeClasspathEntry("org.junit.platform.launcher", null); //$NON-NLS-1$
+						String entryString= new ClasspathLocalizer(Platform.inDevelopmentMode()).entryString(x);
+						int length= classpath.length;
+						System.arraycopy(classpath, 0, classpath= new String[length + 1], 0, length);
+						classpath[length]= entryString;
+					} catch (IOException | URISyntaxException e) {
+						throw new CoreException(new Status(IStatus.ERROR, JUnitCorePlugin.CORE_PLUGIN_ID, IStatus.ERROR, "", e)); //$NON-NLS-1$
 					}
 				}
 			}
+		}
 
-			// Create VM config
-			runConfig= new VMRunnerConfiguration(mainTypeName, classpath);
-			runConfig.setVMArguments(vmArguments.toArray(new String[vmArguments.size()]));
-			runConfig.setProgramArguments(programArguments.toArray(new String[programArguments.size()]));
-			runConfig.setEnvironment(envp);
-			runConfig.setWorkingDirectory(workingDirName);
-			runConfig.setVMSpecificAttributesMap(vmAttributesMap);
+		// Create VM config
+		VMRunnerConfiguration runConfig= new VMRunnerConfiguration(mainTypeName, classpath);
+		runConfig.setVMArguments(vmArguments.toArray(new String[vmArguments.size()]));
+		runConfig.setProgramArguments(programArguments.toArray(new String[programArguments.size()]));
+		runConfig.setEnvironment(envp);
+		runConfig.setWorkingDirectory(workingDirName);
+		runConfig.setVMSpecificAttributesMap(vmAttributesMap);
 
-			if (!JavaRuntime.isModularConfiguration(configuration)) {
-				// Bootpath
-				runConfig.setBootClassPath(getBootpath(configuration));
+		if (!JavaRuntime.isModularConfiguration(configuration)) {
+			// Bootpath
+			runConfig.setBootClassPath(getBootpath(configuration));
+		} else {
+			// module path
+			runConfig.setModulepath(modulepath);
+			if (!configuration.getAttribute(IJavaLaunchConfigurationConstants.ATTR_DEFAULT_MODULE_CLI_OPTIONS, true)) {
+				runConfig.setOverrideDependencies(configuration.getAttribute(IJavaLaunchConfigurationConstants.ATTR_MODULE_CLI_OPTIONS, "")); //$NON-NLS-1$
 			} else {
-				// module path
-				runConfig.setModulepath(modulepath);
-				if (!configuration.getAttribute(IJavaLaunchConfigurationConstants.ATTR_DEFAULT_MODULE_CLI_OPTIONS, true)) {
-					runConfig.setOverrideDependencies(configuration.getAttribute(IJavaLaunchConfigurationConstants.ATTR_MODULE_CLI_OPTIONS, "")); //$NON-NLS-1$
-				} else {
-					runConfig.setOverrideDependencies(getModuleCLIOptions(configuration));
-				}
+				runConfig.setOverrideDependencies(getModuleCLIOptions(configuration));
 			}
-
-			// check for cancellation
-			if (monitor.isCanceled()) {
-				return null;
-			}
-		}finally {
-			// done the verification phase
-			monitor.worked(1);
 		}
 		return runConfig;
 	}
@@ -266,12 +338,25 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 			// Launch the configuration - 1 unit of work
 			runner.run(runConfig, launch, monitor);
 
+			// launch the test runners of the other shards, the test run session listens to all of them
+			if (fShards != null) {
+				String runMode= mode.equals(JUnitLaunchConfigurationConstants.MODE_RUN_QUIETLY_MODE) ? ILaunchManager.RUN_MODE : mode;
+				for (int i= 1; i < fShards.length && !monitor.isCanceled(); i++) {
+					fPort= fShardPorts[i];
+					fTestElements= fShards[i];
+					runner.run(createVMRunnerConfiguration(configuration, runMode, getJavaProject(configuration)), launch, monitor);
+				}
+			}
+
 			// check for cancellation
 			if (monitor.isCanceled()) {
 				return;
 			}
 		} finally {
 			fTestElements= null;
+			fShards= null;
+			fShardPorts= null;
+			fTestHistoryFile= null;
 			monitor.done();
 		}
 	}
@@ -416,6 +501,12 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 		programArguments.add("-port"); //$NON-NLS-1$
 		programArguments.add(String.valueOf(fPort));
 
+		if (JUnitPreferencesConstants.getBinaryProtocol()) {
+			// test runners that don't know the binary protocol ignore the argument and send text messages
+			programArguments.add("-protocol"); //$NON-NLS-1$
+			programArguments.add(MessageIds.BINARY_PROTOCOL_V1);
+		}
+
 		if (fKeepAlive)
 			programArguments.add(0, "-keepalive"); //$NON-NLS-1$
 
@@ -462,6 +553,11 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 			}
 		}
 
+		if (fTestHistoryFile != null) {
+			programArguments.add("-testhistory"); //$NON-NLS-1$
+			programArguments.add(fTestHistoryFile);
+		}
+
 		String testFailureNames= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_FAILURES_NAMES, ""); //$NON-NLS-1$
 		if (testFailureNames.length() > 0) {
 			programArguments.add("-testfailures"); //$NON-NLS-1$
@@ -0,0 +1,340 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+
+/**
+ * Sends the messages of the RemoteTestRunner in the binary protocol.
+ * <p>
+ * The binary protocol is enabled by a {@link MessageIds#PROTOCOL} text line that announces
+ * {@link MessageIds#BINARY_PROTOCOL_V1}. After that line, the stream consists of frames. A
+ * frame is the length of its payload as an <code>int</code> followed by a sequence of messages.
+ * Each message starts with an opcode byte:
+ * </p>
+ * <ul>
+ * <li>{@link #OP_RAW}: a line without message header, followed by a string</li>
+ * <li>an index into the message headers of {@link #getMessageHeader(int)}, optionally combined
+ * with {@link #FLAG_PLAIN} or {@link #FLAG_INTERNED}:
+ * <ul>
+ * <li>with {@link #FLAG_PLAIN}: the argument of the message as a string</li>
+ * <li>for test start, end, error and failure messages: the test id as a variable length
+ * integer followed by the test name as a string, or only the test id if the message has
+ * {@link #FLAG_INTERNED} and the name has been sent with the same id before</li>
+ * <li>for test tree entries: the test id followed by the remainder of the entry as a string</li>
+ * <li>otherwise: the argument of the message as a string</li>
+ * </ul>
+ * </li>
+ * </ul>
+ * <p>
+ * Strings are sent as the variable length byte count of their UTF-8 encoding followed by the
+ * bytes. Variable length integers use 7 bits per byte, least significant bits first.
+ * </p>
+ * <p>
+ * Messages are batched into frames. A frame is written when it exceeds {@link #MAX_FRAME_SIZE},
+ * and a {@link #flush()} writes the pending frame at most every {@link #FLUSH_INTERVAL}
+ * milliseconds; a background thread writes frames whose flush has been deferred.
+ * </p>
+ */
+public class BinaryMessageSender implements MessageSender {
+
+	public static final int OP_RAW= 0;
+	public static final int FLAG_PLAIN= 0x40;
+	public static final int FLAG_INTERNED= 0x80;
+	public static final int OPCODE_MASK= 0x3F;
+
+	public static final int MAX_FRAME_SIZE= 32 * 1024;
+	public static final long FLUSH_INTERVAL= 50;
+
+	private static final String[] MESSAGE_HEADERS= new String[] {
+		null,
+		MessageIds.TRACE_START,
+		MessageIds.TRACE_END,
+		MessageIds.EXPECTED_START,
+		MessageIds.EXPECTED_END,
+		MessageIds.ACTUAL_START,
+		MessageIds.ACTUAL_END,
+		MessageIds.RTRACE_START,
+		MessageIds.RTRACE_END,
+		MessageIds.TEST_RUN_START,
+		MessageIds.TEST_START,
+		MessageIds.TEST_END,
+		MessageIds.TEST_ERROR,
+		MessageIds.TEST_FAILED,
+		MessageIds.TEST_RUN_END,
+		MessageIds.TEST_STOPPED,
+		MessageIds.TEST_RERAN,
+		MessageIds.TEST_TREE,
+	};
+
+	public static final int OP_TEST_START= 10;
+	public static final int OP_TEST_END= 11;
+	public static final int OP_TEST_ERROR= 12;
+	public static final int OP_TEST_FAILED= 13;
+	public static final int OP_TEST_TREE= 17;
+
+	private static final HashMap fgOpcodes= new HashMap();
+	static {
+		for (int i= 1; i < MESSAGE_HEADERS.length; i++) {
+			fgOpcodes.put(MESSAGE_HEADERS[i], new Integer(i));
+		}
+	}
+
+	/**
+	 * Returns the message header for an opcode.
+	 *
+	 * @param opcode the opcode without flags
+	 * @return the header or <code>null</code> for {@link #OP_RAW} and unknown opcodes
+	 */
+	public static String getMessageHeader(int opcode) {
+		if (opcode <= OP_RAW || opcode >= MESSAGE_HEADERS.length)
+			return null;
+		return MESSAGE_HEADERS[opcode];
+	}
+
+	/**
+	 * @param opcode the opcode without flags
+	 * @return <code>true</code> if messages with this opcode are test start, end, error or
+	 *         failure messages that can refer to an interned test name
+	 */
+	public static boolean isTestMessage(int opcode) {
+		return opcode >= OP_TEST_START && opcode <= OP_TEST_FAILED;
+	}
+
+	/**
+	 * Reads a variable length integer.
+	 *
+	 * @param in the stream to read from
+	 * @return the integer
+	 * @throws IOException if reading fails
+	 */
+	public static int readVarInt(DataInputStream in) throws IOException {
+		int value= 0;
+		int shift= 0;
+		int b;
+		do {
+			b= in.readUnsignedByte();
+			value|= (b & 0x7F) << shift;
+			shift+= 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Reads a string.
+	 *
+	 * @param in the stream to read from
+	 * @return the string
+	 * @throws IOException if reading fails
+	 */
+	public static String readString(DataInputStream in) throws IOException {
+		int length= readVarInt(in);
+		byte[] bytes= new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+
+	private final DataOutputStream fOut;
+	private final ByteArrayOutputStream fFrame= new ByteArrayOutputStream(MAX_FRAME_SIZE + 1024);
+	private final DataOutputStream fFrameOut= new DataOutputStream(fFrame);
+	/** Map from test id (Integer) to the test name last sent with this id. */
+	private final HashMap fSentNames= new HashMap();
+	private long fLastWrite;
+	private boolean fFlushRequested;
+	private boolean fClosed;
+	private Thread fFlusher;
+
+	public BinaryMessageSender(OutputStream out) {
+		fOut= new DataOutputStream(new BufferedOutputStream(out, MAX_FRAME_SIZE + 1024));
+	}
+
+	public synchronized void sendMessage(String msg) {
+		if (fClosed)
+			return;
+		try {
+			encode(msg);
+			if (fFrame.size() >= MAX_FRAME_SIZE)
+				writeFrame();
+		} catch (IOException e) {
+			close();
+		}
+	}
+
+	public synchronized void flush() {
+		if (fClosed)
+			return;
+		if (System.currentTimeMillis() - fLastWrite >= FLUSH_INTERVAL) {
+			try {
+				writeFrame();
+				fOut.flush();
+			} catch (IOException e) {
+				close();
+			}
+		} else {
+			fFlushRequested= true;
+			startFlusher();
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Writes all pending messages and closes the stream.
+	 */
+	public synchronized void close() {
+		if (fClosed)
+			return;
+		fClosed= true;
+		notifyAll();
+		try {
+			writeFrame();
+			fOut.flush();
+		} catch (IOException e) {
+			// the connection is gone, nothing left to do
+		}
+		try {
+			fOut.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	private void encode(String msg) throws IOException {
+		String header= msg.length() >= MessageIds.MSG_HEADER_LENGTH ? msg.substring(0, MessageIds.MSG_HEADER_LENGTH) : null;
+		Integer opcodeValue= header != null ? (Integer) fgOpcodes.get(header) : null;
+		if (opcodeValue == null) {
+			fFrameOut.writeByte(OP_RAW);
+			writeString(msg);
+			return;
+		}
+
+		int opcode= opcodeValue.intValue();
+		String arg= msg.substring(MessageIds.MSG_HEADER_LENGTH);
+		if (isTestMessage(opcode) || opcode == OP_TEST_TREE) {
+			int comma= arg.indexOf(',');
+			int id= comma > 0 ? parseId(arg, comma) : -1;
+			if (id >= 0) {
+				String name= arg.substring(comma + 1);
+				if (opcode == OP_TEST_TREE) {
+					fFrameOut.writeByte(opcode);
+					writeVarInt(id);
+					writeString(name);
+				} else {
+					Integer key= new Integer(id);
+					if (name.equals(fSentNames.get(key))) {
+						fFrameOut.writeByte(opcode | FLAG_INTERNED);
+						writeVarInt(id);
+					} else {
+						fSentNames.put(key, name);
+						fFrameOut.writeByte(opcode);
+						writeVarInt(id);
+						writeString(name);
+					}
+				}
+				return;
+			}
+			fFrameOut.writeByte(opcode | FLAG_PLAIN);
+		} else {
+			fFrameOut.writeByte(opcode);
+		}
+		writeString(arg);
+	}
+
+	/**
+	 * Parses a non-negative decimal id that is written exactly like {@link Integer#toString(int)}.
+	 *
+	 * @param arg the message argument
+	 * @param end the end index of the id
+	 * @return the id or -1 if the text is not a canonical id
+	 */
+	private static int parseId(String arg, int end) {
+		if (end > 9 || (end > 1 && arg.charAt(0) == '0'))
+			return -1;
+		int id= 0;
+		for (int i= 0; i < end; i++) {
+			char ch= arg.charAt(i);
+			if (ch < '0' || ch > '9')
+				return -1;
+			id= id * 10 + (ch - '0');
+		}
+		return id;
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			fFrameOut.writeByte((value & 0x7F) | 0x80);
+			value>>>= 7;
+		}
+		fFrameOut.writeByte(value);
+	}
+
+	private void writeString(String s) throws IOException {
+		byte[] bytes;
+		try {
+			bytes= s.getBytes("UTF-8"); //$NON-NLS-1$
+		} catch (UnsupportedEncodingException e) {
+			bytes= s.getBytes();
+		}
+		writeVarInt(bytes.length);
+		fFrameOut.write(bytes);
+	}
+
+	private void writeFrame() throws IOException {
+		fFlushRequested= false;
+		fLastWrite= System.currentTimeMillis();
+		if (fFrame.size() == 0)
+			return;
+		fOut.writeInt(fFrame.size());
+		fFrame.writeTo(fOut);
+		fFrame.reset();
+	}
+
+	private void startFlusher() {
+		if (fFlusher != null)
+			return;
+		fFlusher= new Thread("BinaryMessageSender Flusher") { //$NON-NLS-1$
+			public void run() {
+				synchronized (BinaryMessageSender.this) {
+					while (!fClosed) {
+						try {
+							if (fFlushRequested) {
+								long wait= fLastWrite + FLUSH_INTERVAL - System.currentTimeMillis();
+								if (wait <= 0) {
+									writeFrame();
+									fOut.flush();
+								} else {
+									BinaryMessageSender.this.wait(wait);
+								}
+							} else {
+								BinaryMessageSender.this.wait();
+							}
+						} catch (InterruptedException e) {
+							return;
+						} catch (IOException e) {
+							close();
+						}
+					}
+				}
+			}
+		};
+		fFlusher.setDaemon(true);
+		fFlusher.start();
+	}
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Vector;
+
+import junit.extensions.TestDecorator;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Orders the tests of each suite by their {@link TestHistory}, so that the tests which are most
+ * likely to fail per time they take are run first.
+ */
+public class HistoryPrioritizer implements ITestPrioritizer {
+
+	private final TestHistory fHistory;
+
+	/** Map from Test to TestHistory.Record */
+	private final Map fRecords= new IdentityHashMap();
+
+	public HistoryPrioritizer(TestHistory history) {
+		fHistory= history;
+	}
+
+	public Test prioritize(Test suite) {
+		getRecord(suite);
+		return suite;
+	}
+
+	/*
+	 * Computes the record of the given test and sorts the tests of the suites on the way.
+	 */
+	private TestHistory.Record getRecord(Test test) {
+		TestHistory.Record record= (TestHistory.Record) fRecords.get(test);
+		if (record != null)
+			return record;
+
+		if (test instanceof TestCase) {
+			record= fHistory.getRecord(test.toString());
+		} else if (test instanceof TestSuite) {
+			record= new TestHistory.Record();
+			for (Enumeration e= ((TestSuite) test).tests(); e.hasMoreElements();) {
+				record.add(getRecord((Test) e.nextElement()));
+			}
+			sort((TestSuite) test);
+		} else if (test instanceof TestDecorator) {
+			record= getRecord(((TestDecorator) test).getTest());
+		} else {
+			record= fHistory.getRecord(test.toString());
+		}
+		fRecords.put(test, record);
+		return record;
+	}
+
+	private void sort(TestSuite suite) {
+		Vector tests= (Vector) FailuresFirstPrioritizer.getField(suite, "fTests"); //$NON-NLS-1$
+		if (tests == null)
+			return;
+		// the sort is stable, tests with the same history keep their order
+		Collections.sort(tests, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				return TestHistory.Record.compare(getRecord((Test) o1), getRecord((Test) o2));
+			}
+		});
+	}
+}
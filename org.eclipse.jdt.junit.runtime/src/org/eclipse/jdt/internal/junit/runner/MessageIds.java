@@ -124,6 +124,19 @@ public class MessageIds {
 	 * 
 	 */
 	public static final String TEST_TREE= "%TSTTREE"; //$NON-NLS-1$
+	/**
+	 * Notification that the RemoteTestRunner switches to another protocol.
+	 * PROTOCOL + protocol. All following messages are sent in the new protocol.
+	 * Only sent if the client has requested the protocol with the
+	 * <code>-protocol</code> argument.
+	 *
+	 * @see #BINARY_PROTOCOL_V1
+	 */
+	public static final String PROTOCOL= "%PROTOCL"; //$NON-NLS-1$
+	/**
+	 * Name of the binary protocol, see {@link BinaryMessageSender}.
+	 */
+	public static final String BINARY_PROTOCOL_V1= "binary1"; //$NON-NLS-1$
 	/**
 	 * Request to stop the current test run.
 	 */
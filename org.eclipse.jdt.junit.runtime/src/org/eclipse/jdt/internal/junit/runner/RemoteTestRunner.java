@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -25,6 +25,10 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.Socket;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.Vector;
 
 import org.eclipse.jdt.internal.junit.runner.junit3.JUnit3TestLoader;
@@ -130,12 +134,27 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 
 	private String[] fFailureNames;
 
+	/**
+	 * The history of earlier test runs, or <code>null</code>.
+	 */
+	private TestHistory fTestHistory;
+
 	private ITestLoader fLoader;
 
 	private MessageSender fSender;
 
 	private boolean fConsoleMode = false;
 
+	/**
+	 * The protocol requested by the client (argument -protocol) or <code>null</code>
+	 * for the text protocol
+	 */
+	private String fProtocol;
+	/**
+	 * Sender for the binary protocol or <code>null</code> if the text protocol is used
+	 */
+	private BinaryMessageSender fBinarySender;
+
 	/**
 	 * Reader thread that processes messages from the client.
 	 */
@@ -200,6 +219,8 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * -host: the host to connect to default local host
 	 * -port: the port to connect to, mandatory argument
 	 * -keepalive: keep the process alive after a test run
+	 * -protocol: the protocol to send messages with, see MessageIds.PROTOCOL
+	 * -testhistory: the name of a file containing the history of earlier test runs, see TestHistory
      * </pre>
      */
 	public static void main(String[] args) {
@@ -284,6 +305,15 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 				}
 				i++;
 
+			} else if (args[i].toLowerCase().equals("-testhistory")) { //$NON-NLS-1$
+				String testHistoryFile= args[i+1];
+				try {
+					fTestHistory= TestHistory.read(testHistoryFile);
+				} catch (IOException e) {
+					throw new IllegalArgumentException("Cannot read testhistory file.");		 //$NON-NLS-1$
+				}
+				i++;
+
 			} else if(args[i].toLowerCase().equals("-port")) { //$NON-NLS-1$
 				fPort= Integer.parseInt(args[i+1]);
 				i++;
@@ -299,6 +329,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			else if(args[i].toLowerCase().equals("-keepalive")) { //$NON-NLS-1$
 				fKeepAlive= true;
 			}
+			else if(args[i].toLowerCase().equals("-protocol")) { //$NON-NLS-1$
+				fProtocol= args[i+1];
+				i++;
+			}
 			else if(args[i].toLowerCase().equals("-debugging") || args[i].toLowerCase().equals("-debug")){ //$NON-NLS-1$ //$NON-NLS-2$
 			    fDebugMode= true;
 
@@ -507,6 +541,36 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		return (Class[]) classes.toArray(new Class[classes.size()]);
 	}
 
+	/**
+	 * Sorts the test classes by their history. Classes with tests which are to be run first, since
+	 * they have failed, come before all other classes.
+	 *
+	 * @param testClasses the classes to sort
+	 */
+	private void sortClasses(Class[] testClasses) {
+		final Set failedClassNames= new HashSet();
+		if (fFailureNames != null) {
+			for (int i= 0; i < fFailureNames.length; i++) {
+				String failureName= fFailureNames[i];
+				int index= failureName.lastIndexOf('(');
+				if (index >= 0 && failureName.endsWith(")")) //$NON-NLS-1$
+					failedClassNames.add(failureName.substring(index + 1, failureName.length() - 1));
+			}
+		}
+		// the sort is stable, classes with the same history keep their order
+		Arrays.sort(testClasses, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				String name1= ((Class) o1).getName();
+				String name2= ((Class) o2).getName();
+				boolean failed1= failedClassNames.contains(name1);
+				boolean failed2= failedClassNames.contains(name2);
+				if (failed1 != failed2)
+					return failed1 ? -1 : 1;
+				return TestHistory.Record.compare(fTestHistory.getClassRecord(name1), fTestHistory.getClassRecord(name2));
+			}
+		});
+	}
+
 	protected void notifyListenersOfTestEnd(TestExecution execution,
 			long testStartTime) {
 		if (execution == null || execution.shouldStop())
@@ -522,7 +586,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * @param execution executor
 	 */
 	public void runTests(String[] testClassNames, String testName, TestExecution execution) {
-		ITestReference[] suites= fLoader.loadTests(loadClasses(testClassNames), testName, fFailureNames, fPackageNames, fIncludeExcludeTags, fUniqueId, this);
+		Class[] testClasses= loadClasses(testClassNames);
+		if (fTestHistory != null && testName == null)
+			sortClasses(testClasses);
+		ITestReference[] suites= fLoader.loadTests(testClasses, testName, fFailureNames, fPackageNames, fIncludeExcludeTags, fUniqueId, this);
 
 		// count all testMethods and inform ITestRunListeners
 		int count= countTests(suites);
@@ -663,6 +730,11 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
                 } catch (UnsupportedEncodingException e1) {
                     fReader= new BufferedReader(new InputStreamReader(fClientSocket.getInputStream()));
                 }
+				if (MessageIds.BINARY_PROTOCOL_V1.equals(fProtocol)) {
+					fWriter.println(MessageIds.PROTOCOL + MessageIds.BINARY_PROTOCOL_V1);
+					fWriter.flush();
+					fBinarySender= new BinaryMessageSender(fClientSocket.getOutputStream());
+				}
 				fReaderThread= new ReaderThread();
 				fReaderThread.start();
 				return true;
@@ -682,6 +754,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * Shutsdown the connection to the remote test listener.
 	 */
 	private void shutDown() {
+		if (fBinarySender != null) {
+			fBinarySender.close();
+			fBinarySender= null;
+		}
 		if (fWriter != null) {
 			fWriter.close();
 			fWriter= null;
@@ -717,6 +793,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * @see org.eclipse.jdt.internal.junit.runner.MessageSender#sendMessage(java.lang.String)
 	 */
 	public void sendMessage(String msg) {
+		if (fBinarySender != null) {
+			fBinarySender.sendMessage(msg);
+			return;
+		}
 		if(fWriter == null)
 			return;
 		fWriter.println(msg);
@@ -756,6 +836,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	}
 
 	public void flush() {
+		if (fBinarySender != null) {
+			fBinarySender.flush();
+			return;
+		}
 	    fWriter.flush();
 	}
 
@@ -767,6 +851,14 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		return fLoader;
 	}
 
+	/**
+	 * @return the history of earlier test runs, or <code>null</code> if the tests are not ordered
+	 *         by their history
+	 */
+	public TestHistory getTestHistory() {
+		return fTestHistory;
+	}
+
 	public Class loadClass(String className, RemoteTestRunner listener) {
 		Class clazz= null;
 		try {
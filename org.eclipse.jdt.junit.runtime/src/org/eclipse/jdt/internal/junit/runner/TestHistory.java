@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Hashtable;
+
+/**
+ * The history of earlier runs of the tests, read from the file passed with
+ * <code>-testhistory</code>. Each line of the file describes one test:
+ * <pre>
+ * runs failures averageMillis testName
+ * </pre>
+ * The history is used to run the tests which are most likely to fail per time they take first,
+ * so that the first failure is reported as early as possible. Tests without history are assumed
+ * to fail, since new tests are the most likely to fail.
+ */
+public class TestHistory {
+
+	/**
+	 * The history of one test or the accumulated history of several tests.
+	 */
+	public static class Record {
+		private double fExpectedFailures;
+		private long fDuration;
+
+		public Record() {
+		}
+
+		Record(double expectedFailures, long duration) {
+			fExpectedFailures= expectedFailures;
+			fDuration= duration;
+		}
+
+		/**
+		 * Adds the history of another test.
+		 *
+		 * @param record the history of the test
+		 */
+		public void add(Record record) {
+			fExpectedFailures+= record.fExpectedFailures;
+			fDuration+= record.fDuration;
+		}
+
+		/**
+		 * @return the expected number of failures per millisecond
+		 */
+		public double getPriority() {
+			return fExpectedFailures / Math.max(fDuration, 1);
+		}
+
+		/**
+		 * Compares two records: the record with the higher priority comes first, if both have the
+		 * same priority, the shorter record comes first.
+		 *
+		 * @param r1 the first record
+		 * @param r2 the second record
+		 * @return a negative number if <code>r1</code> should be run first, a positive number if
+		 *         <code>r2</code> should be run first, 0 otherwise
+		 */
+		public static int compare(Record r1, Record r2) {
+			int result= Double.compare(r2.getPriority(), r1.getPriority());
+			if (result != 0)
+				return result;
+			return r1.fDuration < r2.fDuration ? -1 : (r1.fDuration == r2.fDuration ? 0 : 1);
+		}
+	}
+
+	private final Hashtable fRecords= new Hashtable();
+
+	private final Hashtable fClassRecords= new Hashtable();
+
+	/**
+	 * Reads the history from a file.
+	 *
+	 * @param testHistoryFile the file
+	 * @return the history
+	 * @throws IOException if the file cannot be read
+	 */
+	public static TestHistory read(String testHistoryFile) throws IOException {
+		TestHistory history= new TestHistory();
+		BufferedReader br= new BufferedReader(new InputStreamReader(new FileInputStream(new File(testHistoryFile)), "UTF-8")); //$NON-NLS-1$
+		try {
+			String line;
+			while ((line= br.readLine()) != null) {
+				String[] fields= line.split(" ", 4); //$NON-NLS-1$
+				if (fields.length != 4)
+					continue;
+				try {
+					int runs= Integer.parseInt(fields[0]);
+					int failures= Integer.parseInt(fields[1]);
+					long duration= Long.parseLong(fields[2]);
+					if (runs > 0)
+						history.addRecord(fields[3], new Record((double) failures / runs, duration));
+				} catch (NumberFormatException e) {
+					// skip the line
+				}
+			}
+		} finally {
+			br.close();
+		}
+		return history;
+	}
+
+	private void addRecord(String testName, Record record) {
+		fRecords.put(testName, record);
+		String className= getClassName(testName);
+		Record classRecord= (Record) fClassRecords.get(className);
+		if (classRecord == null) {
+			classRecord= new Record();
+			fClassRecords.put(className, classRecord);
+		}
+		classRecord.add(record);
+	}
+
+	/**
+	 * Returns the history of the given test.
+	 *
+	 * @param testName the name of the test, e.g. <code>testFoo(p.FooTest)</code>
+	 * @return the history, a test without history is assumed to fail
+	 */
+	public Record getRecord(String testName) {
+		Record record= (Record) fRecords.get(testName);
+		return record != null ? record : new Record(1, 0);
+	}
+
+	/**
+	 * Returns the accumulated history of the tests of the given class.
+	 *
+	 * @param className the fully qualified name of the class
+	 * @return the history, a class without history is assumed to fail
+	 */
+	public Record getClassRecord(String className) {
+		Record record= (Record) fClassRecords.get(className);
+		return record != null ? record : new Record(1, 0);
+	}
+
+	private static String getClassName(String testName) {
+		int index= testName.lastIndexOf('(');
+		if (index < 0 || !testName.endsWith(")")) //$NON-NLS-1$
+			return testName;
+		return testName.substring(index + 1, testName.length() - 1);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2017 IBM Corporation and others.
+ * Copyright (c) 2006, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -26,6 +26,7 @@ import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
 import org.eclipse.jdt.internal.junit.runner.FailuresFirstPrioritizer;
+import org.eclipse.jdt.internal.junit.runner.HistoryPrioritizer;
 import org.eclipse.jdt.internal.junit.runner.ITestLoader;
 import org.eclipse.jdt.internal.junit.runner.ITestPrioritizer;
 import org.eclipse.jdt.internal.junit.runner.ITestReference;
@@ -49,9 +50,17 @@ public class JUnit3TestLoader implements ITestLoader {
 		else
 			prioritizer= new NullPrioritizer();
 
+		// the failures are moved to the front of the tests ordered by their history
+		ITestPrioritizer historyPrioritizer;
+		if (listener != null && listener.getTestHistory() != null)
+			historyPrioritizer= new HistoryPrioritizer(listener.getTestHistory());
+		else
+			historyPrioritizer= new NullPrioritizer();
+
 		for (int i= 0; i < suites.length; i++) {
 			Class testClassName= testClasses[i];
 			Test test= getTest(testClassName, testName, listener);
+			historyPrioritizer.prioritize(test);
 			prioritizer.prioritize(test);
 			suites[i]= new JUnit3TestReference(test);
 		}
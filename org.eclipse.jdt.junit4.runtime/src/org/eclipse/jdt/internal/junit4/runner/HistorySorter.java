@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit4.runner;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.runner.Description;
+
+import org.eclipse.jdt.internal.junit.runner.TestHistory;
+
+/**
+ * Comparator for descriptions to sort according to the history of earlier test runs. The tests
+ * which are most likely to fail per time they take come first. The history of a description with
+ * children is the accumulated history of its transitive children.
+ *
+ * @see TestHistory
+ */
+public class HistorySorter implements Comparator<Description> {
+
+	private final TestHistory fHistory;
+
+	private final Map<Description, TestHistory.Record> fRecords= new HashMap<Description, TestHistory.Record>();
+
+	/**
+	 * Creates a sorter.
+	 *
+	 * @param history the history of earlier test runs
+	 */
+	public HistorySorter(TestHistory history) {
+		fHistory= history;
+	}
+
+	public int compare(Description d1, Description d2) {
+		return TestHistory.Record.compare(getRecord(d1), getRecord(d2));
+	}
+
+	private TestHistory.Record getRecord(Description d) {
+		TestHistory.Record record= fRecords.get(d);
+		if (record == null) {
+			if (d.isTest()) {
+				record= fHistory.getRecord(d.getDisplayName());
+			} else {
+				record= new TestHistory.Record();
+				for (Description child : d.getChildren()) {
+					record.add(getRecord(child));
+				}
+			}
+			fRecords.put(d, record);
+		}
+		return record;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2017 IBM Corporation and others.
+ * Copyright (c) 2006, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -28,6 +28,7 @@ import org.junit.runner.Runner;
 import org.eclipse.jdt.internal.junit.runner.ITestLoader;
 import org.eclipse.jdt.internal.junit.runner.ITestReference;
 import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
+import org.eclipse.jdt.internal.junit.runner.TestHistory;
 import org.eclipse.jdt.internal.junit.runner.junit3.JUnit3TestLoader;
 import org.eclipse.jdt.internal.junit.runner.junit3.JUnit3TestReference;
 
@@ -70,28 +71,40 @@ public class JUnit4TestLoader implements ITestLoader {
 			Test test= jUnit3TestLoader.getTest(clazz, testName, listener);
 			return new JUnit3TestReference(test);
 		}
+		TestHistory history= listener != null ? listener.getTestHistory() : null;
 		if (testName != null) {
-			return createFilteredTest(clazz, testName, failureNames);
+			return createFilteredTest(clazz, testName, failureNames, history);
 		}
-		return createUnfilteredTest(clazz, failureNames);
+		return createUnfilteredTest(clazz, failureNames, history);
 	}
 
-	private ITestReference createFilteredTest(Class<?> clazz, String testName, String[] failureNames) {
+	private ITestReference createFilteredTest(Class<?> clazz, String testName, String[] failureNames, TestHistory history) {
 		DescriptionMatcher matcher= DescriptionMatcher.create(clazz, testName);
 		SubForestFilter filter= new SubForestFilter(matcher);
-		Request request= sortByFailures(Request.classWithoutSuiteMethod(clazz).filterWith(filter), failureNames);
+		Request request= sortByFailures(sortByHistory(Request.classWithoutSuiteMethod(clazz).filterWith(filter), history), failureNames);
 		Runner runner= request.getRunner();
 		Description description= getRootDescription(runner, matcher);
 		return new JUnit4TestReference(runner, description);
 	}
 
-	private ITestReference createUnfilteredTest(Class<?> clazz, String[] failureNames) {
-		Request request= sortByFailures(Request.aClass(clazz), failureNames);
+	private ITestReference createUnfilteredTest(Class<?> clazz, String[] failureNames, TestHistory history) {
+		Request request= sortByFailures(sortByHistory(Request.aClass(clazz), history), failureNames);
 		Runner runner= request.getRunner();
 		Description description= runner.getDescription();
 		return new JUnit4TestReference(runner, description);
 	}
 
+	/*
+	 * The sorts are stable, so the failures are moved to the front of the tests ordered by their
+	 * history.
+	 */
+	private Request sortByHistory(Request request, TestHistory history) {
+		if (history != null) {
+			return request.sortWith(new HistorySorter(history));
+		}
+		return request;
+	}
+
 	private Request sortByFailures(Request request, String[] failureNames) {
 		if (failureNames != null) {
 			return request.sortWith(new FailuresFirstSorter(failureNames));
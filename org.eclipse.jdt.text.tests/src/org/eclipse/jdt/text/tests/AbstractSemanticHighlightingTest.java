@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -107,6 +107,14 @@ public class AbstractSemanticHighlightingTest extends TestCase {
 		disableAllSemanticHighlightings();
 	}
 
+	protected static JavaEditor getEditor() {
+		return fEditor;
+	}
+
+	protected static SourceViewer getSourceViewer() {
+		return fSourceViewer;
+	}
+
 	protected void assertEqualPositions(Position[] expected, Position[] actual) {
 		assertEquals(expected.length, actual.length);
 		for (int i= 0, n= expected.length; i < n; i++) {
@@ -150,7 +158,7 @@ public class AbstractSemanticHighlightingTest extends TestCase {
 		EditorTestHelper.runEventQueue(100);
 	}
 
-	private void enableSemanticHighlighting(String preferenceKey) {
+	protected void enableSemanticHighlighting(String preferenceKey) {
 		IPreferenceStore store= JavaPlugin.getDefault().getPreferenceStore();
 		store.setValue(getEnabledPreferenceKey(preferenceKey), true);
 	}
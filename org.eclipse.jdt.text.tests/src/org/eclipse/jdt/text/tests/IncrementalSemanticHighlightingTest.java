@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.text.tests.performance.EditorTestHelper;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingReconciler;
+import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightings;
+
+/**
+ * Tests that the positions of an incremental reconcile of the semantic highlighting
+ * are the same as the positions of a reconcile of the whole compilation unit.
+ *
+ * @since 3.17
+ */
+public class IncrementalSemanticHighlightingTest extends AbstractSemanticHighlightingTest {
+
+	private static final Class<IncrementalSemanticHighlightingTest> THIS= IncrementalSemanticHighlightingTest.class;
+
+	private static final String[] HIGHLIGHTINGS= new String[] {
+			SemanticHighlightings.STATIC_FINAL_FIELD,
+			SemanticHighlightings.STATIC_FIELD,
+			SemanticHighlightings.FIELD,
+			SemanticHighlightings.METHOD_DECLARATION,
+			SemanticHighlightings.STATIC_METHOD_INVOCATION,
+			SemanticHighlightings.ABSTRACT_METHOD_INVOCATION,
+			SemanticHighlightings.LOCAL_VARIABLE_DECLARATION,
+			SemanticHighlightings.LOCAL_VARIABLE,
+			SemanticHighlightings.PARAMETER_VARIABLE,
+			SemanticHighlightings.DEPRECATED_MEMBER,
+			SemanticHighlightings.METHOD,
+			SemanticHighlightings.NUMBER,
+	};
+
+	private static class IncrementalReconcileTestSetup extends SemanticHighlightingTestSetup {
+
+		public IncrementalReconcileTestSetup(Test test, String testFilename) {
+			super(test, testFilename);
+		}
+
+		@Override
+		protected void setUp() throws Exception {
+			// read when the editor is opened
+			JavaPlugin.getDefault().getPreferenceStore().setValue(SemanticHighlightingReconciler.PREF_INCREMENTAL_RECONCILE, true);
+			super.setUp();
+		}
+
+		@Override
+		protected void tearDown() throws Exception {
+			super.tearDown();
+			IPreferenceStore store= JavaPlugin.getDefault().getPreferenceStore();
+			store.setToDefault(SemanticHighlightingReconciler.PREF_INCREMENTAL_RECONCILE);
+		}
+	}
+
+	public static Test suite() {
+		return new IncrementalReconcileTestSetup(new TestSuite(THIS), "/SHTest/src/SHTest.java");
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		for (int i= 0; i < HIGHLIGHTINGS.length - 1; i++)
+			enableSemanticHighlighting(HIGHLIGHTINGS[i]);
+		setUpSemanticHighlighting(HIGHLIGHTINGS[HIGHLIGHTINGS.length - 1]);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		EditorTestHelper.revertEditor(getEditor(), true);
+		assertTrue(EditorTestHelper.joinReconciler(getSourceViewer(), 0, 10000, 100));
+		super.tearDown();
+	}
+
+	private void insertAfter(String anchor, String text) throws Exception {
+		IDocument document= getSourceViewer().getDocument();
+		int offset= document.get().indexOf(anchor);
+		assertTrue(offset >= 0);
+		document.replace(offset + anchor.length(), 0, text);
+	}
+
+	private void replace(String text, String replacement) throws Exception {
+		IDocument document= getSourceViewer().getDocument();
+		int offset= document.get().indexOf(text);
+		assertTrue(offset >= 0);
+		document.replace(offset, text.length(), replacement);
+	}
+
+	private Position[] reconcile() throws Exception {
+		assertTrue(EditorTestHelper.joinReconciler(getSourceViewer(), 0, 10000, 100));
+		EditorTestHelper.runEventQueue(100);
+		return getSemanticHighlightingPositions();
+	}
+
+	private void assertIncrementalReconcile() throws Exception {
+		Position[] incremental= reconcile();
+		EditorTestHelper.forceReconcile(getSourceViewer());
+		Position[] full= reconcile();
+		assertTrue(full.length > 0);
+		assertEqualPositions(full, incremental);
+	}
+
+	public void testEditInsideMethodBody() throws Exception {
+		insertAfter("\t\tlocal++;\n", "\t\tint added= local + field + staticField;\n\t\tadded++;\n");
+		assertIncrementalReconcile();
+		replace("added++;", "added+= param + staticFinalField;");
+		assertIncrementalReconcile();
+	}
+
+	public void testEditShadowingField() throws Exception {
+		insertAfter("\t\tlocal++;\n", "\t\tint field= 1;\n\t\tfield++;\n");
+		assertIncrementalReconcile();
+		replace("int field= 1;", "int other= 1;");
+		assertIncrementalReconcile();
+	}
+
+	public void testEditsInDifferentMethodBodies() throws Exception {
+		insertAfter("\t\tlocal++;\n", "\t\tlocal+= field;\n");
+		insertAfter("\t\tdeprecatedField++;\n", "\t\tint other= staticFinalField + 42;\n");
+		assertIncrementalReconcile();
+	}
+
+	public void testEditOutsideMethodBodies() throws Exception {
+		insertAfter("\t\tlocal++;\n", "\t\tlocal+= field2;\n");
+		assertIncrementalReconcile();
+		replace("\tint field;\n", "\tint field, field2;\n");
+		assertIncrementalReconcile();
+	}
+
+	public void testEditInAnonymousClass() throws Exception {
+		insertAfter("\t\tlocal++;\n", "\t\tnew Object() {\n\t\t\tint inner= field;\n\t\t\tvoid run() {\n\t\t\t}\n\t\t};\n");
+		assertIncrementalReconcile();
+		insertAfter("\t\t\tvoid run() {\n", "\t\t\t\tinner+= local + staticField;\n");
+		assertIncrementalReconcile();
+	}
+
+	public void testTyping() throws Exception {
+		String text= "int typed= local;";
+		int offset= getSourceViewer().getDocument().get().indexOf("\t\tlocal++;\n");
+		assertTrue(offset >= 0);
+		IDocument document= getSourceViewer().getDocument();
+		for (int i= 0; i < text.length(); i++) {
+			document.replace(offset + i, 0, text.substring(i, i + 1));
+			if (i % 4 == 0)
+				reconcile();
+		}
+		assertIncrementalReconcile();
+	}
+}
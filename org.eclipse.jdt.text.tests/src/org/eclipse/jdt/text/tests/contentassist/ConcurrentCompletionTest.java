@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.contentassist;
+
+import org.eclipse.swt.widgets.Display;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Runs the computers of JDT through the concurrent invocation of the content assist processor.
+ * The computers of JDT access the widgets of the viewer and must still be invoked on the UI
+ * thread, only the computers declaring themselves thread safe run on worker threads.
+ *
+ * @since 3.17
+ */
+public class ConcurrentCompletionTest extends AbstractCompletionTest {
+
+	/** See ContentAssistProcessor#PREF_CONCURRENT_COMPUTERS */
+	private static final String PREF_CONCURRENT_COMPUTERS= "content_assist_concurrent_computers";
+
+	private static final Class<ConcurrentCompletionTest> THIS= ConcurrentCompletionTest.class;
+
+	public static Test setUpTest(Test test) {
+		return new CompletionTestSetup(test);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS, suiteName(THIS)));
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		getJDTUIPrefs().setValue(PREF_CONCURRENT_COMPUTERS, true);
+		ThreadSafeTestCompletionProposalComputer.setEnabled(true);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		ThreadSafeTestCompletionProposalComputer.setEnabled(false);
+		getJDTUIPrefs().setToDefault(PREF_CONCURRENT_COMPUTERS);
+		super.tearDown();
+	}
+
+	public void testJavaTypeProposal() throws Exception {
+		// fails with the error message of a disabled computer if it has been invoked off the UI thread
+		assertMethodBodyProposal("S|", "String ", "String|");
+	}
+
+	public void testAutoImport() throws Exception {
+		expectImport("java.util.Random");
+		assertMethodBodyProposal("R|", "Random ", "Random|");
+	}
+
+	public void testThreadSafeComputer() throws Exception {
+		assertMethodBodyProposal("S|", ThreadSafeTestCompletionProposalComputer.DISPLAY_STRING, "S|");
+
+		Thread thread= ThreadSafeTestCompletionProposalComputer.getLastThread();
+		assertNotNull(thread);
+		assertNotSame(Display.getDefault().getThread(), thread);
+	}
+}
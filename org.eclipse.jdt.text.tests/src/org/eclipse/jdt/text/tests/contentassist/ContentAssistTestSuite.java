@@ -42,6 +42,8 @@ public class ContentAssistTestSuite {
 		suite.addTest(CodeCompletionTest.suite());
 		suite.addTest(CodeCompletionTest18.suite());
 		suite.addTest(ContinuousTypingCompletionTest.suite());
+		suite.addTest(LatencyHistogramTest.suite());
+		suite.addTest(ConcurrentCompletionTest.suite());
 		//$JUnit-END$
 
 		return suite;
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.contentassist;
+
+import org.eclipse.jdt.internal.ui.text.java.LatencyHistogram;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * @since 3.17
+ */
+public class LatencyHistogramTest extends TestCase {
+
+	public static Test suite() {
+		return new TestSuite(LatencyHistogramTest.class, "LatencyHistogramTest");
+	}
+
+	public void testBuckets() throws Exception {
+		LatencyHistogram histogram= new LatencyHistogram();
+		histogram.record(0);
+		histogram.record(1);
+		histogram.record(3);
+		histogram.record(100000);
+
+		assertEquals(4, histogram.getCount());
+		assertEquals(1, histogram.getBucketCount(0));
+		assertEquals(1, histogram.getBucketCount(1));
+		assertEquals(1, histogram.getBucketCount(2));
+		assertEquals(1, histogram.getBucketCount(LatencyHistogram.BUCKET_COUNT - 1));
+		assertEquals(100000, histogram.getMaxMillis());
+		assertEquals(0, histogram.getLateCount());
+	}
+
+	public void testPercentile() throws Exception {
+		LatencyHistogram histogram= new LatencyHistogram();
+		for (int i= 0; i < 95; i++)
+			histogram.record(5);
+		for (int i= 0; i < 5; i++)
+			histogram.record(900);
+
+		assertEquals(8, histogram.getPercentileMillis(0.95));
+		assertEquals(1024, histogram.getPercentileMillis(0.99));
+	}
+
+	public void testLate() throws Exception {
+		LatencyHistogram histogram= new LatencyHistogram();
+		histogram.recordLate();
+		histogram.recordLate();
+
+		assertEquals(0, histogram.getCount());
+		assertEquals(2, histogram.getLateCount());
+	}
+}
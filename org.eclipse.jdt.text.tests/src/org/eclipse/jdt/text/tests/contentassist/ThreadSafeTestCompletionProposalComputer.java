@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.contentassist;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jface.text.contentassist.CompletionProposal;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.IContextInformation;
+
+import org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext;
+import org.eclipse.jdt.ui.text.java.IJavaCompletionProposalComputer;
+
+/**
+ * A computer which declares itself thread safe, see {@link ConcurrentCompletionTest}. It only
+ * contributes a proposal while it is enabled, so that it does not disturb the other tests.
+ *
+ * @since 3.17
+ */
+public class ThreadSafeTestCompletionProposalComputer implements IJavaCompletionProposalComputer {
+
+	public static final String DISPLAY_STRING= "ThreadSafeTestProposal";
+
+	private static volatile boolean fgEnabled;
+
+	private static volatile Thread fgLastThread;
+
+	public static void setEnabled(boolean enabled) {
+		fgEnabled= enabled;
+		fgLastThread= null;
+	}
+
+	/**
+	 * @return the thread of the last computation while enabled, or <code>null</code>
+	 */
+	public static Thread getLastThread() {
+		return fgLastThread;
+	}
+
+	@Override
+	public void sessionStarted() {
+	}
+
+	@Override
+	public List<ICompletionProposal> computeCompletionProposals(ContentAssistInvocationContext context, IProgressMonitor monitor) {
+		if (!fgEnabled)
+			return Collections.emptyList();
+		fgLastThread= Thread.currentThread();
+		int offset= context.getInvocationOffset();
+		return Collections.<ICompletionProposal> singletonList(new CompletionProposal("", offset, 0, 0, null, DISPLAY_STRING, null, null));
+	}
+
+	@Override
+	public List<IContextInformation> computeContextInformation(ContentAssistInvocationContext context, IProgressMonitor monitor) {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public String getErrorMessage() {
+		return null;
+	}
+
+	@Override
+	public void sessionEnded() {
+	}
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.text.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.TextSelection;
+import org.eclipse.jface.text.source.SourceViewer;
+
+import org.eclipse.ui.texteditor.AbstractTextEditor;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingReconciler;
+
+/**
+ * Measures the time from typing a statement into a method body of a large Java class until the
+ * semantic highlighting has been updated, once with the whole compilation unit re-highlighted on
+ * every reconcile and once with incremental reconciles.
+ *
+ * @since 3.13
+ */
+public class SemanticHighlightingTypingTest extends TextPerformanceTestCase {
+
+	private static final Class<SemanticHighlightingTypingTest> THIS= SemanticHighlightingTypingTest.class;
+
+	private static final String FILE= PerformanceTestSetup.STYLED_TEXT;
+
+	private static final String METHOD= "public void setText(String text) {";
+
+	private static final String STATEMENT_ANCHOR= "checkWidget();";
+
+	private static final char[] STATEMENT= "\rint count= text.length() + getCharCount();".toCharArray();
+
+	private static final int WARM_UP_RUNS= 3;
+
+	private static final int MEASURED_RUNS= 10;
+
+	private AbstractTextEditor fEditor;
+
+	private SourceViewer fSourceViewer;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		EditorTestHelper.closeAllEditors();
+		JavaPlugin.getDefault().getPreferenceStore().setToDefault(SemanticHighlightingReconciler.PREF_INCREMENTAL_RECONCILE);
+		super.tearDown();
+	}
+
+	public void testTypeInMethodBody() throws Exception {
+		measure(false, "full reconcile");
+	}
+
+	public void testTypeInMethodBodyIncremental() throws Exception {
+		measure(true, "incremental reconcile");
+	}
+
+	private void measure(boolean incremental, String subScenarioId) throws Exception {
+		IPreferenceStore store= JavaPlugin.getDefault().getPreferenceStore();
+		store.setValue(SemanticHighlightingReconciler.PREF_INCREMENTAL_RECONCILE, incremental);
+		fEditor= (AbstractTextEditor) EditorTestHelper.openInEditor(ResourceTestHelper.findFile(FILE), EditorTestHelper.COMPILATION_UNIT_EDITOR_ID, true);
+		fSourceViewer= EditorTestHelper.getSourceViewer(fEditor);
+		EditorTestHelper.joinBackgroundActivities(fEditor);
+
+		int offset= getInsertPosition(EditorTestHelper.getDocument(fEditor));
+		measure(getNullPerformanceMeter(), offset, getWarmUpRuns());
+		measure(createPerformanceMeter(subScenarioId), offset, getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measure(PerformanceMeter performanceMeter, int offset, int runs) {
+		Display display= EditorTestHelper.getActiveDisplay();
+		KeyboardProbe keyboardProbe= getKeyboardProbe();
+		for (int i= 0; i < runs; i++) {
+			fEditor.getSelectionProvider().setSelection(new TextSelection(offset, 0));
+			EditorTestHelper.runEventQueue(display, 500);
+
+			performanceMeter.start();
+			for (int j= 0; j < STATEMENT.length; j++) {
+				keyboardProbe.pressChar(STATEMENT[j], display);
+				EditorTestHelper.runEventQueue();
+			}
+			EditorTestHelper.joinReconciler(fSourceViewer, 0, 10000, 10);
+			EditorTestHelper.runEventQueue();
+			performanceMeter.stop();
+
+			EditorTestHelper.revertEditor(fEditor, true);
+			EditorTestHelper.joinReconciler(fSourceViewer, 0, 10000, 100);
+		}
+	}
+
+	private static int getInsertPosition(IDocument document) {
+		String text= document.get();
+		int method= text.indexOf(METHOD);
+		assertTrue(method >= 0);
+		int anchor= text.indexOf(STATEMENT_ANCHOR, method);
+		assertTrue(anchor >= 0);
+		return anchor + STATEMENT_ANCHOR.length();
+	}
+}
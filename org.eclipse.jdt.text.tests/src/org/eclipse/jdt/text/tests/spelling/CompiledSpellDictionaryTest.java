@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.spelling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.core.runtime.Platform;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.ui.PreferenceConstants;
+
+import org.eclipse.jdt.internal.ui.text.spelling.engine.CompiledSpellDictionary;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellDictionary;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.PersistentSpellDictionary;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.RankedWordProposal;
+
+/**
+ * Tests that {@link CompiledSpellDictionary} answers like {@link PersistentSpellDictionary} on
+ * the same word list.
+ *
+ * @since 3.13
+ */
+public class CompiledSpellDictionaryTest {
+
+	private static final String[] WORDS= { "truck", "lorry", "sentence", "Global", "Lastwagen", "statement", "statements", "state", "status", "compile", "complete", "computer", "\u00FCberall" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$ //$NON-NLS-13$
+
+	private File fDirectory;
+	private File fWordList;
+	private File fCompiledDirectory;
+
+	@Before
+	public void setUp() throws Exception {
+		fDirectory= Files.createTempDirectory("compiledDictionary").toFile(); //$NON-NLS-1$
+		fWordList= new File(fDirectory, "words.txt"); //$NON-NLS-1$
+		fCompiledDirectory= new File(fDirectory, "compiled"); //$NON-NLS-1$
+		writeWords(WORDS);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		delete(fDirectory);
+	}
+
+	@Test
+	public void testIsCorrect() throws Exception {
+		ISpellDictionary expected= new PersistentSpellDictionary(getURL());
+		ISpellDictionary compiled= new CompiledSpellDictionary(getURL(), fCompiledDirectory, false);
+		String[] probes= { "truck", "Truck", "TRUCK", "(truck)", "trucks", "global", "Global", "\u00FCberall", "status", "stat", "", "computer," }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$
+		for (int i= 0; i < probes.length; i++)
+			assertEquals(probes[i], expected.isCorrect(probes[i]), compiled.isCorrect(probes[i]));
+		assertTrue(compiled.isLoaded());
+	}
+
+	@Test
+	public void testProposals() throws Exception {
+		ISpellDictionary expected= new PersistentSpellDictionary(getURL());
+		ISpellDictionary compiled= new CompiledSpellDictionary(getURL(), fCompiledDirectory, false);
+		String[] probes= { "truk", "lory", "sentense", "statment", "compter", "uberall", "xyz", "Truk", "STATMENT", "\u00FCberal", "glowbal" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$
+		for (int i= 0; i < probes.length; i++) {
+			assertEquals(probes[i], toStrings(expected.getProposals(probes[i], false)), toStrings(compiled.getProposals(probes[i], false)));
+			assertEquals(probes[i], toStrings(expected.getProposals(probes[i], true)), toStrings(compiled.getProposals(probes[i], true)));
+		}
+	}
+
+	@Test
+	public void testReuseCompiledFile() throws Exception {
+		new CompiledSpellDictionary(getURL(), fCompiledDirectory, false).isCorrect("truck"); //$NON-NLS-1$
+		File[] files= fCompiledDirectory.listFiles();
+		assertEquals(1, files.length);
+		long lastModified= files[0].lastModified();
+
+		ISpellDictionary compiled= new CompiledSpellDictionary(getURL(), fCompiledDirectory, false);
+		assertTrue(compiled.isCorrect("lorry")); //$NON-NLS-1$
+		assertEquals(lastModified, fCompiledDirectory.listFiles()[0].lastModified());
+	}
+
+	@Test
+	public void testRecompileChangedWordList() throws Exception {
+		ISpellDictionary compiled= new CompiledSpellDictionary(getURL(), fCompiledDirectory, false);
+		assertFalse(compiled.isCorrect("bicycle")); //$NON-NLS-1$
+
+		writeWords(new String[] { "bicycle" }); //$NON-NLS-1$
+		compiled.unload();
+		assertTrue(compiled.isCorrect("bicycle")); //$NON-NLS-1$
+		assertFalse(compiled.isCorrect("truck")); //$NON-NLS-1$
+	}
+
+	@Test
+	public void testRecompileIntoNewFile() throws Exception {
+		ISpellDictionary compiled= new CompiledSpellDictionary(getURL(), fCompiledDirectory, false);
+		assertTrue(compiled.isCorrect("truck")); //$NON-NLS-1$
+		File[] files= fCompiledDirectory.listFiles();
+		assertEquals(1, files.length);
+
+		// the old file is still mapped by the first dictionary
+		writeWords(new String[] { "bicycle" }); //$NON-NLS-1$
+		ISpellDictionary recompiled= new CompiledSpellDictionary(getURL(), fCompiledDirectory, false);
+		assertTrue(recompiled.isCorrect("bicycle")); //$NON-NLS-1$
+		assertTrue(compiled.isCorrect("truck")); //$NON-NLS-1$
+		Set<File> newFiles= new HashSet<>(Arrays.asList(fCompiledDirectory.listFiles()));
+		newFiles.remove(files[0]);
+		assertEquals(1, newFiles.size());
+		// a mapped file cannot be deleted on Windows
+		if (!Platform.OS_WIN32.equals(Platform.getOS()))
+			assertFalse(files[0].exists());
+	}
+
+	@Test
+	public void testAddWord() throws Exception {
+		ISpellDictionary readOnly= new CompiledSpellDictionary(getURL(), fCompiledDirectory, false);
+		assertFalse(readOnly.acceptsWords());
+		readOnly.addWord("bicycle"); //$NON-NLS-1$
+		assertFalse(readOnly.isCorrect("bicycle")); //$NON-NLS-1$
+
+		ISpellDictionary compiled= new CompiledSpellDictionary(getURL(), fCompiledDirectory, true);
+		assertTrue(compiled.acceptsWords());
+		compiled.addWord("bicycle"); //$NON-NLS-1$
+		assertTrue(compiled.isCorrect("bicycle")); //$NON-NLS-1$
+		assertTrue(toStrings(compiled.getProposals("bicycel", false)).contains("bicycle")); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// the word has been appended to the word list
+		ISpellDictionary reloaded= new CompiledSpellDictionary(getURL(), fCompiledDirectory, false);
+		assertTrue(reloaded.isCorrect("bicycle")); //$NON-NLS-1$
+		assertTrue(reloaded.isCorrect("truck")); //$NON-NLS-1$
+	}
+
+	private URL getURL() throws Exception {
+		return new URL("file", null, fWordList.getAbsolutePath()); //$NON-NLS-1$
+	}
+
+	private void writeWords(String[] words) throws IOException {
+		long lastModified= fWordList.lastModified();
+		Files.write(fWordList.toPath(), Arrays.asList(words), Charset.forName(getEncoding()));
+		// make sure that the change is detected on file systems with a coarse time stamp resolution
+		if (fWordList.lastModified() == lastModified)
+			fWordList.setLastModified(lastModified + 1000);
+	}
+
+	private static String getEncoding() {
+		String encoding= PreferenceConstants.getPreferenceStore().getString(PreferenceConstants.SPELLING_USER_DICTIONARY_ENCODING);
+		if (encoding == null || encoding.length() == 0)
+			encoding= ResourcesPlugin.getEncoding();
+		return encoding;
+	}
+
+	private static Set<String> toStrings(Set<RankedWordProposal> proposals) {
+		Set<String> result= new HashSet<>();
+		for (RankedWordProposal proposal : proposals)
+			result.add(proposal.getText() + ':' + proposal.getRank());
+		return result;
+	}
+
+	private static void delete(File file) {
+		File[] children= file.listFiles();
+		if (children != null) {
+			for (int i= 0; i < children.length; i++)
+				delete(children[i]);
+		}
+		file.delete();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -96,6 +96,7 @@ public class AllRefactoringTests {
 		//--fields
 		suite.addTest(RenamePrivateFieldTests.suite());
 		suite.addTest(RenameNonPrivateFieldTests.suite());
+		suite.addTest(RenameShadowingAnalyzerTests.suite());
 
 		//--projects
 		suite.addTest(RenameJavaProjectTests.suite());
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.ltk.core.refactoring.Refactoring;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.RefactoringStatusEntry;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.refactoring.IJavaRefactorings;
+import org.eclipse.jdt.core.refactoring.descriptors.RenameJavaElementDescriptor;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchPattern;
+
+import org.eclipse.jdt.internal.core.refactoring.descriptors.RefactoringSignatureDescriptorFactory;
+import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
+import org.eclipse.jdt.internal.corext.refactoring.RefactoringSearchEngine;
+import org.eclipse.jdt.internal.corext.refactoring.SearchResultGroup;
+import org.eclipse.jdt.internal.corext.refactoring.rename.RenameShadowingAnalyzer;
+import org.eclipse.jdt.internal.corext.util.Messages;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests that the {@link RenameShadowingAnalyzer} only decides the units locally which cannot be
+ * affected by shadowing, and that the rename refactorings still report the shadowing in all other
+ * units.
+ */
+public class RenameShadowingAnalyzerTests extends RefactoringTest {
+
+	private static final Class<RenameShadowingAnalyzerTests> clazz= RenameShadowingAnalyzerTests.class;
+
+	public RenameShadowingAnalyzerTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new RefactoringTestSetup(new TestSuite(clazz));
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new RefactoringTestSetup(someTest);
+	}
+
+	public void testFieldUnshadowed() throws Exception {
+		ICompilationUnit cuA= createCU(getPackageP(), "A.java", "package p;\npublic class A {\n    public int f;\n}\n");
+		createCU(getPackageP(), "B.java", "package p;\nclass B {\n    int m(A a) {\n        return a.f;\n    }\n}\n");
+		createCU(getPackageP(), "C.java", "package p;\nclass C extends A {\n    int m() {\n        return f + this.f;\n    }\n}\n");
+		IMember field= getType(cuA, "A").getField("f");
+
+		RenameShadowingAnalyzer analyzer= analyze(field, "g");
+		assertEquals(2, analyzer.getLocalCount());
+		assertEquals(0, analyzer.getFallbackCount());
+		assertNoShadowing(rename(field, "g"));
+	}
+
+	public void testFieldInheritedMember() throws Exception {
+		ICompilationUnit cuA= createCU(getPackageP(), "A.java", "package p;\npublic class A {\n    protected int f;\n}\n");
+		createCU(getPackageP(), "Base.java", "package p;\npublic class Base {\n    protected int g;\n}\n");
+		createCU(getPackageP(), "C.java", "package p;\nclass C extends A {\n    class Inner extends Base {\n        int m() {\n            return f;\n        }\n    }\n}\n");
+		IMember field= getType(cuA, "A").getField("f");
+
+		// Inner inherits g from Base, which would capture the renamed reference
+		RenameShadowingAnalyzer analyzer= analyze(field, "g");
+		assertEquals(0, analyzer.getLocalCount());
+		assertEquals(1, analyzer.getFallbackCount());
+		assertShadowing(rename(field, "g"), "C.java");
+	}
+
+	public void testFieldLocalVariable() throws Exception {
+		ICompilationUnit cuA= createCU(getPackageP(), "A.java", "package p;\npublic class A {\n    public int f;\n}\n");
+		createCU(getPackageP(), "B.java", "package p;\nclass B {\n    int m(A a) {\n        return a.f;\n    }\n}\n");
+		createCU(getPackageP(), "C.java", "package p;\nclass C extends A {\n    int m() {\n        int g= 1;\n        return f + g;\n    }\n}\n");
+		IMember field= getType(cuA, "A").getField("f");
+
+		// the local variable g would capture the renamed reference in C
+		RenameShadowingAnalyzer analyzer= analyze(field, "g");
+		assertEquals(1, analyzer.getLocalCount());
+		assertEquals(1, analyzer.getFallbackCount());
+		assertShadowing(rename(field, "g"), "C.java");
+	}
+
+	public void testMethodUnshadowed() throws Exception {
+		ICompilationUnit cuA= createCU(getPackageP(), "A.java", "package p;\npublic class A {\n    public void f() {\n    }\n}\n");
+		createCU(getPackageP(), "B.java", "package p;\nclass B {\n    void m(A a) {\n        a.f();\n    }\n}\n");
+		createCU(getPackageP(), "C.java", "package p;\nclass C extends A {\n    void m() {\n        f();\n        this.f();\n    }\n}\n");
+		IMember method= getType(cuA, "A").getMethod("f", new String[0]);
+
+		RenameShadowingAnalyzer analyzer= analyze(method, "g");
+		assertEquals(2, analyzer.getLocalCount());
+		assertEquals(0, analyzer.getFallbackCount());
+		assertNoShadowing(rename(method, "g"));
+	}
+
+	public void testMethodInheritedMember() throws Exception {
+		ICompilationUnit cuA= createCU(getPackageP(), "A.java", "package p;\npublic class A {\n    public void f() {\n    }\n}\n");
+		createCU(getPackageP(), "Base.java", "package p;\npublic class Base {\n    public void g() {\n    }\n}\n");
+		createCU(getPackageP(), "C.java", "package p;\nclass C extends A {\n    class Inner extends Base {\n        void m() {\n            f();\n        }\n    }\n}\n");
+		IMember method= getType(cuA, "A").getMethod("f", new String[0]);
+
+		// Inner inherits g() from Base, which would capture the renamed invocation
+		RenameShadowingAnalyzer analyzer= analyze(method, "g");
+		assertEquals(0, analyzer.getLocalCount());
+		assertEquals(1, analyzer.getFallbackCount());
+		assertShadowing(rename(method, "g"), "C.java");
+	}
+
+	public void testMethodStaticImportOnDemand() throws Exception {
+		ICompilationUnit cuA= createCU(getPackageP(), "A.java", "package p;\npublic class A {\n    public static void f(long l) {\n    }\n}\n");
+		createCU(getPackageP(), "Util.java", "package p;\npublic class Util {\n    public static void g(int i) {\n    }\n}\n");
+		createCU(getPackageP(), "B.java", "package p;\nimport static p.A.*;\nimport static p.Util.*;\nclass B {\n    void m() {\n        f(1);\n    }\n}\n");
+		IMember method= getType(cuA, "A").getMethod("f", new String[] { "J" });
+
+		// Util.g(int) is more specific than the renamed A.g(long) for the invocation in B
+		RenameShadowingAnalyzer analyzer= analyze(method, "g");
+		assertEquals(0, analyzer.getLocalCount());
+		assertEquals(1, analyzer.getFallbackCount());
+		assertShadowing(rename(method, "g"), "B.java");
+	}
+
+	private static RenameShadowingAnalyzer analyze(IMember member, String newName) throws Exception {
+		SearchPattern pattern= SearchPattern.createPattern(member, IJavaSearchConstants.REFERENCES);
+		SearchResultGroup[] references= RefactoringSearchEngine.search(pattern, SearchEngine.createWorkspaceScope(), new NullProgressMonitor(), new RefactoringStatus());
+		RenameShadowingAnalyzer analyzer= new RenameShadowingAnalyzer(member.getElementName(), newName, member.getElementType());
+		analyzer.analyze(references, new NullProgressMonitor());
+		return analyzer;
+	}
+
+	private RefactoringStatus rename(IMember member, String newName) throws Exception {
+		String id= member.getElementType() == IJavaElement.FIELD ? IJavaRefactorings.RENAME_FIELD : IJavaRefactorings.RENAME_METHOD;
+		RenameJavaElementDescriptor descriptor= RefactoringSignatureDescriptorFactory.createRenameJavaElementDescriptor(id);
+		descriptor.setJavaElement(member);
+		descriptor.setNewName(newName);
+		descriptor.setUpdateReferences(true);
+		Refactoring refactoring= createRefactoring(descriptor);
+		return refactoring.checkAllConditions(new NullProgressMonitor());
+	}
+
+	private static void assertNoShadowing(RefactoringStatus status) {
+		assertFalse(status.toString(), status.hasError());
+	}
+
+	private static void assertShadowing(RefactoringStatus status, String fileName) {
+		String message= Messages.format(RefactoringCoreMessages.RenameAnalyzeUtil_shadows, fileName);
+		RefactoringStatusEntry[] entries= status.getEntries();
+		for (int i= 0; i < entries.length; i++) {
+			if (entries[i].isError() && message.equals(entries[i].getMessage()))
+				return;
+		}
+		fail("shadowing not reported: " + status);
+	}
+}
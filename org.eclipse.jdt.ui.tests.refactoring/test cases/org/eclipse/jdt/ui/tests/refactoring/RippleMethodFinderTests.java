@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -133,4 +133,34 @@ public class RippleMethodFinderTests extends AbstractCUTestCase {
 		perform();
 	}
 
+	public void testCachedRippleMethods() throws Exception {
+		IPackageFragment pack= RefactoringTestSetup.getPackageP();
+		ICompilationUnit cu= createCU(pack, "CachedRipple.java",
+				"package p;\n" +
+				"interface CachedRipple {\n" +
+				"	void m();\n" +
+				"}\n");
+		ICompilationUnit implementor= null;
+		try {
+			IMethod target= cu.getType("CachedRipple").getMethod("m", new String[0]);
+			IMethod[] result= RippleMethodFinder2.getRelatedMethods(target, new NullProgressMonitor(), null);
+			assertEquals(1, result.length);
+			result= RippleMethodFinder2.getRelatedMethods(target, new NullProgressMonitor(), null);
+			assertEquals(1, result.length);
+
+			// a new implementor must not be hidden by the cached result
+			implementor= createCU(pack, "CachedRippleImpl.java",
+					"package p;\n" +
+					"class CachedRippleImpl implements CachedRipple {\n" +
+					"	public void m() {}\n" +
+					"}\n");
+			result= RippleMethodFinder2.getRelatedMethods(target, new NullProgressMonitor(), null);
+			assertEquals(2, result.length);
+		} finally {
+			if (implementor != null)
+				implementor.delete(true, null);
+			cu.delete(true, null);
+		}
+	}
+
 }
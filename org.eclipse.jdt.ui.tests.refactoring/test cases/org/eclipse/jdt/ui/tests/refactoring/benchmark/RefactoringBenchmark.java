@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.benchmark;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.Refactoring;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+/**
+ * Measures the phases of a refactoring on a {@link SyntheticProject} with {@link System#nanoTime()}
+ * instead of a <code>PerformanceMeter</code>, so that the numbers of the individual phases are
+ * available without a performance database.
+ * <p>
+ * The size of the project and the number of runs are configured with system properties:
+ * </p>
+ * <ul>
+ * <li><code>refactoring.benchmark.cus</code>: number of referencing compilation units (default
+ * 100)</li>
+ * <li><code>refactoring.benchmark.refs</code>: number of references per compilation unit (default
+ * 10)</li>
+ * <li><code>refactoring.benchmark.warmups</code>: number of runs which are not measured (default
+ * 3)</li>
+ * <li><code>refactoring.benchmark.runs</code>: number of measured runs (default 10)</li>
+ * <li><code>refactoring.benchmark.output</code>: file to which the results are appended as comma
+ * separated values (optional)</li>
+ * </ul>
+ */
+public abstract class RefactoringBenchmark extends TestCase {
+
+	public static final String NUMBER_OF_CUS= "refactoring.benchmark.cus";
+	public static final String NUMBER_OF_REFS= "refactoring.benchmark.refs";
+	public static final String WARM_UP_RUNS= "refactoring.benchmark.warmups";
+	public static final String MEASURED_RUNS= "refactoring.benchmark.runs";
+	public static final String OUTPUT_FILE= "refactoring.benchmark.output";
+
+	private static final int PHASE_SEARCH= 0;
+	private static final int PHASE_INITIAL_CONDITIONS= 1;
+	private static final int PHASE_FINAL_CONDITIONS= 2;
+	private static final int PHASE_CREATE_CHANGE= 3;
+
+	private static final String[] PHASE_NAMES= { "search", "initial conditions", "final conditions", "create change" };
+
+	/**
+	 * A refactoring to measure.
+	 */
+	protected static abstract class Scenario {
+
+		/**
+		 * Returns the element whose references are searched in the search phase. This is the
+		 * search the refactoring has to perform in its condition checking.
+		 *
+		 * @param project the project
+		 * @return the element
+		 */
+		public abstract IJavaElement getSearchElement(SyntheticProject project);
+
+		/**
+		 * Creates the refactoring.
+		 *
+		 * @param project the project
+		 * @return the refactoring
+		 * @throws Exception if the refactoring cannot be created
+		 */
+		public abstract Refactoring createRefactoring(SyntheticProject project) throws Exception;
+
+		/**
+		 * Configures the refactoring after the initial conditions have been checked, like the
+		 * user input page of the wizard does.
+		 *
+		 * @param refactoring the refactoring
+		 * @throws Exception if the refactoring cannot be configured
+		 */
+		public void configure(Refactoring refactoring) throws Exception {
+			// Do nothing
+		}
+	}
+
+	private static class CountingRequestor extends SearchRequestor {
+		private int fCount;
+
+		@Override
+		public void acceptSearchMatch(SearchMatch match) {
+			fCount++;
+		}
+	}
+
+	public RefactoringBenchmark() {
+		super();
+	}
+
+	public RefactoringBenchmark(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs the given scenario on fresh projects and reports the time spent in each phase.
+	 *
+	 * @param scenario the scenario
+	 * @throws Exception if the refactoring fails
+	 */
+	protected void run(Scenario scenario) throws Exception {
+		int numberOfCus= Integer.getInteger(NUMBER_OF_CUS, 100).intValue();
+		int numberOfRefs= Integer.getInteger(NUMBER_OF_REFS, 10).intValue();
+		int warmUpRuns= Integer.getInteger(WARM_UP_RUNS, 3).intValue();
+		int measuredRuns= Integer.getInteger(MEASURED_RUNS, 10).intValue();
+
+		long[][] samples= new long[PHASE_NAMES.length][measuredRuns];
+		for (int run= -warmUpRuns; run < measuredRuns; run++) {
+			SyntheticProject project= new SyntheticProject(numberOfCus, numberOfRefs);
+			try {
+				long[] times= measure(scenario, project);
+				if (run >= 0) {
+					for (int phase= 0; phase < PHASE_NAMES.length; phase++)
+						samples[phase][run]= times[phase];
+				}
+			} finally {
+				project.delete();
+			}
+		}
+		report(numberOfCus, numberOfRefs, samples);
+	}
+
+	private static long[] measure(Scenario scenario, SyntheticProject project) throws Exception {
+		IProgressMonitor monitor= new NullProgressMonitor();
+		long[] times= new long[PHASE_NAMES.length];
+		System.gc();
+
+		long start= System.nanoTime();
+		int matches= search(scenario.getSearchElement(project), project);
+		times[PHASE_SEARCH]= System.nanoTime() - start;
+		assertTrue("no references found", matches > 0);
+
+		Refactoring refactoring= scenario.createRefactoring(project);
+		start= System.nanoTime();
+		RefactoringStatus status= refactoring.checkInitialConditions(monitor);
+		times[PHASE_INITIAL_CONDITIONS]= System.nanoTime() - start;
+		assertFalse(status.toString(), status.hasError());
+
+		scenario.configure(refactoring);
+		start= System.nanoTime();
+		status= refactoring.checkFinalConditions(monitor);
+		times[PHASE_FINAL_CONDITIONS]= System.nanoTime() - start;
+		assertFalse(status.toString(), status.hasError());
+
+		start= System.nanoTime();
+		Change change= refactoring.createChange(monitor);
+		times[PHASE_CREATE_CHANGE]= System.nanoTime() - start;
+		assertNotNull(change);
+		change.dispose();
+		return times;
+	}
+
+	private static int search(IJavaElement element, SyntheticProject project) throws CoreException {
+		CountingRequestor requestor= new CountingRequestor();
+		SearchPattern pattern= SearchPattern.createPattern(element, IJavaSearchConstants.REFERENCES);
+		new SearchEngine().search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, SearchEngine.createJavaSearchScope(new IJavaElement[] { project.getProject() }), requestor, null);
+		return requestor.fCount;
+	}
+
+	private void report(int numberOfCus, int numberOfRefs, long[][] samples) throws IOException {
+		String scenario= getClass().getSimpleName() + "." + getName();
+		StringBuffer buf= new StringBuffer();
+		buf.append(scenario).append(": ").append(numberOfCus).append(" CUs, ").append(numberOfRefs).append(" references per CU\n");
+		for (int phase= 0; phase < PHASE_NAMES.length; phase++) {
+			long[] sorted= samples[phase].clone();
+			Arrays.sort(sorted);
+			if (sorted.length == 0)
+				continue;
+			long sum= 0;
+			for (int i= 0; i < sorted.length; i++)
+				sum+= sorted[i];
+			buf.append(String.format(Locale.ROOT, "  %-20s median %10.3f ms, min %10.3f ms, mean %10.3f ms\n",
+					PHASE_NAMES[phase], toMillis(sorted[sorted.length / 2]), toMillis(sorted[0]), toMillis(sum / sorted.length)));
+		}
+		System.out.print(buf.toString());
+
+		String output= System.getProperty(OUTPUT_FILE);
+		if (output != null) {
+			try (PrintWriter writer= new PrintWriter(new FileWriter(output, true))) {
+				for (int phase= 0; phase < PHASE_NAMES.length; phase++) {
+					for (int run= 0; run < samples[phase].length; run++)
+						writer.println(scenario + "," + numberOfCus + "," + numberOfRefs + "," + PHASE_NAMES[phase] + "," + run + "," + samples[phase][run]);
+				}
+			}
+		}
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000d;
+	}
+}
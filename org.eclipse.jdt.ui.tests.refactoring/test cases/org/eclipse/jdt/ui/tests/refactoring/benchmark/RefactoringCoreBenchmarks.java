@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.benchmark;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.ltk.core.refactoring.Refactoring;
+import org.eclipse.ltk.core.refactoring.participants.MoveRefactoring;
+import org.eclipse.ltk.core.refactoring.participants.ProcessorBasedRefactoring;
+import org.eclipse.ltk.core.refactoring.participants.RenameRefactoring;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+import org.eclipse.jdt.internal.corext.refactoring.ParameterInfo;
+import org.eclipse.jdt.internal.corext.refactoring.code.InlineMethodRefactoring;
+import org.eclipse.jdt.internal.corext.refactoring.rename.RenameTypeProcessor;
+import org.eclipse.jdt.internal.corext.refactoring.structure.ChangeSignatureProcessor;
+import org.eclipse.jdt.internal.corext.refactoring.structure.MoveInstanceMethodProcessor;
+import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
+
+import org.eclipse.jdt.internal.ui.preferences.JavaPreferencesSettings;
+
+/**
+ * Benchmarks of the refactorings whose condition checking and change creation scale with the
+ * number of references: rename type, change method signature, move instance method and inline
+ * method.
+ * <p>
+ * The benchmarks only use the headless refactoring infrastructure and run without a workbench.
+ * </p>
+ */
+public class RefactoringCoreBenchmarks extends RefactoringBenchmark {
+
+	public static Test suite() {
+		return new TestSuite(RefactoringCoreBenchmarks.class);
+	}
+
+	public RefactoringCoreBenchmarks(String name) {
+		super(name);
+	}
+
+	public void testRenameType() throws Exception {
+		run(new Scenario() {
+			@Override
+			public IJavaElement getSearchElement(SyntheticProject project) {
+				return project.getTypeToRename();
+			}
+
+			@Override
+			public Refactoring createRefactoring(SyntheticProject project) throws Exception {
+				RenameTypeProcessor processor= new RenameTypeProcessor(project.getTypeToRename());
+				processor.setNewElementName("B");
+				return new RenameRefactoring(processor);
+			}
+		});
+	}
+
+	public void testChangeSignature() throws Exception {
+		run(new Scenario() {
+			private ChangeSignatureProcessor fProcessor;
+
+			@Override
+			public IJavaElement getSearchElement(SyntheticProject project) {
+				return project.getMethodToChange();
+			}
+
+			@Override
+			public Refactoring createRefactoring(SyntheticProject project) throws Exception {
+				fProcessor= new ChangeSignatureProcessor(project.getMethodToChange());
+				return new ProcessorBasedRefactoring(fProcessor);
+			}
+
+			@Override
+			public void configure(Refactoring refactoring) throws Exception {
+				fProcessor.setNewMethodName("calculate");
+				fProcessor.getParameterInfos().add(ParameterInfo.createInfoForAddedParameter("int", "offset", "0"));
+			}
+		});
+	}
+
+	public void testMoveInstanceMethod() throws Exception {
+		run(new Scenario() {
+			private MoveInstanceMethodProcessor fProcessor;
+
+			@Override
+			public IJavaElement getSearchElement(SyntheticProject project) {
+				return project.getMethodToMove();
+			}
+
+			@Override
+			public Refactoring createRefactoring(SyntheticProject project) throws Exception {
+				fProcessor= new MoveInstanceMethodProcessor(project.getMethodToMove(), JavaPreferencesSettings.getCodeGenerationSettings(project.getProject()));
+				return new MoveRefactoring(fProcessor);
+			}
+
+			@Override
+			public void configure(Refactoring refactoring) throws Exception {
+				IVariableBinding[] targets= fProcessor.getPossibleTargets();
+				for (int i= 0; i < targets.length; i++) {
+					if (targets[i].getName().equals("target")) {
+						fProcessor.setTarget(targets[i]);
+						return;
+					}
+				}
+				fail("target parameter not available");
+			}
+		});
+	}
+
+	public void testInlineMethod() throws Exception {
+		run(new Scenario() {
+			private InlineMethodRefactoring fRefactoring;
+
+			@Override
+			public IJavaElement getSearchElement(SyntheticProject project) {
+				return project.getMethodToInline();
+			}
+
+			@Override
+			public Refactoring createRefactoring(SyntheticProject project) throws Exception {
+				IMethod method= project.getMethodToInline();
+				ICompilationUnit unit= method.getCompilationUnit();
+				ISourceRange range= method.getNameRange();
+				fRefactoring= InlineMethodRefactoring.create(unit, new RefactoringASTParser(IASTSharedValues.SHARED_AST_LEVEL).parse(unit, true), range.getOffset(), range.getLength());
+				assertNotNull(fRefactoring);
+				return fRefactoring;
+			}
+
+			@Override
+			public void configure(Refactoring refactoring) throws Exception {
+				fRefactoring.setDeleteSource(true);
+			}
+		});
+	}
+}
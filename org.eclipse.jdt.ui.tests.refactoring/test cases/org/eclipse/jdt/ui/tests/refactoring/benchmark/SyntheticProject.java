@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.benchmark;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.ui.tests.refactoring.reorg.TestProject;
+
+/**
+ * A generated project whose size is given by the number of referencing compilation units and the
+ * number of references per compilation unit.
+ * <p>
+ * Package <code>def</code> declares the refactored elements:
+ * </p>
+ * <ul>
+ * <li><code>A</code>, the type to rename, with <code>compute(int)</code>, the method whose
+ * signature is changed, and <code>moveMe(Target)</code>, the method to move to
+ * <code>Target</code></li>
+ * <li><code>Util.inc(int)</code>, the method to inline</li>
+ * </ul>
+ * Package <code>ref</code> contains the compilation units <code>Ref0 ... RefN</code>, each
+ * referencing all of these elements from every method.
+ */
+public class SyntheticProject {
+
+	private final TestProject fTestProject;
+	private final IType fTypeA;
+	private final IType fTypeUtil;
+
+	public SyntheticProject(int numberOfCus, int numberOfRefs) throws Exception {
+		fTestProject= new TestProject("RefactoringBenchmark");
+		try {
+			IPackageFragment definition= fTestProject.getSourceFolder().createPackageFragment("def", false, null);
+			fTypeA= createTypeA(definition).findPrimaryType();
+			createTarget(definition);
+			fTypeUtil= createUtil(definition).findPrimaryType();
+
+			IPackageFragment references= fTestProject.getSourceFolder().createPackageFragment("ref", false, null);
+			for (int i= 0; i < numberOfCus; i++)
+				createReferenceCu(references, i, numberOfRefs);
+
+			// make sure that the indexes are ready, so that indexing is not measured as searching
+			JavaProjectHelper.mustPerformDummySearch(fTestProject.getProject());
+		} catch (Exception e) {
+			fTestProject.delete();
+			throw e;
+		}
+	}
+
+	public IJavaProject getProject() {
+		return fTestProject.getProject();
+	}
+
+	public IType getTypeToRename() {
+		return fTypeA;
+	}
+
+	public IMethod getMethodToChange() {
+		return fTypeA.getMethod("compute", new String[] { "I" });
+	}
+
+	public IMethod getMethodToMove() {
+		return fTypeA.getMethod("moveMe", new String[] { "QTarget;" });
+	}
+
+	public IMethod getMethodToInline() {
+		return fTypeUtil.getMethod("inc", new String[] { "I" });
+	}
+
+	public void delete() throws Exception {
+		fTestProject.delete();
+	}
+
+	private static ICompilationUnit createTypeA(IPackageFragment pack) throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package def;\n");
+		buf.append("public class A {\n");
+		buf.append("    public int compute(int value) {\n");
+		buf.append("        return value * 2;\n");
+		buf.append("    }\n");
+		buf.append("    public void moveMe(Target target) {\n");
+		buf.append("        target.count++;\n");
+		buf.append("        target.total+= target.count;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		return pack.createCompilationUnit("A.java", buf.toString(), false, null);
+	}
+
+	private static ICompilationUnit createTarget(IPackageFragment pack) throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package def;\n");
+		buf.append("public class Target {\n");
+		buf.append("    public int count;\n");
+		buf.append("    public int total;\n");
+		buf.append("}\n");
+		return pack.createCompilationUnit("Target.java", buf.toString(), false, null);
+	}
+
+	private static ICompilationUnit createUtil(IPackageFragment pack) throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package def;\n");
+		buf.append("public class Util {\n");
+		buf.append("    public static int inc(int value) {\n");
+		buf.append("        return value + 1;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		return pack.createCompilationUnit("Util.java", buf.toString(), false, null);
+	}
+
+	private static void createReferenceCu(IPackageFragment pack, int index, int numberOfRefs) throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package " + pack.getElementName() + ";\n");
+		buf.append("import def.A;\n");
+		buf.append("import def.Target;\n");
+		buf.append("import def.Util;\n");
+		buf.append("public class Ref" + index + " {\n");
+		buf.append("    private A fA= new A();\n");
+		buf.append("    private Target fTarget= new Target();\n");
+		for (int i= 0; i < numberOfRefs; i++) {
+			buf.append("    public int use" + i + "(int value) {\n");
+			buf.append("        fA.moveMe(fTarget);\n");
+			buf.append("        return fA.compute(value) + Util.inc(" + i + ");\n");
+			buf.append("    }\n");
+		}
+		buf.append("}\n");
+		pack.createCompilationUnit("Ref" + index + ".java", buf.toString(), false, null);
+	}
+}
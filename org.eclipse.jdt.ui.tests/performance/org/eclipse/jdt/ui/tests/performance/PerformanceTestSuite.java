@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,6 +23,8 @@ public class PerformanceTestSuite {
 	public static Test suite() {
 		TestSuite suite= new TestSuite(PerformanceTestSuite.class.getName());
 		suite.addTest(TypeHierarchyPerfTest.suite());
+		suite.addTest(RemoteTestRunnerProtocolPerfTest.suite());
+		suite.addTest(RawZipWriterPerfTest.suite());
 		return suite;
 	}
 }
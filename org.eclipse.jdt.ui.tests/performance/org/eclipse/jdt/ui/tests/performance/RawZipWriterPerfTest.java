@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.ui.jarpackager.RawZipFile;
+import org.eclipse.jdt.internal.ui.jarpackager.RawZipWriter;
+
+/**
+ * Writes an archive with a streamed entry of more than 4 GB with the {@link RawZipWriter}, which
+ * needs the ZIP64 format for the sizes of the entry. The test writes several GB to the disk, so it
+ * is not part of the regular suite.
+ */
+public class RawZipWriterPerfTest extends JdtPerformanceTestCase {
+
+	private File fFile;
+
+	public static Test suite() {
+		return new TestSuite(RawZipWriterPerfTest.class);
+	}
+
+	public RawZipWriterPerfTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fFile= File.createTempFile("RawZipWriterPerfTest", ".jar");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fFile.delete();
+		super.tearDown();
+	}
+
+	public void testLargeStreamedEntry() throws Exception {
+		// zeros compress well, so only the uncompressed size exceeds 4 GB
+		final long size= 0x100000000L + 1000;
+		startMeasuring();
+		RawZipWriter writer= new RawZipWriter(new BufferedOutputStream(new FileOutputStream(fFile)), 1);
+		try {
+			writer.addBytes("first.txt", 0, new byte[] { 1 }, true);
+			writer.addStream("large.bin", 0, new ZeroInputStream(size), ZipEntry.DEFLATED, -1, -1);
+			writer.addBytes("last.txt", 0, new byte[] { 2 }, true);
+		} finally {
+			writer.close();
+		}
+		stopMeasuring();
+
+		ZipFile zipFile= new ZipFile(fFile);
+		try {
+			assertEquals(size, zipFile.getEntry("large.bin").getSize());
+			assertEquals(1, zipFile.getEntry("last.txt").getSize());
+		} finally {
+			zipFile.close();
+		}
+		RawZipFile rawZipFile= new RawZipFile(fFile);
+		try {
+			assertEquals(size, rawZipFile.getEntry("large.bin").getSize());
+		} finally {
+			rawZipFile.close();
+		}
+
+		// reading the entries checks the data descriptor
+		ZipInputStream in= new ZipInputStream(new BufferedInputStream(new FileInputStream(fFile)));
+		try {
+			List<String> names= new ArrayList<>();
+			byte[] buffer= new byte[65536];
+			ZipEntry entry;
+			while ((entry= in.getNextEntry()) != null) {
+				names.add(entry.getName());
+				long read= 0;
+				int count;
+				while ((count= in.read(buffer)) != -1)
+					read+= count;
+				if ("large.bin".equals(entry.getName())) {
+					assertEquals(size, read);
+					assertEquals(size, entry.getSize());
+				}
+			}
+			assertEquals(Arrays.asList("first.txt", "large.bin", "last.txt"), names);
+		} finally {
+			in.close();
+		}
+
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private static final class ZeroInputStream extends InputStream {
+
+		private long fRemaining;
+
+		ZeroInputStream(long size) {
+			fRemaining= size;
+		}
+
+		@Override
+		public int read() {
+			if (fRemaining == 0)
+				return -1;
+			fRemaining--;
+			return 0;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (fRemaining == 0)
+				return -1;
+			int count= (int) Math.min(len, fRemaining);
+			Arrays.fill(b, off, off + count, (byte) 0);
+			fRemaining-= count;
+			return count;
+		}
+	}
+}
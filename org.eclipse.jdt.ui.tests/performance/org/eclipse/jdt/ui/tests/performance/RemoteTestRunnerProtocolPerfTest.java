@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.Dimension;
+
+import org.eclipse.jdt.junit.tests.RemoteTestRunnerProtocolTest;
+
+/**
+ * Compares the throughput of the text and the binary protocol between the RemoteTestRunner and
+ * the RemoteTestRunnerClient for a test run with 100000 tests.
+ */
+public class RemoteTestRunnerProtocolPerfTest extends JdtPerformanceTestCase {
+
+	private static final int TEST_COUNT= 100000;
+
+	private static final int WARM_UP_RUNS= 2;
+
+	private static final int MEASURED_RUNS= 5;
+
+	public static Test suite() {
+		return new TestSuite(RemoteTestRunnerProtocolPerfTest.class);
+	}
+
+	public RemoteTestRunnerProtocolPerfTest(String name) {
+		super(name);
+	}
+
+	public void testTextProtocol() throws Exception {
+		tagAsSummary("JUnit text protocol, " + TEST_COUNT + " tests", Dimension.ELAPSED_PROCESS);
+		measureTestRun(false);
+	}
+
+	public void testBinaryProtocol() throws Exception {
+		tagAsSummary("JUnit binary protocol, " + TEST_COUNT + " tests", Dimension.ELAPSED_PROCESS);
+		measureTestRun(true);
+	}
+
+	private void measureTestRun(boolean binary) throws Exception {
+		for (int i= 0; i < WARM_UP_RUNS; i++) {
+			RemoteTestRunnerProtocolTest.runTestRun(binary, TEST_COUNT / 10);
+		}
+		for (int i= 0; i < MEASURED_RUNS; i++) {
+			startMeasuring();
+			int eventCount= RemoteTestRunnerProtocolTest.runTestRun(binary, TEST_COUNT);
+			stopMeasuring();
+			assertEquals(RemoteTestRunnerProtocolTest.getEventCount(TEST_COUNT), eventCount);
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+}
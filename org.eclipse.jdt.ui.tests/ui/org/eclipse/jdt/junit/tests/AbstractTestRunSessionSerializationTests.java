@@ -52,6 +52,7 @@ import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IType;
 
 import org.eclipse.jdt.internal.junit.model.JUnitModel;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
 import org.eclipse.jdt.internal.junit.model.TestRunSession;
 import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
 
@@ -108,7 +109,9 @@ public class AbstractTestRunSessionSerializationTests extends TestCase {
 			TestRunSession imported= JUnitModel.importTestRunSession(resultFile.getLocation().toFile());
 			// swap out the test run session because it may not have been done earlier
 			// due to lingering TestRunnerViewPart$TestSessionListeners
+			Status rootStatus= serializationResult.fTestRunSession.getTestRoot().getStatus();
 			serializationResult.fTestRunSession.swapOut();
+			assertEquals(rootStatus, serializationResult.fTestRunSession.getTestRootStatus());
 			assertEqualSessions(serializationResult.fTestRunSession, imported);
 		} finally {
 			if (resultFile.exists())
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -443,6 +443,27 @@ public class JUnit4TestFinderTest extends TestCase {
 		assertTestFound(validTest1.getCompilationUnit(), new String[] { "p.Test1" });
 	}
 
+	public void testCachedResultUpdated() throws Exception {
+		IPackageFragment p= fRoot.createPackageFragment("p", true, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("\n");
+		buf.append("import org.junit.Test;\n");
+		buf.append("\n");
+		buf.append("public class Test1 {\n");
+		buf.append("        public void testFoo() {\n");
+		buf.append("        }\n");
+		buf.append("}\n");
+		IType type= p.createCompilationUnit("Test1.java", buf.toString(), false, null).getType("Test1");
+
+		assertTestFound(type, new String[] { });
+		assertTestFound(p, new String[] { });
+
+		type.createMethod("@Test public void testBar() {\n}\n", null, false, null);
+
+		assertTestFound(type, new String[] { "p.Test1" });
+		assertTestFound(p, new String[] { "p.Test1" });
+	}
 
 	private void assertTestFound(IJavaElement container, String[] expectedTypes) throws CoreException {
 		ITestKind testKind= TestKindRegistry.getContainerTestKind(container);
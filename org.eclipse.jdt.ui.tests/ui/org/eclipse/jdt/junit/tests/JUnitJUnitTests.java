@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2017 IBM Corporation and others.
+ * Copyright (c) 2005, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -29,6 +29,7 @@ public class JUnitJUnitTests {
 
 		suite.addTestSuite(TestEnableAssertions.class);
 		suite.addTestSuite(TestPriorization.class);
+		suite.addTestSuite(TestHistoryOrderTest.class);
 		suite.addTestSuite(TestTestSearchEngine.class);
 
 		addDeprecatedTests(suite);
@@ -45,6 +46,9 @@ public class JUnitJUnitTests {
 
 		suite.addTestSuite(JUnit3TestFinderTest.class);
 		suite.addTestSuite(JUnit4TestFinderTest.class);
+		suite.addTestSuite(TestSharderTest.class);
+
+		suite.addTestSuite(RemoteTestRunnerProtocolTest.class);
 		//$JUnit-END$
 		return suite;
 	}
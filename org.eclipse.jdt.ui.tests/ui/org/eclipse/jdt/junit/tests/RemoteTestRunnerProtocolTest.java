@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.internal.junit.model.ITestRunListener2;
+import org.eclipse.jdt.internal.junit.model.RemoteTestRunnerClient;
+import org.eclipse.jdt.internal.junit.runner.BinaryMessageSender;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
+import org.eclipse.jdt.internal.junit.runner.MessageSender;
+
+import org.eclipse.jdt.launching.SocketUtil;
+
+/**
+ * Tests that the text and the binary protocol between the RemoteTestRunner and the
+ * {@link RemoteTestRunnerClient} report the same events. Their throughput is compared by the
+ * RemoteTestRunnerProtocolPerfTest.
+ */
+public class RemoteTestRunnerProtocolTest extends TestCase {
+
+	private static class RecordingListener implements ITestRunListener2 {
+		private final boolean fRecord;
+		private final List<String> fEvents= new ArrayList<>();
+		private final CountDownLatch fEnded= new CountDownLatch(1);
+		private int fEventCount;
+
+		RecordingListener(boolean record) {
+			fRecord= record;
+		}
+
+		private void record(String event) {
+			fEventCount++;
+			if (fRecord)
+				fEvents.add(event);
+		}
+
+		@Override
+		public void testRunStarted(int testCount) {
+			record("runStarted " + testCount);
+		}
+
+		@Override
+		public void testRunEnded(long elapsedTime) {
+			record("runEnded " + elapsedTime);
+			fEnded.countDown();
+		}
+
+		@Override
+		public void testRunStopped(long elapsedTime) {
+			record("runStopped " + elapsedTime);
+			fEnded.countDown();
+		}
+
+		@Override
+		public void testStarted(String testId, String testName) {
+			record("started " + testId + " " + testName);
+		}
+
+		@Override
+		public void testEnded(String testId, String testName) {
+			record("ended " + testId + " " + testName);
+		}
+
+		@Override
+		public void testRunTerminated() {
+			record("terminated");
+			fEnded.countDown();
+		}
+
+		@Override
+		public void testTreeEntry(String description) {
+			record("tree " + description);
+		}
+
+		@Override
+		public void testFailed(int status, String testId, String testName, String trace, String expected, String actual) {
+			record("failed " + status + " " + testId + " " + testName + " " + trace + " " + expected + " " + actual);
+		}
+
+		@Override
+		public void testReran(String testId, String testClass, String testName, int status, String trace, String expected, String actual) {
+			record("reran " + testId);
+		}
+
+		void waitForEnd() throws InterruptedException {
+			assertTrue("test run did not end", fEnded.await(2, TimeUnit.MINUTES));
+		}
+	}
+
+	private static class TextSender implements MessageSender {
+		private final PrintWriter fWriter;
+
+		TextSender(Socket socket) throws IOException {
+			fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)), false);
+		}
+
+		@Override
+		public void sendMessage(String msg) {
+			fWriter.println(msg);
+		}
+
+		@Override
+		public void flush() {
+			fWriter.flush();
+		}
+
+		void close() {
+			fWriter.close();
+		}
+	}
+
+	public void testTextAndBinaryProtocolsAreEquivalent() throws Exception {
+		RecordingListener text= runSession(false, 20, true);
+		RecordingListener binary= runSession(true, 20, true);
+		assertEquals(text.fEvents, binary.fEvents);
+		assertEquals(getEventCount(20), binary.fEvents.size());
+	}
+
+	public void testLargeTestRun() throws Exception {
+		RecordingListener text= runSession(false, 1000, true);
+		RecordingListener binary= runSession(true, 1000, true);
+		assertEquals(text.fEvents, binary.fEvents);
+		assertEquals(getEventCount(1000), binary.fEvents.size());
+		assertEquals("started 1001 test[999](p.ParameterizedTest)", binary.fEvents.get(binary.fEvents.size() - 3));
+		assertEquals("runEnded 4711", binary.fEvents.get(binary.fEvents.size() - 1));
+	}
+
+	/**
+	 * Sends a test run through the given protocol to a {@link RemoteTestRunnerClient} and waits
+	 * until the client has reported its end.
+	 *
+	 * @param binary <code>true</code> to use the binary protocol, <code>false</code> for the
+	 *            text protocol
+	 * @param testCount the number of tests
+	 * @return the number of events reported by the client
+	 * @throws Exception if the test run cannot be sent
+	 */
+	public static int runTestRun(boolean binary, int testCount) throws Exception {
+		return runSession(binary, testCount, false).fEventCount;
+	}
+
+	/**
+	 * Returns the number of events the client reports for a test run sent by
+	 * {@link #runTestRun(boolean, int)}.
+	 *
+	 * @param testCount the number of tests
+	 * @return the number of events
+	 */
+	public static int getEventCount(int testCount) {
+		// the run start, the tree entries, start and end of each test, every tenth test fails, the run end
+		return 1 + (testCount + 1) + testCount * 2 + (testCount + 2) / 10 + 1;
+	}
+
+	private static RecordingListener runSession(boolean binary, int testCount, boolean record) throws Exception {
+		RecordingListener listener= new RecordingListener(record);
+		RemoteTestRunnerClient client= new RemoteTestRunnerClient();
+		int port= SocketUtil.findFreePort();
+		client.startListening(new ITestRunListener2[] { listener }, port);
+
+		Socket socket= connect(port);
+		try {
+			if (binary) {
+				TextSender handshake= new TextSender(socket);
+				handshake.sendMessage(MessageIds.PROTOCOL + MessageIds.BINARY_PROTOCOL_V1);
+				handshake.flush();
+				BinaryMessageSender sender= new BinaryMessageSender(socket.getOutputStream());
+				sendTestRun(sender, testCount);
+				sender.close();
+			} else {
+				TextSender sender= new TextSender(socket);
+				sendTestRun(sender, testCount);
+				sender.close();
+			}
+			listener.waitForEnd();
+		} finally {
+			socket.close();
+		}
+		return listener;
+	}
+
+	private static Socket connect(int port) throws Exception {
+		for (int i= 0; i < 100; i++) {
+			try {
+				return new Socket("127.0.0.1", port);
+			} catch (ConnectException e) {
+				Thread.sleep(50);
+			}
+		}
+		fail("cannot connect to port " + port);
+		return null;
+	}
+
+	/**
+	 * Sends the messages of a test run like the RemoteTestRunner and its
+	 * FirstRunExecutionListener do.
+	 *
+	 * @param sender the message sender
+	 * @param testCount the number of tests
+	 */
+	private static void sendTestRun(MessageSender sender, int testCount) {
+		sender.sendMessage(MessageIds.TEST_RUN_START + testCount + " v2");
+		sender.sendMessage(MessageIds.TEST_TREE + "1,p.ParameterizedTest,true," + testCount + ",false,-1,ParameterizedTest,,");
+		for (int i= 0; i < testCount; i++) {
+			int id= i + 2;
+			sender.sendMessage(MessageIds.TEST_TREE + id + ",test[" + i + "](p.ParameterizedTest),false,1,false,-1,test[" + i + "],,");
+		}
+		for (int i= 0; i < testCount; i++) {
+			int id= i + 2;
+			String test= id + ",test[" + i + "](p.ParameterizedTest)";
+			sender.sendMessage(MessageIds.TEST_START + test);
+			sender.flush();
+			if (i % 10 == 7) {
+				sender.sendMessage(MessageIds.TEST_FAILED + test);
+				sender.sendMessage(MessageIds.EXPECTED_START);
+				sender.sendMessage("expected " + i);
+				sender.sendMessage(MessageIds.EXPECTED_END);
+				sender.sendMessage(MessageIds.ACTUAL_START);
+				sender.sendMessage("actual " + i);
+				sender.sendMessage(MessageIds.ACTUAL_END);
+				sender.sendMessage(MessageIds.TRACE_START);
+				sender.sendMessage("junit.framework.ComparisonFailure: expected:<" + i + ">\n\tat p.ParameterizedTest.test(ParameterizedTest.java:42)\n");
+				sender.sendMessage(MessageIds.TRACE_END);
+				sender.flush();
+			}
+			sender.sendMessage(MessageIds.TEST_END + test);
+		}
+		sender.sendMessage(MessageIds.TEST_RUN_END + 4711);
+		sender.flush();
+	}
+}
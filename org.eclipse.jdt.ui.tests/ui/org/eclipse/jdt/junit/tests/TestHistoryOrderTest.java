@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.runner.Description;
+import org.junit.runner.Request;
+
+import org.eclipse.jdt.internal.junit.runner.ITestLoader;
+import org.eclipse.jdt.internal.junit.runner.ITestReference;
+import org.eclipse.jdt.internal.junit.runner.MessageSender;
+import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
+import org.eclipse.jdt.internal.junit.runner.TestExecution;
+import org.eclipse.jdt.internal.junit.runner.TestHistory;
+
+import org.eclipse.jdt.internal.junit4.runner.HistorySorter;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the order of the tests by their {@link TestHistory}: the {@link HistorySorter} used for
+ * JUnit 4, and the order of the test classes in the {@link RemoteTestRunner}, which is the only
+ * order for JUnit 5.
+ */
+public class TestHistoryOrderTest extends TestCase {
+
+	public static class Passing {
+		@org.junit.Test
+		public void testA() {
+		}
+		@org.junit.Test
+		public void testB() {
+		}
+	}
+
+	public static class Failing {
+		@org.junit.Test
+		public void testA() {
+		}
+		@org.junit.Test
+		public void testB() {
+		}
+	}
+
+	public static class New {
+		@org.junit.Test
+		public void testA() {
+		}
+	}
+
+	/**
+	 * Passing always passed, testB of Failing failed in one of two runs, New has not been run
+	 * before.
+	 */
+	private static final String[] HISTORY= {
+			"2 0 10 testA(" + Passing.class.getName() + ")",
+			"2 0 10 testB(" + Passing.class.getName() + ")",
+			"2 0 100 testA(" + Failing.class.getName() + ")",
+			"2 1 100 testB(" + Failing.class.getName() + ")"
+	};
+
+	private static class RecordingTestRunner extends RemoteTestRunner {
+		private final List<Class<?>> fLoadedClasses= new ArrayList<>();
+
+		RecordingTestRunner(String[] args) {
+			init(args);
+			setMessageSender(new MessageSender() {
+				@Override
+				public void sendMessage(String msg) {
+				}
+
+				@Override
+				public void flush() {
+				}
+			});
+			setLoader(new ITestLoader() {
+				@Override
+				public ITestReference[] loadTests(Class[] testClasses, String testName, String[] failureNames, String[] packages, String[][] includeExcludeTags, String uniqueId, RemoteTestRunner listener) {
+					fLoadedClasses.addAll(Arrays.<Class<?>>asList(testClasses));
+					return new ITestReference[0];
+				}
+			});
+		}
+
+		@Override
+		protected ClassLoader getTestClassLoader() {
+			return TestHistoryOrderTest.class.getClassLoader();
+		}
+	}
+
+	private final List<File> fFiles= new ArrayList<>();
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (File file : fFiles) {
+			file.delete();
+		}
+	}
+
+	public void testSortMethods() throws Exception {
+		HistorySorter sorter= new HistorySorter(TestHistory.read(createFile(HISTORY)));
+		Description description= Request.aClass(Failing.class).sortWith(sorter).getRunner().getDescription();
+		assertEquals(Arrays.asList("testB", "testA"), getMethodNames(description));
+	}
+
+	public void testSortClasses() throws Exception {
+		HistorySorter sorter= new HistorySorter(TestHistory.read(createFile(HISTORY)));
+		Description description= Request.classes(Passing.class, Failing.class, New.class).sortWith(sorter).getRunner().getDescription();
+		List<String> classNames= new ArrayList<>();
+		for (Description child : description.getChildren()) {
+			classNames.add(child.getClassName());
+		}
+		assertEquals(Arrays.asList(New.class.getName(), Failing.class.getName(), Passing.class.getName()), classNames);
+	}
+
+	public void testSortUnknownTests() throws Exception {
+		// a test without history is run before the tests which have passed
+		String[] history= {
+				"1 0 10 testA(" + Failing.class.getName() + ")"
+		};
+		HistorySorter sorter= new HistorySorter(TestHistory.read(createFile(history)));
+		Description description= Request.aClass(Failing.class).sortWith(sorter).getRunner().getDescription();
+		assertEquals(Arrays.asList("testB", "testA"), getMethodNames(description));
+	}
+
+	public void testRunnerSortsClasses() throws Exception {
+		RecordingTestRunner runner= runTests(null);
+		assertEquals(Arrays.<Class<?>>asList(New.class, Failing.class, Passing.class), runner.fLoadedClasses);
+	}
+
+	public void testRunnerSortsFailedClassesFirst() throws Exception {
+		String[] failures= {
+				"testB(" + Passing.class.getName() + ")"
+		};
+		RecordingTestRunner runner= runTests(createFile(failures));
+		assertEquals(Arrays.<Class<?>>asList(Passing.class, New.class, Failing.class), runner.fLoadedClasses);
+	}
+
+	public void testRunnerWithoutHistory() throws Exception {
+		RecordingTestRunner runner= new RecordingTestRunner(new String[] {
+				"-classnames", Passing.class.getName(), Failing.class.getName(), New.class.getName(),
+				"-port", "0"
+		});
+		runner.runTests(new TestExecution(null, null));
+		assertEquals(Arrays.<Class<?>>asList(Passing.class, Failing.class, New.class), runner.fLoadedClasses);
+	}
+
+	private RecordingTestRunner runTests(String failuresFile) throws IOException {
+		List<String> args= new ArrayList<>(Arrays.asList(
+				"-classnames", Passing.class.getName(), Failing.class.getName(), New.class.getName(),
+				"-testhistory", createFile(HISTORY),
+				"-port", "0"));
+		if (failuresFile != null) {
+			args.add("-testfailures");
+			args.add(failuresFile);
+		}
+		RecordingTestRunner runner= new RecordingTestRunner(args.toArray(new String[args.size()]));
+		runner.runTests(new TestExecution(null, null));
+		return runner;
+	}
+
+	private static List<String> getMethodNames(Description description) {
+		List<String> methodNames= new ArrayList<>();
+		for (Description child : description.getChildren()) {
+			methodNames.add(child.getMethodName());
+		}
+		return methodNames;
+	}
+
+	private String createFile(String[] lines) throws IOException {
+		File file= File.createTempFile("testHistory", ".txt");
+		fFiles.add(file);
+		Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+		return file.getAbsolutePath();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,10 @@
 
 package org.eclipse.jdt.junit.tests;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
@@ -21,6 +25,8 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.eclipse.jdt.internal.junit.runner.FailuresFirstPrioritizer;
+import org.eclipse.jdt.internal.junit.runner.HistoryPrioritizer;
+import org.eclipse.jdt.internal.junit.runner.TestHistory;
 
 import junit.extensions.TestDecorator;
 import junit.extensions.TestSetup;
@@ -307,6 +313,51 @@ public class TestPriorization extends TestCase {
 		}
 	}
 
+	public void testReorderByHistory() throws IOException {
+		// D passed in 10 ms, E failed once in two runs of 100 ms, F has not been run before
+		String[] history= {
+				"2 0 10 testD(org.eclipse.jdt.junit.tests.TestPriorizationSuite2)",
+				"2 1 100 testE(org.eclipse.jdt.junit.tests.TestPriorizationSuite2)"
+		};
+		Test prioritized= prioritizeByHistory(createSuiteDEF(), history);
+		List<String> order= new ArrayList<>();
+		collectOrder(prioritized, order);
+		String[] expected= {
+				"testF", "testE", "testD"
+		};
+		checkOrder(expected, order);
+	}
+
+	public void testReorderNestedByHistory() throws IOException {
+		// suite
+		//		suite1
+		//			X
+		//			Y
+		//			Z
+		//		suite2
+		//			A*
+		//			B
+		//			C
+		TestSuite suite= new TestSuite();
+		suite.addTest(createSuiteXYZ());
+		suite.addTest(createSuiteABC());
+		String[] history= {
+				"1 0 10 testX(org.eclipse.jdt.junit.tests.TestPriorizationSuite)",
+				"1 0 10 testY(org.eclipse.jdt.junit.tests.TestPriorizationSuite)",
+				"1 0 10 testZ(org.eclipse.jdt.junit.tests.TestPriorizationSuite)",
+				"4 1 50 testA(org.eclipse.jdt.junit.tests.TestPriorizationSuite1)",
+				"1 0 10 testB(org.eclipse.jdt.junit.tests.TestPriorizationSuite1)",
+				"1 0 20 testC(org.eclipse.jdt.junit.tests.TestPriorizationSuite1)"
+		};
+		Test prioritized= prioritizeByHistory(suite, history);
+		List<String> order= new ArrayList<>();
+		collectOrder(prioritized, order);
+		String[] expected= {
+				"testA", "testB", "testC", "testX", "testY", "testZ"
+		};
+		checkOrder(expected, order);
+	}
+
 	private TestSuite createSuiteDEF() {
 		// suite
 		//		D
@@ -389,4 +440,15 @@ public class TestPriorization extends TestCase {
 		FailuresFirstPrioritizer prioritizer= new FailuresFirstPrioritizer(priority);
 		return prioritizer.prioritize(suite);
 	}
+
+	private Test prioritizeByHistory(Test suite, String[] history) throws IOException {
+		File file= File.createTempFile("testHistory", ".txt");
+		try {
+			Files.write(file.toPath(), Arrays.asList(history), StandardCharsets.UTF_8);
+			HistoryPrioritizer prioritizer= new HistoryPrioritizer(TestHistory.read(file.getAbsolutePath()));
+			return prioritizer.prioritize(suite);
+		} finally {
+			file.delete();
+		}
+	}
 }
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.internal.junit.launcher.TestSharder;
+
+public class TestSharderTest extends TestCase {
+
+	private IPackageFragment fPackage;
+
+	@Override
+	protected void setUp() throws Exception {
+		// handles are sufficient, the sharder only needs the type names
+		IProject project= ResourcesPlugin.getWorkspace().getRoot().getProject("P");
+		IJavaProject javaProject= JavaCore.create(project);
+		fPackage= javaProject.getPackageFragmentRoot(project.getFolder("src")).getPackageFragment("p");
+	}
+
+	private IType getType(String name) {
+		return fPackage.getCompilationUnit(name + ".java").getType(name);
+	}
+
+	public void testSplitByDuration() throws Exception {
+		IJavaElement[] types= { getType("A"), getType("B"), getType("C"), getType("D") };
+		Map<String, Double> durations= new HashMap<>();
+		durations.put("p.A", Double.valueOf(10));
+		durations.put("p.B", Double.valueOf(6));
+		durations.put("p.C", Double.valueOf(3));
+		durations.put("p.D", Double.valueOf(2));
+
+		IJavaElement[][] shards= TestSharder.split(types, 2, durations, Collections.<String>emptySet());
+		assertEquals(2, shards.length);
+		assertEquals(Arrays.asList(getType("A")), Arrays.asList(shards[0]));
+		assertEquals(Arrays.asList(getType("B"), getType("C"), getType("D")), Arrays.asList(shards[1]));
+	}
+
+	public void testSplitUnknownDuration() throws Exception {
+		IJavaElement[] types= { getType("A"), getType("B"), getType("C") };
+		Map<String, Double> durations= new HashMap<>();
+		durations.put("p.A", Double.valueOf(4));
+
+		// B and C are assumed to take as long as A
+		IJavaElement[][] shards= TestSharder.split(types, 3, durations, Collections.<String>emptySet());
+		assertEquals(3, shards.length);
+		for (int i= 0; i < shards.length; i++) {
+			assertEquals(1, shards[i].length);
+		}
+	}
+
+	public void testSplitFailuresFirst() throws Exception {
+		IJavaElement[] types= { getType("A"), getType("B"), getType("C"), getType("D") };
+		Map<String, Double> durations= new HashMap<>();
+		durations.put("p.A", Double.valueOf(10));
+		durations.put("p.B", Double.valueOf(1));
+		durations.put("p.C", Double.valueOf(1));
+		durations.put("p.D", Double.valueOf(1));
+		Set<String> failures= new HashSet<>(Arrays.asList("p.C", "p.D"));
+
+		IJavaElement[][] shards= TestSharder.split(types, 2, durations, failures);
+		assertEquals(2, shards.length);
+		assertEquals(getType("C"), shards[0][0]);
+		assertEquals(getType("D"), shards[1][0]);
+	}
+
+	public void testSplitMoreShardsThanTypes() throws Exception {
+		IJavaElement[] types= { getType("A"), getType("B") };
+		IJavaElement[][] shards= TestSharder.split(types, 4, Collections.<String, Double>emptyMap(), Collections.<String>emptySet());
+		assertEquals(2, shards.length);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -25,9 +25,11 @@ import org.eclipse.jdt.ui.tests.browsing.PackagesViewContentProviderTests2;
 import org.eclipse.jdt.ui.tests.browsing.PackagesViewDeltaTests;
 import org.eclipse.jdt.ui.tests.buildpath.BuildpathTestSuite;
 import org.eclipse.jdt.ui.tests.callhierarchy.CallHierarchyContentProviderTest;
+import org.eclipse.jdt.ui.tests.callhierarchy.CallerCacheTest;
 import org.eclipse.jdt.ui.tests.core.CoreTests;
 import org.eclipse.jdt.ui.tests.jarexport.JarExportTests;
 import org.eclipse.jdt.ui.tests.model.ContentProviderTests;
+import org.eclipse.jdt.ui.tests.packageHover.JavadocContentCacheTest;
 import org.eclipse.jdt.ui.tests.packageHover.PackageJavadocTests;
 import org.eclipse.jdt.ui.tests.packageview.PackageExplorerTests;
 import org.eclipse.jdt.ui.tests.quickfix.QuickFixTest;
@@ -72,6 +74,7 @@ public class AutomatedSuite extends TestSuite {
 		addTest(ContentProviderTests.suite());
 
 		addTest(CallHierarchyContentProviderTest.suite());
+		addTest(CallerCacheTest.suite());
 
 		addTest(RefactoringTests.suite());
 
@@ -82,6 +85,7 @@ public class AutomatedSuite extends TestSuite {
 
 		addTest(JarExportTests.suite());
 		addTest(PackageJavadocTests.suite());
+		addTest(JavadocContentCacheTest.suite());
 	}
 }
 
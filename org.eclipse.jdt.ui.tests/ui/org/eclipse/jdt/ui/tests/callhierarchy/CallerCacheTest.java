@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.callhierarchy;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallerExpander;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallerMethodWrapper;
+import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
+
+/**
+ * Tests the {@link org.eclipse.jdt.internal.corext.callhierarchy.CallerCache} and the expansion of
+ * callers by the {@link CallerExpander}.
+ */
+public class CallerCacheTest extends TestCase {
+
+	private static final Class<CallerCacheTest> THIS= CallerCacheTest.class;
+
+	private static class RecordingExpander extends CallerExpander {
+		final List<IMember> fExpanded= new ArrayList<>();
+
+		RecordingExpander() {
+			super(4);
+		}
+
+		@Override
+		protected synchronized void callersFound(CallerMethodWrapper node, MethodWrapper[] callers) {
+			fExpanded.add(node.getMember());
+		}
+	}
+
+	private CallHierarchyTestHelper helper;
+
+	public CallerCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		helper= new CallHierarchyTestHelper();
+		helper.setUp();
+		helper.createSimpleClasses();
+		CallHierarchy.getDefault().getCallerCache().clear();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		CallHierarchy.getDefault().getCallerCache().clear();
+		helper.tearDown();
+		helper= null;
+	}
+
+	public void testCacheHit() throws Exception {
+		assertNull(getCallerRoot(helper.getMethod1()).getCachedCalls());
+		MethodWrapper[] calls= getCallerRoot(helper.getMethod1()).getCalls(new NullProgressMonitor());
+		helper.assertCalls(new IMember[] { helper.getMethod2(), helper.getMethod3() }, calls);
+
+		// a new tree gets the callers from the cache
+		MethodWrapper[] cachedCalls= getCallerRoot(helper.getMethod1()).getCachedCalls();
+		assertNotNull(cachedCalls);
+		helper.assertCalls(new IMember[] { helper.getMethod2(), helper.getMethod3() }, cachedCalls);
+		assertNull(getCallerRoot(helper.getMethod4()).getCachedCalls());
+	}
+
+	public void testSavedChangeClearsCache() throws Exception {
+		getCallerRoot(helper.getMethod1()).getCalls(new NullProgressMonitor());
+		assertCached(helper.getMethod1());
+
+		ICompilationUnit cu= helper.getType2().getCompilationUnit();
+		IFile file= (IFile) cu.getResource();
+		String contents= cu.getSource().replace("method4() { method3(); }", "method4() { method3(); method1(); }");
+		file.setContents(new ByteArrayInputStream(contents.getBytes(file.getCharset())), true, false, null);
+		assertNotCached(helper.getMethod1());
+
+		MethodWrapper[] calls= getCallerRoot(helper.getMethod1()).getCalls(new NullProgressMonitor());
+		helper.assertCalls(new IMember[] { helper.getMethod2(), helper.getMethod3(), helper.getMethod4() }, calls);
+	}
+
+	public void testReconcileKeepsCache() throws Exception {
+		getCallerRoot(helper.getMethod1()).getCalls(new NullProgressMonitor());
+
+		ICompilationUnit cu= helper.getType2().getCompilationUnit();
+		cu.becomeWorkingCopy(null);
+		try {
+			cu.getBuffer().replace(0, 0, "// edited\n");
+			cu.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			assertCached(helper.getMethod1());
+		} finally {
+			cu.discardWorkingCopy();
+		}
+		// the discarded working copy had unsaved changes
+		assertNotCached(helper.getMethod1());
+	}
+
+	public void testExpandToDepth() throws Exception {
+		RecordingExpander expander= new RecordingExpander();
+		expander.expand(new CallerMethodWrapper[] { getCallerRoot(helper.getMethod1()) }, 2, new NullProgressMonitor());
+
+		// the callers of method4 are beyond the depth
+		assertEquals(3, expander.fExpanded.size());
+		assertTrue(expander.fExpanded.contains(helper.getMethod1()));
+		assertTrue(expander.fExpanded.contains(helper.getMethod2()));
+		assertTrue(expander.fExpanded.contains(helper.getMethod3()));
+		assertCached(helper.getMethod1());
+		assertCached(helper.getMethod2());
+		assertCached(helper.getMethod3());
+		assertNotCached(helper.getMethod4());
+
+		// the viewer gets the expanded callers without searching
+		CallerMethodWrapper root= getCallerRoot(helper.getMethod1());
+		MethodWrapper[] calls= root.getCachedCalls();
+		helper.assertCalls(new IMember[] { helper.getMethod2(), helper.getMethod3() }, calls);
+		MethodWrapper method3= helper.findMethodWrapper(helper.getMethod3(), calls);
+		helper.assertCalls(new IMember[] { helper.getMethod4() }, method3.getCachedCalls());
+	}
+
+	public void testCancel() throws Exception {
+		final NullProgressMonitor monitor= new NullProgressMonitor();
+		RecordingExpander expander= new RecordingExpander() {
+			@Override
+			protected synchronized void callersFound(CallerMethodWrapper node, MethodWrapper[] callers) {
+				super.callersFound(node, callers);
+				monitor.setCanceled(true);
+			}
+		};
+		try {
+			expander.expand(new CallerMethodWrapper[] { getCallerRoot(helper.getMethod1()) }, 3, monitor);
+			fail("expansion not canceled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		assertEquals(1, expander.fExpanded.size());
+		assertCached(helper.getMethod1());
+		assertNotCached(helper.getMethod3());
+
+		// the search fails on a canceled monitor
+		try {
+			getCallerRoot(helper.getMethod4()).getCalls(monitor);
+			fail("search not canceled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		assertNotCached(helper.getMethod4());
+	}
+
+	private static CallerMethodWrapper getCallerRoot(IMethod method) {
+		return (CallerMethodWrapper) CallHierarchy.getDefault().getCallerRoots(new IMember[] { method })[0];
+	}
+
+	private static void assertCached(IMethod method) {
+		assertNotNull(getCallers(method));
+	}
+
+	private static void assertNotCached(IMethod method) {
+		assertNull(getCallers(method));
+	}
+
+	private static Object getCallers(IMethod method) {
+		CallHierarchy callHierarchy= CallHierarchy.getDefault();
+		return callHierarchy.getCallerCache().getCallers(method, IJavaSearchConstants.REFERENCES, callHierarchy.getSearchScope());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -33,6 +33,7 @@ import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.eclipse.jdt.core.manipulation.SharedASTProviderCore;
 import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 
@@ -147,6 +148,77 @@ public class ASTProviderTest extends CoreTests {
 		cu.getBuffer().save(null, true);
 	}
 
+	public void testCachedASTOfInactiveEditor() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 {\n");
+		buf.append("}\n");
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", buf.toString(), false, null);
+
+		buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E2 {\n");
+		buf.append("}\n");
+		ICompilationUnit cu2= pack1.createCompilationUnit("E2.java", buf.toString(), false, null);
+
+		JavaUI.openInEditor(cu1);
+		CompilationUnit ast1= SharedASTProviderCore.getAST(cu1, SharedASTProviderCore.WAIT_YES, null);
+		assertNotNull(ast1);
+
+		JavaUI.openInEditor(cu2);
+		assertNotNull(SharedASTProviderCore.getAST(cu2, SharedASTProviderCore.WAIT_YES, null));
+
+		long hits= SharedASTProviderCore.getCacheHitCount();
+		assertSame(ast1, SharedASTProviderCore.getAST(cu1, SharedASTProviderCore.WAIT_YES, null));
+		assertEquals(hits + 1, SharedASTProviderCore.getCacheHitCount());
+
+		cu1.getBuffer().replace(0, 0, "/* changed */\n");
+		long misses= SharedASTProviderCore.getCacheMissCount();
+		CompilationUnit changedAST= SharedASTProviderCore.getAST(cu1, SharedASTProviderCore.WAIT_YES, null);
+		assertNotSame(ast1, changedAST);
+		assertEquals(misses + 1, SharedASTProviderCore.getCacheMissCount());
+
+		cu1.getBuffer().save(null, true);
+	}
+
+	public void testCachedASTInvalidatedBySupertypeChange() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class Base {\n");
+		buf.append("}\n");
+		ICompilationUnit base= pack1.createCompilationUnit("Base.java", buf.toString(), false, null);
+
+		buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 extends Base {\n");
+		buf.append("}\n");
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", buf.toString(), false, null);
+
+		buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E2 {\n");
+		buf.append("}\n");
+		ICompilationUnit cu2= pack1.createCompilationUnit("E2.java", buf.toString(), false, null);
+
+		JavaUI.openInEditor(cu1);
+		CompilationUnit ast1= SharedASTProviderCore.getAST(cu1, SharedASTProviderCore.WAIT_YES, null);
+		assertNotNull(ast1);
+
+		JavaUI.openInEditor(cu2);
+		assertNotNull(SharedASTProviderCore.getAST(cu2, SharedASTProviderCore.WAIT_YES, null));
+		assertSame(ast1, SharedASTProviderCore.getAST(cu1, SharedASTProviderCore.WAIT_YES, null));
+
+		// the bindings of E1 depend on the members of Base
+		base.getType("Base").createField("public int count;", null, false, null);
+
+		CompilationUnit changedAST= SharedASTProviderCore.getAST(cu1, SharedASTProviderCore.WAIT_YES, null);
+		assertNotSame(ast1, changedAST);
+		TypeDeclaration type= (TypeDeclaration) changedAST.types().get(0);
+		assertEquals(1, type.resolveBinding().getSuperclass().getDeclaredFields().length);
+	}
+
 	private static String getNormalizeNumber(int number) {
 		if (number < 10) {
 			return "000" + number;
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.w3c.dom.Element;
+
+import org.eclipse.jdt.internal.corext.util.History;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the journal in which a {@link History} is stored.
+ */
+public class HistoryTest extends TestCase {
+
+	private static final Class<HistoryTest> THIS= HistoryTest.class;
+
+	private static final String FILE_NAME= "HistoryTest.xml";
+	private static final String JOURNAL_NAME= "HistoryTest.journal";
+
+	/**
+	 * Values are of the form <code>key:attribute</code>. Records the values which have been
+	 * created from elements but are not contained in the history.
+	 */
+	private static final class TestHistory extends History<String, String> {
+
+		private final List<String> fCreated= new ArrayList<>();
+
+		public TestHistory(String fileName) {
+			super(fileName);
+		}
+
+		@Override
+		protected void setAttributes(Object object, Element element) {
+			element.setAttribute("value", (String) object);
+		}
+
+		@Override
+		protected String createFromElement(Element element) {
+			String value= element.getAttribute("value");
+			fCreated.add(value);
+			return value;
+		}
+
+		@Override
+		protected String getKey(String object) {
+			return object.substring(0, object.indexOf(':'));
+		}
+
+		@Override
+		protected void historyLoaded() {
+			fCreated.retainAll(getValues());
+		}
+
+		public void update(String object) {
+			updated(object);
+		}
+
+		public String[] getHistory() {
+			return getValues().toArray(new String[0]);
+		}
+
+		public List<String> getCreated() {
+			return fCreated;
+		}
+	}
+
+	public HistoryTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		deleteFiles();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		deleteFiles();
+	}
+
+	private static void deleteFiles() {
+		getFile(FILE_NAME).delete();
+		getFile(JOURNAL_NAME).delete();
+	}
+
+	private static File getFile(String name) {
+		return JavaPlugin.getDefault().getStateLocation().append(name).toFile();
+	}
+
+	public void testAppend() throws Exception {
+		TestHistory history= new TestHistory(FILE_NAME);
+		history.accessed("a:1");
+		history.accessed("b:1");
+		history.save();
+		File journal= getFile(JOURNAL_NAME);
+		assertTrue(journal.isFile());
+		byte[] snapshot= readFile(journal);
+
+		history.accessed("c:1");
+		history.accessed("a:2");
+		history.remove("b:1");
+		history.update("c:2");
+		history.save();
+
+		// the records are appended to the existing journal
+		byte[] appended= readFile(journal);
+		assertTrue(appended.length > snapshot.length);
+		assertTrue(Arrays.equals(snapshot, Arrays.copyOf(appended, snapshot.length)));
+
+		TestHistory loaded= new TestHistory(FILE_NAME);
+		assertEquals(Arrays.asList("c:2", "a:2"), Arrays.asList(loaded.getHistory()));
+		assertEquals(1, loaded.getPosition("a"));
+		assertEquals(-1, loaded.getPosition("b"));
+		// the values created for the removed and replaced records are dropped
+		assertEquals(Arrays.asList("a:2", "c:2"), loaded.getCreated());
+	}
+
+	public void testCompaction() throws Exception {
+		TestHistory history= new TestHistory(FILE_NAME);
+		int count= 1000;
+		for (int i= 0; i < count; i++) {
+			history.accessed(getValue(i));
+			history.save();
+		}
+		int size= history.getHistory().length;
+		assertTrue(size < count);
+
+		TestHistory loaded= new TestHistory(FILE_NAME);
+		assertEquals(Arrays.asList(history.getHistory()), Arrays.asList(loaded.getHistory()));
+		assertTrue(loaded.contains(getValue(count - 1)));
+		assertFalse(loaded.contains(getValue(0)));
+
+		// header and at most twice as many records as the history holds, plus the last one
+		int recordLength= 1 + 2 + 2 + "value".length() + 2 + getValue(0).length();
+		assertTrue(getFile(JOURNAL_NAME).length() <= 8 + (2 * size + 1) * recordLength);
+	}
+
+	public void testMigration() throws Exception {
+		writeLegacyFile();
+
+		TestHistory history= new TestHistory(FILE_NAME);
+		assertEquals(Arrays.asList("a:1", "b:1"), Arrays.asList(history.getHistory()));
+		history.accessed("c:1");
+		history.save();
+		assertTrue(getFile(JOURNAL_NAME).isFile());
+		assertFalse(getFile(FILE_NAME).exists());
+
+		TestHistory loaded= new TestHistory(FILE_NAME);
+		assertEquals(Arrays.asList("a:1", "b:1", "c:1"), Arrays.asList(loaded.getHistory()));
+	}
+
+	public void testCorruptJournal() throws Exception {
+		writeLegacyFile();
+		DataOutputStream out= new DataOutputStream(new FileOutputStream(getFile(JOURNAL_NAME)));
+		try {
+			out.writeInt(0);
+			out.writeInt(0);
+		} finally {
+			out.close();
+		}
+
+		// falls back to the xml file
+		TestHistory history= new TestHistory(FILE_NAME);
+		assertEquals(Arrays.asList("a:1", "b:1"), Arrays.asList(history.getHistory()));
+		history.save();
+
+		TestHistory loaded= new TestHistory(FILE_NAME);
+		assertEquals(Arrays.asList("a:1", "b:1"), Arrays.asList(loaded.getHistory()));
+	}
+
+	public void testTruncatedJournal() throws Exception {
+		TestHistory history= new TestHistory(FILE_NAME);
+		history.accessed("a:1");
+		history.accessed("b:1");
+		history.save();
+		OutputStream out= new FileOutputStream(getFile(JOURNAL_NAME), true);
+		try {
+			// an incomplete record
+			out.write(new byte[] { 1, 0, 1, 0 });
+		} finally {
+			out.close();
+		}
+
+		TestHistory truncated= new TestHistory(FILE_NAME);
+		assertEquals(Arrays.asList("a:1", "b:1"), Arrays.asList(truncated.getHistory()));
+		truncated.accessed("c:1");
+		truncated.save();
+
+		// the journal has been rewritten instead of appended to the incomplete record
+		TestHistory loaded= new TestHistory(FILE_NAME);
+		assertEquals(Arrays.asList("a:1", "b:1", "c:1"), Arrays.asList(loaded.getHistory()));
+	}
+
+	public void testNotStored() throws Exception {
+		File stateLocation= JavaPlugin.getDefault().getStateLocation().toFile();
+		Set<String> files= new HashSet<>(Arrays.asList(stateLocation.list()));
+
+		TestHistory history= new TestHistory("");
+		assertTrue(history.isEmpty());
+		history.accessed("a:1");
+		history.save();
+
+		assertEquals(files, new HashSet<>(Arrays.asList(stateLocation.list())));
+		assertTrue(new TestHistory("").isEmpty());
+	}
+
+	private static String getValue(int i) {
+		String number= Integer.toString(i);
+		return "k0000".substring(0, 5 - number.length()) + number + ":1";
+	}
+
+	private static void writeLegacyFile() throws IOException {
+		Writer writer= new OutputStreamWriter(new FileOutputStream(getFile(FILE_NAME)), "utf-8");
+		try {
+			writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			writer.write("<histroyRootNode>\n");
+			writer.write("<infoNode value=\"a:1\"/>\n");
+			writer.write("<infoNode value=\"b:1\"/>\n");
+			writer.write("</histroyRootNode>\n");
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static byte[] readFile(File file) throws IOException {
+		return Files.readAllBytes(file.toPath());
+	}
+}
@@ -40,6 +40,8 @@ import org.eclipse.jdt.core.manipulation.OrganizeImportsOperation;
 import org.eclipse.jdt.core.manipulation.OrganizeImportsOperation.IChooseImportQuery;
 import org.eclipse.jdt.core.search.TypeNameMatch;
 
+import org.eclipse.jdt.internal.corext.util.TypeNameMatchIndex;
+
 import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.PreferenceConstants;
 
@@ -3512,6 +3514,35 @@ public class ImportOrganizeTest extends CoreTests {
 		assertEqualString(cu1.getSource(), buf1.toString());
 	}
 
+	public void testSharedTypeNameIndex() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("pack1", false, null);
+		pack1.createCompilationUnit("Engine.java", "package pack1;\npublic class Engine {\n}\n", false, null);
+
+		IPackageFragment pack2= sourceFolder.createPackageFragment("pack2", false, null);
+		ICompilationUnit cu1= pack2.createCompilationUnit("Car.java", "package pack2;\npublic class Car {\n    Engine engine;\n    Wheel wheel;\n}\n", false, null);
+		ICompilationUnit cu2= pack2.createCompilationUnit("Truck.java", "package pack2;\npublic class Truck {\n    Engine engine;\n    Wheel wheel;\n}\n", false, null);
+
+		String[] order= new String[0];
+		IChooseImportQuery query= createQuery("Car", new String[] {}, new int[] {});
+
+		TypeNameMatchIndex.acquire();
+		try {
+			createOperation(cu1, order, 99, false, true, true, query).run(null);
+			assertImports(cu1, new String[] { "pack1.Engine" });
+
+			// a type added during the batch must be found by later units
+			pack1.createCompilationUnit("Wheel.java", "package pack1;\npublic class Wheel {\n}\n", false, null);
+
+			createOperation(cu2, order, 99, false, true, true, query).run(null);
+			assertImports(cu2, new String[] { "pack1.Engine", "pack1.Wheel" });
+		} finally {
+			TypeNameMatchIndex.release();
+		}
+		assertNull(TypeNameMatchIndex.getShared());
+	}
+
 	protected OrganizeImportsOperation createOperation(ICompilationUnit cu, String[] order, int threshold, boolean ignoreLowerCaseNames, boolean save, boolean allowSyntaxErrors, IChooseImportQuery chooseImportQuery) {
 		setOrganizeImportSettings(order, threshold, threshold, cu.getJavaProject());
 		return new OrganizeImportsOperation(cu, null, ignoreLowerCaseNames, save, allowSyntaxErrors, chooseImportQuery);
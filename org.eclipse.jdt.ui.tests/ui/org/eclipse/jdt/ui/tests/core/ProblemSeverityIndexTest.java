@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.io.ByteArrayInputStream;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.viewsupport.IProblemChangedListener;
+import org.eclipse.jdt.internal.ui.viewsupport.ProblemMarkerManager;
+import org.eclipse.jdt.internal.ui.viewsupport.ProblemSeverityIndex;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests that the {@link ProblemSeverityIndex} maintained by the {@link ProblemMarkerManager}
+ * answers like {@link IResource#findMaxProblemSeverity(String, boolean, int)} after problem
+ * markers have changed.
+ */
+public class ProblemSeverityIndexTest extends TestCase {
+
+	private static final Class<ProblemSeverityIndexTest> THIS= ProblemSeverityIndexTest.class;
+
+	private final IProblemChangedListener fListener= new IProblemChangedListener() {
+		@Override
+		public void problemsChanged(IResource[] changedResources, boolean isMarkerChange) {
+			// the index is maintained while the manager has listeners
+		}
+	};
+
+	private IProject fProject;
+	private IFolder fFolder;
+	private IFile fFile;
+	private ProblemSeverityIndex fIndex;
+
+	public ProblemSeverityIndexTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		ProblemMarkerManager manager= JavaPlugin.getDefault().getProblemMarkerManager();
+		manager.addListener(fListener);
+		fIndex= manager.getSeverityIndex();
+		assertNotNull(fIndex);
+
+		fProject= ResourcesPlugin.getWorkspace().getRoot().getProject("SeverityIndex");
+		fProject.create(null);
+		fProject.open(null);
+		fFolder= fProject.getFolder("folder");
+		fFolder.create(true, true, null);
+		fFile= fFolder.getFile("A.txt");
+		fFile.create(new ByteArrayInputStream(new byte[0]), true, null);
+		fProject.getFile("B.txt").create(new ByteArrayInputStream(new byte[0]), true, null);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fProject.delete(true, true, null);
+		JavaPlugin.getDefault().getProblemMarkerManager().removeListener(fListener);
+	}
+
+	public void testAddMarker() throws Exception {
+		assertSeverity(-1);
+
+		IMarker marker= createMarker(fFile, IMarker.SEVERITY_WARNING);
+		assertSeverity(IMarker.SEVERITY_WARNING);
+		assertEquals(IMarker.SEVERITY_WARNING, fIndex.findMaxProblemSeverity(fFile, IResource.DEPTH_ZERO));
+		assertEquals(IMarker.SEVERITY_WARNING, fIndex.findMaxProblemSeverity(fFolder, IResource.DEPTH_ONE));
+		assertEquals(-1, fIndex.findMaxProblemSeverity(fFolder, IResource.DEPTH_ZERO));
+
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		assertSeverity(IMarker.SEVERITY_ERROR);
+	}
+
+	public void testRemoveMarker() throws Exception {
+		IMarker warning= createMarker(fFile, IMarker.SEVERITY_WARNING);
+		IMarker error= createMarker(fFolder, IMarker.SEVERITY_ERROR);
+		assertSeverity(IMarker.SEVERITY_ERROR);
+		assertEquals(IMarker.SEVERITY_ERROR, fIndex.findMaxProblemSeverity(fFolder, IResource.DEPTH_ZERO));
+
+		error.delete();
+		assertSeverity(IMarker.SEVERITY_WARNING);
+		assertEquals(-1, fIndex.findMaxProblemSeverity(fFolder, IResource.DEPTH_ZERO));
+
+		warning.delete();
+		assertSeverity(-1);
+	}
+
+	public void testRemoveResource() throws Exception {
+		createMarker(fFile, IMarker.SEVERITY_ERROR);
+		assertSeverity(IMarker.SEVERITY_ERROR);
+
+		fFile.delete(true, null);
+		assertEquals(-1, fIndex.findMaxProblemSeverity(fFolder, IResource.DEPTH_INFINITE));
+		assertEquals(-1, fIndex.findMaxProblemSeverity(fProject, IResource.DEPTH_INFINITE));
+	}
+
+	public void testCloseProject() throws Exception {
+		IWorkspaceRoot root= ResourcesPlugin.getWorkspace().getRoot();
+		createMarker(fFile, IMarker.SEVERITY_ERROR);
+		assertSeverity(IMarker.SEVERITY_ERROR);
+		assertEquals(IMarker.SEVERITY_ERROR, fIndex.findMaxProblemSeverity(root, IResource.DEPTH_INFINITE));
+
+		// the markers of closed projects are not shown
+		fProject.close(null);
+		assertEquals(root.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE), fIndex.findMaxProblemSeverity(root, IResource.DEPTH_INFINITE));
+
+		fProject.open(null);
+		assertSeverity(IMarker.SEVERITY_ERROR);
+		fFile.deleteMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+		assertSeverity(-1);
+	}
+
+	private static IMarker createMarker(IResource resource, int severity) throws CoreException {
+		IMarker marker= resource.createMarker(IMarker.PROBLEM);
+		marker.setAttribute(IMarker.SEVERITY, severity);
+		return marker;
+	}
+
+	/**
+	 * Asserts that the index answers the expected severity for the file and its parents, and that
+	 * the severity is the one of the markers.
+	 *
+	 * @param expected the expected maximum severity of the file and its parents
+	 * @throws CoreException if the markers cannot be read
+	 */
+	private void assertSeverity(int expected) throws CoreException {
+		IResource[] resources= { fFile, fFolder, fProject };
+		for (int i= 0; i < resources.length; i++) {
+			String message= resources[i].getFullPath().toString();
+			assertEquals(message, expected, resources[i].findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+			assertEquals(message, expected, fIndex.findMaxProblemSeverity(resources[i], IResource.DEPTH_INFINITE));
+			// a second query is answered from the index
+			assertEquals(message, expected, fIndex.findMaxProblemSeverity(resources[i], IResource.DEPTH_INFINITE));
+		}
+	}
+}
@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.internal.ui.typehierarchy.ITypeHierarchyLifeCycleListener;
+import org.eclipse.jdt.internal.ui.typehierarchy.TypeHierarchyLifeCycle;
+import org.eclipse.jdt.internal.ui.util.BusyIndicatorRunnableContext;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests that the {@link TypeHierarchyLifeCycle} only rebuilds the hierarchy if its structure has
+ * changed, independent of the order in which the hierarchy and the life cycle are informed about
+ * an element change.
+ */
+public class TypeHierarchyLifeCycleTest extends TestCase {
+
+	private static final Class<TypeHierarchyLifeCycleTest> THIS= TypeHierarchyLifeCycleTest.class;
+
+	private IJavaProject fJProject1;
+	private IPackageFragment fPack;
+	private ICompilationUnit fCuA;
+	private ICompilationUnit fCuB;
+	private ICompilationUnit fCuC;
+	private TypeHierarchyLifeCycle fLifeCycle;
+
+	/** The changed types reported to the listener, <code>null</code> if the hierarchy changed */
+	private final List<IType[]> fChanges= new ArrayList<>();
+
+	private final ITypeHierarchyLifeCycleListener fListener= new ITypeHierarchyLifeCycleListener() {
+		@Override
+		public void typeHierarchyChanged(TypeHierarchyLifeCycle typeHierarchyProvider, IType[] changedTypes) {
+			fChanges.add(changedTypes);
+		}
+	};
+
+	public TypeHierarchyLifeCycleTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fPack= sourceFolder.createPackageFragment("test1", false, null);
+		fCuA= fPack.createCompilationUnit("A.java", getSource("A", null, "0"), false, null);
+		fCuB= fPack.createCompilationUnit("B.java", getSource("B", "A", "0"), false, null);
+		fCuC= fPack.createCompilationUnit("C.java", getSource("C", null, "0"), false, null);
+
+		fLifeCycle= new TypeHierarchyLifeCycle(false);
+		fLifeCycle.addChangedListener(fListener);
+		refresh();
+		assertTrue(fLifeCycle.getHierarchy().contains(fCuB.getType("B")));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fLifeCycle.removeChangedListener(fListener);
+		fLifeCycle.freeHierarchy();
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	public void testBodyChange() throws Exception {
+		setContents(fCuA, getSource("A", null, "1"));
+		assertNoRebuild();
+		assertChangedTypes(fCuA.getType("A"));
+
+		// the hierarchy reports no further changes, but the following ones are still checked
+		setContents(fCuB, getSource("B", "A", "1"));
+		assertNoRebuild();
+		assertChangedTypes(fCuB.getType("B"));
+
+		setContents(fCuB, getSource("B", null, "1"));
+		assertRebuild();
+	}
+
+	public void testUnrelatedChange() throws Exception {
+		setContents(fCuC, getSource("C", null, "1"));
+		assertTrue(fChanges.isEmpty());
+
+		setContents(fCuC, getSource("C", "A", "1"));
+		assertRebuild();
+	}
+
+	public void testSupertypeChange() throws Exception {
+		setContents(fCuB, getSource("B", null, "0"));
+		assertRebuild();
+		refresh();
+		assertFalse(fLifeCycle.getHierarchy().contains(fCuB.getType("B")));
+	}
+
+	public void testNewSubtype() throws Exception {
+		fPack.createCompilationUnit("D.java", getSource("D", "B", "0"), false, null);
+		assertRebuild();
+		refresh();
+		assertTrue(fLifeCycle.getHierarchy().contains(fPack.getCompilationUnit("D.java").getType("D")));
+	}
+
+	public void testNewClassInObjectHierarchy() throws Exception {
+		IType object= fJProject1.findType("java.lang.Object");
+		fLifeCycle.ensureRefreshedTypeHierarchy(object, new BusyIndicatorRunnableContext());
+		fChanges.clear();
+
+		// the super class of D is implicit
+		fPack.createCompilationUnit("D.java", "package test1;\npublic class D {\n}\n", false, null);
+		assertRebuild();
+		fLifeCycle.ensureRefreshedTypeHierarchy(object, new BusyIndicatorRunnableContext());
+		assertTrue(fLifeCycle.getHierarchy().contains(fPack.getCompilationUnit("D.java").getType("D")));
+	}
+
+	public void testNewEnumInEnumHierarchy() throws Exception {
+		IType enumType= fJProject1.findType("java.lang.Enum");
+		fLifeCycle.ensureRefreshedTypeHierarchy(enumType, new BusyIndicatorRunnableContext());
+		fChanges.clear();
+
+		fPack.createCompilationUnit("E.java", "package test1;\npublic enum E {\n    X\n}\n", false, null);
+		assertRebuild();
+		fLifeCycle.ensureRefreshedTypeHierarchy(enumType, new BusyIndicatorRunnableContext());
+		assertTrue(fLifeCycle.getHierarchy().contains(fPack.getCompilationUnit("E.java").getType("E")));
+	}
+
+	public void testRemovedType() throws Exception {
+		fCuB.delete(true, null);
+		assertRebuild();
+	}
+
+	public void testImportChange() throws Exception {
+		IPackageFragment pack2= ((IPackageFragmentRoot) fPack.getParent()).createPackageFragment("test2", false, null);
+		pack2.createCompilationUnit("A.java", getSource("A", null, "0").replace("test1", "test2"), false, null);
+		refresh();
+
+		// the super type of B still resolves to test1.A
+		fCuB.createImport("java.util.*", null, null);
+		assertNoRebuild();
+
+		// the super type of B now resolves to test2.A
+		fCuB.createImport("test2.A", null, null);
+		assertRebuild();
+	}
+
+	public void testBodyChangeHierarchyInformedFirst() throws Exception {
+		ElementChangedEvent[] events= detachAndRecord(fCuC, getSource("C", null, "1"), fCuA, getSource("A", null, "1"));
+		fLifeCycle.elementChanged(events[0]);
+		// the hierarchy is not affected by the first event, but informed first about the second
+		fLifeCycle.typeHierarchyChanged(fLifeCycle.getHierarchy());
+		fLifeCycle.elementChanged(events[1]);
+		assertNoRebuild();
+	}
+
+	public void testBodyChangeHierarchyInformedLast() throws Exception {
+		ElementChangedEvent[] events= detachAndRecord(fCuC, getSource("C", null, "1"), fCuA, getSource("A", null, "1"));
+		fLifeCycle.elementChanged(events[0]);
+		fLifeCycle.elementChanged(events[1]);
+		fLifeCycle.typeHierarchyChanged(fLifeCycle.getHierarchy());
+		assertNoRebuild();
+	}
+
+	public void testSupertypeChangeHierarchyInformedFirst() throws Exception {
+		ElementChangedEvent[] events= detachAndRecord(fCuC, getSource("C", null, "1"), fCuB, getSource("B", null, "0"));
+		fLifeCycle.elementChanged(events[0]);
+		fLifeCycle.typeHierarchyChanged(fLifeCycle.getHierarchy());
+		assertNoRebuild();
+		fLifeCycle.elementChanged(events[1]);
+		assertRebuild();
+	}
+
+	public void testSupertypeChangeHierarchyInformedLast() throws Exception {
+		ElementChangedEvent[] events= detachAndRecord(fCuC, getSource("C", null, "1"), fCuB, getSource("B", null, "0"));
+		fLifeCycle.elementChanged(events[0]);
+		fLifeCycle.elementChanged(events[1]);
+		assertNoRebuild();
+		fLifeCycle.typeHierarchyChanged(fLifeCycle.getHierarchy());
+		assertRebuild();
+	}
+
+	private void refresh() throws Exception {
+		fLifeCycle.ensureRefreshedTypeHierarchy(fCuA.getType("A"), new BusyIndicatorRunnableContext());
+		fChanges.clear();
+	}
+
+	private void assertRebuild() {
+		assertTrue(fChanges.contains(null));
+		fChanges.clear();
+	}
+
+	private void assertNoRebuild() {
+		assertFalse(fChanges.contains(null));
+	}
+
+	private void assertChangedTypes(IType expected) {
+		assertEquals(1, fChanges.size());
+		assertEquals(Arrays.asList(expected), Arrays.asList(fChanges.get(0)));
+		fChanges.clear();
+	}
+
+	/**
+	 * Stops the life cycle from listening to element changes, applies the given changes and
+	 * returns the element changed events they caused, so that the tests can inform the life cycle
+	 * in any order.
+	 *
+	 * @param cu1 the first compilation unit to change
+	 * @param contents1 the new contents of the first compilation unit
+	 * @param cu2 the second compilation unit to change
+	 * @param contents2 the new contents of the second compilation unit
+	 * @return the two element changed events
+	 * @throws Exception if the changes fail
+	 */
+	private ElementChangedEvent[] detachAndRecord(ICompilationUnit cu1, String contents1, ICompilationUnit cu2, String contents2) throws Exception {
+		JavaCore.removeElementChangedListener(fLifeCycle);
+		fLifeCycle.getHierarchy().removeTypeHierarchyChangedListener(fLifeCycle);
+
+		final List<ElementChangedEvent> events= new ArrayList<>();
+		IElementChangedListener recorder= new IElementChangedListener() {
+			@Override
+			public void elementChanged(ElementChangedEvent event) {
+				events.add(event);
+			}
+		};
+		JavaCore.addElementChangedListener(recorder, ElementChangedEvent.POST_CHANGE);
+		try {
+			setContents(cu1, contents1);
+			assertEquals(1, events.size());
+			setContents(cu2, contents2);
+			assertEquals(2, events.size());
+		} finally {
+			JavaCore.removeElementChangedListener(recorder);
+		}
+		return events.toArray(new ElementChangedEvent[events.size()]);
+	}
+
+	private static void setContents(ICompilationUnit cu, String contents) throws Exception {
+		IFile file= (IFile) cu.getResource();
+		file.setContents(new ByteArrayInputStream(contents.getBytes(file.getCharset())), true, false, null);
+	}
+
+	private static String getSource(String typeName, String superclassName, String body) {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class " + typeName);
+		if (superclassName != null)
+			buf.append(" extends " + superclassName);
+		buf.append(" {\n");
+		buf.append("    int foo() {\n");
+		buf.append("        return " + body + ";\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		return buf.toString();
+	}
+}
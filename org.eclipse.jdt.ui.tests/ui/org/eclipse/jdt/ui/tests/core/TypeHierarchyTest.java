@@ -29,6 +29,8 @@ import org.eclipse.jdt.core.ITypeHierarchyChangedListener;
 import org.eclipse.jdt.core.manipulation.SharedASTProviderCore;
 
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+import org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache;
+import org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache.CacheStatistics;
 
 import org.eclipse.jdt.ui.JavaUI;
 
@@ -95,6 +97,44 @@ public class TypeHierarchyTest extends TestCase {
 
 	}
 
+	public void testSuperTypeHierarchyCache() throws Exception {
+		IPackageFragmentRoot root1= JavaProjectHelper.addSourceContainer(fJavaProject1, "src");
+		IPackageFragment pack1= root1.createPackageFragment("pack1", true, null);
+
+		ICompilationUnit cu1= pack1.getCompilationUnit("A.java");
+		IType type1= cu1.createType("public class A {\n}\n", null, true, null);
+		ICompilationUnit cu2= pack1.getCompilationUnit("B.java");
+		IType type2= cu2.createType("public class B extends A {\n}\n", null, true, null);
+		ICompilationUnit cu3= pack1.getCompilationUnit("C.java");
+		IType type3= cu3.createType("public class C {\n}\n", null, true, null);
+
+		int maxSize= SuperTypeHierarchyCache.getMaxCacheSize();
+		int maxWeight= SuperTypeHierarchyCache.getMaxCacheWeight();
+		SuperTypeHierarchyCache.flushCache();
+		SuperTypeHierarchyCache.resetStatistics();
+		try {
+			ITypeHierarchy hierarchy= SuperTypeHierarchyCache.getTypeHierarchy(type2);
+			assertSame(hierarchy, SuperTypeHierarchyCache.getTypeHierarchy(type1));
+			assertTrue(SuperTypeHierarchyCache.hasInCache(type1));
+			assertFalse(SuperTypeHierarchyCache.hasInCache(type3));
+
+			CacheStatistics statistics= SuperTypeHierarchyCache.getStatistics();
+			assertEquals(1, statistics.getMisses());
+			assertEquals(1, statistics.getHits());
+			assertEquals(1, statistics.getSize());
+			assertEquals(hierarchy.getAllTypes().length, statistics.getWeight());
+
+			SuperTypeHierarchyCache.setCacheLimits(1, Integer.MAX_VALUE);
+			SuperTypeHierarchyCache.getTypeHierarchy(type3);
+			statistics= SuperTypeHierarchyCache.getStatistics();
+			assertEquals(1, statistics.getSize());
+			assertEquals(1, statistics.getEvictions());
+			assertFalse(SuperTypeHierarchyCache.hasInCache(type2));
+		} finally {
+			SuperTypeHierarchyCache.setCacheLimits(maxSize, maxWeight);
+			SuperTypeHierarchyCache.flushCache();
+		}
+	}
 
 	public void testHierarchyWithWorkingCopy1() throws Exception {
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -24,6 +24,7 @@ public class JarExportTests {
 		//$JUnit-BEGIN$
 		suite.addTest(PlainJarExportTests.suite());
 		suite.addTest(FatJarExportTests.suite());
+		suite.addTest(RawZipWriterTest.suite());
 		//$JUnit-END$
 		return suite;
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2015 IBM Corporation and others.
+ * Copyright (c) 2008, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,15 +13,21 @@
  *******************************************************************************/
 package org.eclipse.jdt.ui.tests.jarexport;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 import org.eclipse.jdt.testplugin.JavaProjectHelper;
 import org.eclipse.jdt.testplugin.JavaTestPlugin;
@@ -160,6 +166,37 @@ public class PlainJarExportTests extends TestCase {
 		assertEquals(expected.toString(), entries.toString());
 	}
 
+	public void testParallelCompression() throws Exception {
+		JarPackageData data= createJarPackageData();
+		data.setElements(new Object[] { fCU.getResource() });
+		data.setExportClassFiles(true);
+		Map<String, String> expected= getContents(createArchive(data));
+
+		data.setParallelCompression(true);
+		assertEquals(expected, getContents(createArchive(data)));
+	}
+
+	public void testIncrementalExport() throws Exception {
+		JarPackageData data= createJarPackageData();
+		data.setElements(new Object[] { fCU.getResource() });
+		data.setExportClassFiles(true);
+		data.setIncrementalExport(true);
+		Map<String, String> first= getContents(createArchive(data));
+
+		// an export without changes copies all entries of the previous JAR
+		assertEquals(first, getContents(createArchive(data)));
+
+		fCU.getType("Main").createMethod("public void foo() {\n}\n", null, false, null);
+		Map<String, String> second= getContents(createArchive(data));
+		assertEquals(first.keySet(), second.keySet());
+		assertEquals(first.get("org/eclipse/jdt/ui/test/Main$MainInner.class"), second.get("org/eclipse/jdt/ui/test/Main$MainInner.class"));
+		assertFalse(first.get("org/eclipse/jdt/ui/test/Main.class").equals(second.get("org/eclipse/jdt/ui/test/Main.class")));
+
+		// the same JAR as without reusing entries
+		data.setIncrementalExport(false);
+		assertEquals(second, getContents(createArchive(data)));
+	}
+
 	private JarPackageData createJarPackageData() {
 		JarPackageData data= new JarPackageData();
 		data.setJarLocation(ResourcesPlugin.getWorkspace().getRoot().getLocation().append(getName() + ".jar"));
@@ -181,6 +218,52 @@ public class PlainJarExportTests extends TestCase {
 		return JarPackagerUtil.getArchiveFile(data.getJarLocation());
 	}
 
+	/**
+	 * Reads the entries of the given JAR through its central directory and through its local
+	 * headers, and closes it.
+	 *
+	 * @param jar the JAR
+	 * @return the contents of the entries, as strings of bytes, by entry name
+	 * @throws IOException if the JAR cannot be read
+	 */
+	private static Map<String, String> getContents(ZipFile jar) throws IOException {
+		Map<String, String> contents= new TreeMap<>();
+		try {
+			for (Enumeration<? extends ZipEntry> entriesEnum= jar.entries(); entriesEnum.hasMoreElements(); ) {
+				ZipEntry entry= entriesEnum.nextElement();
+				InputStream in= jar.getInputStream(entry);
+				try {
+					contents.put(entry.getName(), readAll(in));
+				} finally {
+					in.close();
+				}
+			}
+		} finally {
+			jar.close();
+		}
+
+		Map<String, String> streamed= new TreeMap<>();
+		ZipInputStream in= new ZipInputStream(new FileInputStream(jar.getName()));
+		try {
+			ZipEntry entry;
+			while ((entry= in.getNextEntry()) != null)
+				streamed.put(entry.getName(), readAll(in));
+		} finally {
+			in.close();
+		}
+		assertEquals(contents, streamed);
+		return contents;
+	}
+
+	private static String readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out= new ByteArrayOutputStream();
+		byte[] buffer= new byte[4096];
+		int count;
+		while ((count= in.read(buffer)) != -1)
+			out.write(buffer, 0, count);
+		return Arrays.toString(out.toByteArray());
+	}
+
 	private static ArrayList<String> getSortedEntries(ZipFile jar) {
 		ArrayList<String> entries= new ArrayList<>();
 		for (Enumeration<? extends ZipEntry> entriesEnum= jar.entries(); entriesEnum.hasMoreElements(); ) {
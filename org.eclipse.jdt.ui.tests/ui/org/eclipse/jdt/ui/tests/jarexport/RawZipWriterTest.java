@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.jarexport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.eclipse.jdt.internal.ui.jarpackager.RawZipFile;
+import org.eclipse.jdt.internal.ui.jarpackager.RawZipWriter;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Writes archives with the {@link RawZipWriter} and reads them back with {@link ZipFile}, which
+ * reads the central directory, and with {@link ZipInputStream}, which reads the local headers and
+ * checks CRC and size of the data.
+ */
+public class RawZipWriterTest extends TestCase {
+
+	private static final Class<RawZipWriterTest> THIS= RawZipWriterTest.class;
+
+	private File fFile;
+	private File fCopy;
+
+	public RawZipWriterTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fFile= File.createTempFile("RawZipWriterTest", ".jar");
+		fCopy= File.createTempFile("RawZipWriterTest", ".jar");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fFile.delete();
+		fCopy.delete();
+	}
+
+	public void testAllKindsOfEntries() throws Exception {
+		Map<String, byte[]> expected= new LinkedHashMap<>();
+		byte[] text= "a text which is compressed a text which is compressed".getBytes(StandardCharsets.UTF_8);
+		byte[] random= createContent(new Random(1), 100000);
+		byte[] stored= createContent(new Random(2), 1000);
+		CRC32 crc= new CRC32();
+		crc.update(stored);
+
+		RawZipWriter writer= createWriter(fFile, 1);
+		try {
+			writer.setComment("comment");
+			writer.addDirectory("dir/", 0);
+			writer.addBytes("dir/deflated.txt", 0, text, true);
+			writer.addBytes("dir/stored.bin", 0, random, false);
+			writer.addStream("dir/streamed.bin", 0, new ByteArrayInputStream(random), ZipEntry.DEFLATED, -1, -1);
+			writer.addStream("dir/streamedStored.bin", 0, new ByteArrayInputStream(stored), ZipEntry.STORED, crc.getValue(), stored.length);
+			writer.addBytes("dir/empty.txt", 0, new byte[0], true);
+			writer.addBytes("dir/\u00e4\u00f6\u00fc.txt", 0, text, true);
+		} finally {
+			writer.close();
+		}
+		expected.put("dir/", new byte[0]);
+		expected.put("dir/deflated.txt", text);
+		expected.put("dir/stored.bin", random);
+		expected.put("dir/streamed.bin", random);
+		expected.put("dir/streamedStored.bin", stored);
+		expected.put("dir/empty.txt", new byte[0]);
+		expected.put("dir/\u00e4\u00f6\u00fc.txt", text);
+
+		assertContents(expected, fFile);
+		ZipFile zipFile= new ZipFile(fFile);
+		try {
+			assertEquals("comment", zipFile.getComment());
+			assertEquals(ZipEntry.STORED, zipFile.getEntry("dir/stored.bin").getMethod());
+			assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("dir/streamed.bin").getMethod());
+			assertEquals(ZipEntry.STORED, zipFile.getEntry("dir/streamedStored.bin").getMethod());
+		} finally {
+			zipFile.close();
+		}
+	}
+
+	public void testParallelCompression() throws Exception {
+		Map<String, byte[]> expected= new LinkedHashMap<>();
+		Random random= new Random(3);
+		RawZipWriter writer= createWriter(fFile, 4);
+		try {
+			for (int i= 0; i < 500; i++) {
+				String name= "entry" + i + ".bin";
+				byte[] content= createContent(random, random.nextInt(50000));
+				if (i % 100 == 50) {
+					// a streamed entry waits for the pending ones
+					writer.addStream(name, 0, new ByteArrayInputStream(content), ZipEntry.DEFLATED, -1, -1);
+				} else {
+					writer.addBytes(name, 0, content, i % 10 != 0);
+				}
+				expected.put(name, content);
+			}
+		} finally {
+			writer.close();
+		}
+
+		// the entries are written in the order in which they were added
+		assertContents(expected, fFile);
+	}
+
+	public void testDuplicateEntry() throws Exception {
+		RawZipWriter writer= createWriter(fFile, 4);
+		try {
+			writer.addBytes("a.txt", 0, new byte[1], true);
+			writer.addBytes("a.txt", 0, new byte[1], true);
+			fail();
+		} catch (ZipException e) {
+			assertEquals("duplicate entry: a.txt", e.getMessage());
+		} finally {
+			writer.close();
+		}
+	}
+
+	public void testCopyRawEntries() throws Exception {
+		Map<String, byte[]> expected= new LinkedHashMap<>();
+		Random random= new Random(4);
+		RawZipWriter writer= createWriter(fFile, 1);
+		try {
+			writer.addDirectory("dir/", 0);
+			expected.put("dir/", new byte[0]);
+			for (int i= 0; i < 50; i++) {
+				String name= "dir/entry" + i + ".bin";
+				byte[] content= createContent(random, random.nextInt(20000));
+				if (i % 5 == 0)
+					writer.addStream(name, 0, new ByteArrayInputStream(content), ZipEntry.DEFLATED, -1, -1);
+				else
+					writer.addBytes(name, 0, content, i % 2 == 0);
+				expected.put(name, content);
+			}
+		} finally {
+			writer.close();
+		}
+
+		// copy all entries without inflating them, as an incremental export does with unchanged entries
+		RawZipFile previous= new RawZipFile(fFile);
+		try {
+			writer= createWriter(fCopy, 4);
+			try {
+				for (RawZipFile.Entry entry : previous.getEntries()) {
+					assertTrue(entry.isCopyable());
+					writer.addRaw(entry.getName(), System.currentTimeMillis(), entry, previous.readRawData(entry));
+				}
+			} finally {
+				writer.close();
+			}
+		} finally {
+			previous.close();
+		}
+		assertContents(expected, fCopy);
+	}
+
+	public void testManyEntries() throws Exception {
+		// more entries than fit into the end of central directory record
+		int count= 0x10000 + 10;
+		RawZipWriter writer= createWriter(fFile, 1);
+		try {
+			for (int i= 0; i < count; i++)
+				writer.addBytes("entry" + i, 0, new byte[] { (byte) i }, false);
+		} finally {
+			writer.close();
+		}
+
+		ZipFile zipFile= new ZipFile(fFile);
+		try {
+			assertEquals(count, zipFile.size());
+			ZipEntry last= zipFile.getEntry("entry" + (count - 1));
+			assertNotNull(last);
+			InputStream in= zipFile.getInputStream(last);
+			try {
+				assertEquals((byte) (count - 1), (byte) in.read());
+			} finally {
+				in.close();
+			}
+		} finally {
+			zipFile.close();
+		}
+		RawZipFile rawZipFile= new RawZipFile(fFile);
+		try {
+			assertNotNull(rawZipFile.getEntry("entry" + (count - 1)));
+		} finally {
+			rawZipFile.close();
+		}
+
+		// the number of entries is only stored in the ZIP64 end of central directory record
+		RandomAccessFile file= new RandomAccessFile(fFile, "r");
+		try {
+			file.seek(file.length() - 22 - 20);
+			// the ZIP64 end of central directory locator precedes the end of central directory record
+			assertEquals(0x07064b50, Integer.reverseBytes(file.readInt()));
+			file.seek(file.length() - 22 + 8);
+			assertEquals(0xFFFF, Short.toUnsignedInt(Short.reverseBytes(file.readShort())));
+		} finally {
+			file.close();
+		}
+	}
+
+	private static RawZipWriter createWriter(File file, int threadCount) throws IOException {
+		return new RawZipWriter(new BufferedOutputStream(new FileOutputStream(file)), threadCount);
+	}
+
+	/**
+	 * Creates content which is partly compressible.
+	 *
+	 * @param random the random generator
+	 * @param length the length of the content
+	 * @return the content
+	 */
+	private static byte[] createContent(Random random, int length) {
+		byte[] content= new byte[length];
+		for (int i= 0; i < length; i++)
+			content[i]= (byte) (random.nextInt(8) == 0 ? random.nextInt() : 'a' + i % 16);
+		return content;
+	}
+
+	/**
+	 * Asserts that the archive contains the expected entries in the expected order, both in its
+	 * central directory and in its local headers.
+	 *
+	 * @param expected the expected contents by entry name
+	 * @param file the archive
+	 * @throws IOException if the archive cannot be read
+	 */
+	private static void assertContents(Map<String, byte[]> expected, File file) throws IOException {
+		List<String> names= new ArrayList<>(expected.keySet());
+
+		ZipFile zipFile= new ZipFile(file);
+		try {
+			List<String> actualNames= new ArrayList<>();
+			for (Enumeration<? extends ZipEntry> entries= zipFile.entries(); entries.hasMoreElements();) {
+				ZipEntry entry= entries.nextElement();
+				actualNames.add(entry.getName());
+				byte[] content= expected.get(entry.getName());
+				assertNotNull(entry.getName(), content);
+				assertEquals(entry.getName(), content.length, entry.getSize());
+				InputStream in= zipFile.getInputStream(entry);
+				try {
+					assertTrue(entry.getName(), Arrays.equals(content, readAll(in)));
+				} finally {
+					in.close();
+				}
+			}
+			assertEquals(names, actualNames);
+		} finally {
+			zipFile.close();
+		}
+
+		ZipInputStream in= new ZipInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			List<String> actualNames= new ArrayList<>();
+			ZipEntry entry;
+			while ((entry= in.getNextEntry()) != null) {
+				actualNames.add(entry.getName());
+				assertTrue(entry.getName(), Arrays.equals(expected.get(entry.getName()), readAll(in)));
+			}
+			assertEquals(names, actualNames);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out= new ByteArrayOutputStream();
+		byte[] buffer= new byte[8192];
+		int count;
+		while ((count= in.read(buffer)) != -1)
+			out.write(buffer, 0, count);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.packageHover;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.JavaTestPlugin;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IOrdinaryClassFile;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.ui.tests.core.CoreTests;
+import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.text.javadoc.JavadocContentCache;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests that the {@link JavadocContentCache} does not answer Javadoc which has changed.
+ */
+public class JavadocContentCacheTest extends CoreTests {
+
+	private IJavaProject fJProject1;
+	private File fTempDirectory;
+	private JavadocContentCache fCache;
+
+	public JavadocContentCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(JavadocContentCacheTest.class));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		fTempDirectory= Files.createTempDirectory("JavadocContentCacheTest").toFile();
+		deleteDiskEntries();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (fCache != null)
+			fCache.dispose();
+		getPreferenceStore().setToDefault(JavadocContentCache.PREF_DISK_CACHE);
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+		delete(fTempDirectory);
+		deleteDiskEntries();
+	}
+
+	public void testEditInvalidatesEntry() throws Exception {
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		IPackageFragment pack= sourceFolder.createPackageFragment("test1", false, null);
+		ICompilationUnit cu= pack.createCompilationUnit("E.java", getSource("test1", "E", "first"), false, null);
+		IType type= cu.getType("E");
+
+		fCache= new JavadocContentCache();
+		String content= fCache.getHTMLContent(type, true);
+		assertContains("first", content);
+		assertSame(content, fCache.getHTMLContent(type, true));
+
+		IFile file= (IFile) cu.getResource();
+		file.setContents(new ByteArrayInputStream(getSource("test1", "E", "second").getBytes(file.getCharset())), true, false, null);
+		assertContains("second", fCache.getHTMLContent(type, true));
+	}
+
+	public void testClasspathChangeInvalidatesEntry() throws Exception {
+		IPath library= getLibraryPath();
+		JavaProjectHelper.addLibrary(fJProject1, library, createSourceAttachment("first.zip", "first"), null);
+		IType type= fJProject1.findType("mylib.Foo");
+
+		fCache= new JavadocContentCache();
+		String content= fCache.getHTMLContent(type, true);
+		assertContains("first", content);
+		assertSame(content, fCache.getHTMLContent(type, true));
+
+		setSourceAttachment(library, createSourceAttachment("second.zip", "second"));
+		assertContains("second", fCache.getHTMLContent(type, true));
+	}
+
+	public void testDiskCachePreference() throws Exception {
+		JavaProjectHelper.addLibrary(fJProject1, getLibraryPath(), createSourceAttachment("first.zip", "first"), null);
+		IType type= fJProject1.findType("mylib.Foo");
+
+		getPreferenceStore().setValue(JavadocContentCache.PREF_DISK_CACHE, false);
+		fCache= new JavadocContentCache();
+		assertContains("first", fCache.getHTMLContent(type, true));
+		assertEquals(0, getDiskEntries().length);
+
+		getPreferenceStore().setValue(JavadocContentCache.PREF_DISK_CACHE, true);
+		fCache.dispose();
+		fCache= new JavadocContentCache();
+		String content= fCache.getHTMLContent(type, true);
+		assertEquals(1, getDiskEntries().length);
+
+		// only binary elements are stored on disk
+		IPackageFragment pack= JavaProjectHelper.addSourceContainer(fJProject1, "src").createPackageFragment("test1", false, null);
+		ICompilationUnit cu= pack.createCompilationUnit("E.java", getSource("test1", "E", "source"), false, null);
+		assertContains("source", fCache.getHTMLContent(cu.getType("E"), true));
+		assertEquals(1, getDiskEntries().length);
+
+		// a new cache reads the entry from disk
+		fCache.dispose();
+		fCache= new JavadocContentCache();
+		assertEquals(content, fCache.getHTMLContent(type, true));
+		assertEquals(1, getDiskEntries().length);
+	}
+
+	public void testDiskCacheBound() throws Exception {
+		int maxDiskEntries= 10;
+		getPreferenceStore().setValue(JavadocContentCache.PREF_DISK_CACHE, true);
+		fCache= new JavadocContentCache(maxDiskEntries);
+
+		IOrdinaryClassFile[] classFiles= fJProject1.findType("java.lang.Object").getPackageFragment().getOrdinaryClassFiles();
+		assertTrue(classFiles.length > 2 * maxDiskEntries);
+		for (int i= 0; i < 2 * maxDiskEntries; i++) {
+			fCache.getHTMLContent(classFiles[i].getType(), true);
+			assertEquals(Math.min(i + 1, maxDiskEntries), getDiskEntries().length);
+		}
+	}
+
+	public void testStaleDiskEntry() throws Exception {
+		getPreferenceStore().setValue(JavadocContentCache.PREF_DISK_CACHE, true);
+		IPath library= getLibraryPath();
+		IPath sourceAttachment= createSourceAttachment("Foo_src.zip", "first");
+		JavaProjectHelper.addLibrary(fJProject1, library, sourceAttachment, null);
+		IType type= fJProject1.findType("mylib.Foo");
+
+		fCache= new JavadocContentCache();
+		assertContains("first", fCache.getHTMLContent(type, true));
+		assertEquals(1, getDiskEntries().length);
+		fCache.dispose();
+
+		// replace the source attachment while the cache is not running
+		File file= sourceAttachment.toFile();
+		long lastModified= file.lastModified();
+		writeSourceAttachment(file, "second");
+		file.setLastModified(lastModified + 10000);
+		// make the Java model read the new source attachment
+		setSourceAttachment(library, null);
+		setSourceAttachment(library, sourceAttachment);
+
+		fCache= new JavadocContentCache();
+		assertContains("second", fCache.getHTMLContent(type, true));
+		assertEquals(2, getDiskEntries().length);
+	}
+
+	private static void assertContains(String expected, String content) {
+		assertNotNull(content);
+		assertTrue(content, content.contains(expected));
+	}
+
+	private static IPreferenceStore getPreferenceStore() {
+		return JavaPlugin.getDefault().getPreferenceStore();
+	}
+
+	private static String getSource(String packageName, String typeName, String javadoc) {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package " + packageName + ";\n");
+		buf.append("/**\n");
+		buf.append(" * " + javadoc + "\n");
+		buf.append(" */\n");
+		buf.append("public class " + typeName + " {\n");
+		if ("Foo".equals(typeName)) {
+			buf.append("    public static class FooInner {\n");
+			buf.append("        public static class FooInnerInner {\n");
+			buf.append("        }\n");
+			buf.append("    }\n");
+		}
+		buf.append("}\n");
+		return buf.toString();
+	}
+
+	private static IPath getLibraryPath() {
+		return Path.fromOSString(JavaTestPlugin.getDefault().getFileInPlugin(JavaProjectHelper.MYLIB).getAbsolutePath());
+	}
+
+	private IPath createSourceAttachment(String name, String javadoc) throws IOException {
+		File file= new File(fTempDirectory, name);
+		writeSourceAttachment(file, javadoc);
+		return Path.fromOSString(file.getAbsolutePath());
+	}
+
+	private static void writeSourceAttachment(File file, String javadoc) throws IOException {
+		try (ZipOutputStream out= new ZipOutputStream(new FileOutputStream(file))) {
+			out.putNextEntry(new ZipEntry("mylib/Foo.java"));
+			out.write(getSource("mylib", "Foo", javadoc).getBytes(StandardCharsets.UTF_8));
+			out.closeEntry();
+		}
+	}
+
+	private void setSourceAttachment(IPath library, IPath sourceAttachment) throws Exception {
+		IClasspathEntry[] entries= fJProject1.getRawClasspath();
+		for (int i= 0; i < entries.length; i++) {
+			if (entries[i].getPath().equals(library))
+				entries[i]= JavaCore.newLibraryEntry(library, sourceAttachment, null);
+		}
+		fJProject1.setRawClasspath(entries, null);
+	}
+
+	private static File getDiskCacheDirectory() {
+		return JavaPlugin.getDefault().getStateLocation().append("javadoc").toFile();
+	}
+
+	private static File[] getDiskEntries() {
+		File[] files= getDiskCacheDirectory().listFiles();
+		return files != null ? files : new File[0];
+	}
+
+	private static void deleteDiskEntries() {
+		delete(getDiskCacheDirectory());
+	}
+
+	private static void delete(File file) {
+		File[] children= file.listFiles();
+		if (children != null) {
+			for (int i= 0; i < children.length; i++)
+				delete(children[i]);
+		}
+		file.delete();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Simeon Andreev and others.
+ * Copyright (c) 2017, 2019 Simeon Andreev and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -164,6 +164,43 @@ public class PackageCacheTest extends TestCase {
 				expectedPackagesWithSingleChild, actualPackagesWithSingleChild);
 	}
 
+	@Test
+	public void testGetRootChildren() throws Exception {
+		assertEquals("method returned wrong results",
+				Arrays.asList(package_a, package_f), packageCache.getRootChildren());
+	}
+
+	@Test
+	public void testPackageAdded() throws Exception {
+		packageCache.getDirectChildren(package_a);
+
+		IPackageFragment package_f_h= src.createPackageFragment("f.h", true, new NullProgressMonitor());
+		IPackageFragment package_i= src.createPackageFragment("i", true, new NullProgressMonitor());
+		packageCache.packageAdded(package_f_h);
+		packageCache.packageAdded(package_i);
+		packageCache.packageAdded(package_i);
+
+		assertEquals("wrong children after adding a package",
+				Arrays.asList(package_f_g, package_f_h), packageCache.getDirectChildren(package_f));
+		assertNull("wrong single child after adding a package", packageCache.getSingleChild(package_f));
+		assertEquals("wrong root children after adding a package",
+				Arrays.asList(package_a, package_f, package_i), packageCache.getRootChildren());
+	}
+
+	@Test
+	public void testPackageRemoved() throws Exception {
+		packageCache.getDirectChildren(package_a);
+
+		package_a_b_c_d2.delete(true, new NullProgressMonitor());
+		package_f_g.delete(true, new NullProgressMonitor());
+		packageCache.packageRemoved(package_a_b_c_d2);
+		packageCache.packageRemoved(package_f_g);
+
+		assertEquals("wrong single child after removing a package", package_a_b_c_d1, packageCache.getSingleChild(package_a_b_c));
+		assertEquals("wrong children after removing the only child",
+				Collections.emptyList(), packageCache.getDirectChildren(package_f));
+	}
+
 	private Map<IPackageFragment, IPackageFragment> actualSingleChildren() throws Exception {
 		List<IPackageFragment> allPackages= allPackages();
 		Map<IPackageFragment, IPackageFragment> actualSingleChildren= new LinkedHashMap<>();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,7 +23,9 @@ import java.util.Map;
 import org.eclipse.jdt.testplugin.JavaProjectHelper;
 import org.eclipse.jdt.testplugin.TestOptions;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 
@@ -43,13 +45,20 @@ import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
 
 import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
 import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
+import org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring;
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
+import org.eclipse.jdt.internal.corext.util.TypeNameMatchIndex;
 
 import org.eclipse.jdt.ui.PreferenceConstants;
+import org.eclipse.jdt.ui.cleanup.CleanUpContext;
 import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
+import org.eclipse.jdt.ui.cleanup.CleanUpRequirements;
+import org.eclipse.jdt.ui.cleanup.ICleanUpFix;
 import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.fix.AbstractCleanUp;
+import org.eclipse.jdt.internal.ui.fix.ImportsCleanUp;
 import org.eclipse.jdt.internal.ui.fix.Java50CleanUp;
 import org.eclipse.jdt.internal.ui.fix.UnimplementedCodeCleanUp;
 import org.eclipse.jdt.internal.ui.text.correction.ProblemLocation;
@@ -151,6 +160,44 @@ public class CleanUpTest extends CleanUpTestCase {
 		assertRefactoringResultAsExpected(new ICompilationUnit[] {cu1, cu2, cu3}, new String[] {expected1, expected2, expected3});
 	}
 
+	public void testAddNLSTagParallel() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		ICompilationUnit[] cus= new ICompilationUnit[30];
+		String[] expected= new String[cus.length];
+		for (int i= 0; i < cus.length; i++) {
+			StringBuffer buf= new StringBuffer();
+			buf.append("package test1;\n");
+			buf.append("public class E" + i + " {\n");
+			buf.append("    public void foo() {\n");
+			buf.append("        String s= \"\";\n");
+			buf.append("    }\n");
+			buf.append("}\n");
+			cus[i]= pack1.createCompilationUnit("E" + i + ".java", buf.toString(), false, null);
+
+			buf= new StringBuffer();
+			buf.append("package test1;\n");
+			buf.append("public class E" + i + " {\n");
+			buf.append("    public void foo() {\n");
+			buf.append("        String s= \"\"; //$NON-NLS-1$\n");
+			buf.append("    }\n");
+			buf.append("}\n");
+			expected[i]= buf.toString();
+		}
+
+		enable(CleanUpConstants.ADD_MISSING_NLS_TAGS);
+
+		CleanUpRefactoring ref= new CleanUpRefactoring();
+		ref.setUseOptionsFromProfile(true);
+		ref.setThreadCount(4);
+		performRefactoring(ref, cus, JavaPlugin.getDefault().getCleanUpRegistry().createCleanUps());
+
+		String[] previews= new String[cus.length];
+		for (int i= 0; i < cus.length; i++) {
+			previews[i]= cus[i].getBuffer().getContents();
+		}
+		assertEqualStringsIgnoreOrder(previews, expected);
+	}
+
 	public void testRemoveNLSTag01() throws Exception {
 		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
 		StringBuffer buf= new StringBuffer();
@@ -8803,6 +8850,54 @@ public class CleanUpTest extends CleanUpTestCase {
 		assertTrue(message, message.indexOf("parse") != -1);
 	}
 
+	public void testOrganizeImportsCanceled() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 {\n");
+		buf.append("    ArrayList foo;\n");
+		buf.append("}\n");
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", buf.toString(), false, null);
+
+		buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E2 {\n");
+		buf.append("    List foo;\n");
+		buf.append("}\n");
+		ICompilationUnit cu2= pack1.createCompilationUnit("E2.java", buf.toString(), false, null);
+
+		enable(CleanUpConstants.ORGANIZE_IMPORTS);
+
+		final IProgressMonitor monitor= new NullProgressMonitor();
+		CleanUpRefactoring ref= new CleanUpRefactoring();
+		ref.setUseOptionsFromProfile(true);
+		ref.addCompilationUnit(cu1);
+		ref.addCompilationUnit(cu2);
+		ref.addCleanUp(new ImportsCleanUp());
+		ref.addCleanUp(new AbstractCleanUp() {
+			@Override
+			public CleanUpRequirements getRequirements() {
+				return new CleanUpRequirements(true, false, false, null);
+			}
+
+			@Override
+			public ICleanUpFix createFix(CleanUpContext context) {
+				// the user cancels while the first compilation unit is cleaned up
+				assertNotNull(TypeNameMatchIndex.getShared());
+				monitor.setCanceled(true);
+				return null;
+			}
+		});
+
+		try {
+			ref.checkAllConditions(monitor);
+			fail("clean up should have been canceled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		assertNull("type name index not released", TypeNameMatchIndex.getShared());
+	}
+
 	public void testOrganizeImportsBug202266() throws Exception {
 		IPackageFragment pack1= fSourceFolder.createPackageFragment("test2", false, null);
 		StringBuffer buf= new StringBuffer();
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.search.ui.ISearchResultListener;
+import org.eclipse.search.ui.NewSearchUI;
+import org.eclipse.search.ui.SearchResultEvent;
+import org.eclipse.search.ui.text.Match;
+import org.eclipse.search.ui.text.MatchEvent;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+
+import org.eclipse.jdt.ui.search.ElementQuerySpecification;
+import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
+
+import org.eclipse.jdt.internal.ui.search.JavaElementMatch;
+import org.eclipse.jdt.internal.ui.search.JavaSearchQuery;
+import org.eclipse.jdt.internal.ui.search.JavaSearchResult;
+import org.eclipse.jdt.internal.ui.search.NewSearchResultCollector;
+
+/**
+ * Tests that the matches of the search engine are added to the {@link JavaSearchResult} in
+ * batches and that their {@link JavaElementMatch}es are created on demand.
+ */
+public class JavaSearchResultTest extends TestCase {
+
+	private static final Class<JavaSearchResultTest> THIS= JavaSearchResultTest.class;
+
+	private IJavaProject fJProject1;
+	private ICompilationUnit fCuA;
+	private ICompilationUnit fCuB;
+	private JavaSearchQuery fQuery;
+
+	/** The added matches reported to the listener, one list per event */
+	private final List<Match[]> fAdded= new ArrayList<>();
+
+	/** The removed matches reported to the listener, one list per event */
+	private final List<Match[]> fRemoved= new ArrayList<>();
+
+	private final ISearchResultListener fListener= new ISearchResultListener() {
+		@Override
+		public void searchResultChanged(SearchResultEvent e) {
+			if (e instanceof MatchEvent) {
+				MatchEvent event= (MatchEvent) e;
+				if (event.getKind() == MatchEvent.ADDED)
+					fAdded.add(event.getMatches());
+				else
+					fRemoved.add(event.getMatches());
+			}
+		}
+	};
+
+	public JavaSearchResultTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		IPackageFragment pack= sourceFolder.createPackageFragment("test1", false, null);
+		fCuA= pack.createCompilationUnit("A.java", "package test1;\npublic class A {\n    void m() {}\n    void n() { m(); m(); }\n}\n", false, null);
+		fCuB= pack.createCompilationUnit("B.java", "package test1;\npublic class B {\n    void k(A a) { a.m(); }\n}\n", false, null);
+
+		IMethod method= fCuA.getType("A").getMethod("m", new String[0]);
+		fQuery= new JavaSearchQuery(new ElementQuerySpecification(method, IJavaSearchConstants.REFERENCES, SearchEngine.createJavaSearchScope(new IJavaElement[] { fJProject1 }), "project scope"));
+		getResult().addListener(fListener);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		getResult().removeListener(fListener);
+		NewSearchUI.removeQuery(fQuery);
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	public void testMatchesCreatedOnDemand() throws Exception {
+		NewSearchUI.runQueryInForeground(null, fQuery);
+		JavaSearchResult result= getResult();
+		assertEquals(3, result.getMatchCount());
+		assertEquals(2, result.getElements().length);
+
+		IMethod n= fCuA.getType("A").getMethod("n", new String[0]);
+		assertEquals(2, result.getMatchCount(n));
+		assertEquals(2, result.getUnfilteredMatchCount(n));
+		Match[] matches= result.getMatches(n);
+		assertEquals(2, matches.length);
+		assertTrue(matches[0] instanceof JavaElementMatch);
+		assertEquals(n, matches[0].getElement());
+		assertTrue(matches[0].getOffset() < matches[1].getOffset());
+		assertEquals(fCuA.getSource().indexOf("m();"), matches[0].getOffset());
+
+		// the created matches are kept
+		assertTrue(Arrays.equals(matches, result.getMatches(n)));
+	}
+
+	public void testBatchedIngestion() throws Exception {
+		NewSearchUI.runQueryInForeground(null, fQuery);
+		JavaSearchResult result= getResult();
+		fAdded.clear();
+
+		IMethod m= fCuA.getType("A").getMethod("m", new String[0]);
+		int count= 1200;
+		NewSearchResultCollector collector= new NewSearchResultCollector(result, false);
+		collector.beginReporting();
+		for (int i= count - 1; i >= 0; i--)
+			collector.acceptSearchMatch(new SearchMatch(m, SearchMatch.A_ACCURATE, i, 1, SearchEngine.getDefaultSearchParticipant(), fCuA.getResource()));
+		// the full batches have been added
+		assertTrue(result.getMatchCount() >= 3 + 1000);
+
+		collector.endReporting();
+		assertEquals(3 + count, result.getMatchCount());
+		assertEquals(count, result.getMatchCount(m));
+
+		// one event per batch
+		assertTrue(String.valueOf(fAdded.size()), fAdded.size() < count / 100);
+		int reported= 0;
+		for (Match[] matches : fAdded)
+			reported+= matches.length;
+		assertEquals(count, reported);
+
+		// sorted by offset
+		Match[] matches= result.getMatches(m);
+		assertEquals(count, matches.length);
+		for (int i= 0; i < count; i++)
+			assertEquals(i, matches[i].getOffset());
+	}
+
+	public void testRemovedBySearchResultUpdater() throws Exception {
+		NewSearchUI.runQueryInForeground(null, fQuery);
+		JavaSearchResult result= getResult();
+		assertEquals(3, result.getMatchCount());
+
+		IMethod k= fCuB.getType("B").getMethod("k", new String[] { "QA;" });
+		assertEquals(1, result.getMatchCount(k));
+
+		// the updater removes the matches of deleted elements
+		fCuB.delete(true, null);
+		assertEquals(2, result.getMatchCount());
+		assertEquals(0, result.getMatchCount(k));
+		assertEquals(1, result.getElements().length);
+		assertEquals(1, fRemoved.size());
+		assertEquals(1, fRemoved.get(0).length);
+		assertEquals(k, fRemoved.get(0)[0].getElement());
+	}
+
+	private JavaSearchResult getResult() {
+		return (JavaSearchResult) fQuery.getSearchResult();
+	}
+}
@@ -55,6 +55,7 @@ public class CallHierarchy {
     private static CallHierarchy fgInstance;
     private IJavaSearchScope fSearchScope;
     private StringMatcher[] fFilters;
+    private CallerCache fCallerCache;
 
     public static CallHierarchy getDefault() {
         if (fgInstance == null) {
@@ -64,6 +65,36 @@ public class CallHierarchy {
         return fgInstance;
     }
 
+    /**
+     * Returns the cache of the callers found by {@link CallerMethodWrapper}s.
+     *
+     * @return the caller cache
+     * @since 3.17
+     */
+    public synchronized CallerCache getCallerCache() {
+    	if (fCallerCache == null) {
+    		fCallerCache= new CallerCache();
+    	}
+    	return fCallerCache;
+    }
+
+    /**
+     * Disposes the caller cache if it has been created.
+     *
+     * @since 3.17
+     */
+    public static void disposeCallerCache() {
+    	CallHierarchy instance= fgInstance;
+    	if (instance != null) {
+    		synchronized (instance) {
+    			if (instance.fCallerCache != null) {
+    				instance.fCallerCache.dispose();
+    				instance.fCallerCache= null;
+    			}
+    		}
+    	}
+    }
+
     public boolean isSearchUsingImplementorsEnabled() {
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
 
@@ -86,6 +117,7 @@ public class CallHierarchy {
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
 
         settings.setValue(PREF_FILTER_TESTCODE, enabled);
+        clearCallerCache();
     }
 
 
@@ -224,6 +256,7 @@ public class CallHierarchy {
     public void setFilterEnabled(boolean filterEnabled) {
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
         settings.setValue(PREF_USE_FILTERS, filterEnabled);
+        clearCallerCache();
     }
 
     /**
@@ -241,6 +274,13 @@ public class CallHierarchy {
 
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
         settings.setValue(PREF_FILTERS_LIST, filters);
+        clearCallerCache();
+    }
+
+    private synchronized void clearCallerCache() {
+    	if (fCallerCache != null) {
+    		fCallerCache.clear();
+    	}
     }
 
     /**
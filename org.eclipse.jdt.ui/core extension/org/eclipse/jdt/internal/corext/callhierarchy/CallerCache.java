@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+
+import org.eclipse.jdt.internal.corext.util.StructuralChangeCache;
+
+/**
+ * Caches the callers found by {@link CallerMethodWrapper}s, so that they survive a refresh of
+ * the Call Hierarchy view and are shared by all trees.
+ * <p>
+ * Any member can start calling any other member, so the cache is cleared whenever the content
+ * of a compilation unit or the class path changes. Reconciled changes of working copies do not
+ * clear the cache, since they would clear it on every keystroke. It is cleared when the working
+ * copy is saved or discarded instead, and the Refresh action searches the callers of the selected
+ * members again. The callers depend on the filters of the {@link CallHierarchy}, which clears the
+ * cache when they are changed. The callers are cached per search scope, scopes which are no
+ * longer used are garbage collected.
+ * </p>
+ */
+public class CallerCache extends StructuralChangeCache {
+
+	private static final int CHANGE_FLAGS= IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_MODIFIERS | IJavaElementDelta.F_SUPER_TYPES
+			| IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH | IJavaElementDelta.F_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_SOURCEATTACHED
+			| IJavaElementDelta.F_SOURCEDETACHED | IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_OPENED;
+
+	private final Map<IJavaSearchScope, Map<String, Map<String, MethodCall>>> fCallers= new WeakHashMap<>();
+
+	/**
+	 * Returns the callers of the given member which have been found before.
+	 *
+	 * @param member the member
+	 * @param fieldSearchMode the field search mode, see {@link MethodWrapper#getFieldSearchMode()}
+	 * @param scope the search scope
+	 * @return a copy of the map from handle identifier to {@link MethodCall}, or <code>null</code>
+	 *         if the callers are not known
+	 */
+	public synchronized Map<String, MethodCall> getCallers(IMember member, int fieldSearchMode, IJavaSearchScope scope) {
+		Map<String, Map<String, MethodCall>> callers= fCallers.get(scope);
+		if (callers == null)
+			return null;
+		Map<String, MethodCall> result= callers.get(getKey(member, fieldSearchMode));
+		return result != null ? new HashMap<>(result) : null;
+	}
+
+	/**
+	 * Stores the callers of the given member, unless the cache has been cleared since the search
+	 * has been started.
+	 *
+	 * @param member the member
+	 * @param fieldSearchMode the field search mode
+	 * @param scope the search scope
+	 * @param callers the map from handle identifier to {@link MethodCall}
+	 * @param generation the generation returned by {@link #getGeneration()} before the search
+	 */
+	public synchronized void putCallers(IMember member, int fieldSearchMode, IJavaSearchScope scope, Map<String, MethodCall> callers, long generation) {
+		if (!isCurrent(generation))
+			return;
+		Map<String, Map<String, MethodCall>> scopeCallers= fCallers.get(scope);
+		if (scopeCallers == null) {
+			scopeCallers= new HashMap<>();
+			fCallers.put(scope, scopeCallers);
+		}
+		scopeCallers.put(getKey(member, fieldSearchMode), new HashMap<>(callers));
+	}
+
+	/**
+	 * Removes the callers of the given member.
+	 *
+	 * @param member the member
+	 * @param fieldSearchMode the field search mode
+	 * @param scope the search scope
+	 */
+	public synchronized void removeCallers(IMember member, int fieldSearchMode, IJavaSearchScope scope) {
+		Map<String, Map<String, MethodCall>> callers= fCallers.get(scope);
+		if (callers != null)
+			callers.remove(getKey(member, fieldSearchMode));
+	}
+
+	@Override
+	protected void clearEntries() {
+		fCallers.clear();
+	}
+
+	@Override
+	protected int getEventMask() {
+		return ElementChangedEvent.POST_CHANGE;
+	}
+
+	@Override
+	protected boolean isAffectingEntries(IJavaElementDelta delta) {
+		// unlike the structure, the callers also change when a method body is edited
+		return isAffectingCallers(delta);
+	}
+
+	private static boolean isAffectingCallers(IJavaElementDelta delta) {
+		if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & CHANGE_FLAGS) != 0)
+			return true;
+		if ((delta.getFlags() & IJavaElementDelta.F_PRIMARY_WORKING_COPY) != 0 && !((ICompilationUnit) delta.getElement()).isWorkingCopy()) {
+			// the discarded working copy may have had unsaved changes which have been searched
+			return true;
+		}
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (isAffectingCallers(children[i]))
+				return true;
+		}
+		return false;
+	}
+
+	private static String getKey(IMember member, int fieldSearchMode) {
+		return member.getHandleIdentifier() + '|' + fieldSearchMode;
+	}
+}
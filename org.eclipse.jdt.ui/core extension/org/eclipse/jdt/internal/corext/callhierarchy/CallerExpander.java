@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Searches the callers of caller nodes level by level, up to a given depth. The callers of the
+ * nodes of one level are searched concurrently. The found callers are stored in the caches of the
+ * call hierarchy, see {@link CallerCache}, so that a viewer shows them without searching again.
+ */
+public class CallerExpander {
+
+	private static class SearchThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger fCount= new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread= new Thread(runnable, "Call Hierarchy Search " + fCount.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	/**
+	 * A node together with its callers.
+	 */
+	private static class ExpandedNode {
+		final CallerMethodWrapper fNode;
+		final MethodWrapper[] fCallers;
+
+		ExpandedNode(CallerMethodWrapper node, MethodWrapper[] callers) {
+			fNode= node;
+			fCallers= callers;
+		}
+	}
+
+	private final int fThreadCount;
+
+	/**
+	 * Creates an expander.
+	 *
+	 * @param threadCount the maximum number of concurrent searches
+	 */
+	public CallerExpander(int threadCount) {
+		fThreadCount= Math.max(1, threadCount);
+	}
+
+	/**
+	 * Searches the callers of the given nodes and of their callers up to the given depth.
+	 *
+	 * @param roots the nodes to expand
+	 * @param depth the number of levels to expand
+	 * @param monitor the progress monitor, which is polled for cancellation
+	 * @throws InterruptedException if the thread has been interrupted
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	public void expand(CallerMethodWrapper[] roots, int depth, IProgressMonitor monitor) throws InterruptedException {
+		ExecutorService executor= Executors.newFixedThreadPool(fThreadCount, new SearchThreadFactory());
+		try {
+			List<CallerMethodWrapper> level= new ArrayList<>(Arrays.asList(roots));
+			for (int i= 0; i < depth && !level.isEmpty(); i++) {
+				level= expandLevel(level, executor, monitor);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Tells whether the callers of the given caller are searched on the next level. By default the
+	 * callers of callers which can have children and are not recursive are searched.
+	 *
+	 * @param caller the caller
+	 * @return <code>true</code> if the callers of the caller are searched
+	 */
+	protected boolean isExpandable(CallerMethodWrapper caller) {
+		return caller.canHaveChildren() && !caller.isRecursive();
+	}
+
+	/**
+	 * Called in the thread which called {@link #expand(CallerMethodWrapper[], int, IProgressMonitor)}
+	 * as soon as the callers of a node are known.
+	 *
+	 * @param node the node
+	 * @param callers the callers of the node
+	 */
+	protected void callersFound(CallerMethodWrapper node, MethodWrapper[] callers) {
+		// do nothing
+	}
+
+	private List<CallerMethodWrapper> expandLevel(List<CallerMethodWrapper> level, ExecutorService executor, final IProgressMonitor monitor) throws InterruptedException {
+		CompletionService<ExpandedNode> completionService= new ExecutorCompletionService<>(executor);
+		for (final CallerMethodWrapper node : level) {
+			completionService.submit(new Callable<ExpandedNode>() {
+				@Override
+				public ExpandedNode call() {
+					// the searches run concurrently, so they cannot report to the given monitor
+					IProgressMonitor searchMonitor= new NullProgressMonitor() {
+						@Override
+						public boolean isCanceled() {
+							return monitor.isCanceled();
+						}
+					};
+					return new ExpandedNode(node, node.getCalls(searchMonitor));
+				}
+			});
+		}
+
+		List<CallerMethodWrapper> nextLevel= new ArrayList<>();
+		for (int i= 0; i < level.size(); i++) {
+			ExpandedNode expanded;
+			try {
+				expanded= completionService.take().get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof OperationCanceledException)
+					throw (OperationCanceledException) e.getCause();
+				JavaPlugin.log(e.getCause());
+				continue;
+			}
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+			monitor.worked(1);
+			callersFound(expanded.fNode, expanded.fCallers);
+
+			for (int j= 0; j < expanded.fCallers.length; j++) {
+				MethodWrapper caller= expanded.fCallers[j];
+				if (caller instanceof CallerMethodWrapper && isExpandable((CallerMethodWrapper) caller))
+					nextLevel.add((CallerMethodWrapper) caller);
+			}
+		}
+		return nextLevel;
+	}
+}
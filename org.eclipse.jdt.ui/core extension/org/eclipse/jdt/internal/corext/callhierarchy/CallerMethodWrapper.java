@@ -105,56 +105,16 @@ public class CallerMethodWrapper extends MethodWrapper {
 			checkCanceled(progressMonitor);
 
 			IMember member= getMember();
-			SearchPattern pattern= null;
-			IType type= null;
-			if (member instanceof IType) {
-				type= (IType) member;
-			} else if (member instanceof IInitializer && ! Flags.isStatic(member.getFlags())) {
-				type= (IType) member.getParent();
-			}
-			if (type != null) {
-				if (type.isAnonymous()) {
-					// search engine does not find reference to anonymous, see https://bugs.eclipse.org/bugs/show_bug.cgi?id=207774
-					CallSearchResultCollector resultCollector= new CallSearchResultCollector();
-					IJavaElement parent= type.getParent();
-					if (parent instanceof IMember) {
-						IMember parentMember= (IMember) parent;
-						ISourceRange nameRange= type.getNameRange();
-						int start= nameRange != null ? nameRange.getOffset() : -1;
-						int len= nameRange != null ? nameRange.getLength() : 0;
-						resultCollector.addMember(type, parentMember, start, start + len);
-						return resultCollector.getCallers();
-					}
-				} else if (type.getParent() instanceof IMethod) {
-					// good enough for local types (does not find super(..) references in subtype constructors):
-					pattern= SearchPattern.createPattern(type,
-							IJavaSearchConstants.CLASS_INSTANCE_CREATION_TYPE_REFERENCE,
-							SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
-				} else {
-					pattern= SearchPattern.createPattern(type.getFullyQualifiedName('.'),
-							IJavaSearchConstants.CONSTRUCTOR,
-							IJavaSearchConstants.REFERENCES,
-							SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
-				}
-			}
-			if (pattern == null) {
-				int limitTo= IJavaSearchConstants.REFERENCES;
-				if (member.getElementType() == IJavaElement.FIELD)
-					limitTo= getFieldSearchMode();
-				pattern= SearchPattern.createPattern(member, limitTo, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
-			}
-			if (pattern == null) { // e.g. for initializers
-				return new HashMap<>(0);
-			}
-
-			SearchEngine searchEngine= new SearchEngine();
-			MethodReferencesSearchRequestor searchRequestor= new MethodReferencesSearchRequestor();
 			IJavaSearchScope defaultSearchScope= getSearchScope();
-			boolean isWorkspaceScope= SearchEngine.createWorkspaceScope().equals(defaultSearchScope);
-			IJavaSearchScope searchScope= isWorkspaceScope ? getAccurateSearchScope(defaultSearchScope, member) : defaultSearchScope;
-			searchEngine.search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, searchScope, searchRequestor,
-					monitor);
-			return searchRequestor.getCallers();
+			CallerCache cache= CallHierarchy.getDefault().getCallerCache();
+			Map<String, MethodCall> callers= cache.getCallers(member, getFieldSearchMode(), defaultSearchScope);
+			if (callers != null)
+				return callers;
+
+			long generation= cache.getGeneration();
+			callers= searchCallers(member, defaultSearchScope, monitor);
+			cache.putCallers(member, getFieldSearchMode(), defaultSearchScope, callers, generation);
+			return callers;
 
 		} catch (CoreException e) {
 			JavaPlugin.log(e);
@@ -162,6 +122,81 @@ public class CallerMethodWrapper extends MethodWrapper {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Returns the callers from the {@link CallerCache}.
+	 * </p>
+	 */
+	@Override
+	protected Map<String, MethodCall> findCachedChildren() {
+		return CallHierarchy.getDefault().getCallerCache().getCallers(getMember(), getFieldSearchMode(), getSearchScope());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Also removes the callers from the {@link CallerCache}, so that they are searched again.
+	 * </p>
+	 */
+	@Override
+	public void removeFromCache() {
+		super.removeFromCache();
+		CallHierarchy.getDefault().getCallerCache().removeCallers(getMember(), getFieldSearchMode(), getSearchScope());
+	}
+
+	private Map<String, MethodCall> searchCallers(IMember member, IJavaSearchScope defaultSearchScope, IProgressMonitor monitor) throws CoreException {
+		SearchPattern pattern= null;
+		IType type= null;
+		if (member instanceof IType) {
+			type= (IType) member;
+		} else if (member instanceof IInitializer && ! Flags.isStatic(member.getFlags())) {
+			type= (IType) member.getParent();
+		}
+		if (type != null) {
+			if (type.isAnonymous()) {
+				// search engine does not find reference to anonymous, see https://bugs.eclipse.org/bugs/show_bug.cgi?id=207774
+				CallSearchResultCollector resultCollector= new CallSearchResultCollector();
+				IJavaElement parent= type.getParent();
+				if (parent instanceof IMember) {
+					IMember parentMember= (IMember) parent;
+					ISourceRange nameRange= type.getNameRange();
+					int start= nameRange != null ? nameRange.getOffset() : -1;
+					int len= nameRange != null ? nameRange.getLength() : 0;
+					resultCollector.addMember(type, parentMember, start, start + len);
+					return resultCollector.getCallers();
+				}
+			} else if (type.getParent() instanceof IMethod) {
+				// good enough for local types (does not find super(..) references in subtype constructors):
+				pattern= SearchPattern.createPattern(type,
+						IJavaSearchConstants.CLASS_INSTANCE_CREATION_TYPE_REFERENCE,
+						SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+			} else {
+				pattern= SearchPattern.createPattern(type.getFullyQualifiedName('.'),
+						IJavaSearchConstants.CONSTRUCTOR,
+						IJavaSearchConstants.REFERENCES,
+						SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+			}
+		}
+		if (pattern == null) {
+			int limitTo= IJavaSearchConstants.REFERENCES;
+			if (member.getElementType() == IJavaElement.FIELD)
+				limitTo= getFieldSearchMode();
+			pattern= SearchPattern.createPattern(member, limitTo, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+		}
+		if (pattern == null) { // e.g. for initializers
+			return new HashMap<>(0);
+		}
+
+		SearchEngine searchEngine= new SearchEngine();
+		MethodReferencesSearchRequestor searchRequestor= new MethodReferencesSearchRequestor();
+		boolean isWorkspaceScope= SearchEngine.createWorkspaceScope().equals(defaultSearchScope);
+		IJavaSearchScope searchScope= isWorkspaceScope ? getAccurateSearchScope(defaultSearchScope, member) : defaultSearchScope;
+		searchEngine.search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, searchScope, searchRequestor,
+				monitor);
+		return searchRequestor.getCallers();
+	}
+
 	private IJavaSearchScope getAccurateSearchScope(IJavaSearchScope defaultSearchScope, IMember member) throws JavaModelException {
 		if (! JdtFlags.isPrivate(member))
 			return defaultSearchScope;
@@ -45,6 +45,8 @@ public abstract class MethodWrapper extends PlatformObject {
      * A cache of previously found methods. This cache should be searched
      * before adding a "new" method object reference to the list of elements.
      * This way previously found methods won't be searched again.
+     * The cache is shared by the whole tree, whose children may be searched
+     * concurrently, so it is accessed while holding its lock.
      */
     private Map<String, Map<String, MethodCall>> fMethodCache;
     private final MethodCall fMethodCall;
@@ -88,11 +90,37 @@ public abstract class MethodWrapper extends PlatformObject {
             doFindChildren(progressMonitor);
         }
 
-        MethodWrapper[] result = new MethodWrapper[fElements.size()];
+        return createCalls(fElements);
+    }
+
+	/**
+	 * Returns the calls if they are known without a search, i.e. if they have been found before
+	 * in this tree or are cached elsewhere, see {@link #findCachedChildren()}.
+	 *
+	 * @return the calls, or <code>null</code> if they have to be searched
+	 * @since 3.17
+	 */
+	public MethodWrapper[] getCachedCalls() {
+		Map<String, MethodCall> elements= fElements;
+		if (elements == null) {
+			elements= lookupMethod(getMethodCall());
+			if (elements == null || elements.isEmpty()) {
+				elements= findCachedChildren();
+				if (elements == null)
+					return null;
+				storeInMethodCache(elements);
+			}
+			fElements= elements;
+		}
+		return createCalls(elements);
+	}
+
+    private MethodWrapper[] createCalls(Map<String, MethodCall> elements) {
+        MethodWrapper[] result = new MethodWrapper[elements.size()];
         int i = 0;
 
-        for (Iterator<String> iter = fElements.keySet().iterator(); iter.hasNext();) {
-            MethodCall methodCall = getMethodCallFromMap(fElements, iter.next());
+        for (Iterator<String> iter = elements.keySet().iterator(); iter.hasNext();) {
+            MethodCall methodCall = getMethodCallFromMap(elements, iter.next());
             result[i++] = createMethodWrapper(methodCall);
         }
 
@@ -206,11 +234,6 @@ public abstract class MethodWrapper extends PlatformObject {
 
     protected abstract String getTaskName();
 
-    private void addCallToCache(MethodCall methodCall) {
-        Map<String, MethodCall> cachedCalls = lookupMethod(this.getMethodCall());
-        cachedCalls.put(methodCall.getKey(), methodCall);
-    }
-
 	/**
 	 * Creates a method wrapper for the child of the receiver.
 	 * 
@@ -223,8 +246,7 @@ public abstract class MethodWrapper extends PlatformObject {
         Map<String, MethodCall> existingResults = lookupMethod(getMethodCall());
 
         if (existingResults != null && !existingResults.isEmpty()) {
-            fElements = new HashMap<>();
-            fElements.putAll(existingResults);
+            fElements = existingResults;
         } else {
             initCalls();
 
@@ -282,33 +304,49 @@ public abstract class MethodWrapper extends PlatformObject {
      */
     protected abstract Map<String, MethodCall> findChildren(IProgressMonitor progressMonitor);
 
+	/**
+	 * Returns the children if they are known without a search. Must not block on a search.
+	 *
+	 * @return a map from handle identifier ({@link String}) to {@link MethodCall} which is owned by
+	 *         the caller, or <code>null</code> if the children have to be searched
+	 * @since 3.17
+	 */
+	protected Map<String, MethodCall> findCachedChildren() {
+		return null;
+	}
+
     private Map<String, Map<String, MethodCall>> getMethodCache() {
         return fMethodCache;
     }
 
     private void initCalls() {
         this.fElements = new HashMap<>();
-
-        initCacheForMethod();
     }
 
     /**
      * Looks up a previously created search result in the "global" cache.
      * @param methodCall the method call
-     * @return the List of previously found search results
+     * @return a copy of the previously found search results, or <code>null</code>
      */
     private Map<String, MethodCall> lookupMethod(MethodCall methodCall) {
-        return getMethodCache().get(methodCall.getKey());
+        Map<String, Map<String, MethodCall>> methodCache= getMethodCache();
+        synchronized (methodCache) {
+            Map<String, MethodCall> cachedCalls= methodCache.get(methodCall.getKey());
+            return cachedCalls != null ? new HashMap<>(cachedCalls) : null;
+        }
     }
 
     private void performSearch(IProgressMonitor progressMonitor) {
         fElements = findChildren(progressMonitor);
+        checkCanceled(progressMonitor);
+        storeInMethodCache(fElements);
+    }
 
-        for (Iterator<String> iter = fElements.keySet().iterator(); iter.hasNext();) {
-            checkCanceled(progressMonitor);
-
-            MethodCall methodCall = getMethodCallFromMap(fElements, iter.next());
-            addCallToCache(methodCall);
+    private void storeInMethodCache(Map<String, MethodCall> elements) {
+        // store the complete result only, so that concurrent searches don't see partial results
+        Map<String, Map<String, MethodCall>> methodCache= getMethodCache();
+        synchronized (methodCache) {
+            methodCache.put(getMethodCall().getKey(), new HashMap<>(elements));
         }
     }
 
@@ -316,11 +354,6 @@ public abstract class MethodWrapper extends PlatformObject {
         return elements.get(key);
     }
 
-    private void initCacheForMethod() {
-        Map<String, MethodCall> cachedCalls = new HashMap<>();
-        getMethodCache().put(this.getMethodCall().getKey(), cachedCalls);
-    }
-
     /**
      * Checks with the progress monitor to see whether the creation of the type hierarchy
      * should be canceled. Should be regularly called
@@ -370,6 +403,8 @@ public abstract class MethodWrapper extends PlatformObject {
 	 */
 	public void removeFromCache() {
 		fElements= null;
-		fMethodCache.remove(getMethodCall().getKey());
+		synchronized (fMethodCache) {
+			fMethodCache.remove(getMethodCall().getKey());
+		}
 	}
 }
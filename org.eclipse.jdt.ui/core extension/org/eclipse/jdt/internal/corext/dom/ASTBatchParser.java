@@ -19,9 +19,21 @@ import java.util.Collection;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -50,6 +62,8 @@ public class ASTBatchParser {
 		else                        MAX_AT_ONCE=  25;
 	}
 
+	private static final int MIN_AT_ONCE_PARALLEL= 10;
+
 	/**
 	 * Creates ASTs for each compilation unit in <code>units</code>.
 	 * <p>
@@ -103,6 +117,157 @@ public class ASTBatchParser {
 		}
 	}
 
+	/**
+	 * Creates ASTs for each compilation unit in <code>units</code> using up to
+	 * <code>threadCount</code> worker threads.
+	 * <p>
+	 * The compilation units are split into batches that are parsed concurrently, each batch
+	 * by its own parser. The batches are smaller than in the sequential case, such that the
+	 * memory used by all concurrently parsed batches stays about the same.
+	 * </p>
+	 * <p>
+	 * <code>ASTRequestor.acceptAST</code> is called in no particular order and from
+	 * worker threads, the requestor must therefore be thread safe. Progress is reported
+	 * on the calling thread and while synchronized on <code>monitor</code>.
+	 * {@link #createParser(IJavaProject)} is called from worker threads.
+	 * </p>
+	 * <p>
+	 * If the operation is canceled or a batch fails, the remaining batches are canceled. The
+	 * method only returns after all worker threads have stopped, so the requestor is never
+	 * called afterwards.
+	 * </p>
+	 *
+	 * @param compilationUnits the compilation units to create ASTs for
+	 * @param bindingKeys the binding keys to create bindings for
+	 * @param requestor the thread safe AST requestor that collects abstract syntax trees and bindings
+	 * @param threadCount the maximal number of worker threads, if <code>1</code> or less the
+	 *   ASTs are created on the calling thread
+	 * @param monitor the progress monitor used to report progress and request cancelation,
+	 *   or <code>null</code> if none
+	 * @see #createASTs(ICompilationUnit[], String[], ASTRequestor, IProgressMonitor)
+	 * @since 3.17
+	 */
+	public final void createASTs(ICompilationUnit[] compilationUnits, String[] bindingKeys, final ASTRequestor requestor, int threadCount, IProgressMonitor monitor) {
+		if (threadCount <= 1) {
+			createASTs(compilationUnits, bindingKeys, requestor, monitor);
+			return;
+		}
+
+		if (compilationUnits.length == 0)
+			return;
+
+		if (monitor == null)
+			monitor= new NullProgressMonitor();
+		final IProgressMonitor parentMonitor= monitor;
+
+		List<ICompilationUnit[]> batches= new ArrayList<>();
+		int batchSize= Math.max(MIN_AT_ONCE_PARALLEL, MAX_AT_ONCE / threadCount);
+		ICompilationUnit[][] splited= splitByProject(compilationUnits);
+		for (int i= 0; i < splited.length; i++) {
+			ICompilationUnit[] units= splited[i];
+			for (int cursor= 0; cursor < units.length; cursor+= batchSize) {
+				batches.add(Arrays.copyOfRange(units, cursor, Math.min(cursor + batchSize, units.length)));
+			}
+		}
+
+		monitor.beginTask("", compilationUnits.length); //$NON-NLS-1$
+		ExecutorService executor= Executors.newFixedThreadPool(Math.min(threadCount, batches.size()), new WorkerThreadFactory());
+		final AtomicBoolean aborted= new AtomicBoolean();
+		try {
+			CompletionService<Integer> completionService= new ExecutorCompletionService<>(executor);
+			final IProgressMonitor workerMonitor= new NullProgressMonitor() {
+				@Override
+				public boolean isCanceled() {
+					return aborted.get() || parentMonitor.isCanceled();
+				}
+			};
+			for (Iterator<ICompilationUnit[]> iter= batches.iterator(); iter.hasNext();) {
+				final ICompilationUnit[] batch= iter.next();
+				final String[] keys= bindingKeys;
+				completionService.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						if (workerMonitor.isCanceled())
+							throw new OperationCanceledException();
+						createParser(batch[0].getJavaProject()).createASTs(batch, keys, requestor, workerMonitor);
+						return Integer.valueOf(batch.length);
+					}
+				});
+			}
+
+			int pending= batches.size();
+			while (pending > 0) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+
+				Future<Integer> done= completionService.poll(100, TimeUnit.MILLISECONDS);
+				if (done == null)
+					continue;
+
+				pending--;
+				int parsed= getResult(done);
+				synchronized (monitor) {
+					monitor.worked(parsed);
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		} finally {
+			aborted.set(true);
+			executor.shutdownNow();
+			awaitTermination(executor);
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Waits until the worker threads of the given executor have stopped. The parsers check the
+	 * cancelation of their monitor after each compilation unit, so this does not take long.
+	 *
+	 * @param executor the executor which has been shut down
+	 */
+	private static void awaitTermination(ExecutorService executor) {
+		boolean interrupted= false;
+		try {
+			while (true) {
+				try {
+					if (executor.awaitTermination(1, TimeUnit.SECONDS))
+						return;
+				} catch (InterruptedException e) {
+					interrupted= true;
+				}
+			}
+		} finally {
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	private static int getResult(Future<Integer> future) throws InterruptedException {
+		try {
+			return future.get().intValue();
+		} catch (ExecutionException e) {
+			Throwable cause= e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger fCount= new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread= new Thread(runnable, "AST Batch Parser Worker " + fCount.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
 	/**
 	 * Creates a new parser which can be used to create ASTs
 	 * for compilation units in <code>project</code>
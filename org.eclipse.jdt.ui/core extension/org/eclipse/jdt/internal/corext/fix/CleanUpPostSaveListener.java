@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -358,41 +358,45 @@ public class CleanUpPostSaveListener implements IPostSaveListener {
     			manager.aboutToPerformChange(result);
 
     			do {
-    				RefactoringStatus preCondition= new RefactoringStatus();
-    				for (int i= 0; i < cleanUps.length; i++) {
-    					RefactoringStatus conditions= cleanUps[i].checkPreConditions(unit.getJavaProject(), new ICompilationUnit[] {unit}, new SubProgressMonitor(monitor, 5));
-    					preCondition.merge(conditions);
-    				}
-    				if (showStatus(preCondition) != Window.OK)
-    					return;
-
-    				Map<String, String> options= new HashMap<>();
-    				for (int i= 0; i < cleanUps.length; i++) {
-    					Map<String, String> map= cleanUps[i].getRequirements().getCompilerOptions();
-    					if (map != null) {
-    						options.putAll(map);
+    				ArrayList<ICleanUp> undoneCleanUps= new ArrayList<>();
+    				CleanUpChange change;
+    				RefactoringStatus postCondition= new RefactoringStatus();
+    				try {
+    					RefactoringStatus preCondition= new RefactoringStatus();
+    					for (int i= 0; i < cleanUps.length; i++) {
+    						RefactoringStatus conditions= cleanUps[i].checkPreConditions(unit.getJavaProject(), new ICompilationUnit[] {unit}, new SubProgressMonitor(monitor, 5));
+    						preCondition.merge(conditions);
+    					}
+    					if (showStatus(preCondition) != Window.OK)
+    						return;
+
+    					Map<String, String> options= new HashMap<>();
+    					for (int i= 0; i < cleanUps.length; i++) {
+    						Map<String, String> map= cleanUps[i].getRequirements().getCompilerOptions();
+    						if (map != null) {
+    							options.putAll(map);
+    						}
     					}
-    				}
-
-    				CompilationUnit ast= null;
-    				if (requiresAST(cleanUps)) {
-    					ast= createAst(unit, options, new SubProgressMonitor(monitor, 10));
-    				}
 
-    				CleanUpContext context;
-    				if (changedRegions == null) {
-    					context= new CleanUpContext(unit, ast);
-    				} else {
-    					context= new MultiLineCleanUpContext(unit, ast, changedRegions);
-    				}
+    					CompilationUnit ast= null;
+    					if (requiresAST(cleanUps)) {
+    						ast= createAst(unit, options, new SubProgressMonitor(monitor, 10));
+    					}
 
-    				ArrayList<ICleanUp> undoneCleanUps= new ArrayList<>();
-					CleanUpChange change= CleanUpRefactoring.calculateChange(context, cleanUps, undoneCleanUps, slowCleanUps);
+    					CleanUpContext context;
+    					if (changedRegions == null) {
+    						context= new CleanUpContext(unit, ast);
+    					} else {
+    						context= new MultiLineCleanUpContext(unit, ast, changedRegions);
+    					}
 
-    				RefactoringStatus postCondition= new RefactoringStatus();
-    				for (int i= 0; i < cleanUps.length; i++) {
-    					RefactoringStatus conditions= cleanUps[i].checkPostConditions(new SubProgressMonitor(monitor, 1));
-    					postCondition.merge(conditions);
+    					change= CleanUpRefactoring.calculateChange(context, cleanUps, undoneCleanUps, slowCleanUps);
+    				} finally {
+    					// clean ups release the resources acquired in checkPreConditions, also if the clean up fails or is canceled
+    					for (int i= 0; i < cleanUps.length; i++) {
+    						RefactoringStatus conditions= cleanUps[i].checkPostConditions(new SubProgressMonitor(monitor, 1));
+    						postCondition.merge(conditions);
+    					}
     				}
     				if (showStatus(postCondition) != Window.OK)
     					return;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -248,17 +248,26 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		}
 	}
 
+	/**
+	 * Calculates the solutions for the ASTs of a parse list. ASTs may be accepted
+	 * concurrently by several parser threads. The clean ups are not required to be thread
+	 * safe, so they are invoked for one compilation unit after another, while the other
+	 * threads continue to create ASTs.
+	 */
 	private static class CleanUpASTRequestor extends ASTRequestor {
 
-		private final List<ParseListElement> fUndoneElements;
+		private final List<ParseListElement> fParseList;
+		private final Hashtable<ICompilationUnit, ParseListElement> fUndoneElements;
 		private final Hashtable<ICompilationUnit, List<CleanUpChange>> fSolutions;
 		private final Hashtable<ICompilationUnit, ParseListElement> fCompilationUnitParseElementMap;
 		private final CleanUpRefactoringProgressMonitor fMonitor;
+		private final Object fCleanUpLock= new Object();
 
 		public CleanUpASTRequestor(List<ParseListElement> parseList, Hashtable<ICompilationUnit, List<CleanUpChange>> solutions, CleanUpRefactoringProgressMonitor monitor) {
+			fParseList= parseList;
 			fSolutions= solutions;
 			fMonitor= monitor;
-			fUndoneElements= new ArrayList<>();
+			fUndoneElements= new Hashtable<>();
 			fCompilationUnitParseElementMap= new Hashtable<>(parseList.size());
 			for (Iterator<ParseListElement> iter= parseList.iterator(); iter.hasNext();) {
 				ParseListElement element= iter.next();
@@ -268,8 +277,15 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 		@Override
 		public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+			synchronized (fCleanUpLock) {
+				processAST(source, ast);
+			}
+		}
 
-			fMonitor.subTask(fMonitor.getSubTaskMessage(source));
+		private void processAST(ICompilationUnit source, CompilationUnit ast) {
+			synchronized (fMonitor) {
+				fMonitor.subTask(fMonitor.getSubTaskMessage(source));
+			}
 
 			ICompilationUnit primary= (ICompilationUnit)source.getPrimaryElement();
 			ParseListElement element= fCompilationUnitParseElementMap.get(primary);
@@ -283,11 +299,13 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			}
 			ICleanUp[] rejectedCleanUps= calculateSolutions(context, element.getCleanUps());
 
-			if (rejectedCleanUps.length > 0) {
-				fUndoneElements.add(new ParseListElement(target, rejectedCleanUps));
-				fMonitor.reset();
-			} else {
-				fMonitor.flush();
+			synchronized (fMonitor) {
+				if (rejectedCleanUps.length > 0) {
+					fUndoneElements.put(primary, new ParseListElement(target, rejectedCleanUps));
+					fMonitor.reset();
+				} else {
+					fMonitor.flush();
+				}
 			}
 		}
 
@@ -295,8 +313,18 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			acceptAST(source, null);
 		}
 
+		/**
+		 * @return the elements with rejected clean ups, in the order of the parse list, such
+		 *         that the result does not depend on the order in which ASTs were accepted
+		 */
 		public List<ParseListElement> getUndoneElements() {
-			return fUndoneElements;
+			List<ParseListElement> result= new ArrayList<>(fUndoneElements.size());
+			for (Iterator<ParseListElement> iter= fParseList.iterator(); iter.hasNext();) {
+				ParseListElement undone= fUndoneElements.get(iter.next().getTarget().getCompilationUnit());
+				if (undone != null)
+					result.add(undone);
+			}
+			return result;
 		}
 
 		private ICleanUp[] calculateSolutions(CleanUpContext context, ICleanUp[] cleanUps) {
@@ -318,17 +346,20 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		private void integrateSolution(CleanUpChange solution, ICompilationUnit source) {
 			ICompilationUnit primary= source.getPrimary();
 
-			List<CleanUpChange> changes= fSolutions.get(primary);
-			if (changes == null) {
-				changes= new ArrayList<>();
-				fSolutions.put(primary, changes);
+			synchronized (fSolutions) {
+				List<CleanUpChange> changes= fSolutions.get(primary);
+				if (changes == null) {
+					changes= new ArrayList<>();
+					fSolutions.put(primary, changes);
+				}
+				changes.add(solution);
 			}
-			changes.add(solution);
 		}
 	}
 
 	private class CleanUpFixpointIterator {
 
+		private final CleanUpTarget[] fTargets;
 		private List<ParseListElement> fParseList;
 		private final Hashtable<ICompilationUnit, List<CleanUpChange>> fSolutions;
 		private final Hashtable<ICompilationUnit, ICompilationUnit> fWorkingCopies; // map from primary to working copy
@@ -337,6 +368,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		private int fIndex;
 
 		public CleanUpFixpointIterator(CleanUpTarget[] targets, ICleanUp[] cleanUps) {
+			fTargets= targets;
 			fSolutions= new Hashtable<>(targets.length);
 			fWorkingCopies= new Hashtable<>();
 
@@ -404,7 +436,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 					};
 					try {
 						ICompilationUnit[] units= parseList.toArray(new ICompilationUnit[parseList.size()]);
-						parser.createASTs(units, new String[0], requestor, cuMonitor);
+						parser.createASTs(units, new String[0], requestor, fThreadCount, cuMonitor);
 					} catch (FixCalculationException e) {
 						throw e.getException();
 					}
@@ -451,11 +483,11 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 			Change[] result= new Change[fSolutions.size()];
 			int i=0;
-			for (Iterator<Entry<ICompilationUnit, List<CleanUpChange>>> iterator= fSolutions.entrySet().iterator(); iterator.hasNext();) {
-				Entry<ICompilationUnit, List<CleanUpChange>>  entry= iterator.next();
-
-				List<CleanUpChange> changes= entry.getValue();
-				ICompilationUnit unit= entry.getKey();
+			for (int k= 0; k < fTargets.length; k++) {
+				ICompilationUnit unit= fTargets[k].getCompilationUnit();
+				List<CleanUpChange> changes= fSolutions.get(unit);
+				if (changes == null)
+					continue;
 
 				int saveMode;
 				if (fLeaveFilesDirty) {
@@ -524,6 +556,8 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 	private boolean fUseOptionsFromProfile;
 
+	private int fThreadCount;
+
 	public CleanUpRefactoring() {
 		this(FixMessages.CleanUpRefactoring_Refactoring_name);
 	}
@@ -533,12 +567,31 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		fCleanUps= new ArrayList<>();
 		fProjects= new Hashtable<>();
 		fUseOptionsFromProfile= false;
+		fThreadCount= Math.max(1, Integer.getInteger("org.eclipse.jdt.ui.cleanUp.threadCount", 1).intValue()); //$NON-NLS-1$
 	}
 
 	public void setUseOptionsFromProfile(boolean enabled) {
 		fUseOptionsFromProfile= enabled;
 	}
 
+	/**
+	 * Sets the number of worker threads used to create the ASTs of the clean up targets.
+	 * <p>
+	 * With more than one thread, independent parse batches of a project are parsed and
+	 * resolved concurrently. {@link ICleanUp#createFix(CleanUpContext)} is still invoked for
+	 * one compilation unit after another, so the clean ups need not be thread safe. The projects are processed one after another, because clean ups keep
+	 * per-project state between
+	 * {@link ICleanUp#checkPreConditions(IJavaProject, ICompilationUnit[], IProgressMonitor)}
+	 * and {@link ICleanUp#checkPostConditions(IProgressMonitor)}. The resulting change does not
+	 * depend on the number of threads.
+	 * </p>
+	 *
+	 * @param threadCount the number of worker threads, <code>1</code> to parse on the calling thread
+	 */
+	public void setThreadCount(int threadCount) {
+		fThreadCount= Math.max(1, threadCount);
+	}
+
 	public void addCompilationUnit(ICompilationUnit unit) {
 		addCleanUpTarget(new CleanUpTarget(unit));
 	}
@@ -656,13 +709,17 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 						return result;
 				}
 
-				result.merge(checkPreConditions(project, targets, new SubProgressMonitor(pm, 3 * cleanUps.length)));
-				if (result.hasFatalError())
-					return result;
-
-				Change[] changes= cleanUpProject(project, targets, cleanUps, pm);
+				Change[] changes;
+				try {
+					result.merge(checkPreConditions(project, targets, new SubProgressMonitor(pm, 3 * cleanUps.length)));
+					if (result.hasFatalError())
+						return result;
 
-				result.merge(checkPostConditions(new SubProgressMonitor(pm, cleanUps.length)));
+					changes= cleanUpProject(project, targets, cleanUps, pm);
+				} finally {
+					// clean ups release the resources acquired in checkPreConditions, also if the clean up fails or is canceled
+					result.merge(checkPostConditions(new SubProgressMonitor(pm, cleanUps.length)));
+				}
 				if (result.hasFatalError())
 					return result;
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,36 +13,37 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.util;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.TransformerFactoryConfigurationError;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
@@ -62,8 +63,18 @@ import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
  * MAX_HISTORY_SIZE. If the list exceeds this size the eldest element is removed
  * from the list. An element can be added/renewed with a call to <code>accessed(Object)</code>.
  *
- * The history can be stored to/loaded from an xml file.
- * 
+ * The history is stored in an append-only binary journal in the state location. Each call
+ * to {@link #save()} only appends the changes made since the previous save, the journal is
+ * compacted to a snapshot of the current history once it holds more than twice as many
+ * records as the history can hold. The journal is read lazily on the first access to the
+ * history. A history stored in the xml format of previous versions is migrated on the first
+ * load, and is also read if the journal is corrupt. A history with an empty file name is not
+ * stored.
+ * <p>
+ * The maximum size of the history can be configured with the system property
+ * <code>org.eclipse.jdt.ui.history.maxSize</code>.
+ * </p>
+ *
  * @param <K> key type
  * @param <V> value type
  */
@@ -71,18 +82,45 @@ public abstract class History<K, V> {
 
 	private static final String DEFAULT_ROOT_NODE_NAME= "histroyRootNode"; //$NON-NLS-1$
 	private static final String DEFAULT_INFO_NODE_NAME= "infoNode"; //$NON-NLS-1$
-	private static final int MAX_HISTORY_SIZE= 60;
+	private static final int MAX_HISTORY_SIZE= Math.max(1, Integer.getInteger("org.eclipse.jdt.ui.history.maxSize", 60).intValue()); //$NON-NLS-1$
+
+	private static final String XML_SUFFIX= ".xml"; //$NON-NLS-1$
+	private static final String JOURNAL_SUFFIX= ".journal"; //$NON-NLS-1$
+	private static final int JOURNAL_MAGIC= 0x4A484953; // "JHIS"
+	private static final int JOURNAL_VERSION= 1;
+	private static final int COMPACTION_FACTOR= 2;
+
+	private static final byte RECORD_ACCESSED= 1;
+	private static final byte RECORD_REMOVED= 2;
+	private static final byte RECORD_UPDATED= 3;
 
 	private static JavaUIException createException(Throwable t, String message) {
 		return new JavaUIException(JavaUIStatus.createError(IStatus.ERROR, message, t));
 	}
 
+	private final class JournalRecord {
+		final byte fKind;
+		final V fValue;
+
+		JournalRecord(byte kind, V value) {
+			fKind= kind;
+			fValue= value;
+		}
+	}
+
 	private final Map<K, V> fHistory;
-	private final Hashtable<K, Integer> fPositions;
+	private Hashtable<K, Integer> fPositions;
 	private final String fFileName;
+	private final String fJournalName;
 	private final String fRootNodeName;
 	private final String fInfoNodeName;
 
+	private boolean fLoaded;
+	private final List<JournalRecord> fPendingRecords;
+	private int fJournalRecordCount;
+	private boolean fNeedsCompaction;
+	private Document fScratchDocument;
+
 	public History(String fileName, String rootNodeName, String infoNodeName) {
 		fHistory= new LinkedHashMap<K, V>(80, 0.75f, true) {
 			private static final long serialVersionUID= 1L;
@@ -92,9 +130,12 @@ public abstract class History<K, V> {
 			}
 		};
 		fFileName= fileName;
+		fJournalName= (fileName.endsWith(XML_SUFFIX) ? fileName.substring(0, fileName.length() - XML_SUFFIX.length()) : fileName) + JOURNAL_SUFFIX;
 		fRootNodeName= rootNodeName;
 		fInfoNodeName= infoNodeName;
-		fPositions= new Hashtable<>(MAX_HISTORY_SIZE);
+		fPendingRecords= new ArrayList<>();
+		// a snapshot is written unless a consistent journal is read
+		fNeedsCompaction= true;
 	}
 
 	public History(String fileName) {
@@ -102,31 +143,44 @@ public abstract class History<K, V> {
 	}
 
 	public synchronized void accessed(V object) {
+		load();
 		fHistory.put(getKey(object), object);
-		rebuildPositions();
+		fPositions= null;
+		addRecord(RECORD_ACCESSED, object);
 	}
 
 	public synchronized boolean contains(V object) {
+		load();
 		return fHistory.containsKey(getKey(object));
 	}
 
 	public synchronized boolean containsKey(K key) {
+		load();
 		return fHistory.containsKey(key);
 	}
 
 	public synchronized boolean isEmpty() {
+		load();
 		return fHistory.isEmpty();
 	}
 
 	public synchronized Object remove(V object) {
-		Object removed= fHistory.remove(getKey(object));
-		rebuildPositions();
+		load();
+		V removed= fHistory.remove(getKey(object));
+		if (removed != null) {
+			fPositions= null;
+			addRecord(RECORD_REMOVED, removed);
+		}
 		return removed;
 	}
 
 	public synchronized Object removeKey(Object key) {
-		Object removed= fHistory.remove(key);
-		rebuildPositions();
+		load();
+		V removed= fHistory.remove(key);
+		if (removed != null) {
+			fPositions= null;
+			addRecord(RECORD_REMOVED, removed);
+		}
 		return removed;
 	}
 
@@ -143,7 +197,7 @@ public abstract class History<K, V> {
 		if (!containsKey(key))
 			return 0.0f;
 
-		int pos= fPositions.get(key).intValue() + 1;
+		int pos= getPositions().get(key).intValue() + 1;
 
 		//containsKey(key) implies fHistory.size()>0
 		return (float)pos / (float)fHistory.size();
@@ -161,13 +215,34 @@ public abstract class History<K, V> {
 		if (!containsKey(key))
 			return -1;
 
-		return fPositions.get(key).intValue();
+		return getPositions().get(key).intValue();
 	}
 
+	/**
+	 * Loads the history from the state location if it has not been loaded yet. All methods
+	 * accessing the history call this method, so clients only need to call it to load the
+	 * history ahead of its first use.
+	 */
 	public synchronized void load() {
-		IPath stateLocation= JavaPlugin.getDefault().getStateLocation().append(fFileName);
-		File file= stateLocation.toFile();
-		if (file.exists()) {
+		if (fLoaded)
+			return;
+		fLoaded= true;
+		if (fFileName.length() == 0)
+			return;
+
+		IPath stateLocation= JavaPlugin.getDefault().getStateLocation();
+		File journal= stateLocation.append(fJournalName).toFile();
+		if (!journal.isFile() || !loadJournal(journal)) {
+			// nothing could be read from the journal, it is rewritten with the next save
+			fHistory.clear();
+			loadLegacyFile(stateLocation.append(fFileName).toFile());
+		}
+		fPositions= null;
+		historyLoaded();
+	}
+
+	private void loadLegacyFile(File file) {
+		if (file.isFile()) {
 			InputStreamReader reader= null;
 	        try {
 				reader = new InputStreamReader(new FileInputStream(file), "utf-8");//$NON-NLS-1$
@@ -187,40 +262,57 @@ public abstract class History<K, V> {
 		}
 	}
 
+	/**
+	 * Stores the changes of the history since the last save to the journal in the state
+	 * location. The journal is compacted if it has grown too large.
+	 */
 	public synchronized void save() {
-		IPath stateLocation= JavaPlugin.getDefault().getStateLocation().append(fFileName);
-		File file= stateLocation.toFile();
-		OutputStream out= null;
+		if (!fLoaded || fFileName.length() == 0)
+			return;
+		if (!fNeedsCompaction && fPendingRecords.isEmpty())
+			return;
+
+		IPath stateLocation= JavaPlugin.getDefault().getStateLocation();
+		File journal= stateLocation.append(fJournalName).toFile();
 		try {
-			out= new FileOutputStream(file);
-			save(out);
+			if (fNeedsCompaction || !journal.exists() || fJournalRecordCount + fPendingRecords.size() > getCompactionThreshold()) {
+				writeSnapshot(journal);
+				File legacyFile= stateLocation.append(fFileName).toFile();
+				if (legacyFile.exists() && !legacyFile.delete())
+					legacyFile.deleteOnExit();
+			} else {
+				appendRecords(journal);
+			}
 		} catch (IOException e) {
 			JavaPlugin.log(e);
-		} catch (CoreException e) {
-			JavaPlugin.log(e);
-		} catch (TransformerFactoryConfigurationError e) {
-			// The XML library can be misconficgured (e.g. via
-			// -Djava.endorsed.dirs=C:\notExisting\xerces-2_7_1)
-			JavaPlugin.log(e);
-		} finally {
-			try {
-				if (out != null) {
-					out.close();
-				}
-			} catch (IOException e) {
-				JavaPlugin.log(e);
-			}
+			// write a consistent snapshot with the next save
+			fNeedsCompaction= true;
 		}
+		fPendingRecords.clear();
 	}
 
 	protected Set<K> getKeys() {
+		load();
 		return fHistory.keySet();
 	}
 
 	protected Collection<V> getValues() {
+		load();
 		return fHistory.values();
 	}
 
+	/**
+	 * Records that the attributes stored for the given object have changed without the object
+	 * being accessed. The position of the object in the history is not changed.
+	 *
+	 * @param object The object whose attributes have changed
+	 */
+	protected synchronized void updated(V object) {
+		load();
+		if (fHistory.containsKey(getKey(object)))
+			addRecord(RECORD_UPDATED, object);
+	}
+
 	/**
 	 * Store <code>Object</code> in <code>Element</code>
 	 *
@@ -245,15 +337,171 @@ public abstract class History<K, V> {
 	 */
 	protected abstract K getKey(V object);
 
-	private void rebuildPositions() {
-		fPositions.clear();
-		Collection<V> values= fHistory.values();
-		int pos=0;
-		for (Iterator<V> iter= values.iterator(); iter.hasNext();) {
-			V element= iter.next();
-			fPositions.put(getKey(element), Integer.valueOf(pos));
-			pos++;
+	/**
+	 * Called after the history has been loaded. When the journal is replayed,
+	 * {@link #createFromElement(Element)} is also called for the records of objects which have
+	 * been removed from the history or updated later. Subclasses which keep state created in
+	 * <code>createFromElement</code> can drop the state of objects which are not contained in
+	 * the history anymore.
+	 */
+	protected void historyLoaded() {
+	}
+
+	private Hashtable<K, Integer> getPositions() {
+		if (fPositions == null) {
+			fPositions= new Hashtable<>(fHistory.size() * 2 + 1);
+			Collection<V> values= fHistory.values();
+			int pos=0;
+			for (Iterator<V> iter= values.iterator(); iter.hasNext();) {
+				V element= iter.next();
+				fPositions.put(getKey(element), Integer.valueOf(pos));
+				pos++;
+			}
+		}
+		return fPositions;
+	}
+
+	private int getCompactionThreshold() {
+		return COMPACTION_FACTOR * MAX_HISTORY_SIZE;
+	}
+
+	private void addRecord(byte kind, V object) {
+		if (fNeedsCompaction)
+			return;
+		fPendingRecords.add(new JournalRecord(kind, object));
+		if (fJournalRecordCount + fPendingRecords.size() > getCompactionThreshold()) {
+			// the next save writes a snapshot anyway
+			fPendingRecords.clear();
+			fNeedsCompaction= true;
+		}
+	}
+
+	/**
+	 * Replays the journal. If the journal is corrupt, the records read up to the corruption are
+	 * kept and the journal is rewritten with the next save.
+	 *
+	 * @param file the journal
+	 * @return <code>false</code> if no record could be read from the journal
+	 */
+	private boolean loadJournal(File file) {
+		DataInputStream in= null;
+		int count= 0;
+		try {
+			in= new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != JOURNAL_MAGIC || in.readInt() != JOURNAL_VERSION)
+				return false;
+			while (true) {
+				int kind= in.read();
+				if (kind == -1)
+					break;
+				if (kind != RECORD_ACCESSED && kind != RECORD_REMOVED && kind != RECORD_UPDATED)
+					return count > 0;
+				Element element= readElement(in);
+				count++;
+				V object= createFromElement(element);
+				if (object == null)
+					continue;
+				K key= getKey(object);
+				if (kind == RECORD_ACCESSED) {
+					fHistory.put(key, object);
+				} else if (kind == RECORD_REMOVED) {
+					fHistory.remove(key);
+				} else {
+					for (Iterator<Map.Entry<K, V>> iter= fHistory.entrySet().iterator(); iter.hasNext();) {
+						Map.Entry<K, V> entry= iter.next();
+						if (entry.getKey().equals(key)) {
+							entry.setValue(object);
+							break;
+						}
+					}
+				}
+			}
+			fJournalRecordCount= count;
+			fNeedsCompaction= count > getCompactionThreshold();
+			return true;
+		} catch (EOFException e) {
+			// incomplete record at the end of the journal, keep what has been read
+			return count > 0;
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			return count > 0;
+		} finally {
+			try {
+				if (in != null)
+					in.close();
+			} catch (IOException e) {
+				JavaPlugin.log(e);
+			}
+		}
+	}
+
+	private void writeSnapshot(File file) throws IOException {
+		File tempFile= new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			out.writeInt(JOURNAL_MAGIC);
+			out.writeInt(JOURNAL_VERSION);
+			for (Iterator<V> iter= fHistory.values().iterator(); iter.hasNext();) {
+				out.writeByte(RECORD_ACCESSED);
+				writeElement(out, iter.next());
+			}
+		} finally {
+			out.close();
+		}
+		if (file.exists() && !file.delete())
+			throw new IOException("Cannot replace " + file); //$NON-NLS-1$
+		if (!tempFile.renameTo(file))
+			throw new IOException("Cannot rename " + tempFile); //$NON-NLS-1$
+		fJournalRecordCount= fHistory.size();
+		fNeedsCompaction= false;
+	}
+
+	private void appendRecords(File file) throws IOException {
+		DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+		try {
+			for (Iterator<JournalRecord> iter= fPendingRecords.iterator(); iter.hasNext();) {
+				JournalRecord record= iter.next();
+				out.writeByte(record.fKind);
+				writeElement(out, record.fValue);
+			}
+		} finally {
+			out.close();
+		}
+		fJournalRecordCount+= fPendingRecords.size();
+	}
+
+	private void writeElement(DataOutputStream out, V object) throws IOException {
+		Element element= getScratchDocument().createElement(fInfoNodeName);
+		setAttributes(object, element);
+		NamedNodeMap attributes= element.getAttributes();
+		int length= attributes.getLength();
+		out.writeShort(length);
+		for (int i= 0; i < length; i++) {
+			Attr attribute= (Attr) attributes.item(i);
+			out.writeUTF(attribute.getName());
+			out.writeUTF(attribute.getValue());
+		}
+	}
+
+	private Element readElement(DataInputStream in) throws IOException {
+		Element element= getScratchDocument().createElement(fInfoNodeName);
+		int length= in.readUnsignedShort();
+		for (int i= 0; i < length; i++) {
+			String name= in.readUTF();
+			element.setAttribute(name, in.readUTF());
+		}
+		return element;
+	}
+
+	private Document getScratchDocument() throws IOException {
+		if (fScratchDocument == null) {
+			try {
+				fScratchDocument= DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+			} catch (ParserConfigurationException e) {
+				throw new IOException(Messages.format(CorextMessages.History_error_serialize, BasicElementLabels.getResourceName(fJournalName)), e);
+			}
 		}
+		return fScratchDocument;
 	}
 
 	private void load(InputSource inputSource) throws CoreException {
@@ -288,39 +536,7 @@ public abstract class History<K, V> {
 				}
 			}
 		}
-		rebuildPositions();
-	}
-
-	private void save(OutputStream stream) throws CoreException {
-		try {
-			DocumentBuilderFactory factory= DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder= factory.newDocumentBuilder();
-			Document document= builder.newDocument();
-
-			Element rootElement = document.createElement(fRootNodeName);
-			document.appendChild(rootElement);
-
-			Iterator<V> values= getValues().iterator();
-			while (values.hasNext()) {
-				Object object= values.next();
-				Element element= document.createElement(fInfoNodeName);
-				setAttributes(object, element);
-				rootElement.appendChild(element);
-			}
-
-			Transformer transformer=TransformerFactory.newInstance().newTransformer();
-			transformer.setOutputProperty(OutputKeys.METHOD, "xml"); //$NON-NLS-1$
-			transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8"); //$NON-NLS-1$
-			transformer.setOutputProperty(OutputKeys.INDENT, "yes"); //$NON-NLS-1$
-			DOMSource source = new DOMSource(document);
-			StreamResult result = new StreamResult(stream);
-
-			transformer.transform(source, result);
-		} catch (TransformerException e) {
-			throw createException(e, Messages.format(CorextMessages.History_error_serialize, BasicElementLabels.getResourceName(fFileName)));
-		} catch (ParserConfigurationException e) {
-			throw createException(e, Messages.format(CorextMessages.History_error_serialize, BasicElementLabels.getResourceName(fFileName)));
-		}
+		fPositions= null;
 	}
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -200,7 +200,6 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		super(FILENAME, NODE_ROOT, NODE_TYPE_INFO);
 		fTimestampMapping= new HashMap<>();
 		fNeedsConsistencyCheck= true;
-		load();
 		fDeltaListener= new TypeHistoryDeltaListener();
 		JavaCore.addElementChangedListener(fDeltaListener);
 		fUpdateJob= new UpdateJob();
@@ -249,6 +248,7 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 
 	@Override
 	public synchronized void accessed(TypeNameMatch info) {
+		load();
 		// Fetching the timestamp might not be cheap (remote file system
 		// external Jars. So check if we alreay have one.
 		if (!fTimestampMapping.containsKey(info)) {
@@ -259,11 +259,13 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 
 	@Override
 	public synchronized TypeNameMatch remove(TypeNameMatch info) {
+		load();
 		fTimestampMapping.remove(info);
 		return (TypeNameMatch)super.remove(info);
 	}
 
 	public synchronized void replace(TypeNameMatch old, TypeNameMatch newMatch) {
+		load();
 		fTimestampMapping.remove(old);
 		fTimestampMapping.put(newMatch, Long.valueOf(getContainerTimestamp(newMatch)));
 		super.remove(old);
@@ -324,6 +326,7 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 						replace(type, SearchEngine.createTypeNameMatch(jType, modifiers));
 					} else {
 						fTimestampMapping.put(type, Long.valueOf(currentTimestamp));
+						updated(type);
 					}
 				}
 			} catch (JavaModelException e) {
@@ -421,6 +424,12 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		return info;
 	}
 
+	@Override
+	protected void historyLoaded() {
+		// the journal replay also reads the timestamps of types which have been removed later
+		fTimestampMapping.keySet().retainAll(getKeys());
+	}
+
 	@Override
 	protected void setAttributes(Object object, Element typeElement) {
 		TypeNameMatch type= (TypeNameMatch) object;
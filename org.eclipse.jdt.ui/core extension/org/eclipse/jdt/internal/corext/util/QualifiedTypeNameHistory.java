@@ -33,7 +33,6 @@ public class QualifiedTypeNameHistory extends History<String, String> {
 
 	public QualifiedTypeNameHistory(String fileName) {
 		super(fileName, NODE_ROOT, NODE_TYPE_INFO);
-		load();
 	}
 
 	@Override
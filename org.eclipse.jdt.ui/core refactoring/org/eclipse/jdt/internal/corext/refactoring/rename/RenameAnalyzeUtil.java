@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -261,6 +261,23 @@ class RenameAnalyzeUtil {
 	//Long term solution: only pass reference search results in.
 	static RefactoringStatus analyzeRenameChanges2(TextChangeManager manager,
 			SearchResultGroup[] oldReferences, SearchResultGroup[] newReferences, String newElementName) {
+		return analyzeRenameChanges2(manager, oldReferences, newReferences, newElementName, null);
+	}
+
+	/**
+	 * Compares the references before and after the rename. Compilation units which have been found
+	 * free of shadowing problems by the given analyzer are not compared, they need not be part of
+	 * the search for the new references.
+	 *
+	 * @param manager the text change manager
+	 * @param oldReferences the references before the rename
+	 * @param newReferences the references after the rename
+	 * @param newElementName the new name
+	 * @param analyzer the analyzer of the old references, or <code>null</code>
+	 * @return the status
+	 */
+	static RefactoringStatus analyzeRenameChanges2(TextChangeManager manager,
+			SearchResultGroup[] oldReferences, SearchResultGroup[] newReferences, String newElementName, RenameShadowingAnalyzer analyzer) {
 		RefactoringStatus result= new RefactoringStatus();
 
 		HashMap<ICompilationUnit, SearchMatch[]> cuToNewResults= new HashMap<>(newReferences.length);
@@ -278,6 +295,8 @@ class RenameAnalyzeUtil {
 				continue;
 
 			SearchMatch[] newSearchMatches= cuToNewResults.remove(cu);
+			if (analyzer != null && analyzer.isUnshadowed(cu))
+				continue;
 			if (newSearchMatches == null) {
 				for (int j = 0; j < oldMatches.length; j++) {
 					SearchMatch oldMatch = oldMatches[j];
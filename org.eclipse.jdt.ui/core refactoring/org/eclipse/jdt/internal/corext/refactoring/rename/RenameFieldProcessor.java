@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,7 @@ package org.eclipse.jdt.internal.corext.refactoring.rename;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import org.eclipse.core.runtime.Assert;
@@ -842,10 +843,14 @@ public class RenameFieldProcessor extends JavaRenameProcessor implements IRefere
 		ICompilationUnit[] newWorkingCopies= null;
 		WorkingCopyOwner newWCOwner= new WorkingCopyOwner() { /* must subclass */ };
 		try {
-			pm.beginTask("", 2); //$NON-NLS-1$
+			pm.beginTask("", 3); //$NON-NLS-1$
 			RefactoringStatus result= new RefactoringStatus();
 			SearchResultGroup[] oldReferences= fReferences;
 
+			// units whose references cannot be shadowed need not be searched again
+			RenameShadowingAnalyzer analyzer= new RenameShadowingAnalyzer(getCurrentElementName(), getNewElementName(), IJavaElement.FIELD);
+			analyzer.analyze(oldReferences, new SubProgressMonitor(pm, 1));
+
 			List<ICompilationUnit> compilationUnitsToModify= new ArrayList<>();
 			if (fIsComposite) {
 				// limited change set, no accessors.
@@ -856,12 +861,17 @@ public class RenameFieldProcessor extends JavaRenameProcessor implements IRefere
 				// include all cus, including accessors
 				compilationUnitsToModify.addAll(Arrays.asList(fChangeManager.getAllCompilationUnits()));
 			}
+			for (Iterator<ICompilationUnit> iter= compilationUnitsToModify.iterator(); iter.hasNext();) {
+				ICompilationUnit cu= iter.next();
+				if (analyzer.isUnshadowed(cu) && !cu.equals(fField.getCompilationUnit()))
+					iter.remove();
+			}
 
 			newWorkingCopies= RenameAnalyzeUtil.createNewWorkingCopies(compilationUnitsToModify.toArray(new ICompilationUnit[compilationUnitsToModify.size()]),
 					fChangeManager, newWCOwner, new SubProgressMonitor(pm, 1));
 
 			SearchResultGroup[] newReferences= getNewReferences(new SubProgressMonitor(pm, 1), result, newWCOwner, newWorkingCopies);
-			result.merge(RenameAnalyzeUtil.analyzeRenameChanges2(fChangeManager, oldReferences, newReferences, getNewElementName()));
+			result.merge(RenameAnalyzeUtil.analyzeRenameChanges2(fChangeManager, oldReferences, newReferences, getNewElementName(), analyzer));
 			return result;
 		} finally{
 			pm.done();
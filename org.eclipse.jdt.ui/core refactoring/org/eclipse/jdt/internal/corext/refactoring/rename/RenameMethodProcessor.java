@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -536,8 +536,13 @@ public abstract class RenameMethodProcessor extends JavaRenameProcessor implemen
 	private RefactoringStatus analyzeRenameChanges(IProgressMonitor pm) throws CoreException {
 		ICompilationUnit[] newDeclarationWCs= null;
 		try {
-			pm.beginTask("", 4); //$NON-NLS-1$
+			pm.beginTask("", 5); //$NON-NLS-1$
 			RefactoringStatus result= new RefactoringStatus();
+
+			// units whose references cannot be shadowed need not be searched again
+			RenameShadowingAnalyzer analyzer= new RenameShadowingAnalyzer(getCurrentElementName(), getNewElementName(), IJavaElement.METHOD);
+			analyzer.analyze(fOccurrences, new SubProgressMonitor(pm, 1));
+
 			ICompilationUnit[] declarationCUs= getDeclarationCUs();
 			newDeclarationWCs= RenameAnalyzeUtil.createNewWorkingCopies(declarationCUs,
 					fChangeManager, fWorkingCopyOwner, new SubProgressMonitor(pm, 1));
@@ -561,9 +566,9 @@ public abstract class RenameMethodProcessor extends JavaRenameProcessor implemen
 			}
 
 //			SearchResultGroup[] newOccurrences= findNewOccurrences(newMethods, newDeclarationWCs, new SubProgressMonitor(pm, 3));
-			SearchResultGroup[] newOccurrences= batchFindNewOccurrences(wcNewMethods, wcOldMethods, newDeclarationWCs, new SubProgressMonitor(pm, 3), result);
+			SearchResultGroup[] newOccurrences= batchFindNewOccurrences(wcNewMethods, wcOldMethods, newDeclarationWCs, analyzer, new SubProgressMonitor(pm, 3), result);
 
-			result.merge(RenameAnalyzeUtil.analyzeRenameChanges2(fChangeManager, fOccurrences, newOccurrences, getNewElementName()));
+			result.merge(RenameAnalyzeUtil.analyzeRenameChanges2(fChangeManager, fOccurrences, newOccurrences, getNewElementName(), analyzer));
 			return result;
 		} finally{
 			pm.done();
@@ -608,7 +613,7 @@ public abstract class RenameMethodProcessor extends JavaRenameProcessor implemen
 //		return newResults;
 //	}
 
-	private SearchResultGroup[] batchFindNewOccurrences(IMethod[] wcNewMethods, final IMethod[] wcOldMethods, ICompilationUnit[] newDeclarationWCs, IProgressMonitor pm, RefactoringStatus status) throws CoreException {
+	private SearchResultGroup[] batchFindNewOccurrences(IMethod[] wcNewMethods, final IMethod[] wcOldMethods, ICompilationUnit[] newDeclarationWCs, RenameShadowingAnalyzer analyzer, IProgressMonitor pm, RefactoringStatus status) throws CoreException {
 		pm.beginTask("", 2); //$NON-NLS-1$
 
 		SearchPattern refsPattern= RefactoringSearchEngine.createOrPattern(wcNewMethods, IJavaSearchConstants.REFERENCES);
@@ -641,7 +646,7 @@ public abstract class RenameMethodProcessor extends JavaRenameProcessor implemen
 			declaringCUs.add(newDeclarationWCs[i].getPrimary());
 		for (int i= 0; i < fOccurrences.length; i++) {
 			ICompilationUnit cu= fOccurrences[i].getCompilationUnit();
-			if (! declaringCUs.contains(cu))
+			if (! declaringCUs.contains(cu) && ! analyzer.isUnshadowed(cu))
 				needWCs.add(cu);
 		}
 		ICompilationUnit[] otherWCs= null;
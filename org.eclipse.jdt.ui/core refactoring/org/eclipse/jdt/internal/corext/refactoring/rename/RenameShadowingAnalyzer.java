@@ -0,0 +1,369 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.rename;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ExpressionMethodReference;
+import org.eclipse.jdt.core.dom.FieldAccess;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+import org.eclipse.jdt.core.dom.MemberRef;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.MethodRef;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.NodeFinder;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.StructuralPropertyDescriptor;
+import org.eclipse.jdt.core.dom.TypeMethodReference;
+import org.eclipse.jdt.core.search.FieldDeclarationMatch;
+import org.eclipse.jdt.core.search.MethodDeclarationMatch;
+import org.eclipse.jdt.core.search.SearchMatch;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+import org.eclipse.jdt.internal.corext.refactoring.SearchResultGroup;
+import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Decides for the compilation units referencing a renamed field or method whether the rename can
+ * shadow one of their references, without creating working copies of the changed units and
+ * searching them again.
+ * <p>
+ * The references are looked up in the resolved ASTs of the original units. A unit is known to be
+ * free of shadowing problems if
+ * <ul>
+ * <li>the new name does not occur in the unit, so that no local variable, parameter or member of
+ * the unit can capture a renamed reference and no other reference of the unit can be captured by
+ * the renamed element, and</li>
+ * <li>no type which is searched for a renamed reference, i.e. the type of its qualifier, its
+ * enclosing types and the types of static on-demand imports, declares or inherits a member with
+ * the new name, whatever its visibility.</li>
+ * </ul>
+ * All other units are inconclusive and are analyzed by searching for the new references in working
+ * copies, see {@link RenameAnalyzeUtil#analyzeRenameChanges2(org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager, SearchResultGroup[], SearchResultGroup[], String, RenameShadowingAnalyzer)}.
+ * </p>
+ */
+public class RenameShadowingAnalyzer {
+
+	private final String fOldName;
+	private final String fNewName;
+	private final boolean fIsMethod;
+
+	/** The units without shadowing problems, as primary compilation units */
+	private final Set<ICompilationUnit> fUnshadowedUnits= new HashSet<>();
+
+	/** The number of referencing units */
+	private int fUnitCount;
+
+	/**
+	 * Creates a new analyzer.
+	 *
+	 * @param oldName the current name of the renamed element
+	 * @param newName the new name of the renamed element
+	 * @param elementType the type of the renamed element, either {@link IJavaElement#FIELD} or
+	 *            {@link IJavaElement#METHOD}
+	 */
+	public RenameShadowingAnalyzer(String oldName, String newName, int elementType) {
+		fOldName= oldName;
+		fNewName= newName;
+		fIsMethod= elementType == IJavaElement.METHOD;
+	}
+
+	/**
+	 * Analyzes the compilation units of the given references. Units which contain a declaration of
+	 * the renamed element are never decided locally.
+	 *
+	 * @param references the references to the renamed element, grouped by compilation unit
+	 * @param pm the progress monitor
+	 */
+	public void analyze(SearchResultGroup[] references, IProgressMonitor pm) {
+		Map<IJavaProject, List<ICompilationUnit>> projectToUnits= new HashMap<>();
+		final Map<ICompilationUnit, SearchMatch[]> unitToMatches= new HashMap<>();
+		for (int i= 0; i < references.length; i++) {
+			ICompilationUnit cu= references[i].getCompilationUnit();
+			if (cu == null)
+				continue;
+			fUnitCount++;
+			SearchMatch[] matches= references[i].getSearchResults();
+			if (containsDeclaration(matches))
+				continue;
+			cu= cu.getPrimary();
+			unitToMatches.put(cu, matches);
+			List<ICompilationUnit> units= projectToUnits.get(cu.getJavaProject());
+			if (units == null) {
+				units= new ArrayList<>();
+				projectToUnits.put(cu.getJavaProject(), units);
+			}
+			units.add(cu);
+		}
+
+		pm.beginTask("", projectToUnits.size()); //$NON-NLS-1$
+		try {
+			for (Iterator<Entry<IJavaProject, List<ICompilationUnit>>> iter= projectToUnits.entrySet().iterator(); iter.hasNext();) {
+				Entry<IJavaProject, List<ICompilationUnit>> entry= iter.next();
+				List<ICompilationUnit> units= entry.getValue();
+				ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+				parser.setProject(entry.getKey());
+				parser.setCompilerOptions(RefactoringASTParser.getCompilerOptions(entry.getKey()));
+				parser.setResolveBindings(true);
+				parser.createASTs(units.toArray(new ICompilationUnit[units.size()]), new String[0], new ASTRequestor() {
+					@Override
+					public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+						if (isUnshadowed(ast, unitToMatches.get(source)))
+							fUnshadowedUnits.add(source);
+					}
+				}, new SubProgressMonitor(pm, 1));
+			}
+		} finally {
+			pm.done();
+		}
+
+		if (JavaPlugin.DEBUG_RENAME_SHADOWING)
+			System.out.println("Rename " + fOldName + " to " + fNewName + ": " + getLocalCount() + " units analyzed locally, " + getFallbackCount() + " units searched"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	}
+
+	/**
+	 * Tells whether the rename cannot shadow any reference of the given compilation unit, so that
+	 * the unit does not need to be searched again.
+	 *
+	 * @param cu the compilation unit
+	 * @return <code>true</code> if the unit has been analyzed locally and is free of shadowing
+	 *         problems
+	 */
+	public boolean isUnshadowed(ICompilationUnit cu) {
+		return cu != null && fUnshadowedUnits.contains(cu.getPrimary());
+	}
+
+	/**
+	 * @return the number of compilation units which have been analyzed locally
+	 */
+	public int getLocalCount() {
+		return fUnshadowedUnits.size();
+	}
+
+	/**
+	 * @return the number of referencing compilation units which could not be analyzed locally and
+	 *         have to be searched again
+	 */
+	public int getFallbackCount() {
+		return fUnitCount - fUnshadowedUnits.size();
+	}
+
+	private static boolean containsDeclaration(SearchMatch[] matches) {
+		for (int i= 0; i < matches.length; i++) {
+			if (matches[i] instanceof MethodDeclarationMatch || matches[i] instanceof FieldDeclarationMatch)
+				return true;
+		}
+		return false;
+	}
+
+	private boolean isUnshadowed(CompilationUnit ast, SearchMatch[] matches) {
+		if (ast == null || matches == null || hasErrors(ast) || containsNewName(ast))
+			return false;
+
+		// members of Object are found in interfaces as well
+		ITypeBinding object= ast.getAST().resolveWellKnownType("java.lang.Object"); //$NON-NLS-1$
+		if (object == null)
+			return false;
+		List<ITypeBinding> unitLookupTypes= new ArrayList<>();
+		unitLookupTypes.add(object);
+		List<ImportDeclaration> imports= ast.imports();
+		for (Iterator<ImportDeclaration> iter= imports.iterator(); iter.hasNext();) {
+			ImportDeclaration importDeclaration= iter.next();
+			if (importDeclaration.isStatic() && importDeclaration.isOnDemand()) {
+				IBinding binding= importDeclaration.resolveBinding();
+				if (!(binding instanceof ITypeBinding))
+					return false;
+				unitLookupTypes.add((ITypeBinding) binding);
+			}
+		}
+
+		Set<ITypeBinding> checkedTypes= new HashSet<>();
+		for (int i= 0; i < matches.length; i++) {
+			ASTNode node= NodeFinder.perform(ast, matches[i].getOffset(), matches[i].getLength());
+			if (!(node instanceof SimpleName) || !fOldName.equals(((SimpleName) node).getIdentifier()))
+				return false;
+			List<ITypeBinding> lookupTypes= getLookupTypes((SimpleName) node);
+			if (lookupTypes == null)
+				return false;
+			lookupTypes.addAll(unitLookupTypes);
+			for (Iterator<ITypeBinding> iter= lookupTypes.iterator(); iter.hasNext();) {
+				if (declaresNewName(iter.next(), checkedTypes))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean hasErrors(CompilationUnit ast) {
+		IProblem[] problems= ast.getProblems();
+		for (int i= 0; i < problems.length; i++) {
+			if (problems[i].isError())
+				return true;
+		}
+		return false;
+	}
+
+	private boolean containsNewName(CompilationUnit ast) {
+		final boolean[] found= new boolean[1];
+		ast.accept(new ASTVisitor(true) {
+			@Override
+			public boolean preVisit2(ASTNode node) {
+				return !found[0];
+			}
+
+			@Override
+			public boolean visit(SimpleName node) {
+				if (fNewName.equals(node.getIdentifier()))
+					found[0]= true;
+				return false;
+			}
+		});
+		return found[0];
+	}
+
+	/*
+	 * Returns the types in which a member with the new name would be found for the given
+	 * reference, or null if they are unknown.
+	 */
+	private static List<ITypeBinding> getLookupTypes(SimpleName name) {
+		List<ITypeBinding> result= new ArrayList<>();
+		ASTNode parent= name.getParent();
+		StructuralPropertyDescriptor location= name.getLocationInParent();
+		ITypeBinding qualifierType= null;
+		boolean qualified= true;
+		if (location == QualifiedName.NAME_PROPERTY) {
+			qualifierType= getType(((QualifiedName) parent).getQualifier());
+		} else if (location == FieldAccess.NAME_PROPERTY) {
+			qualifierType= ((FieldAccess) parent).getExpression().resolveTypeBinding();
+		} else if (location == MethodInvocation.NAME_PROPERTY && ((MethodInvocation) parent).getExpression() != null) {
+			qualifierType= ((MethodInvocation) parent).getExpression().resolveTypeBinding();
+		} else if (location == ExpressionMethodReference.NAME_PROPERTY) {
+			qualifierType= ((ExpressionMethodReference) parent).getExpression().resolveTypeBinding();
+		} else if (location == TypeMethodReference.NAME_PROPERTY) {
+			qualifierType= ((TypeMethodReference) parent).getType().resolveBinding();
+		} else if (location == MemberRef.NAME_PROPERTY && ((MemberRef) parent).getQualifier() != null) {
+			qualifierType= getType(((MemberRef) parent).getQualifier());
+		} else if (location == MethodRef.NAME_PROPERTY && ((MethodRef) parent).getQualifier() != null) {
+			qualifierType= getType(((MethodRef) parent).getQualifier());
+		} else {
+			qualified= false;
+		}
+		if (qualified) {
+			if (qualifierType == null)
+				return null;
+			result.add(qualifierType);
+		}
+
+		// the enclosing types are searched for unqualified references and for super accesses,
+		// they are added for qualified references as well to stay on the safe side
+		for (ASTNode node= parent; node != null; node= node.getParent()) {
+			ITypeBinding enclosingType= null;
+			if (node instanceof AbstractTypeDeclaration) {
+				enclosingType= ((AbstractTypeDeclaration) node).resolveBinding();
+			} else if (node instanceof AnonymousClassDeclaration) {
+				enclosingType= ((AnonymousClassDeclaration) node).resolveBinding();
+			} else {
+				continue;
+			}
+			if (enclosingType == null)
+				return null;
+			result.add(enclosingType);
+		}
+		return result;
+	}
+
+	private static ITypeBinding getType(Name qualifier) {
+		IBinding binding= qualifier.resolveBinding();
+		if (binding instanceof ITypeBinding)
+			return (ITypeBinding) binding;
+		if (binding instanceof IVariableBinding)
+			return ((IVariableBinding) binding).getType();
+		return null;
+	}
+
+	/*
+	 * Tells whether the given type or one of its super types declares a member with the new
+	 * name. Array, primitive and recovered types are considered to declare it.
+	 */
+	private boolean declaresNewName(ITypeBinding type, Set<ITypeBinding> checkedTypes) {
+		if (type.isTypeVariable() || type.isCapture() || type.isWildcardType() || type.isIntersectionType()) {
+			ITypeBinding[] bounds= type.getTypeBounds();
+			for (int i= 0; i < bounds.length; i++) {
+				if (declaresNewName(bounds[i], checkedTypes))
+					return true;
+			}
+			ITypeBinding erasure= type.getErasure();
+			if (erasure == null || erasure == type || erasure.isTypeVariable() || erasure.isCapture() || erasure.isWildcardType() || erasure.isIntersectionType())
+				return true;
+			return declaresNewName(erasure, checkedTypes);
+		}
+		if (type.isArray() || type.isPrimitive() || type.isNullType() || type.isRecovered())
+			return true;
+
+		ITypeBinding declaration= type.getTypeDeclaration();
+		if (!checkedTypes.add(declaration))
+			return false;
+		if (fIsMethod) {
+			IMethodBinding[] methods= declaration.getDeclaredMethods();
+			for (int i= 0; i < methods.length; i++) {
+				if (fNewName.equals(methods[i].getName()))
+					return true;
+			}
+		} else {
+			IVariableBinding[] fields= declaration.getDeclaredFields();
+			for (int i= 0; i < fields.length; i++) {
+				if (fNewName.equals(fields[i].getName()))
+					return true;
+			}
+		}
+
+		ITypeBinding superclass= declaration.getSuperclass();
+		if (superclass != null && declaresNewName(superclass, checkedTypes))
+			return true;
+		ITypeBinding[] interfaces= declaration.getInterfaces();
+		for (int i= 0; i < interfaces.length; i++) {
+			if (declaresNewName(interfaces[i], checkedTypes))
+				return true;
+		}
+		return false;
+	}
+}
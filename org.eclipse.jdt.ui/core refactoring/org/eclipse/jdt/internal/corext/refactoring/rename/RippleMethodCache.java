@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.rename;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.search.SearchMatch;
+
+import org.eclipse.jdt.internal.corext.util.JavaElementDeltaUtil;
+import org.eclipse.jdt.internal.corext.util.LRUMap;
+import org.eclipse.jdt.internal.corext.util.StructuralChangeCache;
+
+/**
+ * Caches the ripple methods found by the {@link RippleMethodFinder2} and the type hierarchies it
+ * creates, so that they are shared by the refactorings which look for the ripple methods of the
+ * same method, e.g. when the conditions are checked again for the preview and for finish, and by
+ * the searches for different methods of the same hierarchy.
+ * <p>
+ * The ripple methods depend on the method declarations, modifiers and super types of all types
+ * in the workspace. The cache is therefore kept as long as only method bodies are edited, any
+ * structural change clears the cache, see
+ * {@link JavaElementDeltaUtil#isStructuralChange(org.eclipse.jdt.core.IJavaElementDelta)}. Only
+ * the results for the primary working copies are cached.
+ * </p>
+ */
+public class RippleMethodCache extends StructuralChangeCache {
+
+	/** The maximum number of methods whose ripple methods are cached */
+	private static final int MAX_RIPPLE_METHODS= 100;
+
+	/** The maximum number of cached type hierarchies, which may be large */
+	private static final int MAX_HIERARCHIES= 10;
+
+	private static class RippleMethods {
+		final IMethod[] fMethods;
+		final Map<IMethod, SearchMatch> fBinaryDeclarations;
+
+		RippleMethods(IMethod[] methods, Map<IMethod, SearchMatch> binaryDeclarations) {
+			fMethods= methods;
+			fBinaryDeclarations= binaryDeclarations;
+		}
+	}
+
+	private static RippleMethodCache fgDefault;
+
+	/**
+	 * Returns the cache shared by all refactorings.
+	 *
+	 * @return the cache
+	 */
+	public static synchronized RippleMethodCache getDefault() {
+		if (fgDefault == null)
+			fgDefault= new RippleMethodCache();
+		return fgDefault;
+	}
+
+	/**
+	 * Stops listening to Java element changes and discards the shared cache.
+	 */
+	public static synchronized void disposeDefault() {
+		if (fgDefault != null) {
+			fgDefault.dispose();
+			fgDefault= null;
+		}
+	}
+
+	/** Key is handle identifier of the method and whether binary methods are included */
+	private final Map<String, RippleMethods> fRippleMethods= new LRUMap<>(MAX_RIPPLE_METHODS);
+
+	/** Key is the focus type of the hierarchy */
+	private final Map<IType, ITypeHierarchy> fHierarchies= new LRUMap<>(MAX_HIERARCHIES);
+
+	private RippleMethodCache() {
+	}
+
+	/**
+	 * Returns the ripple methods of the given method which have been found before.
+	 *
+	 * @param method the method
+	 * @param includeBinaries whether binary methods have been included
+	 * @param binaryDeclarations the map to which the declaration matches of the binary ripple
+	 *            methods are added, or <code>null</code>
+	 * @return a copy of the ripple methods, or <code>null</code> if they are not known
+	 */
+	public synchronized IMethod[] getRippleMethods(IMethod method, boolean includeBinaries, Map<IMethod, SearchMatch> binaryDeclarations) {
+		RippleMethods rippleMethods= fRippleMethods.get(getKey(method, includeBinaries));
+		if (rippleMethods == null)
+			return null;
+		if (binaryDeclarations != null)
+			binaryDeclarations.putAll(rippleMethods.fBinaryDeclarations);
+		return rippleMethods.fMethods.clone();
+	}
+
+	/**
+	 * Stores the ripple methods of the given method, unless the cache has been cleared since the
+	 * search has been started.
+	 *
+	 * @param method the method
+	 * @param includeBinaries whether binary methods have been included
+	 * @param methods the ripple methods
+	 * @param binaryDeclarations the declaration matches of the binary methods, or
+	 *            <code>null</code>
+	 * @param generation the generation returned by {@link #getGeneration()} before the search
+	 */
+	public synchronized void putRippleMethods(IMethod method, boolean includeBinaries, IMethod[] methods, Map<IMethod, SearchMatch> binaryDeclarations, long generation) {
+		if (!isCurrent(generation))
+			return;
+		Map<IMethod, SearchMatch> rippleDeclarations= new HashMap<>();
+		if (binaryDeclarations != null) {
+			for (int i= 0; i < methods.length; i++) {
+				SearchMatch match= binaryDeclarations.get(methods[i]);
+				if (match != null)
+					rippleDeclarations.put(methods[i], match);
+			}
+		}
+		fRippleMethods.put(getKey(method, includeBinaries), new RippleMethods(methods.clone(), rippleDeclarations));
+	}
+
+	/**
+	 * Returns the hierarchy of the given type which has been created before.
+	 *
+	 * @param type the focus type
+	 * @return the hierarchy, or <code>null</code> if it is not known
+	 */
+	public synchronized ITypeHierarchy getHierarchy(IType type) {
+		return fHierarchies.get(type);
+	}
+
+	/**
+	 * Stores the hierarchy of the given type, unless the cache has been cleared since the
+	 * hierarchy has been started to be created.
+	 *
+	 * @param type the focus type
+	 * @param hierarchy the hierarchy of the type
+	 * @param generation the generation returned by {@link #getGeneration()} before the hierarchy
+	 *            has been created
+	 */
+	public synchronized void putHierarchy(IType type, ITypeHierarchy hierarchy, long generation) {
+		if (isCurrent(generation))
+			fHierarchies.put(type, hierarchy);
+	}
+
+	@Override
+	protected void clearEntries() {
+		fRippleMethods.clear();
+		fHierarchies.clear();
+	}
+
+	private static String getKey(IMethod method, boolean includeBinaries) {
+		return method.getHandleIdentifier() + '|' + includeBinaries;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -65,6 +65,7 @@ public class RippleMethodFinder2 {
 
 	private final boolean fExcludeBinaries;
 	private final ReferencesInBinaryContext fBinaryRefs;
+	/** The declaration matches of the binary methods, or <code>null</code> if binaries are excluded */
 	private Map<IMethod, SearchMatch> fDeclarationToMatch;
 
 	private static class MultiMap<K, V> {
@@ -134,6 +135,8 @@ public class RippleMethodFinder2 {
 	private RippleMethodFinder2(IMethod method, boolean excludeBinaries){
 		fMethod= method;
 		fExcludeBinaries= excludeBinaries;
+		if (! excludeBinaries)
+			fDeclarationToMatch= new HashMap<>();
 		fBinaryRefs= null;
 	}
 
@@ -170,8 +173,8 @@ public class RippleMethodFinder2 {
 	}
 
 	private IMethod[] getAllRippleMethods(IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
-		IMethod[] rippleMethods= findAllRippleMethods(pm, owner);
-		if (fDeclarationToMatch == null)
+		IMethod[] rippleMethods= findCachedRippleMethods(pm, owner);
+		if (fBinaryRefs == null)
 			return rippleMethods;
 
 		List<IMethod> filteredMethods= new ArrayList<>(rippleMethods.length / 2);
@@ -187,6 +190,25 @@ public class RippleMethodFinder2 {
 		return toArray(filteredMethods);
 	}
 
+	/*
+	 * The ripple methods with binaries are the same whether the binary references are collected
+	 * or not, the binary declaration matches are cached with them.
+	 */
+	private IMethod[] findCachedRippleMethods(IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
+		if (owner != null)
+			return findAllRippleMethods(pm, owner);
+
+		RippleMethodCache cache= RippleMethodCache.getDefault();
+		boolean includeBinaries= fDeclarationToMatch != null;
+		IMethod[] rippleMethods= cache.getRippleMethods(fMethod, includeBinaries, fDeclarationToMatch);
+		if (rippleMethods == null) {
+			long generation= cache.getGeneration();
+			rippleMethods= findAllRippleMethods(pm, owner);
+			cache.putRippleMethods(fMethod, includeBinaries, rippleMethods, fDeclarationToMatch, generation);
+		}
+		return rippleMethods;
+	}
+
 	private IMethod[] findAllRippleMethods(IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
 		pm.beginTask("", 4); //$NON-NLS-1$
 
@@ -345,7 +367,7 @@ public class RippleMethodFinder2 {
 
 		for (IType methodTypeSubtype : methodTypeSubtypes) {
 			checkCanceled(pm);
-			ITypeHierarchy subtypeHierarchy= methodTypeSubtype.newTypeHierarchy(owner, pm);
+			ITypeHierarchy subtypeHierarchy= newTypeHierarchy(methodTypeSubtype, owner, pm);
 			IType[] subtypeSuperTypes= subtypeHierarchy.getAllSupertypes(methodTypeSubtype);
 			for (IType subtypeSuperType : subtypeSuperTypes) {
 				checkCanceled(pm);
@@ -391,7 +413,25 @@ public class RippleMethodFinder2 {
 			throws JavaModelException {
 		ITypeHierarchy hierarchy= getCachedHierarchy(type, owner, new SubProgressMonitor(pm, 1));
 		if (hierarchy == null)
-			hierarchy= type.newTypeHierarchy(owner, new SubProgressMonitor(pm, 1));
+			hierarchy= newTypeHierarchy(type, owner, new SubProgressMonitor(pm, 1));
+		return hierarchy;
+	}
+
+	/*
+	 * Creates the hierarchy of the given type, or reuses the hierarchy created by an earlier
+	 * search for the primary working copies.
+	 */
+	private static ITypeHierarchy newTypeHierarchy(IType type, WorkingCopyOwner owner, IProgressMonitor pm) throws JavaModelException {
+		if (owner != null)
+			return type.newTypeHierarchy(owner, pm);
+
+		RippleMethodCache cache= RippleMethodCache.getDefault();
+		ITypeHierarchy hierarchy= cache.getHierarchy(type);
+		if (hierarchy == null) {
+			long generation= cache.getGeneration();
+			hierarchy= type.newTypeHierarchy(owner, pm);
+			cache.putHierarchy(type, hierarchy, generation);
+		}
 		return hierarchy;
 	}
 
@@ -403,7 +443,7 @@ public class RippleMethodFinder2 {
 				IType root= iter.next();
 				ITypeHierarchy hierarchy= fRootHierarchies.get(root);
 				if (hierarchy == null) {
-					hierarchy= root.newTypeHierarchy(owner, new SubProgressMonitor(monitor, 1));
+					hierarchy= newTypeHierarchy(root, owner, new SubProgressMonitor(monitor, 1));
 					fRootHierarchies.put(root, hierarchy);
 				}
 				if (hierarchy.contains(type))
@@ -428,7 +468,7 @@ public class RippleMethodFinder2 {
 					if (fBinaryRefs != null || ! (fExcludeBinaries && isBinary)) {
 						fDeclarations.add(method);
 					}
-					if (isBinary && fBinaryRefs != null) {
+					if (isBinary && fDeclarationToMatch != null) {
 						fDeclarationToMatch.put(method, match);
 					}
 				}
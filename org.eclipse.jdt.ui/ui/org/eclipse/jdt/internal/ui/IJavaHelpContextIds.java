@@ -475,6 +475,11 @@ public interface IJavaHelpContextIds {
 	public static final String CALL_HIERARCHY_EXPAND_WITH_CONSTRUCTORS_DIALOG= PREFIX + "call_hierarchy_expand_with_constructors_dialog_context"; //$NON-NLS-1$
 	public static final String CALL_HIERARCHY_REMOVE_FROM_VIEW_ACTION= PREFIX + "call_hierarchy_remove_from_view_action_context"; //$NON-NLS-1$
 
+	/**
+	 * @since 3.17
+	 */
+	public static final String CALL_HIERARCHY_EXPAND_CALLERS_ACTION= PREFIX + "call_hierarchy_expand_callers_action_context"; //$NON-NLS-1$
+
 	/**
 	 * @since 3.6
 	 */
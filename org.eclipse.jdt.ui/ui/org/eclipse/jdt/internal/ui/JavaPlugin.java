@@ -88,7 +88,9 @@ import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.manipulation.JavaManipulation;
 
 import org.eclipse.jdt.internal.core.manipulation.CodeTemplateContextType;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy;
 import org.eclipse.jdt.internal.corext.fix.CleanUpRegistry;
+import org.eclipse.jdt.internal.corext.refactoring.rename.RippleMethodCache;
 import org.eclipse.jdt.internal.corext.template.java.AbstractJavaContextType;
 import org.eclipse.jdt.internal.corext.template.java.JavaContextType;
 import org.eclipse.jdt.internal.corext.template.java.SWTContextType;
@@ -115,6 +117,7 @@ import org.eclipse.jdt.internal.ui.text.PreferencesAdapter;
 import org.eclipse.jdt.internal.ui.text.folding.JavaFoldingStructureProviderRegistry;
 import org.eclipse.jdt.internal.ui.text.java.ContentAssistHistory;
 import org.eclipse.jdt.internal.ui.text.java.hover.JavaEditorTextHoverDescriptor;
+import org.eclipse.jdt.internal.ui.text.javadoc.JavadocContentCache;
 import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckEngine;
 import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry;
 import org.eclipse.jdt.internal.ui.viewsupport.ImagesOnFileSystemRegistry;
@@ -168,6 +171,8 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 
 	public static boolean DEBUG_RESULT_COLLECTOR;
 
+	public static boolean DEBUG_RENAME_SHADOWING;
+
 	private static JavaPlugin fgJavaPlugin;
 
 	private static LinkedHashMap<String, Long> fgRepeatedMessages= new LinkedHashMap<String, Long>(20, 0.75f, true) {
@@ -256,6 +261,12 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 	 */
 	private ContentAssistHistory fContentAssistHistory;
 
+	/**
+	 * The cache of rendered Javadoc.
+	 * @since 3.17
+	 */
+	private JavadocContentCache fJavadocContentCache;
+
 	/**
 	 * The save participant registry.
 	 * @since 3.3
@@ -513,6 +524,15 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 				fContentAssistHistory= null;
 			}
 
+			if (fJavadocContentCache != null) {
+				fJavadocContentCache.dispose();
+				fJavadocContentCache= null;
+			}
+
+			CallHierarchy.disposeCallerCache();
+
+			RippleMethodCache.disposeDefault();
+
 			if (fTemplateStore != null) {
 				fTemplateStore.stopListeningForPreferenceChanges();
 				fTemplateStore= null;
@@ -976,6 +996,18 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 		return fContentAssistHistory;
 	}
 
+	/**
+	 * Returns the cache of the Javadoc rendered for hovers and the Javadoc view.
+	 *
+	 * @return the Javadoc content cache
+	 * @since 3.17
+	 */
+	public synchronized JavadocContentCache getJavadocContentCache() {
+		if (fJavadocContentCache == null)
+			fJavadocContentCache= new JavadocContentCache();
+		return fJavadocContentCache;
+	}
+
 	/**
 	 * Returns a section in the Java plugin's dialog settings. If the section doesn't exist yet, it is created.
 	 *
@@ -1063,5 +1095,6 @@ public class JavaPlugin extends AbstractUIPlugin implements DebugOptionsListener
 		DEBUG_BREADCRUMB_ITEM_DROP_DOWN= options.getBooleanOption("org.eclipse.jdt.ui/debug/BreadcrumbItemDropDown", false); //$NON-NLS-1$
 		DEBUG_TYPE_CONSTRAINTS= options.getBooleanOption("org.eclipse.jdt.ui/debug/TypeConstraints", false); //$NON-NLS-1$
 		DEBUG_RESULT_COLLECTOR= options.getBooleanOption("org.eclipse.jdt.ui/debug/ResultCollector", false); //$NON-NLS-1$
+		DEBUG_RENAME_SHADOWING= options.getBooleanOption("org.eclipse.jdt.ui/debug/RenameShadowing", false); //$NON-NLS-1$
 	}
 }
@@ -149,6 +149,12 @@ public class CallHierarchyContentProvider implements ITreeContentProvider {
 
 					}
 				}
+				if (parentElement instanceof CallerMethodWrapper) {
+					// no search, e.g. the callers have been found by an ExpandCallersJob
+					MethodWrapper[] calls= methodWrapper.getCachedCalls();
+					if (calls != null)
+						return calls;
+				}
 				if (fManager != null) {
 					Object[] children= fManager.getChildren(new DeferredMethodWrapper(this, methodWrapper));
 					if (children != null)
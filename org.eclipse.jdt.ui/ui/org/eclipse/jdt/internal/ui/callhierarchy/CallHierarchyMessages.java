@@ -161,6 +161,10 @@ public final class CallHierarchyMessages extends NLS {
 	public static String ExpandWithConstructorsAction_expandWithConstructors_description;
 	public static String ExpandWithConstructorsAction_expandWithConstructors_tooltip;
 	public static String ExpandWithConstructorsDialog_title;
+	public static String ExpandCallersAction_text;
+	public static String ExpandCallersAction_description;
+	public static String ExpandCallersAction_tooltip;
+	public static String ExpandCallersJob_name;
 	public static String PinCallHierarchyViewAction_label;
 	public static String PinCallHierarchyViewAction_tooltip;
 	static {
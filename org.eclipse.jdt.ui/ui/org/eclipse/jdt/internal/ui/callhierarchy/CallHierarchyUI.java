@@ -63,6 +63,8 @@ import org.eclipse.jdt.internal.ui.util.ExceptionHandler;
 public class CallHierarchyUI {
     private static final int DEFAULT_MAX_CALL_DEPTH= 10;
     private static final String PREF_MAX_CALL_DEPTH = "PREF_MAX_CALL_DEPTH"; //$NON-NLS-1$
+    private static final int DEFAULT_EXPAND_CALLERS_DEPTH= 3;
+    private static final String PREF_EXPAND_CALLERS_DEPTH= "PREF_EXPAND_CALLERS_DEPTH"; //$NON-NLS-1$
 
     private static CallHierarchyUI fgInstance;
     private int fViewCount= 0;
@@ -107,6 +109,22 @@ public class CallHierarchyUI {
         settings.setValue(PREF_MAX_CALL_DEPTH, maxCallDepth);
     }
 
+    /**
+     * Returns the number of levels which are expanded by the expand callers action.
+     * The tree is never expanded beyond {@link #getMaxCallDepth()}.
+     *
+     * @return the number of levels to expand
+     * @since 3.17
+     */
+    public int getExpandCallersDepth() {
+        IPreferenceStore settings= JavaPlugin.getDefault().getPreferenceStore();
+        int depth= settings.getInt(PREF_EXPAND_CALLERS_DEPTH);
+        if (depth < 1 || depth > 99) {
+            depth= DEFAULT_EXPAND_CALLERS_DEPTH;
+        }
+        return depth;
+    }
+
     public static void jumpToMember(IJavaElement element) {
         if (element != null) {
             try {
@@ -45,6 +45,12 @@ class CallHierarchyViewer extends TreeViewer {
 
 	private TreeRoot fDummyRoot;
 
+	/**
+	 * The job which expands the callers of the selected nodes, or <code>null</code>.
+	 * @since 3.17
+	 */
+	private ExpandCallersJob fExpandCallersJob;
+
     /**
      * @param parent the parent composite
      * @param part the call hierarchy view part
@@ -66,6 +72,7 @@ class CallHierarchyViewer extends TreeViewer {
     }
 
     void setMethodWrappers(MethodWrapper[] wrappers) {
+    	cancelExpandCallers();
         setInput(getTreeRoot(wrappers));
 
         setFocus();
@@ -139,6 +146,7 @@ class CallHierarchyViewer extends TreeViewer {
     }
 
     void clearViewer() {
+    	cancelExpandCallers();
         setInput(TreeRoot.EMPTY_ROOT);
 		fDummyRoot= null;
     }
@@ -146,9 +154,32 @@ class CallHierarchyViewer extends TreeViewer {
     void cancelJobs() {
     	if (fPart == null)
     		return;
+    	cancelExpandCallers();
         fContentProvider.cancelJobs(fPart.getCurrentMethodWrappers());
     }
 
+	/**
+	 * Expands the callers of the given nodes up to the given depth. The callers of sibling nodes
+	 * are searched concurrently.
+	 * 
+	 * @param wrappers the nodes to expand
+	 * @param depth the number of levels to expand
+	 * @since 3.17
+	 */
+	void expandCallers(CallerMethodWrapper[] wrappers, int depth) {
+		cancelExpandCallers();
+		fExpandCallersJob= new ExpandCallersJob(this, wrappers, depth);
+		fExpandCallersJob.setUser(true);
+		fExpandCallersJob.schedule();
+	}
+
+	private void cancelExpandCallers() {
+		if (fExpandCallersJob != null) {
+			fExpandCallersJob.cancel();
+			fExpandCallersJob= null;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
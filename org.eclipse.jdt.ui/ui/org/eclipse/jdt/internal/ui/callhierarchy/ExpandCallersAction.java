@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.callhierarchy;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+
+import org.eclipse.ui.PlatformUI;
+
+import org.eclipse.jdt.internal.corext.callhierarchy.CallerMethodWrapper;
+import org.eclipse.jdt.internal.corext.callhierarchy.RealCallers;
+
+import org.eclipse.jdt.internal.ui.IJavaHelpContextIds;
+
+/**
+ * The action to expand the callers of the selected members several levels deep.
+ *
+ * @since 3.17
+ */
+class ExpandCallersAction extends Action {
+
+	/**
+	 * The call hierarchy view part.
+	 */
+	private CallHierarchyViewPart fPart;
+
+	/**
+	 * The call hierarchy viewer.
+	 */
+	private CallHierarchyViewer fCallHierarchyViewer;
+
+	/**
+	 * Creates the action for expanding the callers.
+	 *
+	 * @param callHierarchyViewPart the call hierarchy view part
+	 * @param callHierarchyViewer the call hierarchy viewer
+	 */
+	public ExpandCallersAction(CallHierarchyViewPart callHierarchyViewPart, CallHierarchyViewer callHierarchyViewer) {
+		super(CallHierarchyMessages.ExpandCallersAction_text);
+		fPart= callHierarchyViewPart;
+		fCallHierarchyViewer= callHierarchyViewer;
+		setDescription(CallHierarchyMessages.ExpandCallersAction_description);
+		setToolTipText(CallHierarchyMessages.ExpandCallersAction_tooltip);
+		PlatformUI.getWorkbench().getHelpSystem().setHelp(this, IJavaHelpContextIds.CALL_HIERARCHY_EXPAND_CALLERS_ACTION);
+	}
+
+	/*
+	 * @see Action#run
+	 */
+	@Override
+	public void run() {
+		CallerMethodWrapper[] wrappers= getSelectedWrappers();
+		if (wrappers.length > 0)
+			fCallHierarchyViewer.expandCallers(wrappers, CallHierarchyUI.getDefault().getExpandCallersDepth());
+	}
+
+	/**
+	 * Checks whether this action can be added for the selected elements in the call hierarchy.
+	 *
+	 * @return <code> true</code> if the action can be added, <code>false</code> otherwise
+	 */
+	public boolean canActionBeAdded() {
+		if (fPart.getCallMode() == CallHierarchyViewPart.CALL_MODE_CALLEES)
+			return false;
+		return getSelectedWrappers().length > 0;
+	}
+
+	/**
+	 * Returns the selected caller nodes whose callers can be searched.
+	 *
+	 * @return the selected caller nodes, or an empty array if other elements are selected
+	 */
+	private CallerMethodWrapper[] getSelectedWrappers() {
+		ISelection selection= fPart.getSelection();
+		if (!(selection instanceof IStructuredSelection))
+			return new CallerMethodWrapper[0];
+		List<CallerMethodWrapper> wrappers= new ArrayList<>();
+		for (Iterator<?> iter= ((IStructuredSelection) selection).iterator(); iter.hasNext();) {
+			Object element= iter.next();
+			if (!(element instanceof CallerMethodWrapper) || element instanceof RealCallers)
+				return new CallerMethodWrapper[0];
+			CallerMethodWrapper wrapper= (CallerMethodWrapper) element;
+			if (!wrapper.canHaveChildren() || CallHierarchyContentProvider.isExpandWithConstructors(wrapper))
+				return new CallerMethodWrapper[0];
+			wrappers.add(wrapper);
+		}
+		return wrappers.toArray(new CallerMethodWrapper[wrappers.size()]);
+	}
+}
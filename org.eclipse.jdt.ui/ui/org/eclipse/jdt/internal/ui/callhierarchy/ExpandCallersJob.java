@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.callhierarchy;
+
+import org.eclipse.swt.widgets.Control;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.internal.corext.callhierarchy.CallerExpander;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallerMethodWrapper;
+import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
+
+/**
+ * Expands the callers of the given nodes up to a given depth. The callers are searched by a
+ * {@link CallerExpander}, and each node is expanded in the viewer as soon as its callers are
+ * known.
+ *
+ * @since 3.17
+ */
+class ExpandCallersJob extends Job {
+
+	private static final int MAX_THREAD_COUNT= 4;
+
+	private final CallHierarchyViewer fViewer;
+	private final Object fInput;
+	private final CallerMethodWrapper[] fRoots;
+	private final int fDepth;
+
+	/**
+	 * Creates the job.
+	 *
+	 * @param viewer the viewer which shows the nodes
+	 * @param roots the nodes to expand
+	 * @param depth the number of levels to expand
+	 */
+	ExpandCallersJob(CallHierarchyViewer viewer, CallerMethodWrapper[] roots, int depth) {
+		super(CallHierarchyMessages.ExpandCallersJob_name);
+		fViewer= viewer;
+		fInput= viewer.getInput();
+		fRoots= roots;
+		fDepth= depth;
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		int threadCount= Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREAD_COUNT);
+		CallerExpander expander= new CallerExpander(threadCount) {
+			@Override
+			protected boolean isExpandable(CallerMethodWrapper caller) {
+				return ExpandCallersJob.isExpandable(caller);
+			}
+
+			@Override
+			protected void callersFound(CallerMethodWrapper node, MethodWrapper[] callers) {
+				expand(node);
+			}
+		};
+		monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+		setCancelEnabled(true);
+		try {
+			expander.expand(fRoots, fDepth, monitor);
+			return Status.OK_STATUS;
+		} catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
+		} catch (InterruptedException e) {
+			return Status.CANCEL_STATUS;
+		} finally {
+			setCancelEnabled(false);
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Tells whether the given caller is expanded. Callers which are expanded with constructors
+	 * show other children than their callers, they are left to the viewer.
+	 *
+	 * @param caller the caller
+	 * @return <code>true</code> if the callers of the caller are searched
+	 */
+	private static boolean isExpandable(CallerMethodWrapper caller) {
+		if (!caller.canHaveChildren() || caller.isRecursive() || caller.getLevel() > CallHierarchyUI.getDefault().getMaxCallDepth())
+			return false;
+		CallHierarchyContentProvider.ensureDefaultExpandWithConstructors(caller);
+		return !caller.getExpandWithConstructors();
+	}
+
+	private void expand(final CallerMethodWrapper node) {
+		final Control control= fViewer.getControl();
+		if (control.isDisposed())
+			return;
+		control.getDisplay().asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				// the parent has been expanded before, so the viewer knows the node
+				if (!control.isDisposed() && fViewer.getInput() == fInput)
+					fViewer.setExpandedState(node, true);
+			}
+		});
+	}
+
+	private void setCancelEnabled(final boolean enabled) {
+		final Control control= fViewer.getControl();
+		if (control.isDisposed())
+			return;
+		control.getDisplay().asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				if (!control.isDisposed())
+					fViewer.getPart().setCancelEnabled(enabled);
+			}
+		});
+	}
+}
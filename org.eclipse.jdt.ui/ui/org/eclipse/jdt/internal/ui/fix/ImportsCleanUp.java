@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -27,6 +27,7 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.internal.corext.codemanipulation.CodeGenerationSettings;
 import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
 import org.eclipse.jdt.internal.corext.fix.ImportsFix;
+import org.eclipse.jdt.internal.corext.util.TypeNameMatchIndex;
 
 import org.eclipse.jdt.ui.cleanup.CleanUpContext;
 import org.eclipse.jdt.ui.cleanup.CleanUpRequirements;
@@ -38,6 +39,7 @@ public class ImportsCleanUp extends AbstractCleanUp {
 
 	private CodeGenerationSettings fCodeGeneratorSettings;
 	private RefactoringStatus fStatus;
+	private boolean fTypeNameIndexAcquired;
 
 	public ImportsCleanUp(Map<String, String> options) {
 		super(options);
@@ -59,8 +61,17 @@ public class ImportsCleanUp extends AbstractCleanUp {
     	if (compilationUnit == null)
     		return null;
 
-		return ImportsFix.createCleanUp(compilationUnit, fCodeGeneratorSettings,
-				isEnabled(CleanUpConstants.ORGANIZE_IMPORTS), fStatus);
+		// fixes may be created concurrently for different compilation units
+		RefactoringStatus status= new RefactoringStatus();
+		ICleanUpFix fix= ImportsFix.createCleanUp(compilationUnit, fCodeGeneratorSettings,
+				isEnabled(CleanUpConstants.ORGANIZE_IMPORTS), status);
+		if (!status.isOK()) {
+			synchronized (this) {
+				if (fStatus != null)
+					fStatus.merge(status);
+			}
+		}
+		return fix;
 	}
 
     @Override
@@ -69,6 +80,11 @@ public class ImportsCleanUp extends AbstractCleanUp {
 		if (isEnabled(CleanUpConstants.ORGANIZE_IMPORTS)) {
     		fCodeGeneratorSettings= JavaPreferencesSettings.getCodeGenerationSettings(project);
     		fStatus= new RefactoringStatus();
+    		if (!fTypeNameIndexAcquired) {
+    			// share the type name searches between all compilation units of the batch
+    			TypeNameMatchIndex.acquire();
+    			fTypeNameIndexAcquired= true;
+    		}
 		}
 
 		return super.checkPreConditions(project, compilationUnits, monitor);
@@ -85,6 +101,10 @@ public class ImportsCleanUp extends AbstractCleanUp {
 	    	}
     	} finally {
     		fStatus= null;
+    		if (fTypeNameIndexAcquired) {
+    			TypeNameMatchIndex.release();
+    			fTypeNameIndexAcquired= false;
+    		}
     	}
     }
 
@@ -1027,10 +1027,10 @@ public class JavadocView extends AbstractInfoView {
 							// no annotations this time...
 						}
 
-						content= JavadocContentAccess2.getHTMLContent((IPackageDeclaration) curr);
+						content= JavaPlugin.getDefault().getJavadocContentCache().getHTMLContent(curr, true);
 					} else if (curr instanceof IPackageFragment) {
 						JavadocHover.addAnnotations(buffer, curr, null, null);
-						content= JavadocContentAccess2.getHTMLContent((IPackageFragment) curr);
+						content= JavaPlugin.getDefault().getJavadocContentCache().getHTMLContent(curr, true);
 					}
 				} catch (CoreException e) {
 					reader= new StringReader(JavaDocLocations.handleFailedJavadocFetch(e));
@@ -1106,7 +1106,7 @@ public class JavadocView extends AbstractInfoView {
 
 				Reader reader= null;
 				try {
-					String content= JavadocContentAccess2.getHTMLContent(element, true);
+					String content= JavaPlugin.getDefault().getJavadocContentCache().getHTMLContent(element, true);
 					IPackageFragmentRoot root= (IPackageFragmentRoot) element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
 					if (content != null) {
 						IMember member;
@@ -164,6 +164,8 @@ public class JarPackageReader extends Object implements IJarDescriptionReader {
 		if (element.getNodeName().equals("options")) { //$NON-NLS-1$
 			jarPackage.setOverwrite(getBooleanAttribute(element, "overwrite")); //$NON-NLS-1$
 			jarPackage.setCompress(getBooleanAttribute(element, "compress")); //$NON-NLS-1$
+			jarPackage.setParallelCompression(getBooleanAttribute(element, "parallelCompression", false)); //$NON-NLS-1$
+			jarPackage.setIncrementalExport(getBooleanAttribute(element, "incremental", false)); //$NON-NLS-1$
 			jarPackage.setExportErrors(getBooleanAttribute(element, "exportErrors")); //$NON-NLS-1$
 			jarPackage.setExportWarnings(getBooleanAttribute(element, "exportWarnings")); //$NON-NLS-1$
 			jarPackage.setSaveDescription(getBooleanAttribute(element, "saveDescription")); //$NON-NLS-1$
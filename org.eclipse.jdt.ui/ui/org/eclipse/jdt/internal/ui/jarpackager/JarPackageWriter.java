@@ -143,6 +143,8 @@ public class JarPackageWriter extends Object implements IJarDescriptionWriter {
 		xmlJarDesc.appendChild(options);
 		options.setAttribute("overwrite", "" + jarPackage.allowOverwrite()); //$NON-NLS-2$ //$NON-NLS-1$
 		options.setAttribute("compress", "" + jarPackage.isCompressed()); //$NON-NLS-2$ //$NON-NLS-1$
+		options.setAttribute("parallelCompression", "" + jarPackage.isParallelCompression()); //$NON-NLS-1$ //$NON-NLS-2$
+		options.setAttribute("incremental", "" + jarPackage.isIncrementalExport()); //$NON-NLS-1$ //$NON-NLS-2$
 		options.setAttribute("exportErrors", "" + jarPackage.areErrorsExported()); //$NON-NLS-2$ //$NON-NLS-1$
 		options.setAttribute("exportWarnings", "" + jarPackage.exportWarnings()); //$NON-NLS-2$ //$NON-NLS-1$
 		options.setAttribute("saveDescription", "" + jarPackage.isDescriptionSaved()); //$NON-NLS-2$ //$NON-NLS-1$
@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.jarpackager;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the central directory of a ZIP file and gives access to the raw, still compressed data
+ * of its entries, so that they can be copied to another archive by a {@link RawZipWriter} without
+ * being inflated and deflated again.
+ * <p>
+ * Encrypted entries are not supported.
+ * </p>
+ *
+ * @since 3.17
+ */
+public class RawZipFile implements Closeable {
+
+	/**
+	 * An entry of the central directory.
+	 */
+	public static final class Entry {
+		private final String fName;
+		private final int fMethod;
+		private final int fFlags;
+		private final long fDosTime;
+		private final long fCrc;
+		private final long fCompressedSize;
+		private final long fSize;
+		private final long fLocalHeaderOffset;
+
+		Entry(String name, int method, int flags, long dosTime, long crc, long compressedSize, long size, long localHeaderOffset) {
+			fName= name;
+			fMethod= method;
+			fFlags= flags;
+			fDosTime= dosTime;
+			fCrc= crc;
+			fCompressedSize= compressedSize;
+			fSize= size;
+			fLocalHeaderOffset= localHeaderOffset;
+		}
+
+		public String getName() {
+			return fName;
+		}
+
+		/**
+		 * @return {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}
+		 */
+		public int getMethod() {
+			return fMethod;
+		}
+
+		public long getDosTime() {
+			return fDosTime;
+		}
+
+		public long getCrc() {
+			return fCrc;
+		}
+
+		public long getCompressedSize() {
+			return fCompressedSize;
+		}
+
+		public long getSize() {
+			return fSize;
+		}
+
+		public boolean isDirectory() {
+			return fName.endsWith("/"); //$NON-NLS-1$
+		}
+
+		/**
+		 * Tells whether the raw data of this entry can be copied.
+		 *
+		 * @return <code>true</code> if the entry is stored or deflated and not encrypted
+		 */
+		public boolean isCopyable() {
+			return (fFlags & 1) == 0 && (fMethod == ZipEntry.STORED || fMethod == ZipEntry.DEFLATED) && fCompressedSize <= Integer.MAX_VALUE;
+		}
+	}
+
+	static final int LOCAL_HEADER_SIGNATURE= 0x04034b50;
+	static final int CENTRAL_HEADER_SIGNATURE= 0x02014b50;
+	static final int END_SIGNATURE= 0x06054b50;
+	static final int ZIP64_END_SIGNATURE= 0x06064b50;
+	static final int ZIP64_LOCATOR_SIGNATURE= 0x07064b50;
+	static final int ZIP64_EXTRA_ID= 0x0001;
+
+	private static final int END_SIZE= 22;
+	private static final int MAX_COMMENT_SIZE= 0xFFFF;
+
+	private final RandomAccessFile fFile;
+	private final Map<String, Entry> fEntries;
+
+	/**
+	 * Opens the given ZIP file and reads its central directory.
+	 *
+	 * @param file the ZIP file
+	 * @throws IOException if the file cannot be read or is not a ZIP file
+	 */
+	public RawZipFile(File file) throws IOException {
+		fFile= new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		try {
+			fEntries= readCentralDirectory();
+		} catch (IOException e) {
+			fFile.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the entry with the given name.
+	 *
+	 * @param name the name of the entry
+	 * @return the entry or <code>null</code> if there is no such entry
+	 */
+	public Entry getEntry(String name) {
+		return fEntries.get(name);
+	}
+
+	/**
+	 * Returns the entries in the order of the central directory.
+	 *
+	 * @return the entries
+	 */
+	public Iterable<Entry> getEntries() {
+		return fEntries.values();
+	}
+
+	/**
+	 * Reads the raw data of the given entry, i.e. the compressed data for deflated entries.
+	 *
+	 * @param entry the entry, must be copyable
+	 * @return the raw data
+	 * @throws IOException if the data cannot be read
+	 */
+	public synchronized byte[] readRawData(Entry entry) throws IOException {
+		if (!entry.isCopyable())
+			throw new ZipException("Entry cannot be copied: " + entry.getName()); //$NON-NLS-1$
+		byte[] header= new byte[30];
+		fFile.seek(entry.fLocalHeaderOffset);
+		fFile.readFully(header);
+		if (getInt(header, 0) != LOCAL_HEADER_SIGNATURE)
+			throw new ZipException("Invalid local header: " + entry.getName()); //$NON-NLS-1$
+		long dataOffset= entry.fLocalHeaderOffset + 30 + getShort(header, 26) + getShort(header, 28);
+		byte[] data= new byte[(int) entry.fCompressedSize];
+		fFile.seek(dataOffset);
+		fFile.readFully(data);
+		return data;
+	}
+
+	@Override
+	public void close() throws IOException {
+		fFile.close();
+	}
+
+	private Map<String, Entry> readCentralDirectory() throws IOException {
+		long length= fFile.length();
+		int tailLength= (int) Math.min(length, END_SIZE + MAX_COMMENT_SIZE);
+		byte[] tail= new byte[tailLength];
+		fFile.seek(length - tailLength);
+		fFile.readFully(tail);
+
+		int end= -1;
+		for (int i= tailLength - END_SIZE; i >= 0; i--) {
+			if (getInt(tail, i) == END_SIGNATURE && i + END_SIZE + getShort(tail, i + 20) == tailLength) {
+				end= i;
+				break;
+			}
+		}
+		if (end == -1)
+			throw new ZipException("End of central directory not found"); //$NON-NLS-1$
+
+		long entryCount= getShort(tail, end + 10);
+		long directorySize= getUnsignedInt(tail, end + 12);
+		long directoryOffset= getUnsignedInt(tail, end + 16);
+
+		long endOffset= length - tailLength + end;
+		if (endOffset >= 20) {
+			byte[] locator= new byte[20];
+			fFile.seek(endOffset - 20);
+			fFile.readFully(locator);
+			if (getInt(locator, 0) == ZIP64_LOCATOR_SIGNATURE) {
+				byte[] zip64End= new byte[56];
+				fFile.seek(getLong(locator, 8));
+				fFile.readFully(zip64End);
+				if (getInt(zip64End, 0) != ZIP64_END_SIGNATURE)
+					throw new ZipException("Invalid ZIP64 end of central directory"); //$NON-NLS-1$
+				entryCount= getLong(zip64End, 32);
+				directorySize= getLong(zip64End, 40);
+				directoryOffset= getLong(zip64End, 48);
+			}
+		}
+		if (directorySize > Integer.MAX_VALUE)
+			throw new ZipException("Central directory too large"); //$NON-NLS-1$
+
+		byte[] directory= new byte[(int) directorySize];
+		fFile.seek(directoryOffset);
+		fFile.readFully(directory);
+
+		Map<String, Entry> entries= new LinkedHashMap<>((int) Math.min(entryCount * 4 / 3 + 1, Integer.MAX_VALUE));
+		int position= 0;
+		for (long i= 0; i < entryCount; i++) {
+			if (position + 46 > directory.length || getInt(directory, position) != CENTRAL_HEADER_SIGNATURE)
+				throw new ZipException("Invalid central directory"); //$NON-NLS-1$
+			int flags= getShort(directory, position + 8);
+			int method= getShort(directory, position + 10);
+			long dosTime= getUnsignedInt(directory, position + 12);
+			long crc= getUnsignedInt(directory, position + 16);
+			long compressedSize= getUnsignedInt(directory, position + 20);
+			long size= getUnsignedInt(directory, position + 24);
+			int nameLength= getShort(directory, position + 28);
+			int extraLength= getShort(directory, position + 30);
+			int commentLength= getShort(directory, position + 32);
+			long localHeaderOffset= getUnsignedInt(directory, position + 42);
+			String name= new String(directory, position + 46, nameLength, StandardCharsets.UTF_8);
+
+			// ZIP64 extended information, the fields are only present if the header field is 0xFFFFFFFF
+			int extra= position + 46 + nameLength;
+			int extraEnd= extra + extraLength;
+			while (extra + 4 <= extraEnd) {
+				int id= getShort(directory, extra);
+				int dataLength= getShort(directory, extra + 2);
+				if (id == ZIP64_EXTRA_ID) {
+					int field= extra + 4;
+					if (size == 0xFFFFFFFFL) {
+						size= getLong(directory, field);
+						field+= 8;
+					}
+					if (compressedSize == 0xFFFFFFFFL) {
+						compressedSize= getLong(directory, field);
+						field+= 8;
+					}
+					if (localHeaderOffset == 0xFFFFFFFFL)
+						localHeaderOffset= getLong(directory, field);
+					break;
+				}
+				extra+= 4 + dataLength;
+			}
+
+			entries.put(name, new Entry(name, method, flags, dosTime, crc, compressedSize, size, localHeaderOffset));
+			position+= 46 + nameLength + extraLength + commentLength;
+		}
+		return entries;
+	}
+
+	static int getShort(byte[] b, int offset) {
+		return (b[offset] & 0xff) | (b[offset + 1] & 0xff) << 8;
+	}
+
+	static int getInt(byte[] b, int offset) {
+		return getShort(b, offset) | getShort(b, offset + 2) << 16;
+	}
+
+	static long getUnsignedInt(byte[] b, int offset) {
+		return getInt(b, offset) & 0xFFFFFFFFL;
+	}
+
+	static long getLong(byte[] b, int offset) {
+		return getUnsignedInt(b, offset) | getUnsignedInt(b, offset + 4) << 32;
+	}
+}
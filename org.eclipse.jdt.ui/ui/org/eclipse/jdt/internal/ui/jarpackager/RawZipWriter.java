@@ -0,0 +1,583 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.jarpackager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Writes a ZIP or JAR file whose entries can be compressed in parallel or copied from another
+ * archive in compressed form.
+ * <p>
+ * Unlike {@link java.util.zip.ZipOutputStream}, this writer accepts entries whose data has
+ * already been deflated. Entries added with {@link #addBytes(String, long, byte[], boolean)} are
+ * deflated by a pool of worker threads, but are written in the order in which they were added.
+ * At most a few entries per thread are pending at any time.
+ * </p>
+ * <p>
+ * The ZIP64 format is used for entries of 4 GB or more, for entries which start after the first
+ * 4 GB and for archives with more than 65535 entries.
+ * </p>
+ *
+ * @since 3.17
+ */
+public class RawZipWriter implements Closeable {
+
+	private static final int PENDING_ENTRIES_PER_THREAD= 8;
+	private static final int DATA_DESCRIPTOR_SIGNATURE= 0x08074b50;
+	private static final int FLAG_DATA_DESCRIPTOR= 0x08;
+	private static final int FLAG_UTF8= 0x800;
+	private static final int JAR_MAGIC= 0xCAFE;
+	private static final long ZIP64_MAGIC= 0xFFFFFFFFL;
+	private static final int VERSION_STORED= 10;
+	private static final int VERSION_DEFLATED= 20;
+	private static final int VERSION_ZIP64= 45;
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger fCount= new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread= new Thread(runnable, "JAR Compression Worker " + fCount.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	/**
+	 * An entry whose data is known.
+	 */
+	private static class PendingEntry {
+		final String fName;
+		final long fDosTime;
+		final int fMethod;
+		final long fCrc;
+		final long fSize;
+		final byte[] fData;
+
+		PendingEntry(String name, long dosTime, int method, long crc, long size, byte[] data) {
+			fName= name;
+			fDosTime= dosTime;
+			fMethod= method;
+			fCrc= crc;
+			fSize= size;
+			fData= data;
+		}
+	}
+
+	/**
+	 * An entry of the central directory.
+	 */
+	private static class CentralEntry {
+		final byte[] fName;
+		final int fFlags;
+		final int fMethod;
+		final long fDosTime;
+		final long fCrc;
+		final long fCompressedSize;
+		final long fSize;
+		final long fOffset;
+		final byte[] fExtra;
+
+		CentralEntry(byte[] name, int flags, int method, long dosTime, long crc, long compressedSize, long size, long offset, byte[] extra) {
+			fName= name;
+			fFlags= flags;
+			fMethod= method;
+			fDosTime= dosTime;
+			fCrc= crc;
+			fCompressedSize= compressedSize;
+			fSize= size;
+			fOffset= offset;
+			fExtra= extra;
+		}
+	}
+
+	private final OutputStream fOut;
+	private final ExecutorService fExecutor;
+	private final int fMaxPendingEntries;
+	private final Deque<Future<PendingEntry>> fPendingEntries= new ArrayDeque<>();
+	private final List<CentralEntry> fCentralDirectory= new ArrayList<>();
+	private final Set<String> fNames= new HashSet<>();
+	private final byte[] fHeader= new byte[46];
+	private long fOffset;
+	private String fComment;
+	private boolean fClosed;
+
+	/**
+	 * Creates a writer.
+	 *
+	 * @param out the stream to write to, will be closed by {@link #close()}
+	 * @param threadCount the number of threads which deflate entries, <code>1</code> to deflate
+	 *            them in the calling thread
+	 */
+	public RawZipWriter(OutputStream out, int threadCount) {
+		fOut= out;
+		fExecutor= threadCount > 1 ? Executors.newFixedThreadPool(threadCount, new WorkerThreadFactory()) : null;
+		fMaxPendingEntries= threadCount > 1 ? threadCount * PENDING_ENTRIES_PER_THREAD : 0;
+	}
+
+	/**
+	 * Sets the comment of the archive.
+	 *
+	 * @param comment the comment, or <code>null</code>
+	 */
+	public void setComment(String comment) {
+		fComment= comment;
+	}
+
+	/**
+	 * Adds a directory entry.
+	 *
+	 * @param name the name of the entry, ending with <code>/</code>
+	 * @param time the modification time
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void addDirectory(String name, long time) throws IOException {
+		checkName(name);
+		enqueue(new PendingEntry(name, toDosTime(time), ZipEntry.STORED, 0, 0, new byte[0]));
+	}
+
+	/**
+	 * Adds an entry with the given content. If the content is compressed, it is deflated by a
+	 * worker thread.
+	 *
+	 * @param name the name of the entry
+	 * @param time the modification time
+	 * @param content the uncompressed content, must not be modified afterwards
+	 * @param compress <code>true</code> to deflate the content, <code>false</code> to store it
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void addBytes(final String name, long time, final byte[] content, boolean compress) throws IOException {
+		checkName(name);
+		final long dosTime= toDosTime(time);
+		if (!compress) {
+			enqueue(new PendingEntry(name, dosTime, ZipEntry.STORED, crc(content), content.length, content));
+		} else if (fExecutor == null) {
+			enqueue(deflate(name, dosTime, content));
+		} else {
+			enqueue(fExecutor.submit(new Callable<PendingEntry>() {
+				@Override
+				public PendingEntry call() throws Exception {
+					return deflate(name, dosTime, content);
+				}
+			}));
+		}
+	}
+
+	/**
+	 * Adds an entry whose data is copied from another archive without being inflated.
+	 *
+	 * @param name the name of the entry
+	 * @param time the modification time
+	 * @param entry the entry of the other archive
+	 * @param rawData the raw data of the entry as returned by
+	 *            {@link RawZipFile#readRawData(RawZipFile.Entry)}
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void addRaw(String name, long time, RawZipFile.Entry entry, byte[] rawData) throws IOException {
+		checkName(name);
+		enqueue(new PendingEntry(name, toDosTime(time), entry.getMethod(), entry.getCrc(), entry.getSize(), rawData));
+	}
+
+	/**
+	 * Adds an entry whose content is streamed. The pending entries are written first. Deflated
+	 * entries are followed by a data descriptor, stored entries need their CRC and size. Like
+	 * {@link java.util.zip.ZipOutputStream}, the data descriptor of a deflated entry of 4 GB or
+	 * more contains 8 byte sizes.
+	 *
+	 * @param name the name of the entry
+	 * @param time the modification time
+	 * @param content the content, is closed
+	 * @param method {@link ZipEntry#DEFLATED} or {@link ZipEntry#STORED}
+	 * @param crc the CRC of the content if stored
+	 * @param size the size of the content if stored
+	 * @throws IOException if an I/O error occurs or the content does not match CRC or size
+	 */
+	public void addStream(String name, long time, InputStream content, int method, long crc, long size) throws IOException {
+		try {
+			checkName(name);
+			writePendingEntries(0);
+			byte[] buffer= new byte[8192];
+			long dosTime= toDosTime(time);
+			if (method == ZipEntry.STORED) {
+				long offset= writeLocalHeader(name, 0, ZipEntry.STORED, dosTime, crc, size, size);
+				CRC32 actualCrc= new CRC32();
+				long actualSize= 0;
+				int count;
+				while ((count= content.read(buffer)) != -1) {
+					actualCrc.update(buffer, 0, count);
+					actualSize+= count;
+					write(buffer, 0, count);
+				}
+				if (actualSize != size || actualCrc.getValue() != crc)
+					throw new ZipException("Invalid CRC or size of stored entry: " + name); //$NON-NLS-1$
+				addCentralEntry(name, 0, ZipEntry.STORED, dosTime, crc, size, size, offset);
+				return;
+			}
+
+			long offset= writeLocalHeader(name, FLAG_DATA_DESCRIPTOR, ZipEntry.DEFLATED, dosTime, 0, 0, 0);
+			CRC32 actualCrc= new CRC32();
+			Deflater deflater= new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			try {
+				byte[] output= new byte[8192];
+				long compressedSize= 0;
+				long actualSize= 0;
+				int count;
+				while ((count= content.read(buffer)) != -1) {
+					actualCrc.update(buffer, 0, count);
+					actualSize+= count;
+					deflater.setInput(buffer, 0, count);
+					while (!deflater.needsInput())
+						compressedSize+= writeDeflated(deflater, output);
+				}
+				deflater.finish();
+				while (!deflater.finished())
+					compressedSize+= writeDeflated(deflater, output);
+
+				putInt(fHeader, 0, DATA_DESCRIPTOR_SIGNATURE);
+				putInt(fHeader, 4, actualCrc.getValue());
+				if (compressedSize >= ZIP64_MAGIC || actualSize >= ZIP64_MAGIC) {
+					putLong(fHeader, 8, compressedSize);
+					putLong(fHeader, 16, actualSize);
+					write(fHeader, 0, 24);
+				} else {
+					putInt(fHeader, 8, compressedSize);
+					putInt(fHeader, 12, actualSize);
+					write(fHeader, 0, 16);
+				}
+				addCentralEntry(name, FLAG_DATA_DESCRIPTOR, ZipEntry.DEFLATED, dosTime, actualCrc.getValue(), compressedSize, actualSize, offset);
+			} finally {
+				deflater.end();
+			}
+		} finally {
+			content.close();
+		}
+	}
+
+	/**
+	 * Writes the pending entries and the central directory and closes the stream.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		if (fClosed)
+			return;
+		fClosed= true;
+		try {
+			writePendingEntries(0);
+			writeCentralDirectory();
+			fOut.flush();
+		} finally {
+			if (fExecutor != null)
+				fExecutor.shutdownNow();
+			fOut.close();
+		}
+	}
+
+	/**
+	 * Checks that no entry with the given name has been added. The message of the exception is
+	 * the one of {@link java.util.zip.ZipOutputStream}, which clients check for.
+	 *
+	 * @param name the name of the entry
+	 * @throws ZipException if the entry has already been added
+	 */
+	private void checkName(String name) throws ZipException {
+		if (!fNames.add(name))
+			throw new ZipException("duplicate entry: " + name); //$NON-NLS-1$
+	}
+
+	private void enqueue(PendingEntry entry) throws IOException {
+		if (fPendingEntries.isEmpty())
+			writeEntry(entry);
+		else
+			enqueue(CompletableFuture.completedFuture(entry));
+	}
+
+	private void enqueue(Future<PendingEntry> entry) throws IOException {
+		fPendingEntries.addLast(entry);
+		writePendingEntries(fMaxPendingEntries);
+	}
+
+	/**
+	 * Writes the pending entries which are done and waits for the first ones until at most the
+	 * given number of entries are pending.
+	 *
+	 * @param maxPendingEntries the number of entries which may stay pending
+	 * @throws IOException if an I/O error occurs
+	 */
+	private void writePendingEntries(int maxPendingEntries) throws IOException {
+		while (!fPendingEntries.isEmpty() && (fPendingEntries.size() > maxPendingEntries || fPendingEntries.peekFirst().isDone())) {
+			Future<PendingEntry> future= fPendingEntries.removeFirst();
+			try {
+				writeEntry(future.get());
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException)
+					throw (IOException) e.getCause();
+				throw new IOException(e.getCause());
+			}
+		}
+	}
+
+	private void writeEntry(PendingEntry entry) throws IOException {
+		long offset= writeLocalHeader(entry.fName, 0, entry.fMethod, entry.fDosTime, entry.fCrc, entry.fData.length, entry.fSize);
+		write(entry.fData, 0, entry.fData.length);
+		addCentralEntry(entry.fName, 0, entry.fMethod, entry.fDosTime, entry.fCrc, entry.fData.length, entry.fSize, offset);
+	}
+
+	/**
+	 * Writes the local header of an entry. If one of the sizes does not fit into 4 bytes, both are
+	 * stored in a ZIP64 extra field.
+	 *
+	 * @param name the name of the entry
+	 * @param flags the general purpose flags
+	 * @param method the compression method
+	 * @param dosTime the MS-DOS modification time
+	 * @param crc the CRC, or <code>0</code> if it follows in a data descriptor
+	 * @param compressedSize the compressed size, or <code>0</code> if it follows in a data
+	 *            descriptor
+	 * @param size the uncompressed size, or <code>0</code> if it follows in a data descriptor
+	 * @return the offset of the local header
+	 * @throws IOException if an I/O error occurs
+	 */
+	private long writeLocalHeader(String name, int flags, int method, long dosTime, long crc, long compressedSize, long size) throws IOException {
+		long offset= fOffset;
+		byte[] nameBytes= name.getBytes(StandardCharsets.UTF_8);
+		byte[] extra= getExtra();
+		boolean zip64= compressedSize >= ZIP64_MAGIC || size >= ZIP64_MAGIC;
+		if (zip64)
+			extra= addZip64Extra(extra, size, compressedSize);
+		putInt(fHeader, 0, RawZipFile.LOCAL_HEADER_SIGNATURE);
+		putShort(fHeader, 4, zip64 ? VERSION_ZIP64 : getVersion(method));
+		putShort(fHeader, 6, flags | FLAG_UTF8);
+		putShort(fHeader, 8, method);
+		putInt(fHeader, 10, dosTime);
+		putInt(fHeader, 14, crc);
+		putInt(fHeader, 18, zip64 ? ZIP64_MAGIC : compressedSize);
+		putInt(fHeader, 22, zip64 ? ZIP64_MAGIC : size);
+		putShort(fHeader, 26, nameBytes.length);
+		putShort(fHeader, 28, extra.length);
+		write(fHeader, 0, 30);
+		write(nameBytes, 0, nameBytes.length);
+		write(extra, 0, extra.length);
+		return offset;
+	}
+
+	/**
+	 * Returns the extra field of the next entry. Like {@link java.util.jar.JarOutputStream}, the
+	 * first entry is marked as belonging to a JAR file.
+	 *
+	 * @return the extra field
+	 */
+	private byte[] getExtra() {
+		if (!fCentralDirectory.isEmpty())
+			return new byte[0];
+		byte[] extra= new byte[4];
+		putShort(extra, 0, JAR_MAGIC);
+		return extra;
+	}
+
+	/**
+	 * Appends a ZIP64 extra field with the given values to an extra field.
+	 *
+	 * @param extra the extra field
+	 * @param values the values of the ZIP64 extra field, in the order uncompressed size,
+	 *            compressed size and offset of the local header
+	 * @return the new extra field
+	 */
+	private static byte[] addZip64Extra(byte[] extra, long... values) {
+		byte[] result= new byte[extra.length + 4 + 8 * values.length];
+		System.arraycopy(extra, 0, result, 0, extra.length);
+		putShort(result, extra.length, RawZipFile.ZIP64_EXTRA_ID);
+		putShort(result, extra.length + 2, 8 * values.length);
+		for (int i= 0; i < values.length; i++)
+			putLong(result, extra.length + 4 + 8 * i, values[i]);
+		return result;
+	}
+
+	private static int getVersion(int method) {
+		return method == ZipEntry.STORED ? VERSION_STORED : VERSION_DEFLATED;
+	}
+
+	private void addCentralEntry(String name, int flags, int method, long dosTime, long crc, long compressedSize, long size, long offset) {
+		fCentralDirectory.add(new CentralEntry(name.getBytes(StandardCharsets.UTF_8), flags | FLAG_UTF8, method, dosTime, crc, compressedSize, size, offset, getExtra()));
+	}
+
+	private void writeCentralDirectory() throws IOException {
+		long directoryOffset= fOffset;
+		for (CentralEntry entry : fCentralDirectory) {
+			// the ZIP64 extra field only contains the values which do not fit into the header
+			long[] zip64Values= new long[3];
+			int zip64Count= 0;
+			if (entry.fSize >= ZIP64_MAGIC)
+				zip64Values[zip64Count++]= entry.fSize;
+			if (entry.fCompressedSize >= ZIP64_MAGIC)
+				zip64Values[zip64Count++]= entry.fCompressedSize;
+			if (entry.fOffset >= ZIP64_MAGIC)
+				zip64Values[zip64Count++]= entry.fOffset;
+			byte[] extra= entry.fExtra;
+			if (zip64Count > 0)
+				extra= addZip64Extra(extra, Arrays.copyOf(zip64Values, zip64Count));
+			int version= zip64Count > 0 ? VERSION_ZIP64 : getVersion(entry.fMethod);
+			putInt(fHeader, 0, RawZipFile.CENTRAL_HEADER_SIGNATURE);
+			putShort(fHeader, 4, version);
+			putShort(fHeader, 6, version);
+			putShort(fHeader, 8, entry.fFlags);
+			putShort(fHeader, 10, entry.fMethod);
+			putInt(fHeader, 12, entry.fDosTime);
+			putInt(fHeader, 16, entry.fCrc);
+			putInt(fHeader, 20, Math.min(entry.fCompressedSize, ZIP64_MAGIC));
+			putInt(fHeader, 24, Math.min(entry.fSize, ZIP64_MAGIC));
+			putShort(fHeader, 28, entry.fName.length);
+			putShort(fHeader, 30, extra.length);
+			putShort(fHeader, 32, 0);
+			putShort(fHeader, 34, 0);
+			putShort(fHeader, 36, 0);
+			putInt(fHeader, 38, 0);
+			putInt(fHeader, 42, Math.min(entry.fOffset, ZIP64_MAGIC));
+			write(fHeader, 0, 46);
+			write(entry.fName, 0, entry.fName.length);
+			write(extra, 0, extra.length);
+		}
+		long directorySize= fOffset - directoryOffset;
+		long entryCount= fCentralDirectory.size();
+
+		if (entryCount >= 0xFFFF || directoryOffset >= ZIP64_MAGIC || directorySize >= ZIP64_MAGIC) {
+			long zip64EndOffset= fOffset;
+			byte[] zip64End= new byte[56 + 20];
+			putInt(zip64End, 0, RawZipFile.ZIP64_END_SIGNATURE);
+			putLong(zip64End, 4, 44);
+			putShort(zip64End, 12, VERSION_ZIP64);
+			putShort(zip64End, 14, VERSION_ZIP64);
+			putLong(zip64End, 24, entryCount);
+			putLong(zip64End, 32, entryCount);
+			putLong(zip64End, 40, directorySize);
+			putLong(zip64End, 48, directoryOffset);
+			putInt(zip64End, 56, RawZipFile.ZIP64_LOCATOR_SIGNATURE);
+			putLong(zip64End, 64, zip64EndOffset);
+			putInt(zip64End, 72, 1);
+			write(zip64End, 0, zip64End.length);
+			entryCount= Math.min(entryCount, 0xFFFF);
+			directoryOffset= Math.min(directoryOffset, ZIP64_MAGIC);
+			directorySize= Math.min(directorySize, ZIP64_MAGIC);
+		}
+
+		byte[] comment= fComment != null ? fComment.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		if (comment.length > 0xFFFF)
+			throw new ZipException("ZIP file comment too long"); //$NON-NLS-1$
+		putInt(fHeader, 0, RawZipFile.END_SIGNATURE);
+		putShort(fHeader, 4, 0);
+		putShort(fHeader, 6, 0);
+		putShort(fHeader, 8, (int) entryCount);
+		putShort(fHeader, 10, (int) entryCount);
+		putInt(fHeader, 12, directorySize);
+		putInt(fHeader, 16, directoryOffset);
+		putShort(fHeader, 20, comment.length);
+		write(fHeader, 0, 22);
+		write(comment, 0, comment.length);
+	}
+
+	private int writeDeflated(Deflater deflater, byte[] output) throws IOException {
+		int count= deflater.deflate(output);
+		write(output, 0, count);
+		return count;
+	}
+
+	private void write(byte[] b, int offset, int length) throws IOException {
+		fOut.write(b, offset, length);
+		fOffset+= length;
+	}
+
+	private static PendingEntry deflate(String name, long dosTime, byte[] content) {
+		Deflater deflater= new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try {
+			deflater.setInput(content);
+			deflater.finish();
+			ByteArrayOutputStream out= new ByteArrayOutputStream(content.length / 2 + 64);
+			byte[] buffer= new byte[8192];
+			while (!deflater.finished()) {
+				int count= deflater.deflate(buffer);
+				out.write(buffer, 0, count);
+			}
+			return new PendingEntry(name, dosTime, ZipEntry.DEFLATED, crc(content), content.length, out.toByteArray());
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static long crc(byte[] content) {
+		CRC32 crc= new CRC32();
+		crc.update(content, 0, content.length);
+		return crc.getValue();
+	}
+
+	/**
+	 * Converts a Java time to a MS-DOS time, like {@link ZipEntry#setTime(long)} does.
+	 *
+	 * @param time the time in milliseconds since the epoch
+	 * @return the MS-DOS time
+	 */
+	static long toDosTime(long time) {
+		LocalDateTime date= LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+		int year= date.getYear();
+		if (year < 1980)
+			return (1 << 21) | (1 << 16);
+		return (long) (year - 1980) << 25 | date.getMonthValue() << 21 | date.getDayOfMonth() << 16 | date.getHour() << 11 | date.getMinute() << 5 | date.getSecond() >> 1;
+	}
+
+	private static void putShort(byte[] b, int offset, int value) {
+		b[offset]= (byte) value;
+		b[offset + 1]= (byte) (value >> 8);
+	}
+
+	private static void putInt(byte[] b, int offset, long value) {
+		putShort(b, offset, (int) value);
+		putShort(b, offset + 2, (int) (value >> 16));
+	}
+
+	private static void putLong(byte[] b, int offset, long value) {
+		putInt(b, offset, value);
+		putInt(b, offset + 4, value >> 32);
+	}
+}
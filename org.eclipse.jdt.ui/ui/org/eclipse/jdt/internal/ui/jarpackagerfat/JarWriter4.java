@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2016 IBM Corporation and others.
+ * Copyright (c) 2007, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -48,8 +48,17 @@ public class JarWriter4 extends JarWriter3 {
 
 	private final JarPackageData fJarPackage;
 
+	/**
+	 * Creates a writer which copies the entries of libraries as they are stored in the library.
+	 * They are only inflated and deflated again if the library is compressed differently than the
+	 * JAR.
+	 *
+	 * @param jarPackage the JAR specification
+	 * @param parent the shell used to display question dialogs, or <code>null</code>
+	 * @throws CoreException if the JAR cannot be created
+	 */
 	public JarWriter4(JarPackageData jarPackage, Shell parent) throws CoreException {
-		super(jarPackage, parent);
+		super(jarPackage, parent, true);
 		fJarPackage= jarPackage;
 	}
 
@@ -57,6 +66,9 @@ public class JarWriter4 extends JarWriter3 {
 		if (fJarPackage.areDirectoryEntriesIncluded())
 			addDirectories(path);
 
+		if (copyZipEntry(zipFile, zipEntry, path, System.currentTimeMillis()))
+			return;
+
 		JarEntry newEntry= new JarEntry(path.replace(File.separatorChar, '/'));
 
 		if (fJarPackage.isCompressed())
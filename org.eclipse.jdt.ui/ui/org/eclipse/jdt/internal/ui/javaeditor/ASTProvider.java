@@ -269,6 +269,7 @@ public final class ASTProvider implements IASTSharedValues {
 		fActivationListener= null;
 
 		INSTANCE.disposeAST();
+		INSTANCE.disposeCachedASTs();
 		INSTANCE.waitLockNotifyAll();
 
 	}
@@ -68,6 +68,27 @@ public class SemanticHighlightingPresenter extends SemanticHighlightingPresenter
 		return new HighlightedPosition(offset, length, highlighting, fPositionUpdater);
 	}
 
+	/**
+	 * Adds all current positions contained in the given range to the given list.
+	 * <p>
+	 * NOTE: Called from background thread.
+	 * </p>
+	 *
+	 * @param list The list
+	 * @param offset The range offset
+	 * @param length The range length
+	 * @since 3.17
+	 */
+	public void addAllPositions(List<Position> list, int offset, int length) {
+		synchronized (fPositionLock) {
+			for (int i= computeIndexAtOffset(fPositions, offset), n= computeIndexAtOffset(fPositions, offset + length); i < n; i++) {
+				HighlightedPosition position= (HighlightedPosition) fPositions.get(i);
+				if (position.isContained(offset, length))
+					list.add(position);
+			}
+		}
+	}
+
 	/*
 	 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingPresenterCore#addPositionForEvent()
 	 */
@@ -193,6 +214,23 @@ public class SemanticHighlightingPresenter extends SemanticHighlightingPresenter
 				List<Position> oldPositions= fPositions;
 				int newSize= Math.max(fPositions.size() + addedPositions.length - removedPositions.length, 10);
 
+				/*
+				 * Only the old positions in the range of the added and removed positions can
+				 * change, the others are copied as they are.
+				 */
+				int minStart= Integer.MAX_VALUE;
+				int maxEnd= Integer.MIN_VALUE;
+				for (int i= 0, n= removedPositions.length; i < n; i++) {
+					minStart= Math.min(minStart, removedPositions[i].getOffset());
+					maxEnd= Math.max(maxEnd, removedPositions[i].getOffset() + removedPositions[i].getLength());
+				}
+				for (int i= 0, n= addedPositions.length; i < n; i++) {
+					minStart= Math.min(minStart, addedPositions[i].getOffset());
+					maxEnd= Math.max(maxEnd, addedPositions[i].getOffset() + addedPositions[i].getLength());
+				}
+				int first= minStart <= maxEnd ? computeIndexAtOffset(oldPositions, minStart) : oldPositions.size();
+				int last= minStart <= maxEnd ? Math.max(first, computeIndexAtOffset(oldPositions, maxEnd)) : first;
+
 				/*
 				 * The following loop is a kind of merge sort: it merges two List<Position>, each
 				 * sorted by position.offset, into one new list. The first of the two is the
@@ -201,9 +239,10 @@ public class SemanticHighlightingPresenter extends SemanticHighlightingPresenter
 				 * is stored in newPositions.
 				 */
 				List<Position> newPositions= new ArrayList<>(newSize);
+				newPositions.addAll(oldPositions.subList(0, first));
 				Position position= null;
 				Position addedPosition= null;
-				for (int i= 0, j= 0, n= oldPositions.size(), m= addedPositions.length; i < n || position != null || j < m || addedPosition != null;) {
+				for (int i= first, j= 0, n= last, m= addedPositions.length; i < n || position != null || j < m || addedPosition != null;) {
 					// loop variant: i + j < old(i + j)
 
 					// a) find the next non-deleted Position from the old list
@@ -240,6 +279,7 @@ public class SemanticHighlightingPresenter extends SemanticHighlightingPresenter
 						addedPosition= null;
 					}
 				}
+				newPositions.addAll(oldPositions.subList(last, oldPositions.size()));
 				fPositions= newPositions;
 			}
 		} catch (BadPositionCategoryException e) {
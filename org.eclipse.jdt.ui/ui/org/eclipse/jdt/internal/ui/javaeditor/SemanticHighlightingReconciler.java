@@ -15,6 +15,7 @@
 package org.eclipse.jdt.internal.ui.javaeditor;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import org.eclipse.swt.widgets.Display;
@@ -25,7 +26,9 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.ITextInputListener;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.TextPresentation;
@@ -36,10 +39,14 @@ import org.eclipse.ui.IWorkbenchPartSite;
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ConstructorInvocation;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.NodeFinder;
 import org.eclipse.jdt.core.dom.SimpleName;
 import org.eclipse.jdt.core.dom.SimpleType;
 import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
@@ -60,6 +67,152 @@ import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
  */
 public class SemanticHighlightingReconciler implements IJavaReconcilingListener, ITextInputListener {
 
+	/**
+	 * Hidden preference: if <code>true</code>, a reconcile triggered by typing only re-highlights
+	 * the method or initializer body that contains all document changes since the last reconcile,
+	 * instead of the whole compilation unit.
+	 *
+	 * @since 3.17
+	 */
+	public static final String PREF_INCREMENTAL_RECONCILE= "semanticHighlighting.incrementalReconcile"; //$NON-NLS-1$
+
+	/**
+	 * Document region changed since the last reconcile.
+	 *
+	 * @since 3.17
+	 */
+	private static class Damage {
+
+		/** <code>true</code> iff the whole document has to be re-highlighted */
+		private boolean fFull;
+		/** Start offset of the changed region */
+		private int fOffset;
+		/** End offset of the changed region, exclusive */
+		private int fEnd;
+
+		Damage(boolean full, int offset, int end) {
+			fFull= full;
+			fOffset= offset;
+			fEnd= end;
+		}
+
+		/**
+		 * Adds the given damage to this damage.
+		 *
+		 * @param damage the damage to add
+		 */
+		void add(Damage damage) {
+			fFull|= damage.fFull;
+			fOffset= Math.min(fOffset, damage.fOffset);
+			fEnd= Math.max(fEnd, damage.fEnd);
+		}
+
+		/**
+		 * Shifts this damage according to a document change.
+		 *
+		 * @param offset the offset of the change
+		 * @param end the end offset of the replaced text
+		 * @param newEnd the end offset of the inserted text
+		 */
+		void update(int offset, int end, int newEnd) {
+			if (fOffset >= end)
+				fOffset+= newEnd - end;
+			else if (fOffset > offset)
+				fOffset= offset;
+			if (fEnd >= end)
+				fEnd+= newEnd - end;
+			else if (fEnd > offset)
+				fEnd= newEnd;
+		}
+	}
+
+	/**
+	 * Tracks the document changes since the last reconcile whose highlighting has been applied.
+	 * <p>
+	 * The damage taken by a reconcile stays pending until its highlighting has been applied in the
+	 * UI thread. If the reconcile or its presentation update is canceled, the next reconcile takes
+	 * the pending damage as well.
+	 * </p>
+	 *
+	 * @since 3.17
+	 */
+	private static class DamageTracker implements IDocumentListener, ITextInputListener {
+
+		/** <code>true</code> iff the whole document has to be re-highlighted */
+		private boolean fFull= true;
+		/** The changed region, or <code>null</code> if the document has not been changed */
+		private Damage fDamage;
+		/** The damage taken by reconciles whose highlighting has not been applied yet */
+		private final List<Damage> fPending= new ArrayList<>(2);
+
+		/**
+		 * Takes the damage since the last reconcile, including the damage of reconciles whose
+		 * highlighting has not been applied.
+		 *
+		 * @return the damage
+		 */
+		synchronized Damage takeDamage() {
+			Damage damage= fFull || fDamage == null ? new Damage(true, 0, 0) : fDamage;
+			for (int i= 0, n= fPending.size(); i < n; i++)
+				damage.add(fPending.get(i));
+			fPending.clear();
+			fPending.add(damage);
+			fFull= false;
+			fDamage= null;
+			return damage;
+		}
+
+		/**
+		 * Tells that the highlighting of the given damage has been applied.
+		 *
+		 * @param damage the damage
+		 */
+		synchronized void damageRepaired(Damage damage) {
+			fPending.remove(damage);
+		}
+
+		/**
+		 * Requests that the next reconcile re-highlights the whole document.
+		 */
+		synchronized void invalidate() {
+			fFull= true;
+		}
+
+		@Override
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			// Do nothing
+		}
+
+		@Override
+		public synchronized void documentChanged(DocumentEvent event) {
+			int offset= event.getOffset();
+			int end= offset + event.getLength();
+			String text= event.getText();
+			int newEnd= offset + (text != null ? text.length() : 0);
+			for (int i= 0, n= fPending.size(); i < n; i++)
+				fPending.get(i).update(offset, end, newEnd);
+			if (fDamage == null) {
+				fDamage= new Damage(false, offset, newEnd);
+			} else {
+				fDamage.update(offset, end, newEnd);
+				fDamage.add(new Damage(false, offset, newEnd));
+			}
+		}
+
+		@Override
+		public void inputDocumentAboutToBeChanged(IDocument oldInput, IDocument newInput) {
+			if (oldInput != null)
+				oldInput.removeDocumentListener(this);
+		}
+
+		@Override
+		public void inputDocumentChanged(IDocument oldInput, IDocument newInput) {
+			if (newInput != null)
+				newInput.addDocumentListener(this);
+			invalidate();
+		}
+	}
+
 	/**
 	 * Collects positions from the AST.
 	 */
@@ -170,14 +323,13 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		 */
 		private void addPosition(int offset, int length, Highlighting highlighting) {
 			boolean isExisting= false;
-			// TODO: use binary search
-			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
+			for (int i= computeIndexAtOffset(offset), n= fRemovedPositions.size(); i < n; i++) {
 				HighlightedPosition position= (HighlightedPosition) fRemovedPositions.get(i);
-				if (position == null)
-					continue;
-				if (position.isEqual(offset, length, highlighting)) {
+				if (position.getOffset() != offset)
+					break;
+				if (!fRetainedPositions.get(i) && position.isEqual(offset, length, highlighting)) {
 					isExisting= true;
-					fRemovedPositions.set(i, null);
+					fRetainedPositions.set(i);
 					fNOfRemovedPositions--;
 					break;
 				}
@@ -196,15 +348,38 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		 */
 		@Override
 		protected void retainPositions(int offset, int length) {
-			// TODO: use binary search
-			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
+			for (int i= computeIndexAtOffset(offset), n= fRemovedPositions.size(); i < n; i++) {
 				HighlightedPosition position= (HighlightedPosition) fRemovedPositions.get(i);
-				if (position != null && position.isContained(offset, length)) {
-					fRemovedPositions.set(i, null);
+				if (position.getOffset() > offset + length)
+					break;
+				if (!fRetainedPositions.get(i) && position.isContained(offset, length)) {
+					fRetainedPositions.set(i);
 					fNOfRemovedPositions--;
 				}
 			}
 		}
+
+		/**
+		 * Returns the index of the first removed position with an offset equal or greater than the
+		 * given offset.
+		 *
+		 * @param offset the offset
+		 * @return the index of the first removed position with an offset equal or greater than the
+		 *         given offset
+		 */
+		private int computeIndexAtOffset(int offset) {
+			int i= -1;
+			int j= fRemovedPositions.size();
+			while (j - i > 1) {
+				int k= (i + j) >> 1;
+				Position position= fRemovedPositions.get(k);
+				if (position.getOffset() >= offset)
+					j= k;
+				else
+					i= k;
+			}
+			return j;
+		}
 	}
 
 	/** Position collector */
@@ -225,9 +400,21 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	private List<Position> fAddedPositions= new ArrayList<>();
 	/** Background job's removed highlighted positions */
 	private List<Position> fRemovedPositions= new ArrayList<>();
+	/**
+	 * Background job's removed highlighted positions which are retained, by index
+	 * @since 3.17
+	 */
+	private BitSet fRetainedPositions= new BitSet();
 	/** Number of removed positions */
 	private int fNOfRemovedPositions;
 
+	/**
+	 * Tracks the document changes for incremental reconciles, or <code>null</code> if every
+	 * reconcile re-highlights the whole compilation unit
+	 * @since 3.17
+	 */
+	private DamageTracker fDamageTracker;
+
 	/** Background job */
 	private Job fJob;
 	/** Background job lock */
@@ -280,6 +467,8 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		fJobPresenter= fPresenter;
 		fJobSemanticHighlightings= fSemanticHighlightings;
 		fJobHighlightings= fHighlightings;
+		DamageTracker damageTracker= fDamageTracker;
+		Damage damage= damageTracker != null ? damageTracker.takeDamage() : null;
 
 		try {
 			if (fJobPresenter == null || fJobSemanticHighlightings == null || fJobHighlightings == null)
@@ -290,11 +479,11 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (ast == null || fJobPresenter.isCanceled())
 				return;
 
-			ASTNode[] subtrees= getAffectedSubtrees(ast);
+			ASTNode[] subtrees= getAffectedSubtrees(ast, forced ? null : damage);
 			if (subtrees.length == 0)
 				return;
 
-			startReconcilingPositions();
+			startReconcilingPositions(subtrees);
 
 			if (!fJobPresenter.isCanceled()) {
 				fJobDeprecatedMemberHighlighting= null;
@@ -313,7 +502,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 				textPresentation= fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
 
 			if (!fJobPresenter.isCanceled())
-				updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+				updatePresentation(textPresentation, fAddedPositions, fRemovedPositions, damageTracker, damage);
 
 			stopReconcilingPositions();
 		} finally {
@@ -328,19 +517,52 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	}
 
 	/**
+	 * Returns the subtrees that may be affected by the document changes since the last reconcile.
+	 * <p>
+	 * The highlighting of names outside a method or initializer body does not depend on the
+	 * contents of the body. If all changes are inside the same body, only the outermost body
+	 * containing them is returned, so that effects of the changes on enclosing lambda expressions
+	 * and anonymous classes are taken into account.
+	 * </p>
+	 *
 	 * @param node Root node
+	 * @param damage the document changes, or <code>null</code> if all nodes may be affected
 	 * @return Array of subtrees that may be affected by past document changes
 	 */
-	private ASTNode[] getAffectedSubtrees(ASTNode node) {
-		// TODO: only return nodes which are affected by document changes - would require an 'anchor' concept for taking distant effects into account
-		return new ASTNode[] { node };
+	private ASTNode[] getAffectedSubtrees(CompilationUnit node, Damage damage) {
+		if (damage == null || damage.fFull)
+			return new ASTNode[] { node };
+
+		Block body= null;
+		ASTNode covering= NodeFinder.perform(node, damage.fOffset, damage.fEnd - damage.fOffset);
+		for (ASTNode current= covering; current != null; current= current.getParent()) {
+			if (current instanceof Block) {
+				ASTNode parent= current.getParent();
+				if ((parent instanceof MethodDeclaration || parent instanceof Initializer) && (parent.getFlags() & ASTNode.MALFORMED) == 0) {
+					int start= current.getStartPosition();
+					int end= start + current.getLength();
+					if (start < damage.fOffset && damage.fEnd < end)
+						body= (Block) current;
+				}
+			}
+		}
+		return new ASTNode[] { body != null ? body : node };
 	}
 
 	/**
 	 * Start reconciling positions.
+	 *
+	 * @param subtrees the AST subtrees
 	 */
-	private void startReconcilingPositions() {
-		fJobPresenter.addAllPositions(fRemovedPositions);
+	private void startReconcilingPositions(ASTNode[] subtrees) {
+		for (int i= 0, n= subtrees.length; i < n; i++) {
+			ASTNode subtree= subtrees[i];
+			if (subtree.getParent() == null)
+				fJobPresenter.addAllPositions(fRemovedPositions);
+			else
+				fJobPresenter.addAllPositions(fRemovedPositions, subtree.getStartPosition(), subtree.getLength());
+		}
+		fRetainedPositions.clear();
 		fNOfRemovedPositions= fRemovedPositions.size();
 	}
 
@@ -350,19 +572,12 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @param subtrees the AST subtrees
 	 */
 	private void reconcilePositions(ASTNode[] subtrees) {
-		// FIXME: remove positions not covered by subtrees
-
-
-
 		for (int i= 0, n= subtrees.length; i < n; i++)
 			subtrees[i].accept(fCollector);
 		List<Position> oldPositions= fRemovedPositions;
 		List<Position> newPositions= new ArrayList<>(fNOfRemovedPositions);
-		for (int i= 0, n= oldPositions.size(); i < n; i ++) {
-			Position current= oldPositions.get(i);
-			if (current != null)
-				newPositions.add(current);
-		}
+		for (int i= fRetainedPositions.nextClearBit(0), n= oldPositions.size(); i < n; i= fRetainedPositions.nextClearBit(i + 1))
+			newPositions.add(oldPositions.get(i));
 		fRemovedPositions= newPositions;
 	}
 
@@ -372,11 +587,17 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @param textPresentation the text presentation
 	 * @param addedPositions the added positions
 	 * @param removedPositions the removed positions
+	 * @param damageTracker the damage tracker, or <code>null</code>
+	 * @param damage the damage repaired by the update, or <code>null</code>
 	 */
-	private void updatePresentation(TextPresentation textPresentation, List<Position> addedPositions, List<Position> removedPositions) {
-		Runnable runnable= fJobPresenter.createUpdateRunnable(textPresentation, addedPositions, removedPositions);
-		if (runnable == null)
+	private void updatePresentation(TextPresentation textPresentation, List<Position> addedPositions, List<Position> removedPositions, final DamageTracker damageTracker, final Damage damage) {
+		final SemanticHighlightingPresenter presenter= fJobPresenter;
+		final Runnable runnable= presenter.createUpdateRunnable(textPresentation, addedPositions, removedPositions);
+		if (runnable == null) {
+			if (damageTracker != null && addedPositions.isEmpty() && removedPositions.isEmpty() && !presenter.isCanceled())
+				damageTracker.damageRepaired(damage);
 			return;
+		}
 
 		JavaEditor editor= fEditor;
 		if (editor == null)
@@ -394,7 +615,18 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		if (display == null || display.isDisposed())
 			return;
 
-		display.asyncExec(runnable);
+		if (damageTracker == null) {
+			display.asyncExec(runnable);
+			return;
+		}
+		display.asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				runnable.run();
+				if (!presenter.isCanceled())
+					damageTracker.damageRepaired(damage);
+			}
+		});
 	}
 
 	/**
@@ -402,6 +634,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 */
 	private void stopReconcilingPositions() {
 		fRemovedPositions.clear();
+		fRetainedPositions.clear();
 		fNOfRemovedPositions= 0;
 		fAddedPositions.clear();
 	}
@@ -423,6 +656,13 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		fSourceViewer= sourceViewer;
 
 		if (fEditor instanceof CompilationUnitEditor) {
+			if (JavaPlugin.getDefault().getPreferenceStore().getBoolean(PREF_INCREMENTAL_RECONCILE)) {
+				fDamageTracker= new DamageTracker();
+				fSourceViewer.addTextInputListener(fDamageTracker);
+				IDocument document= fSourceViewer.getDocument();
+				if (document != null)
+					document.addDocumentListener(fDamageTracker);
+			}
 			((CompilationUnitEditor)fEditor).addReconcileListener(this);
 		} else if (fEditor == null) {
 			fSourceViewer.addTextInputListener(this);
@@ -445,6 +685,14 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			fEditor= null;
 		}
 
+		if (fDamageTracker != null) {
+			fSourceViewer.removeTextInputListener(fDamageTracker);
+			IDocument document= fSourceViewer.getDocument();
+			if (document != null)
+				document.removeDocumentListener(fDamageTracker);
+			fDamageTracker= null;
+		}
+
 		fSourceViewer= null;
 		fSemanticHighlightings= null;
 		fHighlightings= null;
@@ -523,6 +771,9 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @since 3.2
 	 */
 	public void refresh() {
+		DamageTracker damageTracker= fDamageTracker;
+		if (damageTracker != null)
+			damageTracker.invalidate();
 		scheduleJob();
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Simeon Andreev and others.
+ * Copyright (c) 2017, 2019 Simeon Andreev and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,10 +16,13 @@ package org.eclipse.jdt.internal.ui.packageview;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.JavaModelException;
@@ -37,10 +40,12 @@ import org.eclipse.jdt.core.JavaModelException;
  * <p>
  * A single query runs in constant time. Preparing for queries runs in time linear to the number of
  * packages in the package root. The first query on this object will run the preparation step.
+ * Added and removed packages are applied to a prepared cache, see
+ * {@link #packageAdded(IPackageFragment)} and {@link #packageRemoved(IPackageFragment)}.
  * </p>
  *
  * <p>
- * Not thread safe.
+ * Thread safe.
  * </p>
  *
  * @see #getDirectChildren(IPackageFragment)
@@ -49,12 +54,23 @@ public class PackageCache {
 
 	/**
 	 * Caches the children of a package in a package root. The cache for a package root is built on the
-	 * first query.
+	 * first query and is kept up to date by {@link #processDelta(IJavaElementDelta)}.
 	 */
 	static class PerRootCache {
 
+		/** Changes of a project or a package root after which the packages of a root are collected again */
+		private static final int ROOT_CHANGE_FLAGS= IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED
+				| IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+				| IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+				| IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED;
+
 		private final Map<IPackageFragmentRoot, PackageCache> packageCaches= new HashMap<>();
 
+		List<IPackageFragment> getRootChildren(IPackageFragmentRoot root) throws JavaModelException {
+			PackageCache packagesOfRoot= getPackageCache(root);
+			return packagesOfRoot.getRootChildren();
+		}
+
 		boolean hasSingleChild(IPackageFragment packageFragment) throws JavaModelException {
 			PackageCache packagesOfRoot= getPackageCache(packageFragment);
 			return packagesOfRoot.hasSingleChild(packageFragment);
@@ -96,6 +112,75 @@ public class PackageCache {
 				packageCaches.clear();
 			}
 		}
+
+		/**
+		 * Applies added and removed packages to the caches. The caches of package roots whose
+		 * content or class path has changed as a whole are discarded.
+		 * <p>
+		 * Can be called from a different (not only UI) thread.
+		 * </p>
+		 *
+		 * @param delta the Java model delta
+		 */
+		void processDelta(IJavaElementDelta delta) {
+			IJavaElement element= delta.getElement();
+			switch (element.getElementType()) {
+				case IJavaElement.JAVA_MODEL:
+					processChildren(delta);
+					break;
+				case IJavaElement.JAVA_PROJECT:
+					if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & ROOT_CHANGE_FLAGS) != 0) {
+						remove((IJavaProject) element);
+					} else {
+						processChildren(delta);
+					}
+					break;
+				case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+					if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & ROOT_CHANGE_FLAGS) != 0) {
+						remove((IPackageFragmentRoot) element);
+					} else {
+						processChildren(delta);
+					}
+					break;
+				case IJavaElement.PACKAGE_FRAGMENT:
+					PackageCache packageCache;
+					synchronized (packageCaches) {
+						packageCache= packageCaches.get(element.getParent());
+					}
+					if (packageCache == null)
+						break;
+					if (delta.getKind() == IJavaElementDelta.ADDED) {
+						packageCache.packageAdded((IPackageFragment) element);
+					} else if (delta.getKind() == IJavaElementDelta.REMOVED) {
+						packageCache.packageRemoved((IPackageFragment) element);
+					}
+					break;
+				default:
+					break;
+			}
+		}
+
+		private void processChildren(IJavaElementDelta delta) {
+			IJavaElementDelta[] children= delta.getAffectedChildren();
+			for (int i= 0; i < children.length; i++) {
+				processDelta(children[i]);
+			}
+		}
+
+		private void remove(IPackageFragmentRoot root) {
+			synchronized (packageCaches) {
+				packageCaches.remove(root);
+			}
+		}
+
+		private void remove(IJavaProject project) {
+			synchronized (packageCaches) {
+				for (Iterator<IPackageFragmentRoot> iter= packageCaches.keySet().iterator(); iter.hasNext();) {
+					if (project.equals(iter.next().getJavaProject()))
+						iter.remove();
+				}
+			}
+		}
 	}
 
 
@@ -107,6 +192,11 @@ public class PackageCache {
 	 */
 	private final Map<String, List<IPackageFragment>> packagesCache;
 
+	/**
+	 * The packages which have no parent package, without the default package.
+	 */
+	private final List<IPackageFragment> rootChildren;
+
 	private boolean initialized;
 
 	/**
@@ -115,6 +205,7 @@ public class PackageCache {
 	public PackageCache(IPackageFragmentRoot packageRoot) {
 		this.packageRoot= packageRoot;
 		packagesCache= new HashMap<>();
+		rootChildren= new ArrayList<>();
 		initialized= false;
 	}
 
@@ -126,7 +217,7 @@ public class PackageCache {
 	 *
 	 * @see #getSingleChild(IPackageFragment)
 	 */
-	public boolean hasSingleChild(IPackageFragment packageFragment) throws JavaModelException {
+	public synchronized boolean hasSingleChild(IPackageFragment packageFragment) throws JavaModelException {
 		IPackageFragment singleChild= getSingleChild(packageFragment);
 		boolean hasSingleChild= singleChild != null;
 		return hasSingleChild;
@@ -141,7 +232,7 @@ public class PackageCache {
 	 *
 	 * @see #getDirectChildren(IPackageFragment)
 	 */
-	public IPackageFragment getSingleChild(IPackageFragment packageFragment) throws JavaModelException {
+	public synchronized IPackageFragment getSingleChild(IPackageFragment packageFragment) throws JavaModelException {
 		List<IPackageFragment> children= getDirectChildren(packageFragment);
 		boolean hasSingleChild= children.size() == 1;
 		if (hasSingleChild) {
@@ -187,14 +278,58 @@ public class PackageCache {
 	 * @param packageFragment The direct children of this fragment will be retrieved.
 	 * @throws JavaModelException If accessing the packages in the package root fails.
 	 */
-	public List<IPackageFragment> getDirectChildren(IPackageFragment packageFragment) throws JavaModelException {
+	public synchronized List<IPackageFragment> getDirectChildren(IPackageFragment packageFragment) throws JavaModelException {
 		initialize();
 		String packageName= packageFragment.getElementName();
 		List<IPackageFragment> childrenOfPackage= packagesCache.get(packageName);
 		if (childrenOfPackage == null) {
 			return Collections.EMPTY_LIST;
 		}
-		return Collections.unmodifiableList(childrenOfPackage);
+		return Collections.unmodifiableList(new ArrayList<>(childrenOfPackage));
+	}
+
+	/**
+	 * Returns the packages of the package root which have no parent package. For the example of
+	 * {@link #getDirectChildren(IPackageFragment)}, these are {@code a} and {@code f}. The default
+	 * package is not included.
+	 *
+	 * @return The packages without a parent package. Never {@code null}.
+	 * @throws JavaModelException If accessing the packages in the package root fails.
+	 */
+	public synchronized List<IPackageFragment> getRootChildren() throws JavaModelException {
+		initialize();
+		return Collections.unmodifiableList(new ArrayList<>(rootChildren));
+	}
+
+	/**
+	 * Adds a package which has been created after the cache has been prepared for queries.
+	 *
+	 * @param packageFragment The added package.
+	 */
+	public synchronized void packageAdded(IPackageFragment packageFragment) {
+		if (initialized) {
+			List<IPackageFragment> siblings= getSiblings(packageFragment, true);
+			if (siblings != null && !siblings.contains(packageFragment)) {
+				siblings.add(packageFragment);
+			}
+		}
+	}
+
+	/**
+	 * Removes a package which has been deleted after the cache has been prepared for queries.
+	 *
+	 * @param packageFragment The removed package.
+	 */
+	public synchronized void packageRemoved(IPackageFragment packageFragment) {
+		if (initialized) {
+			List<IPackageFragment> siblings= getSiblings(packageFragment, false);
+			if (siblings != null) {
+				siblings.remove(packageFragment);
+				if (siblings.isEmpty() && siblings != rootChildren) {
+					packagesCache.remove(getParentName(packageFragment.getElementName()));
+				}
+			}
+		}
 	}
 
 	private void initialize() throws JavaModelException {
@@ -211,26 +346,47 @@ public class PackageCache {
 	 */
 	private void collectChildrenOfPackages() throws JavaModelException {
 		packagesCache.clear();
+		rootChildren.clear();
 
 		IJavaElement[] allPackages= packageRoot.getChildren();
 
 		for (IJavaElement child : allPackages) {
 			IPackageFragment currentPackage= (IPackageFragment) child;
-
-			String packageName= currentPackage.getElementName();
-
-			int index= packageName.lastIndexOf('.');
-			boolean hasParentPackage= index != -1;
-			if (hasParentPackage) {
-				String parentName= packageName.substring(0, index);
-
-				List<IPackageFragment> siblingsOfCurrentPackage= packagesCache.get(parentName);
-				if (siblingsOfCurrentPackage == null) {
-					siblingsOfCurrentPackage= new ArrayList<>();
-					packagesCache.put(parentName, siblingsOfCurrentPackage);
-				}
+			List<IPackageFragment> siblingsOfCurrentPackage= getSiblings(currentPackage, true);
+			if (siblingsOfCurrentPackage != null) {
 				siblingsOfCurrentPackage.add(currentPackage);
 			}
 		}
 	}
+
+	/**
+	 * @return The list of the packages with the same parent as the specified package, or
+	 *         {@code null} for the default package or if there is no such list and it is not
+	 *         created.
+	 *
+	 * @param packageFragment The package.
+	 * @param create Whether to create the list of a parent package if there is none.
+	 */
+	private List<IPackageFragment> getSiblings(IPackageFragment packageFragment, boolean create) {
+		String packageName= packageFragment.getElementName();
+		if (packageName.isEmpty()) {
+			return null;
+		}
+		String parentName= getParentName(packageName);
+		boolean hasParentPackage= parentName != null;
+		if (!hasParentPackage) {
+			return rootChildren;
+		}
+		List<IPackageFragment> siblings= packagesCache.get(parentName);
+		if (siblings == null && create) {
+			siblings= new ArrayList<>();
+			packagesCache.put(parentName, siblings);
+		}
+		return siblings;
+	}
+
+	private static String getParentName(String packageName) {
+		int index= packageName.lastIndexOf('.');
+		return index != -1 ? packageName.substring(0, index) : null;
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -95,8 +95,8 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	/**
 	 * We use a cache to know whether a package has a single child for the hierarchical representation.
 	 * This avoids looping over all packages for each call to
-	 * {@link #getHierarchicalPackageParent(IPackageFragment)}. The cache is cleared on any Java model
-	 * change, as we aim to improve operations which go over all packages on by one.
+	 * {@link #getHierarchicalPackageParent(IPackageFragment)}. Added and removed packages are applied
+	 * to the cache, so that it does not have to be rebuilt for each Java model change.
 	 */
 	private final PackageCache.PerRootCache packageCache;
 
@@ -128,7 +128,7 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	public void elementChanged(final ElementChangedEvent event) {
 		final ArrayList<Runnable> runnables= new ArrayList<>();
 		try {
-			clearPackageCache();
+			packageCache.processDelta(event.getDelta());
 
 			// 58952 delete project does not update Package Explorer [package explorer]
 			// if the input to the viewer is deleted then refresh to avoid the display of stale elements
@@ -428,23 +428,21 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	 * @throws JavaModelException if fetching the children fails
 	 */
 	private void getHierarchicalPackageRootChildren(IPackageFragmentRoot parent, Collection<Object> result) throws JavaModelException {
-		IJavaElement[] children= parent.getChildren();
 		boolean is9OrHigher= JavaModelUtil.is9OrHigher(parent.getJavaProject());
-		for (int i= 0; i < children.length; i++) {
-			IPackageFragment curr= (IPackageFragment) children[i];
-			String name= curr.getElementName();
-			if (!name.isEmpty() && name.indexOf('.') == -1) {
-				if (fFoldPackages) {
-					curr= getFolded(curr);
-				}
-				result.add(curr);
-			} else if (curr.isDefaultPackage()) {
-				if (isRelevantPackage(curr, is9OrHigher))
-					result.add(curr);
-				IJavaElement emptyModuleInfo= emptyModuleInfo(curr, is9OrHigher);
-				if (emptyModuleInfo != null)
-					result.add(emptyModuleInfo);
+		List<IPackageFragment> children= packageCache.getRootChildren(parent);
+		for (IPackageFragment curr : children) {
+			if (fFoldPackages) {
+				curr= getFolded(curr);
 			}
+			result.add(curr);
+		}
+		IPackageFragment defaultPackage= parent.getPackageFragment(IPackageFragment.DEFAULT_PACKAGE_NAME);
+		if (defaultPackage.exists()) {
+			if (isRelevantPackage(defaultPackage, is9OrHigher))
+				result.add(defaultPackage);
+			IJavaElement emptyModuleInfo= emptyModuleInfo(defaultPackage, is9OrHigher);
+			if (emptyModuleInfo != null)
+				result.add(emptyModuleInfo);
 		}
 
 		if (is9OrHigher) {
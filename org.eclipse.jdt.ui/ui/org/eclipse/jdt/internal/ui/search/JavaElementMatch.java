@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,41 +19,68 @@ import org.eclipse.search.ui.text.Match;
  * A search match with additional java-specific info.
  */
 public class JavaElementMatch extends Match {
-	private final int fAccuracy;
+
+	/* bits of fFlags, there can be a lot of matches */
+	private static final int WRITE_ACCESS= 1;
+	private static final int READ_ACCESS= 1 << 1;
+	private static final int JAVADOC= 1 << 2;
+	private static final int SUPER_INVOCATION= 1 << 3;
+	private static final int ACCURACY_SHIFT= 4;
+
 	private final int fMatchRule;
-	private final boolean fIsWriteAccess;
-	private final boolean fIsReadAccess;
-	private final boolean fIsJavadoc;
-	private final boolean fIsSuperInvocation;
+	private final int fFlags;
 
 	JavaElementMatch(Object element, int matchRule, int offset, int length, int accuracy, boolean isReadAccess, boolean isWriteAccess, boolean isJavadoc, boolean isSuperInvocation) {
+		this(element, matchRule, offset, length, getFlags(accuracy, isReadAccess, isWriteAccess, isJavadoc, isSuperInvocation));
+	}
+
+	JavaElementMatch(Object element, int matchRule, int offset, int length, int flags) {
 		super(element, offset, length);
-		fAccuracy= accuracy;
 		fMatchRule= matchRule;
-		fIsWriteAccess= isWriteAccess;
-		fIsReadAccess= isReadAccess;
-		fIsJavadoc= isJavadoc;
-		fIsSuperInvocation= isSuperInvocation;
+		fFlags= flags;
+	}
+
+	/**
+	 * Packs the accuracy and the kind of a match into one int.
+	 *
+	 * @param accuracy the accuracy
+	 * @param isReadAccess whether the match is a read access
+	 * @param isWriteAccess whether the match is a write access
+	 * @param isJavadoc whether the match is inside a doc comment
+	 * @param isSuperInvocation whether the match is a super invocation
+	 * @return the flags
+	 */
+	static int getFlags(int accuracy, boolean isReadAccess, boolean isWriteAccess, boolean isJavadoc, boolean isSuperInvocation) {
+		int flags= accuracy << ACCURACY_SHIFT;
+		if (isWriteAccess)
+			flags|= WRITE_ACCESS;
+		if (isReadAccess)
+			flags|= READ_ACCESS;
+		if (isJavadoc)
+			flags|= JAVADOC;
+		if (isSuperInvocation)
+			flags|= SUPER_INVOCATION;
+		return flags;
 	}
 
 	public int getAccuracy() {
-		return fAccuracy;
+		return fFlags >>> ACCURACY_SHIFT;
 	}
 
 	public boolean isWriteAccess() {
-		return fIsWriteAccess;
+		return (fFlags & WRITE_ACCESS) != 0;
 	}
 
 	public boolean isReadAccess() {
-		return fIsReadAccess;
+		return (fFlags & READ_ACCESS) != 0;
 	}
 
 	public boolean isJavadoc() {
-		return fIsJavadoc;
+		return (fFlags & JAVADOC) != 0;
 	}
 
 	public boolean isSuperInvocation() {
-		return fIsSuperInvocation;
+		return (fFlags & SUPER_INVOCATION) != 0;
 	}
 
 	public int getMatchRule() {
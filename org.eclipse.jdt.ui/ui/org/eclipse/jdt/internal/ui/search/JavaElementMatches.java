@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.search.ui.text.Match;
+import org.eclipse.search.ui.text.MatchFilter;
+
+/**
+ * The matches of the search engine in one element. The match rule, offset, length and flags of
+ * the matches are stored in primitive arrays, sorted by offset and length. The
+ * {@link JavaElementMatch}es are only created when the matches of the element are requested, for
+ * example when the element is shown in the search view or in an editor. From then on the created
+ * matches are kept, since their filter state and their positions are updated.
+ * <p>
+ * Not thread safe, the clients synchronize the access.
+ * </p>
+ */
+final class JavaElementMatches {
+
+	private static final int INITIAL_CAPACITY= 4;
+
+	private final Object fElement;
+
+	private int[] fMatchRules= new int[INITIAL_CAPACITY];
+	private int[] fOffsets= new int[INITIAL_CAPACITY];
+	private int[] fLengths= new int[INITIAL_CAPACITY];
+	private int[] fFlags= new int[INITIAL_CAPACITY];
+	private int fSize;
+
+	/** The created matches, in the order of the arrays, or <code>null</code> if not created */
+	private JavaElementMatch[] fMatches;
+
+	JavaElementMatches(Object element) {
+		fElement= element;
+	}
+
+	Object getElement() {
+		return fElement;
+	}
+
+	int size() {
+		return fSize;
+	}
+
+	boolean isEmpty() {
+		return fSize == 0;
+	}
+
+	boolean isCreated() {
+		return fMatches != null;
+	}
+
+	/**
+	 * Adds a match.
+	 *
+	 * @param matchRule the match rule
+	 * @param offset the offset
+	 * @param length the length
+	 * @param flags the flags, see {@link JavaElementMatch#getFlags(int, boolean, boolean, boolean, boolean)}
+	 * @param filters the active filters, or <code>null</code>
+	 * @return the new match if the matches of the element have been created, <code>null</code>
+	 *         otherwise
+	 */
+	JavaElementMatch add(int matchRule, int offset, int length, int flags, MatchFilter[] filters) {
+		// the matches of an element are usually found in the order of their offsets
+		int index= fSize;
+		while (index > 0 && (fOffsets[index - 1] > offset || fOffsets[index - 1] == offset && fLengths[index - 1] > length))
+			index--;
+		if (fSize == fOffsets.length) {
+			int capacity= fSize * 2;
+			fMatchRules= Arrays.copyOf(fMatchRules, capacity);
+			fOffsets= Arrays.copyOf(fOffsets, capacity);
+			fLengths= Arrays.copyOf(fLengths, capacity);
+			fFlags= Arrays.copyOf(fFlags, capacity);
+			if (fMatches != null)
+				fMatches= Arrays.copyOf(fMatches, capacity);
+		}
+		int moved= fSize - index;
+		System.arraycopy(fMatchRules, index, fMatchRules, index + 1, moved);
+		System.arraycopy(fOffsets, index, fOffsets, index + 1, moved);
+		System.arraycopy(fLengths, index, fLengths, index + 1, moved);
+		System.arraycopy(fFlags, index, fFlags, index + 1, moved);
+		fMatchRules[index]= matchRule;
+		fOffsets[index]= offset;
+		fLengths[index]= length;
+		fFlags[index]= flags;
+		fSize++;
+		if (fMatches == null)
+			return null;
+		System.arraycopy(fMatches, index, fMatches, index + 1, moved);
+		fMatches[index]= createMatch(index, filters);
+		return fMatches[index];
+	}
+
+	/**
+	 * Adds the matches of another instance for the same element.
+	 *
+	 * @param matches the matches to add
+	 * @param filters the active filters, or <code>null</code>
+	 * @param added receives the added matches, which are only kept if the matches of this element
+	 *            have been created
+	 */
+	void addAll(JavaElementMatches matches, MatchFilter[] filters, List<Match> added) {
+		for (int i= 0; i < matches.fSize; i++) {
+			JavaElementMatch match= add(matches.fMatchRules[i], matches.fOffsets[i], matches.fLengths[i], matches.fFlags[i], filters);
+			added.add(match != null ? match : matches.createMatch(i, filters));
+		}
+	}
+
+	/**
+	 * Returns the matches, creates them on the first call.
+	 *
+	 * @param filters the active filters, or <code>null</code>
+	 * @return the matches, sorted by offset and length
+	 */
+	Match[] getMatches(MatchFilter[] filters) {
+		if (fMatches == null) {
+			fMatches= new JavaElementMatch[fOffsets.length];
+			for (int i= 0; i < fSize; i++)
+				fMatches[i]= createMatch(i, filters);
+		}
+		Match[] matches= new Match[fSize];
+		System.arraycopy(fMatches, 0, matches, 0, fSize);
+		return matches;
+	}
+
+	/**
+	 * Returns the number of matches which are not filtered, without creating the matches.
+	 *
+	 * @param filters the active filters, or <code>null</code>
+	 * @return the number of matches which are not filtered
+	 */
+	int getUnfilteredCount(MatchFilter[] filters) {
+		if (fMatches == null && (filters == null || filters.length == 0))
+			return fSize;
+		int count= 0;
+		for (int i= 0; i < fSize; i++) {
+			boolean filtered= fMatches != null ? fMatches[i].isFiltered() : createMatch(i, filters).isFiltered();
+			if (!filtered)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Updates the filter state of the matches.
+	 *
+	 * @param oldFilters the previously active filters, or <code>null</code>
+	 * @param filters the active filters, or <code>null</code>
+	 * @param changed receives the matches whose filter state has changed, which are only kept if
+	 *            the matches of this element have been created
+	 */
+	void updateFilterState(MatchFilter[] oldFilters, MatchFilter[] filters, List<Match> changed) {
+		for (int i= 0; i < fSize; i++) {
+			JavaElementMatch match= fMatches != null ? fMatches[i] : createMatch(i, oldFilters);
+			boolean filtered= isFiltered(match, filters);
+			if (match.isFiltered() != filtered) {
+				match.setFiltered(filtered);
+				changed.add(match);
+			}
+		}
+	}
+
+	/**
+	 * Removes a created match.
+	 *
+	 * @param match the match to remove
+	 * @return <code>true</code> if the match has been removed
+	 */
+	boolean remove(Match match) {
+		if (fMatches == null)
+			return false;
+		for (int i= 0; i < fSize; i++) {
+			if (fMatches[i] == match) {
+				int moved= fSize - i - 1;
+				System.arraycopy(fMatchRules, i + 1, fMatchRules, i, moved);
+				System.arraycopy(fOffsets, i + 1, fOffsets, i, moved);
+				System.arraycopy(fLengths, i + 1, fLengths, i, moved);
+				System.arraycopy(fFlags, i + 1, fFlags, i, moved);
+				System.arraycopy(fMatches, i + 1, fMatches, i, moved);
+				fSize--;
+				fMatches[fSize]= null;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private JavaElementMatch createMatch(int index, MatchFilter[] filters) {
+		JavaElementMatch match= new JavaElementMatch(fElement, fMatchRules[index], fOffsets[index], fLengths[index], fFlags[index]);
+		match.setFiltered(isFiltered(match, filters));
+		return match;
+	}
+
+	private static boolean isFiltered(Match match, MatchFilter[] filters) {
+		if (filters != null) {
+			for (int i= 0; i < filters.length; i++) {
+				if (filters[i].filters(match))
+					return true;
+			}
+		}
+		return false;
+	}
+}
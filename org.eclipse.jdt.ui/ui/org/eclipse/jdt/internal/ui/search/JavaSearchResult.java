@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,16 +13,31 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.search;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.LocationKind;
+
 import org.eclipse.jface.resource.ImageDescriptor;
 
 import org.eclipse.search.ui.ISearchQuery;
+import org.eclipse.search.ui.ISearchResult;
+import org.eclipse.search.ui.text.FilterUpdateEvent;
 import org.eclipse.search.ui.text.Match;
+import org.eclipse.search.ui.text.MatchEvent;
 import org.eclipse.search.ui.text.MatchFilter;
 
 import org.eclipse.jdt.internal.corext.util.Messages;
@@ -31,11 +46,44 @@ import org.eclipse.jdt.ui.search.IMatchPresentation;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 
+/**
+ * The result of a {@link JavaSearchQuery}. The matches of the search engine are added with
+ * {@link #addMatches(Collection)} and stored in a {@link JavaElementMatches} per element, so that
+ * their {@link JavaElementMatch}es are only created when the matches of an element are requested.
+ * The matches of the query participants are stored by the super class.
+ */
 public class JavaSearchResult extends AbstractJavaSearchResult {
 
+	private static class JavaMatchEvent extends MatchEvent {
+
+		private static final long serialVersionUID= 1L;
+
+		JavaMatchEvent(ISearchResult searchResult, int kind, Match[] matches) {
+			super(searchResult);
+			setKind(kind);
+			setMatches(matches);
+		}
+	}
+
+	private static final Comparator<Match> MATCH_COMPARATOR= new Comparator<Match>() {
+		@Override
+		public int compare(Match o1, Match o2) {
+			int diff= o1.getOffset() - o2.getOffset();
+			if (diff != 0)
+				return diff;
+			return o1.getLength() - o2.getLength();
+		}
+	};
+
 	private final JavaSearchQuery fQuery;
 	private final Map<Object, IMatchPresentation> fElementsToParticipants;
 
+	/** The matches of the search engine by element, also the lock for them */
+	private final Map<Object, JavaElementMatches> fJavaMatches= new HashMap<>();
+
+	/** The number of matches in {@link #fJavaMatches} */
+	private int fJavaMatchCount;
+
 	public JavaSearchResult(JavaSearchQuery query) {
 		fQuery= query;
 		fElementsToParticipants= new HashMap<>();
@@ -61,8 +109,17 @@ public class JavaSearchResult extends AbstractJavaSearchResult {
 
 	@Override
 	public void setActiveMatchFilters(MatchFilter[] filters) {
+		MatchFilter[] oldFilters= getActiveMatchFilters();
 		super.setActiveMatchFilters(filters);
 		JavaMatchFilter.setLastUsedFilters(filters);
+
+		List<Match> changed= new ArrayList<>();
+		synchronized (fJavaMatches) {
+			for (JavaElementMatches matches : fJavaMatches.values())
+				matches.updateFilterState(oldFilters, getActiveMatchFilters(), changed);
+		}
+		if (!changed.isEmpty())
+			fireChange(new FilterUpdateEvent(this, changed.toArray(new Match[changed.size()]), getActiveMatchFilters()));
 	}
 
 	@Override
@@ -91,11 +148,113 @@ public class JavaSearchResult extends AbstractJavaSearchResult {
 		return true;
 	}
 
+	/**
+	 * Adds the matches of the search engine and informs the listeners once.
+	 *
+	 * @param batch the matches to add, at most one instance per element
+	 */
+	void addMatches(Collection<JavaElementMatches> batch) {
+		List<Match> added= new ArrayList<>();
+		synchronized (fJavaMatches) {
+			MatchFilter[] filters= getActiveMatchFilters();
+			for (JavaElementMatches matches : batch) {
+				Object element= matches.getElement();
+				JavaElementMatches existing= fJavaMatches.get(element);
+				if (existing == null) {
+					existing= new JavaElementMatches(element);
+					fJavaMatches.put(element, existing);
+					// the matches shown in an editor are tracked, so they are kept from the start
+					if (isInOpenBuffer(element))
+						existing.getMatches(filters);
+				}
+				existing.addAll(matches, filters, added);
+				fJavaMatchCount+= matches.size();
+			}
+		}
+		if (!added.isEmpty())
+			fireChange(new JavaMatchEvent(this, MatchEvent.ADDED, added.toArray(new Match[added.size()])));
+	}
+
+	private boolean isInOpenBuffer(Object element) {
+		IFile file= getFile(element);
+		return file != null && FileBuffers.getTextFileBufferManager().getTextFileBuffer(file.getFullPath(), LocationKind.IFILE) != null;
+	}
+
+	@Override
+	public Match[] getMatches(Object element) {
+		Match[] matches= super.getMatches(element);
+		Match[] javaMatches;
+		synchronized (fJavaMatches) {
+			JavaElementMatches elementMatches= fJavaMatches.get(element);
+			if (elementMatches == null)
+				return matches;
+			javaMatches= elementMatches.getMatches(getActiveMatchFilters());
+		}
+		if (matches.length == 0)
+			return javaMatches;
+		Match[] result= Arrays.copyOf(matches, matches.length + javaMatches.length);
+		System.arraycopy(javaMatches, 0, result, matches.length, javaMatches.length);
+		Arrays.sort(result, MATCH_COMPARATOR);
+		return result;
+	}
+
+	/**
+	 * Returns the number of matches of an element which are not filtered. Unlike
+	 * {@link #getMatches(Object)}, this does not create the matches of the search engine.
+	 *
+	 * @param element the element
+	 * @return the number of matches which are not filtered
+	 */
+	public int getUnfilteredMatchCount(Object element) {
+		int count= 0;
+		Match[] matches= super.getMatches(element);
+		for (int i= 0; i < matches.length; i++) {
+			if (!matches[i].isFiltered())
+				count++;
+		}
+		synchronized (fJavaMatches) {
+			JavaElementMatches elementMatches= fJavaMatches.get(element);
+			if (elementMatches != null)
+				count+= elementMatches.getUnfilteredCount(getActiveMatchFilters());
+		}
+		return count;
+	}
+
+	@Override
+	public int getMatchCount() {
+		int count= super.getMatchCount();
+		synchronized (fJavaMatches) {
+			return count + fJavaMatchCount;
+		}
+	}
+
+	@Override
+	public int getMatchCount(Object element) {
+		int count= super.getMatchCount(element);
+		synchronized (fJavaMatches) {
+			JavaElementMatches elementMatches= fJavaMatches.get(element);
+			return elementMatches != null ? count + elementMatches.size() : count;
+		}
+	}
+
+	@Override
+	public Object[] getElements() {
+		Set<Object> elements= new LinkedHashSet<>(Arrays.asList(super.getElements()));
+		synchronized (fJavaMatches) {
+			elements.addAll(fJavaMatches.keySet());
+		}
+		return elements.toArray();
+	}
+
 	@Override
 	public void removeAll() {
 		synchronized(this) {
 			fElementsToParticipants.clear();
 		}
+		synchronized (fJavaMatches) {
+			fJavaMatches.clear();
+			fJavaMatchCount= 0;
+		}
 		super.removeAll();
 	}
 
@@ -105,6 +264,30 @@ public class JavaSearchResult extends AbstractJavaSearchResult {
 			if (getMatchCount(match.getElement()) == 1)
 				fElementsToParticipants.remove(match.getElement());
 		}
-		super.removeMatch(match);
+		removeMatches(new Match[] { match });
+	}
+
+	@Override
+	public void removeMatches(Match[] matches) {
+		List<Match> removed= new ArrayList<>();
+		List<Match> others= new ArrayList<>();
+		synchronized (fJavaMatches) {
+			for (int i= 0; i < matches.length; i++) {
+				Object element= matches[i].getElement();
+				JavaElementMatches elementMatches= fJavaMatches.get(element);
+				if (elementMatches != null && elementMatches.remove(matches[i])) {
+					removed.add(matches[i]);
+					fJavaMatchCount--;
+					if (elementMatches.isEmpty())
+						fJavaMatches.remove(element);
+				} else {
+					others.add(matches[i]);
+				}
+			}
+		}
+		if (!others.isEmpty())
+			super.removeMatches(others.toArray(new Match[others.size()]));
+		if (!removed.isEmpty())
+			fireChange(new JavaMatchEvent(this, MatchEvent.REMOVED, removed.toArray(new Match[removed.size()])));
 	}
 }
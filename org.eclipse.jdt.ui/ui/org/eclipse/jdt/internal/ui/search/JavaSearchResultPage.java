@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -496,6 +496,15 @@ public class JavaSearchResultPage extends AbstractTextSearchViewPage implements
 		return label;
 	}
 
+	@Override
+	public int getDisplayedMatchCount(Object element) {
+		// counts the matches of the search engine without creating them
+		AbstractTextSearchResult input= getInput();
+		if (input instanceof JavaSearchResult)
+			return ((JavaSearchResult) input).getUnfilteredMatchCount(element);
+		return super.getDisplayedMatchCount(element);
+	}
+
 	private int getFilteredMatchCount() {
 		StructuredViewer viewer= getViewer();
 		if (viewer instanceof TreeViewer) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,9 +13,20 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.search;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.search.ui.text.AbstractTextSearchResult;
+import org.eclipse.search.ui.text.Match;
 
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.search.FieldDeclarationMatch;
@@ -27,14 +38,48 @@ import org.eclipse.jdt.core.search.SearchMatch;
 import org.eclipse.jdt.core.search.SearchParticipant;
 import org.eclipse.jdt.core.search.SearchRequestor;
 
+/**
+ * Collects the matches of a search into a search result. The matches are added in batches, so
+ * that the listeners of the result are informed once per batch instead of once per match. A
+ * batch is added when it is full or when its oldest match has been collected for some time, so
+ * that the matches still show up while the search is running, even if no further matches are
+ * found for a while.
+ * <p>
+ * The matches of a batch are stored in a {@link JavaElementMatches} per element. A
+ * {@link JavaSearchResult} takes them over without creating a {@link JavaElementMatch} per match.
+ * </p>
+ */
 public class NewSearchResultCollector extends SearchRequestor {
+
+	/** The maximal number of matches added at once */
+	private static final int MAX_BATCH_SIZE= 500;
+
+	/** The maximal time in milliseconds for which matches are kept before being added */
+	private static final long MAX_BATCH_DELAY= 200;
+
 	private AbstractTextSearchResult fSearch;
 	private boolean fIgnorePotentials;
 
+	/** The collected matches by element, also the lock for adding them to the search result */
+	private final Map<Object, JavaElementMatches> fBatch= new LinkedHashMap<>();
+
+	/** The number of matches in {@link #fBatch} */
+	private int fBatchSize;
+
+	/** Adds the batch when its oldest match is {@link #MAX_BATCH_DELAY} old */
+	private final Job fFlushJob= new Job(SearchMessages.NewSearchResultCollector_flush_job) {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			flush();
+			return Status.OK_STATUS;
+		}
+	};
+
 	public NewSearchResultCollector(AbstractTextSearchResult search, boolean ignorePotentials) {
 		super();
 		fSearch= search;
 		fIgnorePotentials= ignorePotentials;
+		fFlushJob.setSystem(true);
 	}
 
 	@Override
@@ -63,7 +108,44 @@ public class NewSearchResultCollector extends SearchRequestor {
 				MethodReferenceMatch methodRef= (MethodReferenceMatch) match;
 				isSuperInvocation= methodRef.isSuperInvocation();
 			}
-			fSearch.addMatch(new JavaElementMatch(enclosingElement, match.getRule(), match.getOffset(), match.getLength(), match.getAccuracy(), isReadAccess, isWriteAccess, match.isInsideDocComment(), isSuperInvocation));
+			int flags= JavaElementMatch.getFlags(match.getAccuracy(), isReadAccess, isWriteAccess, match.isInsideDocComment(), isSuperInvocation);
+			addMatch(enclosingElement, match.getRule(), match.getOffset(), match.getLength(), flags);
+		}
+	}
+
+	private void addMatch(Object element, int matchRule, int offset, int length, int flags) {
+		synchronized (fBatch) {
+			if (fBatchSize == 0)
+				fFlushJob.schedule(MAX_BATCH_DELAY);
+			JavaElementMatches matches= fBatch.get(element);
+			if (matches == null) {
+				matches= new JavaElementMatches(element);
+				fBatch.put(element, matches);
+			}
+			matches.add(matchRule, offset, length, flags, null);
+			fBatchSize++;
+			if (fBatchSize >= MAX_BATCH_SIZE)
+				flush();
+		}
+	}
+
+	/**
+	 * Adds the collected matches to the search result.
+	 */
+	public void flush() {
+		synchronized (fBatch) {
+			if (fBatchSize == 0)
+				return;
+			if (fSearch instanceof JavaSearchResult) {
+				((JavaSearchResult) fSearch).addMatches(fBatch.values());
+			} else {
+				List<Match> matches= new ArrayList<>(fBatchSize);
+				for (JavaElementMatches elementMatches : fBatch.values())
+					matches.addAll(Arrays.asList(elementMatches.getMatches(null)));
+				fSearch.addMatches(matches.toArray(new Match[matches.size()]));
+			}
+			fBatch.clear();
+			fBatchSize= 0;
 		}
 	}
 
@@ -73,6 +155,8 @@ public class NewSearchResultCollector extends SearchRequestor {
 
 	@Override
 	public void endReporting() {
+		fFlushJob.cancel();
+		flush();
 	}
 
 	@Override
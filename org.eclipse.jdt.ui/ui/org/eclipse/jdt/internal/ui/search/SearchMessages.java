@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -217,6 +217,7 @@ public final class SearchMessages extends NLS {
 	public static String JavaSearchResultPage_groupby_type;
 	public static String JavaSearchResultPage_groupby_type_tooltip;
 	public static String JavaSearchQuery_task_label;
+	public static String NewSearchResultCollector_flush_job;
 	public static String JavaSearchQuery_label;
 	public static String JavaSearchQuery_error_unsupported_pattern;
 	public static String JavaSearchQuery_singularReferencesWithMatchLocations;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -25,7 +25,6 @@ import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.search.ui.IQueryListener;
 import org.eclipse.search.ui.ISearchQuery;
 import org.eclipse.search.ui.NewSearchUI;
-import org.eclipse.search.ui.text.Match;
 
 import org.eclipse.jdt.core.ElementChangedEvent;
 import org.eclipse.jdt.core.IElementChangedListener;
@@ -70,19 +69,13 @@ public class SearchResultUpdater implements IElementChangedListener, IQueryListe
 					IJavaElement je= (IJavaElement)elements[i];
 					if (!je.exists()) {
 						//System.out.println("removing: "+je+" in "+fResult.getUserData());
-						Match[] matches= fResult.getMatches(elements[i]);
-						for (int j= 0; j < matches.length; j++) {
-							fResult.removeMatch(matches[j]);
-						}
+						fResult.removeMatches(fResult.getMatches(elements[i]));
 					}
 				} else if (elements[i] instanceof IResource) {
 					IResource resource= (IResource)elements[i];
 					if (!resource.exists()) {
 						//System.out.println("removing: "+resource+" in "+fResult.getUserData());
-						Match[] matches= fResult.getMatches(elements[i]);
-						for (int j= 0; j < matches.length; j++) {
-							fResult.removeMatch(matches[j]);
-						}
+						fResult.removeMatches(fResult.getMatches(elements[i]));
 					}
 
 				}
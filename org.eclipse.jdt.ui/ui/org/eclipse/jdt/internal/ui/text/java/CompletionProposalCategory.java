@@ -344,6 +344,22 @@ public final class CompletionProposalCategory {
 		return result;
 	}
 
+	/**
+	 * Returns the computers of this category that contribute to the given partition.
+	 *
+	 * @param partition the partition type where the invocation occurred
+	 * @return the descriptors of the computers of this category
+	 * @since 3.17
+	 */
+	List<CompletionProposalComputerDescriptor> getProposalComputerDescriptors(String partition) {
+		List<CompletionProposalComputerDescriptor> result= new ArrayList<>();
+		for (CompletionProposalComputerDescriptor desc : new ArrayList<>(fRegistry.getProposalComputerDescriptors(partition))) {
+			if (desc.getCategory() == this)
+				result.add(desc);
+		}
+		return result;
+	}
+
 	/**
 	 * Safely computes context information objects of all computers of this category through their
 	 * extension. If an extension is disabled, throws an exception or otherwise does not adhere to
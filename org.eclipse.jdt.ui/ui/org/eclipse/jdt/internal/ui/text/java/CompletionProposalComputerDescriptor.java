@@ -19,6 +19,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.osgi.framework.Bundle;
 
@@ -67,6 +68,8 @@ final class CompletionProposalComputerDescriptor {
 	private static final String ACTIVATE= "activate"; //$NON-NLS-1$
 	/** The extension schema name of the needsSortingAfterFiltering attribute. */
 	private static final String NEEDS_SORTING_AFTER_FILTERING= "needsSortingAfterFiltering"; //$NON-NLS-1$
+	/** The extension schema name of the threadSafe attribute. */
+	private static final String THREAD_SAFE= "threadSafe"; //$NON-NLS-1$
 	/** The extension schema name of the partition child elements. */
 	private static final String PARTITION= "partition"; //$NON-NLS-1$
 	/** Set of Java partition types. */
@@ -147,6 +150,28 @@ final class CompletionProposalComputerDescriptor {
 	 */
 	private boolean fNeedsSortingAfterFiltering;
 
+	/**
+	 * Tells whether the computer of this extension may be invoked from a thread other than the UI
+	 * thread.
+	 *
+	 * @since 3.17
+	 */
+	private final boolean fIsThreadSafe;
+
+	/**
+	 * The latencies of the completion proposal computations of this extension.
+	 *
+	 * @since 3.17
+	 */
+	private final LatencyHistogram fLatency= new LatencyHistogram();
+
+	/**
+	 * Tells whether a concurrent completion proposal computation of this extension is running.
+	 *
+	 * @since 3.17
+	 */
+	private final AtomicBoolean fIsComputingConcurrently= new AtomicBoolean();
+
 
 	/**
 	 * Creates a new descriptor.
@@ -192,6 +217,8 @@ final class CompletionProposalComputerDescriptor {
 		String needsSortingAfterFilteringAttribute= element.getAttribute(NEEDS_SORTING_AFTER_FILTERING);
 		fNeedsSortingAfterFiltering= Boolean.valueOf(needsSortingAfterFilteringAttribute).booleanValue();
 
+		fIsThreadSafe= Boolean.valueOf(element.getAttribute(THREAD_SAFE)).booleanValue();
+
 		fClass= element.getAttribute(CLASS);
 		checkNotNull(fClass, CLASS);
 
@@ -333,7 +360,9 @@ final class CompletionProposalComputerDescriptor {
 
 			try {
 				PerformanceStats stats= startMeter(context, computer);
+				long start= System.currentTimeMillis();
 				List<ICompletionProposal> proposals= computer.computeCompletionProposals(context, monitor);
+				fLatency.record(System.currentTimeMillis() - start);
 				stopMeter(stats, COMPUTE_COMPLETION_PROPOSALS);
 
 				if (proposals != null) {
@@ -582,6 +611,51 @@ final class CompletionProposalComputerDescriptor {
         }
     }
 
+	/**
+	 * Returns the histogram of the latencies of the completion proposal computations of the
+	 * described extension.
+	 *
+	 * @return the latency histogram
+	 * @since 3.17
+	 */
+	public LatencyHistogram getLatencyHistogram() {
+		return fLatency;
+	}
+
+	/**
+	 * Marks the start of a concurrent completion proposal computation. A computation is not
+	 * started while the previous one is still running, since computers are not required to be
+	 * reentrant.
+	 *
+	 * @return <code>true</code> if the computation may start, <code>false</code> if a previous
+	 *         computation is still running
+	 * @since 3.17
+	 */
+	boolean beginConcurrentComputation() {
+		return fIsComputingConcurrently.compareAndSet(false, true);
+	}
+
+	/**
+	 * Marks the end of a concurrent completion proposal computation.
+	 *
+	 * @since 3.17
+	 */
+	void endConcurrentComputation() {
+		fIsComputingConcurrently.set(false);
+	}
+
+	/**
+	 * Returns the <code>threadSafe</code> flag of the described extension. Computers which are not
+	 * thread safe are always invoked on the UI thread, since they may access the widgets of the
+	 * viewer.
+	 *
+	 * @return <code>true</code> if the computer may be invoked from a worker thread
+	 * @since 3.17
+	 */
+	boolean isThreadSafe() {
+		return fIsThreadSafe;
+	}
+
 	/**
 	 * Returns the <code>needsSortingAfterFiltering</code> flag of the described extension.
 	 * 
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+
+import org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Invokes the completion proposal computers of several categories concurrently on a shared,
+ * bounded pool of worker threads and collects their results within a latency budget.
+ * <p>
+ * Only the computers which declare themselves thread safe are invoked on the worker threads,
+ * see {@link CompletionProposalComputerDescriptor#isThreadSafe()}. All other computers may
+ * access the widgets of the viewer and are invoked on the calling thread while the thread safe
+ * computers are running.
+ * </p>
+ * <p>
+ * Results of computers that do not finish within the budget are dropped; the computers are
+ * asked to stop through their progress monitor and are not invoked again until they have
+ * returned. The collected proposals are always in category and computer order, independent
+ * of the order in which the computers finish.
+ * </p>
+ *
+ * @since 3.17
+ */
+final class ConcurrentCompletionProposalCollector {
+
+	private static final int THREAD_COUNT= Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	private static ThreadPoolExecutor fgExecutor;
+
+	/**
+	 * The result of a category.
+	 */
+	static final class CategoryResult {
+		final CompletionProposalCategory fCategory;
+		final List<ICompletionProposal> fProposals= new ArrayList<>();
+		String fErrorMessage;
+
+		CategoryResult(CompletionProposalCategory category) {
+			fCategory= category;
+		}
+	}
+
+	private static final class Task {
+		final CompletionProposalComputerDescriptor fDescriptor;
+		final CategoryResult fResult;
+		/** The future of a computer invoked on a worker thread, or <code>null</code> */
+		Future<List<ICompletionProposal>> fFuture;
+		/** The proposals of a computer invoked on the calling thread */
+		List<ICompletionProposal> fProposals;
+
+		Task(CompletionProposalComputerDescriptor descriptor, CategoryResult result) {
+			fDescriptor= descriptor;
+			fResult= result;
+		}
+	}
+
+	private ConcurrentCompletionProposalCollector() {
+	}
+
+	/**
+	 * Computes the completion proposals of all computers of the given categories.
+	 *
+	 * @param categories the categories to invoke
+	 * @param context the invocation context
+	 * @param partition the partition type where the invocation occurred
+	 * @param monitor the progress monitor, must not be <code>null</code>
+	 * @param budget the latency budget in milliseconds
+	 * @return the results, one for each category in the order of <code>categories</code>
+	 */
+	static List<CategoryResult> computeCompletionProposals(List<CompletionProposalCategory> categories, final ContentAssistInvocationContext context, String partition, final IProgressMonitor monitor, long budget) {
+		long deadline= System.currentTimeMillis() + budget;
+		final AtomicBoolean expired= new AtomicBoolean();
+		final IProgressMonitor workerMonitor= new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return expired.get() || monitor.isCanceled();
+			}
+		};
+
+		List<CategoryResult> results= new ArrayList<>(categories.size());
+		List<Task> tasks= new ArrayList<>();
+		for (CompletionProposalCategory category : categories) {
+			CategoryResult result= new CategoryResult(category);
+			results.add(result);
+			for (final CompletionProposalComputerDescriptor descriptor : category.getProposalComputerDescriptors(partition)) {
+				Task task= new Task(descriptor, result);
+				if (descriptor.isThreadSafe()) {
+					if (!descriptor.beginConcurrentComputation()) {
+						descriptor.getLatencyHistogram().recordLate();
+						continue;
+					}
+					task.fFuture= getExecutor().submit(new Callable<List<ICompletionProposal>>() {
+						@Override
+						public List<ICompletionProposal> call() {
+							try {
+								return descriptor.computeCompletionProposals(context, workerMonitor);
+							} finally {
+								descriptor.endConcurrentComputation();
+							}
+						}
+					});
+				}
+				tasks.add(task);
+			}
+			monitor.worked(1);
+		}
+
+		// the other computers may access the widgets, they run here while the workers are busy
+		for (Task task : tasks) {
+			if (task.fFuture == null)
+				task.fProposals= task.fDescriptor.computeCompletionProposals(context, workerMonitor);
+		}
+
+		for (Task task : tasks) {
+			List<ICompletionProposal> proposals= task.fFuture != null ? getProposals(task, deadline) : task.fProposals;
+			if (proposals == null) {
+				expired.set(true);
+				task.fDescriptor.getLatencyHistogram().recordLate();
+				if (JavaPlugin.DEBUG_RESULT_COLLECTOR)
+					System.err.println("Code Assist: dropped late proposals of " + task.fDescriptor.getId() + " (" + task.fDescriptor.getLatencyHistogram() + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				continue;
+			}
+			task.fResult.fProposals.addAll(proposals);
+			if (task.fResult.fErrorMessage == null)
+				task.fResult.fErrorMessage= task.fDescriptor.getErrorMessage();
+		}
+		expired.set(true);
+		return results;
+	}
+
+	private static List<ICompletionProposal> getProposals(Task task, long deadline) {
+		try {
+			long remaining= Math.max(0, deadline - System.currentTimeMillis());
+			return task.fFuture.get(remaining, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			// descriptors handle all exceptions of the computers, see CompletionProposalComputerDescriptor
+			JavaPlugin.log(e.getCause());
+			return Collections.emptyList();
+		}
+	}
+
+	private static synchronized ThreadPoolExecutor getExecutor() {
+		if (fgExecutor == null) {
+			fgExecutor= new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				private final AtomicInteger fCount= new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread= new Thread(runnable, "Completion Proposal Computer " + fCount.incrementAndGet()); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			fgExecutor.allowCoreThreadTimeOut(true);
+		}
+		return fgExecutor;
+	}
+}
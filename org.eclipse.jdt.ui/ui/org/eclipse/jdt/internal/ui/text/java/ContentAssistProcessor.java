@@ -222,6 +222,24 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 	 */
 	private static final String PREF_WARN_ABOUT_EMPTY_ASSIST_CATEGORY= "EmptyDefaultAssistCategory"; //$NON-NLS-1$
 
+	/**
+	 * Preference key that tells whether the completion proposal computers are invoked
+	 * concurrently. Not exposed in the UI.
+	 *
+	 * @since 3.17
+	 */
+	static final String PREF_CONCURRENT_COMPUTERS= "content_assist_concurrent_computers"; //$NON-NLS-1$
+
+	/**
+	 * Preference key of the latency budget in milliseconds for concurrently invoked completion
+	 * proposal computers. Not exposed in the UI.
+	 *
+	 * @since 3.17
+	 */
+	static final String PREF_COMPUTER_LATENCY_BUDGET= "content_assist_computer_latency_budget"; //$NON-NLS-1$
+
+	private static final int DEFAULT_COMPUTER_LATENCY_BUDGET= 1000;
+
 	private static final Comparator<CompletionProposalCategory> ORDER_COMPARATOR= new Comparator<CompletionProposalCategory>() {
 
 		@Override
@@ -327,6 +345,10 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 	 * @return the list of proposals
 	 */
 	private List<ICompletionProposal> collectProposals(ITextViewer viewer, int offset, IProgressMonitor monitor, ContentAssistInvocationContext context) {
+		IPreferenceStore store= JavaPlugin.getDefault().getPreferenceStore();
+		if (store.getBoolean(PREF_CONCURRENT_COMPUTERS))
+			return collectProposalsConcurrently(monitor, context, store.getInt(PREF_COMPUTER_LATENCY_BUDGET));
+
 		boolean needsSortingAfterFiltering= false;
 		List<ICompletionProposal> proposals= new ArrayList<>();
 		List<CompletionProposalCategory> providers= getCategories();
@@ -343,6 +365,35 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		return proposals;
 	}
 
+	/**
+	 * Collects the proposals by invoking all computers concurrently. Proposals of computers that
+	 * exceed the latency budget are dropped.
+	 *
+	 * @param monitor the progress monitor
+	 * @param context the code assist invocation context
+	 * @param budget the latency budget in milliseconds, or <code>0</code> for the default
+	 * @return the list of proposals
+	 * @since 3.17
+	 */
+	private List<ICompletionProposal> collectProposalsConcurrently(IProgressMonitor monitor, ContentAssistInvocationContext context, int budget) {
+		if (budget <= 0)
+			budget= DEFAULT_COMPUTER_LATENCY_BUDGET;
+
+		boolean needsSortingAfterFiltering= false;
+		List<ICompletionProposal> proposals= new ArrayList<>();
+		List<ConcurrentCompletionProposalCollector.CategoryResult> results= ConcurrentCompletionProposalCollector.computeCompletionProposals(getCategories(), context, fPartition, monitor, budget);
+		for (ConcurrentCompletionProposalCollector.CategoryResult result : results) {
+			proposals.addAll(result.fProposals);
+			needsSortingAfterFiltering= needsSortingAfterFiltering || (result.fCategory.isSortingAfterFilteringNeeded() && !result.fProposals.isEmpty());
+			if (fErrorMessage == null)
+				fErrorMessage= result.fErrorMessage;
+		}
+		if (fNeedsSortingAfterFiltering && !needsSortingAfterFiltering)
+			fAssistant.setSorter(null);
+		fNeedsSortingAfterFiltering= needsSortingAfterFiltering;
+		return proposals;
+	}
+
 	/**
 	 * Filters and sorts the proposals. The passed list may be modified
 	 * and returned, or a new list may be created and returned.
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe histogram of the latencies of a completion proposal computer. Bucket
+ * <code>i</code> counts the invocations that took less than <code>2^i</code> milliseconds, the
+ * last bucket counts all slower invocations.
+ *
+ * @since 3.17
+ */
+public final class LatencyHistogram {
+
+	/** Number of buckets, the last bucket holds invocations of 4096 ms or more. */
+	public static final int BUCKET_COUNT= 14;
+
+	private final AtomicLongArray fBuckets= new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong fCount= new AtomicLong();
+	private final AtomicLong fTotalMillis= new AtomicLong();
+	private final AtomicLong fMaxMillis= new AtomicLong();
+	private final AtomicLong fLateCount= new AtomicLong();
+
+	/**
+	 * Records one invocation.
+	 *
+	 * @param millis the duration of the invocation in milliseconds
+	 */
+	public void record(long millis) {
+		if (millis < 0)
+			millis= 0;
+		int bucket= 0;
+		while (bucket < BUCKET_COUNT - 1 && millis >= (1L << bucket))
+			bucket++;
+		fBuckets.incrementAndGet(bucket);
+		fCount.incrementAndGet();
+		fTotalMillis.addAndGet(millis);
+
+		long max;
+		do {
+			max= fMaxMillis.get();
+		} while (millis > max && !fMaxMillis.compareAndSet(max, millis));
+	}
+
+	/**
+	 * Records that the result of an invocation arrived after the latency budget was exhausted
+	 * and has been dropped.
+	 */
+	public void recordLate() {
+		fLateCount.incrementAndGet();
+	}
+
+	/**
+	 * @param bucket the bucket index, <code>0 &lt;= bucket &lt; BUCKET_COUNT</code>
+	 * @return the number of invocations recorded in the given bucket
+	 */
+	public long getBucketCount(int bucket) {
+		return fBuckets.get(bucket);
+	}
+
+	public long getCount() {
+		return fCount.get();
+	}
+
+	public long getLateCount() {
+		return fLateCount.get();
+	}
+
+	public long getMaxMillis() {
+		return fMaxMillis.get();
+	}
+
+	public long getAverageMillis() {
+		long count= fCount.get();
+		return count == 0 ? 0 : fTotalMillis.get() / count;
+	}
+
+	/**
+	 * Returns an upper bound of the latency below which the given fraction of all recorded
+	 * invocations completed.
+	 *
+	 * @param fraction the fraction, e.g. <code>0.95</code>
+	 * @return the upper bound in milliseconds of the bucket containing the percentile, or
+	 *         {@link Long#MAX_VALUE} if it falls into the last bucket
+	 */
+	public long getPercentileMillis(double fraction) {
+		long count= fCount.get();
+		if (count == 0)
+			return 0;
+		long threshold= (long) Math.ceil(count * fraction);
+		long seen= 0;
+		for (int i= 0; i < BUCKET_COUNT - 1; i++) {
+			seen+= fBuckets.get(i);
+			if (seen >= threshold)
+				return 1L << i;
+		}
+		return Long.MAX_VALUE;
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer buf= new StringBuffer();
+		buf.append("count=").append(getCount()); //$NON-NLS-1$
+		buf.append(", avg=").append(getAverageMillis()).append("ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		buf.append(", max=").append(getMaxMillis()).append("ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		buf.append(", late=").append(getLateCount()); //$NON-NLS-1$
+		buf.append(", buckets=["); //$NON-NLS-1$
+		for (int i= 0; i < BUCKET_COUNT; i++) {
+			if (i > 0)
+				buf.append(", "); //$NON-NLS-1$
+			buf.append(i < BUCKET_COUNT - 1 ? "<" + (1L << i) : ">=" + (1L << (i - 1))).append(':').append(fBuckets.get(i)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		buf.append(']');
+		return buf.toString();
+	}
+}
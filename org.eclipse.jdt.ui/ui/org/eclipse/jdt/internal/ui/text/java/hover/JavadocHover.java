@@ -698,7 +698,7 @@ public class JavadocHover extends AbstractJavaEditorTextHover {
 			try {
 				if (elements[i] instanceof IPackageFragment) {
 					IPackageFragment packageFragment= (IPackageFragment) elements[i];
-					if (JavadocContentAccess2.getHTMLContent(packageFragment) != null)
+					if (JavaPlugin.getDefault().getJavadocContentCache().getHTMLContent(packageFragment, true) != null)
 						return new IJavaElement[] { packageFragment };
 				}
 			} catch (CoreException e) {
@@ -757,7 +757,7 @@ public class JavadocHover extends AbstractJavaEditorTextHover {
 				addAnnotations(buffer, element, editorInputElement, hoverRegion);
 				Reader reader= null;
 				try {
-					String content= JavadocContentAccess2.getHTMLContent(element, true);
+					String content= JavaPlugin.getDefault().getJavadocContentCache().getHTMLContent(element, true);
 					IPackageFragmentRoot root= (IPackageFragmentRoot) element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
 					boolean isBinary= root.exists() && root.getKind() == IPackageFragmentRoot.K_BINARY;
 					if (content != null) {
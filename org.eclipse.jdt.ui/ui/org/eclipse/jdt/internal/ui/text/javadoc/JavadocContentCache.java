@@ -0,0 +1,421 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.javadoc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IPackageDeclaration;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.corext.javadoc.JavaDocLocations;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Caches the HTML rendered by {@link JavadocContentAccess2#getHTMLContent(IJavaElement, boolean)}
+ * for the Javadoc hover and the Javadoc view.
+ * <p>
+ * The memory tier holds the most recently used elements. Entries of source elements are dropped
+ * whenever a compilation unit or a non-Java resource of a source folder changes, since Javadoc
+ * can be inherited across files. Entries of binary elements are dropped when their package
+ * fragment root, its source attachment or a classpath changes.
+ * </p>
+ * <p>
+ * If the hidden preference {@link #PREF_DISK_CACHE} is set, the HTML of binary elements is also
+ * stored in the state location. The entries on disk are keyed by the element handle and a stamp
+ * of the classpath entry, which consists of the length and modification time of the archive and
+ * of the source attachment and of the Javadoc location.
+ * </p>
+ *
+ * @since 3.17
+ */
+public class JavadocContentCache implements IElementChangedListener {
+
+	/**
+	 * Hidden preference key: if <code>true</code>, the Javadoc of binary elements is also cached
+	 * on disk.
+	 */
+	public static final String PREF_DISK_CACHE= "javadoc_content_disk_cache"; //$NON-NLS-1$
+
+	private static final int MAX_MEMORY_ENTRIES= 500;
+	private static final int MAX_DISK_ENTRIES= 5000;
+	private static final int DISK_FORMAT_VERSION= 1;
+
+	/** Cached value of elements without Javadoc */
+	private static final String NO_CONTENT= new String();
+
+	private static class CachedContent {
+		final String fContent;
+		final IPackageFragmentRoot fRoot;
+		final boolean fIsBinary;
+
+		CachedContent(String content, IPackageFragmentRoot root, boolean isBinary) {
+			fContent= content;
+			fRoot= root;
+			fIsBinary= isBinary;
+		}
+	}
+
+	private final LinkedHashMap<String, CachedContent> fEntries= new LinkedHashMap<String, CachedContent>(64, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedContent> eldest) {
+			return size() > MAX_MEMORY_ENTRIES;
+		}
+	};
+
+	/** The stamps of the classpath entries of binary roots */
+	private final Map<IPackageFragmentRoot, String> fRootStamps= new HashMap<>();
+
+	/** Incremented whenever entries are invalidated */
+	private long fGeneration;
+
+	private int fDiskWrites;
+
+	/** The maximum number of entries on disk */
+	private final int fMaxDiskEntries;
+
+	/** The number of disk writes after which the entries on disk are pruned */
+	private final int fPruneInterval;
+
+	public JavadocContentCache() {
+		this(MAX_DISK_ENTRIES);
+	}
+
+	/**
+	 * Creates a cache whose disk tier keeps at most the given number of entries. The least
+	 * recently used entries are pruned after every tenth of that number of writes, but at least
+	 * every 100 writes.
+	 *
+	 * @param maxDiskEntries the maximum number of entries on disk
+	 */
+	public JavadocContentCache(int maxDiskEntries) {
+		fMaxDiskEntries= maxDiskEntries;
+		fPruneInterval= Math.max(1, Math.min(100, maxDiskEntries / 10));
+		JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+	}
+
+	/**
+	 * Disposes this cache.
+	 */
+	public void dispose() {
+		JavaCore.removeElementChangedListener(this);
+		clear();
+	}
+
+	/**
+	 * Returns the Javadoc of the given element in HTML, like
+	 * {@link JavadocContentAccess2#getHTMLContent(IJavaElement, boolean)} does.
+	 *
+	 * @param element the element to get the Javadoc of
+	 * @param useAttachedJavadoc if <code>true</code> Javadoc will be extracted from attached
+	 *            Javadoc if there's no source
+	 * @return the Javadoc content in HTML or <code>null</code> if the element does not have a
+	 *         Javadoc comment or if no source is available
+	 * @throws CoreException is thrown when the element's Javadoc cannot be accessed
+	 */
+	public String getHTMLContent(IJavaElement element, boolean useAttachedJavadoc) throws CoreException {
+		if (element instanceof IPackageDeclaration) {
+			IJavaElement pack= element.getAncestor(IJavaElement.PACKAGE_FRAGMENT);
+			if (pack != null)
+				element= pack;
+		}
+		IPackageFragmentRoot root= (IPackageFragmentRoot) element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+		if (root == null)
+			return JavadocContentAccess2.getHTMLContent(element, useAttachedJavadoc);
+
+		boolean isBinary= isBinary(root);
+		String key= element.getHandleIdentifier() + '|' + useAttachedJavadoc;
+		long generation;
+		synchronized (this) {
+			CachedContent cached= fEntries.get(key);
+			if (cached != null)
+				return toContent(cached.fContent);
+			generation= fGeneration;
+		}
+
+		File diskEntry= null;
+		String diskKey= null;
+		String content= null;
+		if (isBinary && isDiskCacheEnabled()) {
+			String stamp= getRootStamp(root);
+			if (stamp != null) {
+				diskKey= stamp + '#' + key;
+				diskEntry= getDiskEntry(diskKey);
+				content= readDiskEntry(diskEntry, diskKey);
+			}
+		}
+
+		if (content == null) {
+			content= JavadocContentAccess2.getHTMLContent(element, useAttachedJavadoc);
+			if (content == null)
+				content= NO_CONTENT;
+			if (diskEntry != null)
+				writeDiskEntry(diskEntry, diskKey, content);
+		}
+
+		synchronized (this) {
+			// don't store the content if it has been invalidated in the meantime
+			if (generation == fGeneration)
+				fEntries.put(key, new CachedContent(content, root, isBinary));
+		}
+		return toContent(content);
+	}
+
+	/**
+	 * Clears the memory tier of the cache.
+	 */
+	public synchronized void clear() {
+		fEntries.clear();
+		fRootStamps.clear();
+		fGeneration++;
+	}
+
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		processDelta(event.getDelta());
+	}
+
+	private void processDelta(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		int flags= delta.getFlags();
+		boolean isChanged= delta.getKind() == IJavaElementDelta.CHANGED;
+
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				break;
+			case IJavaElement.JAVA_PROJECT:
+				if (!isChanged || (flags & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+					clear();
+					return;
+				}
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				IPackageFragmentRoot root= (IPackageFragmentRoot) element;
+				if (!isChanged || (flags & (IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_SOURCEATTACHED | IJavaElementDelta.F_SOURCEDETACHED
+						| IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH | IJavaElementDelta.F_CLASSPATH_CHANGED)) != 0) {
+					// source elements can inherit the Javadoc of binary elements
+					invalidate(root);
+					return;
+				}
+				break;
+			case IJavaElement.CLASS_FILE:
+				// class folders
+				invalidate((IPackageFragmentRoot) element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT));
+				return;
+			default:
+				// compilation units, packages and their members
+				invalidate(null);
+				return;
+		}
+
+		if (delta.getResourceDeltas() != null) {
+			// e.g. package.html
+			invalidate(null);
+		}
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++)
+			processDelta(children[i]);
+	}
+
+	/**
+	 * Invalidates the entries of all source elements and of the elements of the given root.
+	 *
+	 * @param root the root whose entries are invalidated, or <code>null</code>
+	 */
+	private synchronized void invalidate(IPackageFragmentRoot root) {
+		for (Iterator<CachedContent> iter= fEntries.values().iterator(); iter.hasNext();) {
+			CachedContent cached= iter.next();
+			if (!cached.fIsBinary || (root != null && root.equals(cached.fRoot)))
+				iter.remove();
+		}
+		if (root != null)
+			fRootStamps.remove(root);
+		fGeneration++;
+	}
+
+	private static String toContent(String cached) {
+		return cached == NO_CONTENT ? null : cached;
+	}
+
+	private static boolean isBinary(IPackageFragmentRoot root) {
+		try {
+			return root.getKind() == IPackageFragmentRoot.K_BINARY;
+		} catch (JavaModelException e) {
+			return false;
+		}
+	}
+
+	private static boolean isDiskCacheEnabled() {
+		return JavaPlugin.getDefault().getPreferenceStore().getBoolean(PREF_DISK_CACHE);
+	}
+
+	// ---- disk tier ----
+
+	/**
+	 * Returns the stamp of the classpath entry of the given binary root.
+	 *
+	 * @param root the root
+	 * @return the stamp, or <code>null</code> if the root cannot be stamped
+	 */
+	private String getRootStamp(IPackageFragmentRoot root) {
+		synchronized (this) {
+			String stamp= fRootStamps.get(root);
+			if (stamp != null)
+				return stamp;
+		}
+		try {
+			IClasspathEntry entry= root.getResolvedClasspathEntry();
+			StringBuilder buf= new StringBuilder();
+			appendFileStamp(buf, root.getPath(), root.getResource());
+			buf.append('|');
+			IPath sourceAttachment= entry.getSourceAttachmentPath();
+			if (sourceAttachment != null)
+				appendFileStamp(buf, sourceAttachment, root.getJavaModel().getWorkspace().getRoot().findMember(sourceAttachment));
+			buf.append('|');
+			URL javadocLocation= JavaDocLocations.getLibraryJavadocLocation(entry);
+			if (javadocLocation != null)
+				buf.append(javadocLocation.toExternalForm());
+			String stamp= buf.toString();
+			synchronized (this) {
+				fRootStamps.put(root, stamp);
+			}
+			return stamp;
+		} catch (JavaModelException e) {
+			return null;
+		}
+	}
+
+	private static void appendFileStamp(StringBuilder buf, IPath path, IResource resource) {
+		buf.append(path.toPortableString());
+		IPath location= resource != null ? resource.getLocation() : path;
+		if (location != null) {
+			File file= location.toFile();
+			buf.append(':').append(file.length()).append(':').append(file.lastModified());
+		}
+	}
+
+	private static File getDiskCacheDirectory() {
+		return JavaPlugin.getDefault().getStateLocation().append("javadoc").toFile(); //$NON-NLS-1$
+	}
+
+	private static File getDiskEntry(String diskKey) {
+		return new File(getDiskCacheDirectory(), Integer.toHexString(diskKey.hashCode()) + '_' + Integer.toHexString(diskKey.length()) + ".html"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Reads a cached entry from disk.
+	 *
+	 * @param file the file of the entry
+	 * @param diskKey the key of the entry
+	 * @return the content, {@link #NO_CONTENT}, or <code>null</code> if the entry is not on disk
+	 */
+	private static String readDiskEntry(File file, String diskKey) {
+		if (!file.isFile())
+			return null;
+		try (DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != DISK_FORMAT_VERSION || !diskKey.equals(in.readUTF()))
+				return null;
+			if (!in.readBoolean())
+				return NO_CONTENT;
+			byte[] bytes= new byte[in.readInt()];
+			in.readFully(bytes);
+			// least recently used entries are pruned first
+			file.setLastModified(System.currentTimeMillis());
+			return new String(bytes, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private void writeDiskEntry(File file, String diskKey, String content) {
+		File directory= file.getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs())
+			return;
+		File temporary= new File(directory, file.getName() + '.' + Thread.currentThread().getId() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+				out.writeInt(DISK_FORMAT_VERSION);
+				out.writeUTF(diskKey);
+				out.writeBoolean(content != NO_CONTENT);
+				if (content != NO_CONTENT) {
+					byte[] bytes= content.getBytes(StandardCharsets.UTF_8);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+				}
+			}
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			temporary.delete();
+			JavaPlugin.log(e);
+			return;
+		}
+
+		boolean prune;
+		synchronized (this) {
+			prune= ++fDiskWrites % fPruneInterval == 0;
+		}
+		if (prune)
+			pruneDiskCache(directory);
+	}
+
+	private void pruneDiskCache(File directory) {
+		File[] files= directory.listFiles();
+		if (files == null || files.length <= fMaxDiskEntries)
+			return;
+		final long[] lastModified= new long[files.length];
+		Integer[] order= new Integer[files.length];
+		for (int i= 0; i < files.length; i++) {
+			lastModified[i]= files[i].lastModified();
+			order[i]= Integer.valueOf(i);
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Long.compare(lastModified[o1.intValue()], lastModified[o2.intValue()]);
+			}
+		});
+		for (int i= 0, n= files.length - fMaxDiskEntries; i < n; i++)
+			files[order[i].intValue()].delete();
+	}
+}
@@ -45,6 +45,7 @@ import org.eclipse.ui.editors.text.EditorsUI;
 import org.eclipse.jdt.ui.PreferenceConstants;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.CompiledSpellDictionary;
 import org.eclipse.jdt.internal.ui.text.spelling.engine.DefaultSpellChecker;
 import org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellCheckEngine;
 import org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellChecker;
@@ -63,6 +64,14 @@ public class SpellCheckEngine implements ISpellCheckEngine, IPropertyChangeListe
 	/** The dictionary location */
 	public static final String DICTIONARY_LOCATION= "dictionaries/"; //$NON-NLS-1$
 
+	/**
+	 * Hidden preference key: if <code>true</code>, the built-in and the user dictionaries are
+	 * compiled into memory-mapped files, see {@link CompiledSpellDictionary}.
+	 *
+	 * @since 3.17
+	 */
+	public static final String PREF_COMPILED_DICTIONARIES= "spelling_compiled_dictionaries"; //$NON-NLS-1$
+
 	/** The singleton engine instance */
 	private static ISpellCheckEngine fgEngine= null;
 
@@ -282,7 +291,10 @@ public class SpellCheckEngine implements ISpellCheckEngine, IPropertyChangeListe
 				for (final Iterator<Locale> iterator= getLocalesWithInstalledDictionaries(location).iterator(); iterator.hasNext();) {
 
 					locale= iterator.next();
-					fLocaleDictionaries.put(locale, new LocaleSensitiveSpellDictionary(locale, location));
+					if (useCompiledDictionaries())
+						fLocaleDictionaries.put(locale, new CompiledSpellDictionary(new URL(location, locale.toString() + ".dictionary"), getCompiledDictionaryDirectory(), false)); //$NON-NLS-1$
+					else
+						fLocaleDictionaries.put(locale, new LocaleSensitiveSpellDictionary(locale, location));
 				}
 			}
 
@@ -294,6 +306,26 @@ public class SpellCheckEngine implements ISpellCheckEngine, IPropertyChangeListe
 		EditorsUI.getPreferenceStore().addPropertyChangeListener(this);
 	}
 
+	/**
+	 * Tells whether the dictionaries are compiled into memory-mapped files.
+	 *
+	 * @return <code>true</code> if {@link CompiledSpellDictionary} is used
+	 * @since 3.17
+	 */
+	private static boolean useCompiledDictionaries() {
+		return JavaPlugin.getDefault().getPreferenceStore().getBoolean(PREF_COMPILED_DICTIONARIES);
+	}
+
+	/**
+	 * Returns the directory in which the compiled dictionaries are stored.
+	 *
+	 * @return the directory of the compiled dictionaries
+	 * @since 3.17
+	 */
+	private static File getCompiledDictionaryDirectory() {
+		return JavaPlugin.getDefault().getStateLocation().append("spelling").toFile(); //$NON-NLS-1$
+	}
+
 	/*
 	 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellCheckEngine#getSpellChecker()
 	 */
@@ -432,7 +464,10 @@ public class SpellCheckEngine implements ISpellCheckEngine, IPropertyChangeListe
 				InputStream stream= url.openStream();
 				if (stream != null) {
 					try {
-						fUserDictionary= new PersistentSpellDictionary(url);
+						if (useCompiledDictionaries())
+							fUserDictionary= new CompiledSpellDictionary(url, getCompiledDictionaryDirectory(), true);
+						else
+							fUserDictionary= new PersistentSpellDictionary(url);
 						fChecker.addDictionary(fUserDictionary);
 					} finally {
 						stream.close();
@@ -0,0 +1,841 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.spelling.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.ui.PreferenceConstants;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Word-list based dictionary whose words are compiled into an immutable file that is
+ * memory-mapped instead of being hashed into the heap.
+ * <p>
+ * The compiled file contains the phonetic hashes of the words in sorted order, each with the
+ * range of its words, so that a lookup is a binary search on the mapped file that neither decodes
+ * nor allocates the hashes it compares. The file is rebuilt when the length or the modification
+ * time of the word list changes. Words added to a modifiable dictionary are appended to the word
+ * list and kept in memory until the file is rebuilt in the next session.
+ * </p>
+ * <p>
+ * A mapped file cannot be replaced or deleted on all platforms as long as the mapping exists, and
+ * a mapping is only released when its buffer is garbage collected. Therefore each compilation
+ * writes a new file with a unique name, and the files which are no longer used are deleted when
+ * the dictionary is loaded. A file which cannot be deleted yet is deleted by a later load.
+ * </p>
+ * <p>
+ * File layout: magic, version, source length, source modification time, source key (UTF),
+ * number of hashes <code>h</code>, number of words <code>w</code>, <code>h + 1</code> hash
+ * offsets, <code>h + 1</code> word indices, <code>w + 1</code> word offsets, the UTF-8 bytes of
+ * the hashes and the UTF-8 bytes of the words.
+ * </p>
+ *
+ * @since 3.17
+ */
+public class CompiledSpellDictionary implements ISpellDictionary {
+
+	/** Magic number of the compiled file */
+	private static final int MAGIC= 0x4A535043;
+
+	/** The file name extension of the compiled files */
+	private static final String COMPILED_EXTENSION= ".dictionary.bin"; //$NON-NLS-1$
+
+	/** Version of the compiled file format */
+	private static final int VERSION= 1;
+
+	/** The bucket capacity */
+	private static final int BUCKET_CAPACITY= 4;
+
+	/** The maximum number of candidates per phonetic hash, see https://bugs.eclipse.org/bugs/show_bug.cgi?id=195357 */
+	private static final int MAX_BUCKET_CANDIDATES= 500;
+
+	/** The distance threshold */
+	private static final int DISTANCE_THRESHOLD= 160;
+
+	/** The word list location */
+	private final URL fLocation;
+
+	/** The directory containing the compiled files */
+	private final File fCompiledDirectory;
+
+	/** Whether words can be added */
+	private final boolean fAcceptsWords;
+
+	/** The phonetic distance algorithm */
+	private final IPhoneticDistanceAlgorithm fDistanceAlgorithm= new DefaultPhoneticDistanceAlgorithm();
+
+	/** The phonetic hash provider */
+	private final DefaultPhoneticHashProvider fHashProvider= new DefaultPhoneticHashProvider();
+
+	/** The mapped compiled file, or <code>null</code> if not loaded */
+	private volatile ByteBuffer fBuffer;
+
+	/** The number of hashes in the compiled file */
+	private int fHashCount;
+
+	/** The position of the hash offsets in the compiled file */
+	private int fHashOffsetsPosition;
+
+	/** The position of the word indices in the compiled file */
+	private int fWordIndicesPosition;
+
+	/** The position of the word offsets in the compiled file */
+	private int fWordOffsetsPosition;
+
+	/** The position of the hash bytes in the compiled file */
+	private int fHashesPosition;
+
+	/** The position of the word bytes in the compiled file */
+	private int fWordsPosition;
+
+	/** The words added since the file has been compiled, by phonetic hash */
+	private final Map<String, List<String>> fAddedWords= new HashMap<>();
+
+	/** Must the dictionary be loaded? */
+	private boolean fMustLoad= true;
+
+	/** Tells whether to strip non-letters at word boundaries. */
+	private boolean fIsStrippingNonLetters= true;
+
+	/**
+	 * Creates a new compiled spell dictionary.
+	 *
+	 * @param location the URL of the word list
+	 * @param compiledDirectory the directory to store the compiled file in
+	 * @param acceptsWords <code>true</code> if words can be added to the word list
+	 */
+	public CompiledSpellDictionary(URL location, File compiledDirectory, boolean acceptsWords) {
+		fLocation= location;
+		fCompiledDirectory= compiledDirectory;
+		fAcceptsWords= acceptsWords;
+	}
+
+	@Override
+	public boolean acceptsWords() {
+		return fAcceptsWords;
+	}
+
+	@Override
+	public void addWord(String word) {
+		if (!fAcceptsWords || isCorrect(word))
+			return;
+
+		if (PersistentSpellDictionary.appendWord(fLocation, getEncoding(), word, isEmpty())) {
+			synchronized (fAddedWords) {
+				addToBucket(fAddedWords, fHashProvider.getHash(word), word);
+			}
+		}
+	}
+
+	@Override
+	public boolean isCorrect(String word) {
+		word= stripNonLetters(word);
+		ensureLoaded();
+
+		String hash= fHashProvider.getHash(word);
+		String lowercaseWord= word.toLowerCase();
+		ByteBuffer buffer= fBuffer;
+		if (buffer != null) {
+			int index= findHash(buffer, hash);
+			if (index >= 0) {
+				for (int i= getWordIndex(buffer, index), n= getWordIndex(buffer, index + 1); i < n; i++) {
+					if (isWord(buffer, i, word) || isWord(buffer, i, lowercaseWord))
+						return true;
+				}
+			}
+		}
+		synchronized (fAddedWords) {
+			List<String> added= fAddedWords.get(hash);
+			return added != null && (added.contains(word) || added.contains(lowercaseWord));
+		}
+	}
+
+	@Override
+	public Set<RankedWordProposal> getProposals(String word, boolean sentence) {
+		ensureLoaded();
+
+		final String hash= fHashProvider.getHash(word);
+		final char[] mutators= fHashProvider.getMutators();
+
+		Neighborhood exact= new Neighborhood(word, sentence);
+		exact.probe(hash);
+		final Set<RankedWordProposal> candidates= exact.getMatches();
+
+		// the hashes of the mutations are looked up as they are computed, each one once
+		Neighborhood neighborhood= new Neighborhood(word, sentence);
+		neighborhood.exclude(hash);
+
+		// swapped characters
+		char[] characters= word.toCharArray();
+		for (int index= 0; index < word.length() - 1; index++) {
+			char next= characters[index];
+			char previous= characters[index + 1];
+			characters[index]= previous;
+			characters[index + 1]= next;
+			neighborhood.probe(characters, characters.length);
+			characters[index]= next;
+			characters[index + 1]= previous;
+		}
+
+		// inserted characters
+		characters= new char[word.length() + 1];
+		word.getChars(0, word.length(), characters, 0);
+		int offset= characters.length - 1;
+		while (true) {
+			for (int index= 0; index < mutators.length; index++) {
+				characters[offset]= mutators[index];
+				neighborhood.probe(characters, characters.length);
+			}
+			if (offset == 0)
+				break;
+			characters[offset]= characters[offset - 1];
+			--offset;
+		}
+
+		// replaced characters
+		characters= word.toCharArray();
+		for (int index= 0; index < word.length(); index++) {
+			char mutated= characters[index];
+			for (int mutator= 0; mutator < mutators.length; mutator++) {
+				characters[index]= mutators[mutator];
+				neighborhood.probe(characters, characters.length);
+			}
+			characters[index]= mutated;
+		}
+
+		// deleted characters
+		if (word.length() > 0) {
+			characters= word.toCharArray();
+			char[] deleted= new char[characters.length - 1];
+			for (int index= 0; index < characters.length; index++) {
+				System.arraycopy(characters, 0, deleted, 0, index);
+				System.arraycopy(characters, index + 1, deleted, index, characters.length - index - 1);
+				neighborhood.probe(deleted, deleted.length);
+			}
+		}
+
+		final Set<RankedWordProposal> matches= neighborhood.getMatches();
+
+		if (matches.size() == 0 && candidates.size() == 0)
+			getNearestCandidates(word, sentence, hash, candidates);
+
+		candidates.addAll(matches);
+		return candidates;
+	}
+
+	@Override
+	public synchronized boolean isLoaded() {
+		return fBuffer != null || !fAddedWords.isEmpty();
+	}
+
+	@Override
+	public synchronized void unload() {
+		fBuffer= null;
+		fMustLoad= true;
+		synchronized (fAddedWords) {
+			fAddedWords.clear();
+		}
+	}
+
+	@Override
+	public void setStripNonLetters(boolean state) {
+		fIsStrippingNonLetters= state;
+	}
+
+	/**
+	 * Collects the candidates that have one of the probed phonetic hashes and a bounded distance
+	 * to a word. Each hash is looked up once, in place in the mapped file.
+	 */
+	private final class Neighborhood {
+
+		/** The word to find the nearest matches for */
+		private final String fWord;
+
+		/** <code>true</code> iff the proposals start a new sentence */
+		private final boolean fSentence;
+
+		/** The mapped file, or <code>null</code> if not loaded */
+		private final ByteBuffer fMapped;
+
+		/** The ranked candidates */
+		private final Set<RankedWordProposal> fMatches= new HashSet<>();
+
+		/** The indices of the hashes of the mapped file which have been probed */
+		private int[] fProbed= new int[32];
+
+		/** The number of probed indices */
+		private int fProbedCount;
+
+		/** The probed hashes of the added words, or <code>null</code> if no words have been added */
+		private final Set<String> fProbedAdded;
+
+		/** The hash of the current mutation */
+		private final StringBuilder fHash= new StringBuilder();
+
+		/** The buffer to decode the candidates */
+		private byte[] fScratch= new byte[64];
+
+		Neighborhood(String word, boolean sentence) {
+			fWord= word;
+			fSentence= sentence;
+			fMapped= fBuffer;
+			synchronized (fAddedWords) {
+				fProbedAdded= fAddedWords.isEmpty() ? null : new HashSet<>();
+			}
+		}
+
+		Set<RankedWordProposal> getMatches() {
+			return fMatches;
+		}
+
+		/**
+		 * Marks the given hash as probed without adding its candidates.
+		 *
+		 * @param hash the phonetic hash
+		 */
+		void exclude(String hash) {
+			if (fMapped != null) {
+				int index= findHash(fMapped, hash);
+				if (index >= 0)
+					markProbed(index);
+			}
+			if (fProbedAdded != null)
+				fProbedAdded.add(hash);
+		}
+
+		/**
+		 * Adds the candidates of the phonetic hash of the given characters.
+		 *
+		 * @param characters the characters of the mutated word
+		 * @param length the number of characters
+		 */
+		void probe(char[] characters, int length) {
+			fHash.setLength(0);
+			fHashProvider.appendHash(characters, length, fHash);
+			probe(fHash);
+		}
+
+		/**
+		 * Adds the candidates of the given phonetic hash, unless it has been probed before.
+		 *
+		 * @param hash the phonetic hash
+		 */
+		void probe(CharSequence hash) {
+			int count= 0;
+			if (fMapped != null) {
+				int index= findHash(fMapped, hash);
+				if (index >= 0) {
+					if (!markProbed(index))
+						return;
+					for (int i= getWordIndex(fMapped, index), n= getWordIndex(fMapped, index + 1); i < n && count < MAX_BUCKET_CANDIDATES; i++, count++) {
+						fScratch= ensureCapacity(fScratch, getWordLength(fMapped, i));
+						addCandidate(fWord, fSentence, getWord(fMapped, i, fScratch), fMatches);
+					}
+				}
+			}
+			if (fProbedAdded != null) {
+				String key= hash.toString();
+				if (!fProbedAdded.add(key))
+					return;
+				synchronized (fAddedWords) {
+					List<String> added= fAddedWords.get(key);
+					if (added != null) {
+						for (int i= 0, n= added.size(); i < n && count < MAX_BUCKET_CANDIDATES; i++, count++)
+							addCandidate(fWord, fSentence, added.get(i), fMatches);
+					}
+				}
+			}
+		}
+
+		private boolean markProbed(int index) {
+			for (int i= 0; i < fProbedCount; i++) {
+				if (fProbed[i] == index)
+					return false;
+			}
+			if (fProbedCount == fProbed.length)
+				fProbed= Arrays.copyOf(fProbed, 2 * fProbed.length);
+			fProbed[fProbedCount++]= index;
+			return true;
+		}
+	}
+
+	private void addCandidate(String word, boolean sentence, String candidate, Set<RankedWordProposal> result) {
+		int distance= fDistanceAlgorithm.getDistance(word, candidate);
+		if (distance < DISTANCE_THRESHOLD)
+			result.add(new RankedWordProposal(capitalize(candidate, sentence), -distance));
+	}
+
+	/**
+	 * Adds the candidates with the given phonetic hash that have the smallest distance to the
+	 * specified word.
+	 *
+	 * @param word the word to find the nearest matches for
+	 * @param sentence <code>true</code> iff the proposals start a new sentence
+	 * @param hash the phonetic hash of the word
+	 * @param result the set to add the candidates to
+	 */
+	private void getNearestCandidates(String word, boolean sentence, String hash, Set<RankedWordProposal> result) {
+		List<String> candidates= new ArrayList<>();
+		ByteBuffer buffer= fBuffer;
+		if (buffer != null) {
+			int index= findHash(buffer, hash);
+			if (index >= 0) {
+				byte[] scratch= new byte[64];
+				for (int i= getWordIndex(buffer, index), n= getWordIndex(buffer, index + 1); i < n; i++) {
+					scratch= ensureCapacity(scratch, getWordLength(buffer, i));
+					candidates.add(getWord(buffer, i, scratch));
+				}
+			}
+		}
+		synchronized (fAddedWords) {
+			List<String> added= fAddedWords.get(hash);
+			if (added != null)
+				candidates.addAll(added);
+		}
+
+		int minimum= Integer.MAX_VALUE;
+		List<RankedWordProposal> matches= new ArrayList<>(candidates.size());
+		for (int i= 0, n= candidates.size(); i < n; i++) {
+			String candidate= candidates.get(i);
+			int distance= fDistanceAlgorithm.getDistance(word, candidate);
+			if (distance <= minimum) {
+				if (distance < minimum)
+					matches.clear();
+				matches.add(new RankedWordProposal(capitalize(candidate, sentence), -distance));
+				minimum= distance;
+			}
+		}
+		result.addAll(matches);
+	}
+
+	private static String capitalize(String candidate, boolean sentence) {
+		if (!sentence || candidate.length() == 0)
+			return candidate;
+		return Character.toUpperCase(candidate.charAt(0)) + candidate.substring(1);
+	}
+
+	private boolean isEmpty() {
+		ByteBuffer buffer= fBuffer;
+		synchronized (fAddedWords) {
+			return (buffer == null || fHashCount == 0) && fAddedWords.isEmpty();
+		}
+	}
+
+	/**
+	 * Strips non-letter characters from the given word, if enabled.
+	 *
+	 * @param word the word to strip
+	 * @return the stripped word
+	 */
+	private String stripNonLetters(String word) {
+		if (!fIsStrippingNonLetters)
+			return word;
+
+		int i= 0;
+		int j= word.length() - 1;
+		while (i <= j && !Character.isLetter(word.charAt(i)))
+			i++;
+		if (i > j)
+			return ""; //$NON-NLS-1$
+
+		while (j > i && !Character.isLetter(word.charAt(j)))
+			j--;
+
+		return word.substring(i, j + 1);
+	}
+
+	/**
+	 * Returns the encoding of the word list.
+	 *
+	 * @return the encoding of the word list
+	 */
+	protected String getEncoding() {
+		String encoding= JavaPlugin.getDefault().getPreferenceStore().getString(PreferenceConstants.SPELLING_USER_DICTIONARY_ENCODING);
+		if (encoding == null || encoding.length() == 0)
+			encoding= ResourcesPlugin.getEncoding();
+		return encoding;
+	}
+
+	// ---- lookup in the mapped file ----
+
+	private int getHashOffset(ByteBuffer buffer, int index) {
+		return fHashesPosition + buffer.getInt(fHashOffsetsPosition + 4 * index);
+	}
+
+	private int getWordIndex(ByteBuffer buffer, int index) {
+		return buffer.getInt(fWordIndicesPosition + 4 * index);
+	}
+
+	private int getWordOffset(ByteBuffer buffer, int wordIndex) {
+		return fWordsPosition + buffer.getInt(fWordOffsetsPosition + 4 * wordIndex);
+	}
+
+	private int getWordLength(ByteBuffer buffer, int wordIndex) {
+		return getWordOffset(buffer, wordIndex + 1) - getWordOffset(buffer, wordIndex);
+	}
+
+	private String getWord(ByteBuffer buffer, int wordIndex, byte[] scratch) {
+		int start= getWordOffset(buffer, wordIndex);
+		int length= getWordOffset(buffer, wordIndex + 1) - start;
+		for (int i= 0; i < length; i++)
+			scratch[i]= buffer.get(start + i);
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	private static byte[] ensureCapacity(byte[] scratch, int length) {
+		return scratch.length >= length ? scratch : new byte[Math.max(length, 2 * scratch.length)];
+	}
+
+	/**
+	 * Tells whether the given word of the compiled file equals the given string.
+	 *
+	 * @param buffer the mapped file
+	 * @param wordIndex the index of the word
+	 * @param word the string
+	 * @return <code>true</code> if the word equals the string
+	 */
+	private boolean isWord(ByteBuffer buffer, int wordIndex, String word) {
+		int start= getWordOffset(buffer, wordIndex);
+		int end= getWordOffset(buffer, wordIndex + 1);
+		byte[] key= getNonAsciiBytes(word);
+		if (key != null)
+			return compare(buffer, start, end, key) == 0;
+		return compare(buffer, start, end, word) == 0;
+	}
+
+	/**
+	 * Finds the index of the given phonetic hash by binary search.
+	 *
+	 * @param buffer the mapped file
+	 * @param hash the phonetic hash
+	 * @return the index of the hash, or <code>-1</code> if not found
+	 */
+	private int findHash(ByteBuffer buffer, CharSequence hash) {
+		byte[] key= getNonAsciiBytes(hash);
+		int low= 0;
+		int high= fHashCount - 1;
+		while (low <= high) {
+			int mid= (low + high) >>> 1;
+			int start= getHashOffset(buffer, mid);
+			int end= getHashOffset(buffer, mid + 1);
+			int comparison= key != null ? compare(buffer, start, end, key) : compare(buffer, start, end, hash);
+			if (comparison < 0)
+				low= mid + 1;
+			else if (comparison > 0)
+				high= mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the UTF-8 bytes of the given string if it contains non-ASCII characters.
+	 *
+	 * @param string the string
+	 * @return the UTF-8 bytes, or <code>null</code> if the string can be compared char by char
+	 */
+	private static byte[] getNonAsciiBytes(CharSequence string) {
+		for (int i= 0, n= string.length(); i < n; i++) {
+			if (string.charAt(i) >= 0x80)
+				return string.toString().getBytes(StandardCharsets.UTF_8);
+		}
+		return null;
+	}
+
+	private static int compare(ByteBuffer buffer, int start, int end, CharSequence ascii) {
+		int length= ascii.length();
+		for (int i= 0; start + i < end && i < length; i++) {
+			int difference= (buffer.get(start + i) & 0xff) - ascii.charAt(i);
+			if (difference != 0)
+				return difference;
+		}
+		return (end - start) - length;
+	}
+
+	private static int compare(ByteBuffer buffer, int start, int end, byte[] key) {
+		for (int i= 0; start + i < end && i < key.length; i++) {
+			int difference= (buffer.get(start + i) & 0xff) - (key[i] & 0xff);
+			if (difference != 0)
+				return difference;
+		}
+		return (end - start) - key.length;
+	}
+
+	// ---- loading and compiling ----
+
+	private synchronized void ensureLoaded() {
+		if (!fMustLoad)
+			return;
+		fMustLoad= false;
+
+		String encoding= getEncoding();
+		String key= fLocation.toExternalForm() + '|' + encoding;
+		String prefix= Integer.toHexString(key.hashCode()) + '-';
+		try {
+			long[] stamp= getSourceStamp();
+			if (stamp == null)
+				return;
+			File[] compiledFiles= getCompiledFiles(prefix);
+			File mapped= null;
+			for (int i= 0; i < compiledFiles.length && mapped == null; i++) {
+				if (map(compiledFiles[i], key, stamp))
+					mapped= compiledFiles[i];
+			}
+			if (mapped == null) {
+				File compiled= compile(prefix, key, stamp, encoding);
+				if (map(compiled, key, stamp))
+					mapped= compiled;
+				else
+					JavaPlugin.logErrorMessage("Cannot read compiled dictionary: " + compiled); //$NON-NLS-1$
+			}
+			for (int i= 0; i < compiledFiles.length; i++) {
+				// fails while the file is still mapped on some platforms, it is tried again on the next load
+				if (!compiledFiles[i].equals(mapped))
+					compiledFiles[i].delete();
+			}
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+		}
+	}
+
+	/**
+	 * Returns the compiled files of the word list, the most recently modified first.
+	 *
+	 * @param prefix the prefix of the names of the compiled files
+	 * @return the compiled files
+	 */
+	private File[] getCompiledFiles(final String prefix) {
+		File[] files= fCompiledDirectory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File directory, String name) {
+				return name.startsWith(prefix) && name.endsWith(COMPILED_EXTENSION);
+			}
+		});
+		if (files == null)
+			return new File[0];
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File f1, File f2) {
+				return Long.compare(f2.lastModified(), f1.lastModified());
+			}
+		});
+		return files;
+	}
+
+	/**
+	 * Returns the length and the modification time of the word list.
+	 *
+	 * @return the length and the modification time, or <code>null</code> if the word list does
+	 *         not exist
+	 * @throws IOException if the word list cannot be accessed
+	 */
+	private long[] getSourceStamp() throws IOException {
+		if ("file".equals(fLocation.getProtocol())) { //$NON-NLS-1$
+			File file= new File(fLocation.getPath());
+			if (!file.exists())
+				return null;
+			return new long[] { file.length(), file.lastModified() };
+		}
+		URLConnection connection= fLocation.openConnection();
+		try {
+			return new long[] { connection.getContentLengthLong(), connection.getLastModified() };
+		} finally {
+			try {
+				connection.getInputStream().close();
+			} catch (IOException e) {
+				// the stamp has been read
+			}
+		}
+	}
+
+	/**
+	 * Maps the compiled file if it is up to date.
+	 *
+	 * @param compiled the compiled file
+	 * @param key the key of the word list
+	 * @param stamp the stamp of the word list
+	 * @return <code>true</code> if the file has been mapped
+	 * @throws IOException if the file cannot be read
+	 */
+	private boolean map(File compiled, String key, long[] stamp) throws IOException {
+		if (!compiled.isFile())
+			return false;
+		try (RandomAccessFile file= new RandomAccessFile(compiled, "r"); FileChannel channel= file.getChannel()) { //$NON-NLS-1$
+			if (file.length() < 32 || file.readInt() != MAGIC || file.readInt() != VERSION || file.readLong() != stamp[0] || file.readLong() != stamp[1] || !key.equals(file.readUTF()))
+				return false;
+
+			int hashCount= file.readInt();
+			int wordCount= file.readInt();
+			int position= (int) file.getFilePointer();
+			ByteBuffer buffer= channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			fHashCount= hashCount;
+			fHashOffsetsPosition= position;
+			fWordIndicesPosition= fHashOffsetsPosition + 4 * (hashCount + 1);
+			fWordOffsetsPosition= fWordIndicesPosition + 4 * (hashCount + 1);
+			fHashesPosition= fWordOffsetsPosition + 4 * (wordCount + 1);
+			fWordsPosition= fHashesPosition + buffer.getInt(fHashOffsetsPosition + 4 * hashCount);
+			if (fWordsPosition + buffer.getInt(fWordOffsetsPosition + 4 * wordCount) != channel.size())
+				return false;
+			fBuffer= buffer;
+			return true;
+		}
+	}
+
+	/**
+	 * Compiles the word list into a new file.
+	 *
+	 * @param prefix the prefix of the names of the compiled files
+	 * @param key the key of the word list
+	 * @param stamp the stamp of the word list
+	 * @param encoding the encoding of the word list
+	 * @return the compiled file
+	 * @throws IOException if the word list cannot be read or the file cannot be written
+	 */
+	private File compile(String prefix, String key, long[] stamp, String encoding) throws IOException {
+		final List<byte[]> hashes= new ArrayList<>();
+		List<byte[]> words= new ArrayList<>();
+		try (InputStream stream= fLocation.openStream()) {
+			// replace malformed input instead of failing
+			CharsetDecoder decoder= Charset.forName(encoding).newDecoder();
+			decoder.onMalformedInput(CodingErrorAction.REPLACE);
+			decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			BufferedReader reader= new BufferedReader(new InputStreamReader(stream, decoder));
+			String word;
+			while ((word= reader.readLine()) != null) {
+				if (word.length() == 0)
+					continue;
+				hashes.add(fHashProvider.getHash(word).getBytes(StandardCharsets.UTF_8));
+				words.add(word.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+
+		// sort by hash, keeping the order of the word list within a bucket
+		Integer[] order= new Integer[words.size()];
+		for (int i= 0; i < order.length; i++)
+			order[i]= Integer.valueOf(i);
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				int comparison= compareBytes(hashes.get(o1.intValue()), hashes.get(o2.intValue()));
+				return comparison != 0 ? comparison : o1.compareTo(o2);
+			}
+		});
+
+		int hashCount= 0;
+		int[] hashOffsets= new int[order.length + 1];
+		int[] wordIndices= new int[order.length + 1];
+		int[] wordOffsets= new int[order.length + 1];
+		List<byte[]> uniqueHashes= new ArrayList<>();
+		int hashBytes= 0;
+		int wordBytes= 0;
+		byte[] previous= null;
+		for (int i= 0; i < order.length; i++) {
+			byte[] hash= hashes.get(order[i].intValue());
+			if (previous == null || compareBytes(previous, hash) != 0) {
+				hashOffsets[hashCount]= hashBytes;
+				wordIndices[hashCount]= i;
+				hashCount++;
+				hashBytes+= hash.length;
+				uniqueHashes.add(hash);
+				previous= hash;
+			}
+			wordOffsets[i]= wordBytes;
+			wordBytes+= words.get(order[i].intValue()).length;
+		}
+		hashOffsets[hashCount]= hashBytes;
+		wordIndices[hashCount]= order.length;
+		wordOffsets[order.length]= wordBytes;
+
+		if (!fCompiledDirectory.isDirectory() && !fCompiledDirectory.mkdirs())
+			throw new IOException("Cannot create " + fCompiledDirectory); //$NON-NLS-1$
+		File temporary= File.createTempFile(prefix, ".tmp", fCompiledDirectory); //$NON-NLS-1$
+		String name= temporary.getName();
+		File compiled= new File(fCompiledDirectory, name.substring(0, name.length() - 4) + COMPILED_EXTENSION);
+		try (DataOutputStream output= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeLong(stamp[0]);
+			output.writeLong(stamp[1]);
+			output.writeUTF(key);
+			output.writeInt(hashCount);
+			output.writeInt(order.length);
+			for (int i= 0; i <= hashCount; i++)
+				output.writeInt(hashOffsets[i]);
+			for (int i= 0; i <= hashCount; i++)
+				output.writeInt(wordIndices[i]);
+			for (int i= 0; i <= order.length; i++)
+				output.writeInt(wordOffsets[i]);
+			for (int i= 0; i < hashCount; i++)
+				output.write(uniqueHashes.get(i));
+			for (int i= 0; i < order.length; i++)
+				output.write(words.get(order[i].intValue()));
+		} catch (IOException e) {
+			temporary.delete();
+			throw e;
+		}
+		// the name is unique, so no file is replaced
+		Files.move(temporary.toPath(), compiled.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		return compiled;
+	}
+
+	private static int compareBytes(byte[] left, byte[] right) {
+		for (int i= 0, n= Math.min(left.length, right.length); i < n; i++) {
+			int difference= (left[i] & 0xff) - (right[i] & 0xff);
+			if (difference != 0)
+				return difference;
+		}
+		return left.length - right.length;
+	}
+
+	private static void addToBucket(Map<String, List<String>> buckets, String hash, String word) {
+		List<String> bucket= buckets.get(hash);
+		if (bucket == null) {
+			bucket= new ArrayList<>(BUCKET_CAPACITY);
+			buckets.put(hash, bucket);
+		}
+		bucket.add(word);
+	}
+}
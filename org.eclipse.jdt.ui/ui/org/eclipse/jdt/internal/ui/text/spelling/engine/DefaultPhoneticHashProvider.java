@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,8 @@
 
 package org.eclipse.jdt.internal.ui.text.spelling.engine;
 
+import java.util.Locale;
+
 /**
  * Default phonetic hash provider for english languages.
  * <p>
@@ -124,6 +126,9 @@ public final class DefaultPhoneticHashProvider implements IPhoneticHashProvider
 	/** The mutator characters */
 	private static final char[] MUTATOR_CHARACTERS= { 'A', 'B', 'X', 'S', 'K', 'J', 'T', 'F', 'H', 'L', 'M', 'N', 'P', 'R', '0' };
 
+	/** The padding appended to the upper case word, so that the rules can look ahead */
+	private static final String PADDING= "     "; //$NON-NLS-1$
+
 	/** The vowel characters */
 	private static final char[] VOWEL_CHARACTERS= new char[] { 'A', 'E', 'I', 'O', 'U', 'Y' };
 
@@ -147,15 +152,42 @@ public final class DefaultPhoneticHashProvider implements IPhoneticHashProvider
 		if (offset < 0 || offset >= token.length || candidates.length == 0)
 			return false;
 
-		final String checkable= new String(token, offset, length);
+		if (offset + length > token.length)
+			return false;
+
 		for (int index= 0; index < candidates.length; index++) {
 
-			if (candidates[index].equals(checkable))
+			final String candidate= candidates[index];
+			if (candidate.length() == length && regionMatches(candidate, token, offset))
 				return true;
 		}
 		return false;
 	}
 
+	private static boolean regionMatches(final String candidate, final char[] token, final int offset) {
+
+		for (int index= 0; index < candidate.length(); index++) {
+
+			if (candidate.charAt(index) != token[offset + index])
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean containsOneOf(final String[] candidates, final char[] token) {
+
+		for (int index= 0; index < candidates.length; index++) {
+
+			final String candidate= candidates[index];
+			for (int offset= 0; offset + candidate.length() <= token.length; offset++) {
+
+				if (regionMatches(candidate, token, offset))
+					return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Test whether the specified token contains one of the candidates in the
 	 * list.
@@ -207,11 +239,53 @@ public final class DefaultPhoneticHashProvider implements IPhoneticHashProvider
 	@Override
 	public final String getHash(final String word) {
 
-		final String input= word.toUpperCase() + "     "; //$NON-NLS-1$
-		final char[] hashable= input.toCharArray();
-
-		final boolean has95= hasOneOf(meta95, input);
+		final char[] hashable= (word.toUpperCase() + PADDING).toCharArray();
 		final StringBuilder buffer= new StringBuilder(hashable.length);
+		appendHash(hashable, buffer);
+		return buffer.toString();
+	}
+
+	/**
+	 * Appends the phonetic hash of the given characters to the buffer. The hash is the same as the
+	 * one returned by {@link #getHash(String)}, but no strings are created for words of ASCII
+	 * characters, e.g. for the mutations of a word whose neighbors are looked up.
+	 *
+	 * @param word
+	 *                   The characters of the word
+	 * @param length
+	 *                   The number of characters of the word
+	 * @param buffer
+	 *                   The buffer to append the hash to
+	 * @since 3.17
+	 */
+	final void appendHash(final char[] word, final int length, final StringBuilder buffer) {
+
+		final boolean turkic= isTurkic(Locale.getDefault());
+		final char[] hashable= new char[length + PADDING.length()];
+		for (int index= 0; index < length; index++) {
+
+			final char character= word[index];
+			if (character >= 0x80 || character == 'i' && turkic) {
+				// upper case conversion may depend on the locale or change the length
+				buffer.append(getHash(new String(word, 0, length)));
+				return;
+			}
+			hashable[index]= character >= 'a' && character <= 'z' ? (char) (character - 'a' + 'A') : character;
+		}
+		for (int index= length; index < hashable.length; index++)
+			hashable[index]= ' ';
+		appendHash(hashable, buffer);
+	}
+
+	private static boolean isTurkic(final Locale locale) {
+
+		final String language= locale.getLanguage();
+		return "tr".equals(language) || "az".equals(language); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static void appendHash(final char[] hashable, final StringBuilder buffer) {
+
+		final boolean has95= containsOneOf(meta95, hashable);
 
 		int offset= 0;
 		if (hasOneOf(meta26, hashable, 0, 2))
@@ -672,7 +746,6 @@ public final class DefaultPhoneticHashProvider implements IPhoneticHashProvider
 					offset += 1;
 			}
 		}
-		return buffer.toString();
 	}
 
 	@Override
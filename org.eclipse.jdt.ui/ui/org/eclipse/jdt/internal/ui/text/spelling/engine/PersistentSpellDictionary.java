@@ -52,9 +52,24 @@ public class PersistentSpellDictionary extends AbstractSpellDictionary {
 		if (isCorrect(word))
 			return;
 
+		if (appendWord(fLocation, getEncoding(), word, isEmpty()))
+			hashWord(word);
+	}
+
+	/**
+	 * Appends the given word to the word list at the given location.
+	 *
+	 * @param location the URL of the word list
+	 * @param encoding the encoding of the word list
+	 * @param word the word to append
+	 * @param isEmpty <code>true</code> if the word list is empty
+	 * @return <code>true</code> if the word has been appended
+	 * @since 3.17
+	 */
+	static boolean appendWord(URL location, String encoding, String word, boolean isEmpty) {
 		FileOutputStream fileStream= null;
 		try {
-			Charset charset= Charset.forName(getEncoding());
+			Charset charset= Charset.forName(encoding);
 			ByteBuffer byteBuffer= charset.encode(word + "\n"); //$NON-NLS-1$
 			int size= byteBuffer.limit();
 			final byte[] byteArray;
@@ -65,17 +80,18 @@ public class PersistentSpellDictionary extends AbstractSpellDictionary {
 				byteBuffer.get(byteArray);
 			}
 
-			fileStream= new FileOutputStream(fLocation.getPath(), true);
+			fileStream= new FileOutputStream(location.getPath(), true);
 
 			// Encoding UTF-16 charset writes a BOM. In which case we need to cut it away if the file isn't empty
 			int bomCutSize= 0;
-			if (!isEmpty() && "UTF-16".equals(charset.name())) //$NON-NLS-1$
+			if (!isEmpty && "UTF-16".equals(charset.name())) //$NON-NLS-1$
 				bomCutSize= 2;
 
 			fileStream.write(byteArray, bomCutSize, size - bomCutSize);
+			return true;
 		} catch (IOException exception) {
 			JavaPlugin.log(exception);
-			return;
+			return false;
 		} finally {
 			try {
 				if (fileStream != null)
@@ -83,8 +99,6 @@ public class PersistentSpellDictionary extends AbstractSpellDictionary {
 			} catch (IOException e) {
 			}
 		}
-
-		hashWord(word);
 	}
 
 	@Override
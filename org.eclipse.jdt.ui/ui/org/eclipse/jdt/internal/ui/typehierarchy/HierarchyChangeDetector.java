@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.typehierarchy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IParent;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.Signature;
+
+import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+
+/**
+ * Tells whether a Java element delta changes the structure of a type hierarchy, i.e. whether
+ * types have to be added to or removed from the hierarchy or whether the super types of a type in
+ * the hierarchy have changed.
+ * <p>
+ * The type hierarchy reports any change to a compilation unit of one of its types, even if only
+ * a method body has been edited. The detector compares the declared super types of the types of
+ * a changed compilation unit with the super types known to the hierarchy instead, so that the
+ * hierarchy only has to be rebuilt if they differ. The detector is conservative: whenever it
+ * cannot tell, e.g. for class path changes or unresolvable super types, the delta is considered
+ * to affect the hierarchy.
+ * </p>
+ *
+ * @since 3.17
+ */
+class HierarchyChangeDetector {
+
+	private static final int CLASSPATH_FLAGS= IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+			| IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+			| IJavaElementDelta.F_REORDER | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED;
+
+	private static final String OBJECT= "java.lang.Object"; //$NON-NLS-1$
+	private static final String ENUM= "java.lang.Enum"; //$NON-NLS-1$
+	private static final String ANNOTATION= "java.lang.annotation.Annotation"; //$NON-NLS-1$
+
+	/** Super types which are not declared in the source, but known to the hierarchy */
+	private static final List<String> IMPLICIT_SUPERTYPES= Arrays.asList(OBJECT, ENUM, ANNOTATION);
+
+	private final ITypeHierarchy fHierarchy;
+	private final IJavaElement[] fInputElements;
+	private final IType fFocusType;
+	private final boolean fIsSuperTypesOnly;
+
+	/** The types of the hierarchy per compilation unit, computed lazily */
+	private Map<ICompilationUnit, List<IType>> fTypesByCompilationUnit;
+
+	/** The simple names of the focus type and its sub types, computed lazily */
+	private Set<String> fSubtypeNames;
+
+	/**
+	 * Creates a detector for the given hierarchy.
+	 *
+	 * @param hierarchy the type hierarchy, must be up to date
+	 * @param inputElements the elements the hierarchy has been created for
+	 * @param isSuperTypesOnly <code>true</code> if the hierarchy is a super type hierarchy
+	 */
+	HierarchyChangeDetector(ITypeHierarchy hierarchy, IJavaElement[] inputElements, boolean isSuperTypesOnly) {
+		fHierarchy= hierarchy;
+		fInputElements= inputElements;
+		fFocusType= inputElements.length == 1 && inputElements[0].getElementType() == IJavaElement.TYPE ? (IType) inputElements[0] : null;
+		fIsSuperTypesOnly= isSuperTypesOnly;
+	}
+
+	/**
+	 * Tells whether the given delta changes the structure of the hierarchy.
+	 *
+	 * @param delta the delta
+	 * @return <code>true</code> if the hierarchy has to be rebuilt
+	 */
+	public synchronized boolean isAffected(IJavaElementDelta delta) {
+		try {
+			return isAffectedBy(delta);
+		} catch (JavaModelException e) {
+			return true;
+		}
+	}
+
+	private boolean isAffectedBy(IJavaElementDelta delta) throws JavaModelException {
+		IJavaElement element= delta.getElement();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				return isChildrenAffected(delta);
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & CLASSPATH_FLAGS) != 0)
+					return true;
+				return isChildrenAffected(delta);
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED)
+					return true;
+				return isChildrenAffected(delta);
+			case IJavaElement.COMPILATION_UNIT:
+				return isCompilationUnitAffected((ICompilationUnit) element, delta);
+			case IJavaElement.CLASS_FILE:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private boolean isChildrenAffected(IJavaElementDelta delta) throws JavaModelException {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (isAffectedBy(children[i]))
+				return true;
+		}
+		return false;
+	}
+
+	private boolean isCompilationUnitAffected(ICompilationUnit cu, IJavaElementDelta delta) throws JavaModelException {
+		if (!JavaModelUtil.isPrimary(cu))
+			return false;
+		switch (delta.getKind()) {
+			case IJavaElementDelta.REMOVED:
+				return !getHierarchyTypes(cu).isEmpty();
+			case IJavaElementDelta.CHANGED:
+				// fine grained deltas tell which types have changed
+				if ((delta.getFlags() & IJavaElementDelta.F_FINE_GRAINED) != 0 && !hasPossibleSupertypeChange(delta))
+					return false;
+				//$FALL-THROUGH$
+			default:
+				return areTypesAffected(cu);
+		}
+	}
+
+	private static boolean hasPossibleSupertypeChange(IJavaElementDelta delta) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			IJavaElementDelta child= children[i];
+			switch (child.getElement().getElementType()) {
+				case IJavaElement.PACKAGE_DECLARATION:
+				case IJavaElement.IMPORT_CONTAINER:
+				case IJavaElement.IMPORT_DECLARATION:
+					// the super types may resolve to other types
+					return true;
+				case IJavaElement.TYPE:
+					if (child.getKind() != IJavaElementDelta.CHANGED || (child.getFlags() & (IJavaElementDelta.F_SUPER_TYPES | IJavaElementDelta.F_MODIFIERS)) != 0)
+						return true;
+					break;
+				default:
+					break;
+			}
+			if (hasPossibleSupertypeChange(child))
+				return true;
+		}
+		return false;
+	}
+
+	private boolean areTypesAffected(ICompilationUnit cu) throws JavaModelException {
+		List<IType> types= new ArrayList<>();
+		if (cu.exists())
+			collectTypes(cu, types);
+		if (!types.containsAll(getHierarchyTypes(cu)))
+			return true;
+		for (int i= 0; i < types.size(); i++) {
+			IType type= types.get(i);
+			if (fHierarchy.contains(type)) {
+				if (!hasSameSupertypes(type))
+					return true;
+			} else if (isPossibleNewType(type)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Collects the member types as well as the local and anonymous types.
+	 */
+	private static void collectTypes(IParent parent, List<IType> types) throws JavaModelException {
+		IJavaElement[] children= parent.getChildren();
+		for (int i= 0; i < children.length; i++) {
+			IJavaElement child= children[i];
+			if (child.getElementType() == IJavaElement.TYPE)
+				types.add((IType) child);
+			if (child instanceof IParent && child.getElementType() != IJavaElement.IMPORT_CONTAINER)
+				collectTypes((IParent) child, types);
+		}
+	}
+
+	private boolean hasSameSupertypes(IType type) throws JavaModelException {
+		int flags= fHierarchy.getCachedFlags(type);
+		if (flags == -1 || Flags.isInterface(flags) != type.isInterface())
+			return false;
+
+		List<String> oldSupertypes= new ArrayList<>();
+		IType superclass= fHierarchy.getSuperclass(type);
+		if (superclass != null)
+			oldSupertypes.add(superclass.getFullyQualifiedName('.'));
+		IType[] superInterfaces= fHierarchy.getSuperInterfaces(type);
+		for (int i= 0; i < superInterfaces.length; i++) {
+			oldSupertypes.add(superInterfaces[i].getFullyQualifiedName('.'));
+		}
+
+		List<String> newSupertypes= new ArrayList<>();
+		String superclassName= type.getSuperclassName();
+		if (superclassName != null) {
+			String resolved= resolveType(type, superclassName);
+			if (resolved == null)
+				return false;
+			newSupertypes.add(resolved);
+		}
+		String[] superInterfaceNames= type.getSuperInterfaceNames();
+		for (int i= 0; i < superInterfaceNames.length; i++) {
+			String resolved= resolveType(type, superInterfaceNames[i]);
+			if (resolved == null)
+				return false;
+			newSupertypes.add(resolved);
+		}
+
+		oldSupertypes.removeAll(IMPLICIT_SUPERTYPES);
+		newSupertypes.removeAll(IMPLICIT_SUPERTYPES);
+		Collections.sort(oldSupertypes);
+		Collections.sort(newSupertypes);
+		return oldSupertypes.equals(newSupertypes);
+	}
+
+	private static String resolveType(IType type, String typeName) throws JavaModelException {
+		String[][] resolved= type.resolveType(Signature.getTypeErasure(typeName));
+		if (resolved == null || resolved.length != 1)
+			return null;
+		return JavaModelUtil.concatenateName(resolved[0][0], resolved[0][1]);
+	}
+
+	/*
+	 * Tells whether the given type, which is not in the hierarchy, may have to be added to it.
+	 */
+	private boolean isPossibleNewType(IType type) throws JavaModelException {
+		if (fFocusType == null) // the hierarchy contains all types of a region
+			return isInRegion(type);
+		if (fIsSuperTypesOnly)
+			return false;
+
+		Set<String> subtypeNames= getSubtypeNames();
+		String superclassName= type.getSuperclassName();
+		String[] superInterfaceNames= type.getSuperInterfaceNames();
+		if (superclassName == null && (!type.isInterface() || superInterfaceNames.length == 0))
+			superclassName= getImplicitSupertype(type);
+		if (superclassName != null && subtypeNames.contains(getSimpleName(superclassName)))
+			return true;
+		for (int i= 0; i < superInterfaceNames.length; i++) {
+			if (subtypeNames.contains(getSimpleName(superInterfaceNames[i])))
+				return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Returns the super type of a type which does not declare a super class.
+	 */
+	private static String getImplicitSupertype(IType type) throws JavaModelException {
+		if (type.isEnum())
+			return ENUM;
+		if (type.isAnnotation())
+			return ANNOTATION;
+		// interfaces without super interfaces are shown below Object as well
+		return OBJECT;
+	}
+
+	private boolean isInRegion(IType type) {
+		for (int i= 0; i < fInputElements.length; i++) {
+			IJavaElement element= fInputElements[i];
+			for (IJavaElement ancestor= type; ancestor != null; ancestor= ancestor.getParent()) {
+				if (ancestor.equals(element))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	private static String getSimpleName(String typeName) {
+		return Signature.getSimpleName(Signature.getTypeErasure(typeName));
+	}
+
+	private List<IType> getHierarchyTypes(ICompilationUnit cu) {
+		if (fTypesByCompilationUnit == null) {
+			fTypesByCompilationUnit= new HashMap<>();
+			IType[] types= fHierarchy.getAllTypes();
+			for (int i= 0; i < types.length; i++) {
+				ICompilationUnit typeCu= types[i].getCompilationUnit();
+				if (typeCu == null)
+					continue;
+				List<IType> cuTypes= fTypesByCompilationUnit.get(typeCu);
+				if (cuTypes == null) {
+					cuTypes= new ArrayList<>(1);
+					fTypesByCompilationUnit.put(typeCu, cuTypes);
+				}
+				cuTypes.add(types[i]);
+			}
+		}
+		List<IType> types= fTypesByCompilationUnit.get(cu);
+		return types != null ? types : Collections.<IType>emptyList();
+	}
+
+	private Set<String> getSubtypeNames() {
+		if (fSubtypeNames == null) {
+			fSubtypeNames= new HashSet<>();
+			fSubtypeNames.add(fFocusType.getElementName());
+			IType[] subtypes= fHierarchy.getAllSubtypes(fFocusType);
+			for (int i= 0; i < subtypes.length; i++) {
+				fSubtypeNames.add(subtypes[i].getElementName());
+			}
+		}
+		return fSubtypeNames;
+	}
+}
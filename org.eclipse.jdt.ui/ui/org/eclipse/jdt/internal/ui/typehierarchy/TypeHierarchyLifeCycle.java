@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,6 +23,7 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.PerformanceStats;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
@@ -56,6 +57,15 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
  */
 public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IElementChangedListener {
 
+	/** The name of the performance event used to trace the refreshes of the hierarchy. */
+	private static final String PERFORMANCE_EVENT= JavaPlugin.getPluginId() + "/perf/typehierarchy/refresh"; //$NON-NLS-1$
+	private static final boolean MEASURE_PERFORMANCE= PerformanceStats.isEnabled(PERFORMANCE_EVENT);
+
+	/* refresh paths */
+	private static final String CREATE= "create"; //$NON-NLS-1$
+	private static final String REFRESH= "refresh"; //$NON-NLS-1$
+	private static final String CHECK_DELTA= "checkDelta"; //$NON-NLS-1$
+
 	private boolean fHierarchyRefreshNeeded;
 	private ITypeHierarchy fHierarchy;
 	private IJavaElement[] fInputElements;
@@ -84,6 +94,30 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	 */
 	private boolean fRefreshJobCanceledExplicitly= true;
 
+	/**
+	 * Tells whether deltas of the current change affect the hierarchy.
+	 *
+	 * @since 3.17
+	 */
+	private HierarchyChangeDetector fChangeDetector;
+
+	/**
+	 * The delta of the last element changed event, as long as the hierarchy has not reported a
+	 * change. The hierarchy is informed about the same event as this life cycle, either before or
+	 * after it, so a reported change is caused either by this delta or by the next one.
+	 *
+	 * @since 3.17
+	 */
+	private IJavaElementDelta fLastDelta;
+
+	/**
+	 * Set when the hierarchy has reported a change. The hierarchy then needs a refresh and reports
+	 * no further changes, so all deltas have to be checked.
+	 *
+	 * @since 3.17
+	 */
+	private boolean fHierarchyOutdated;
+
 	/**
 	 * Creates the type hierarchy life cycle.
 	 *
@@ -331,6 +365,7 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 			fHierarchy.removeTypeHierarchyChangedListener(this);
 			JavaCore.removeElementChangedListener(this);
 		}
+		PerformanceStats stats= startMeter(hierachyCreationNeeded ? CREATE : REFRESH);
 		if (hierachyCreationNeeded) {
 			fHierarchy= createTypeHierarchy(elements, pm);
 			if (pm != null && pm.isCanceled()) {
@@ -342,18 +377,42 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 			if (pm != null && pm.isCanceled())
 				throw new OperationCanceledException();
 		}
+		stopMeter(stats);
+		fChangeDetector= new HierarchyChangeDetector(fHierarchy, fInputElements, fIsSuperTypesOnly);
+		fLastDelta= null;
+		fHierarchyOutdated= false;
 		fHierarchy.addTypeHierarchyChangedListener(this);
 		JavaCore.addElementChangedListener(this);
 		fHierarchyRefreshNeeded= false;
 	}
 
+	/**
+	 * Marks the hierarchy as to be refreshed and informs the listeners.
+	 *
+	 * @since 3.17
+	 */
+	public void invalidateHierarchy() {
+		fHierarchyRefreshNeeded= true;
+		fireChange(null);
+	}
+
 	/*
 	 * @see ITypeHierarchyChangedListener#typeHierarchyChanged
 	 */
 	@Override
 	public void typeHierarchyChanged(ITypeHierarchy typeHierarchy) {
-	 	fHierarchyRefreshNeeded= true;
- 		fireChange(null);
+		if (fHierarchyRefreshNeeded || fHierarchyOutdated) {
+			return;
+		}
+		// the order in which the hierarchy and this life cycle are informed about an element
+		// change is not specified: if the hierarchy is informed later, the change is caused by the
+		// last delta, otherwise it is checked with the next delta in elementChanged
+		IJavaElementDelta lastDelta= fLastDelta;
+		fLastDelta= null;
+		fHierarchyOutdated= true;
+		if (lastDelta != null && isHierarchyAffected(lastDelta)) {
+			invalidateHierarchy();
+		}
 	}
 
 	/*
@@ -361,11 +420,19 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	 */
 	@Override
 	public void elementChanged(ElementChangedEvent event) {
-		if (fChangeListeners.isEmpty()) {
+		if (fHierarchyRefreshNeeded) {
 			return;
 		}
+		if (fHierarchyOutdated) {
+			if (isHierarchyAffected(event.getDelta())) {
+				invalidateHierarchy();
+				return;
+			}
+		} else {
+			fLastDelta= event.getDelta();
+		}
 
-		if (fHierarchyRefreshNeeded) {
+		if (fChangeListeners.isEmpty()) {
 			return;
 		} else {
 			ArrayList<IType> changedTypes= new ArrayList<>();
@@ -376,6 +443,29 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 		}
 	}
 
+	private boolean isHierarchyAffected(IJavaElementDelta delta) {
+		HierarchyChangeDetector detector= fChangeDetector;
+		if (detector == null)
+			return true;
+		PerformanceStats stats= startMeter(CHECK_DELTA);
+		boolean affected= detector.isAffected(delta);
+		stopMeter(stats);
+		return affected;
+	}
+
+	private PerformanceStats startMeter(String path) {
+		if (!MEASURE_PERFORMANCE)
+			return null;
+		PerformanceStats stats= PerformanceStats.getStats(PERFORMANCE_EVENT, path);
+		stats.startRun();
+		return stats;
+	}
+
+	private void stopMeter(PerformanceStats stats) {
+		if (stats != null)
+			stats.endRun();
+	}
+
 	/*
 	 * Assume that the hierarchy is intact (no refresh needed)
 	 */
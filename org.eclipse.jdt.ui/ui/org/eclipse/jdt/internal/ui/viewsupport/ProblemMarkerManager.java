@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -59,6 +59,7 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 	private static class ProjectErrorVisitor implements IResourceDeltaVisitor {
 
 		private HashSet<IResource> fChangedElements;
+		private boolean fOpenStateChanged;
 
 		public ProjectErrorVisitor(HashSet<IResource> changedElements) {
 			fChangedElements= changedElements;
@@ -68,6 +69,8 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 		public boolean visit(IResourceDelta delta) throws CoreException {
 			IResource res= delta.getResource();
 			if (res instanceof IProject && delta.getKind() == IResourceDelta.CHANGED) {
+				if ((delta.getFlags() & IResourceDelta.OPEN) != 0)
+					fOpenStateChanged= true;
 				IProject project= (IProject) res;
 				if (!project.isAccessible()) {
 					// only track open Java projects
@@ -114,6 +117,12 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 
 	private UIJob fNotifierJob;
 
+	/**
+	 * The problem severities, maintained while this manager listens to resource changes.
+	 * @since 3.17
+	 */
+	private volatile ProblemSeverityIndex fSeverityIndex;
+
 	public ProblemMarkerManager() {
 		fListeners= new ListenerList<>();
 		fResourcesWithMarkerChanges= new HashSet<>();
@@ -126,15 +135,24 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 	@Override
 	public void resourceChanged(IResourceChangeEvent event) {
 		HashSet<IResource> changedElements= new HashSet<>();
+		ProjectErrorVisitor visitor= new ProjectErrorVisitor(changedElements);
 
 		try {
 			IResourceDelta delta= event.getDelta();
 			if (delta != null)
-				delta.accept(new ProjectErrorVisitor(changedElements));
+				delta.accept(visitor);
 		} catch (CoreException e) {
 			JavaPlugin.log(e.getStatus());
 		}
 
+		ProblemSeverityIndex severityIndex= fSeverityIndex;
+		if (severityIndex != null) {
+			if (visitor.fOpenStateChanged)
+				severityIndex.clear();
+			else if (!changedElements.isEmpty())
+				severityIndex.invalidate(changedElements);
+		}
+
 		if (!changedElements.isEmpty()) {
 			boolean hasChanges= false;
 			synchronized (this) {
@@ -180,6 +198,7 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 	 */
 	public void addListener(IProblemChangedListener listener) {
 		if (fListeners.isEmpty()) {
+			fSeverityIndex= new ProblemSeverityIndex();
 			JavaPlugin.getWorkspace().addResourceChangeListener(this);
 			JavaPlugin.getDefault().getCompilationUnitDocumentProvider().addGlobalAnnotationModelListener(this);
 		}
@@ -195,9 +214,21 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 		if (fListeners.isEmpty()) {
 			JavaPlugin.getWorkspace().removeResourceChangeListener(this);
 			JavaPlugin.getDefault().getCompilationUnitDocumentProvider().removeGlobalAnnotationModelListener(this);
+			fSeverityIndex= null;
 		}
 	}
 
+	/**
+	 * Returns the index of the problem severities. The index is only up to date while this
+	 * manager has listeners.
+	 *
+	 * @return the severity index, or <code>null</code> if this manager has no listeners
+	 * @since 3.17
+	 */
+	public ProblemSeverityIndex getSeverityIndex() {
+		return fSeverityIndex;
+	}
+
 	private void fireChanges() {
 		Display display= PlatformUI.getWorkbench().getDisplay();
 		if (display != null && !display.isDisposed()) {
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.viewsupport;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Caches the maximum severity of the {@link IMarker#PROBLEM} markers of resources, so that the
+ * error ticks of containers don't have to enumerate the markers of all their members.
+ * <p>
+ * The severity of a container is computed from the cached severities of its members. The
+ * {@link ProblemMarkerManager} invalidates the resources with problem marker changes and their
+ * parents, so that only these are computed again. The index is only maintained while the
+ * problem marker manager listens to resource changes, see
+ * {@link ProblemMarkerManager#getSeverityIndex()}.
+ * </p>
+ *
+ * @since 3.17
+ */
+public class ProblemSeverityIndex {
+
+	private static final int UNKNOWN= -2;
+
+	private static class Entry {
+		/** The maximum severity of the markers on the resource itself */
+		int fOwnSeverity= UNKNOWN;
+		/** The maximum severity of the markers on the resource and all its members */
+		int fSubtreeSeverity= UNKNOWN;
+	}
+
+	private final Map<IResource, Entry> fEntries= new HashMap<>();
+
+	/** Incremented whenever entries are invalidated */
+	private long fGeneration;
+
+	/**
+	 * Returns the maximum severity of the problem markers on the given resource and its members,
+	 * like <code>resource.findMaxProblemSeverity(IMarker.PROBLEM, true, depth)</code> does.
+	 *
+	 * @param resource the resource, must be accessible
+	 * @param depth the depth, one of {@link IResource#DEPTH_ZERO}, {@link IResource#DEPTH_ONE}
+	 *            and {@link IResource#DEPTH_INFINITE}
+	 * @return the maximum severity, or <code>-1</code> if there are no problem markers
+	 * @throws CoreException if the markers cannot be read
+	 */
+	public int findMaxProblemSeverity(IResource resource, int depth) throws CoreException {
+		long generation;
+		synchronized (this) {
+			generation= fGeneration;
+		}
+		switch (depth) {
+			case IResource.DEPTH_ZERO:
+				return getOwnSeverity(resource, generation);
+			case IResource.DEPTH_ONE:
+				int severity= getOwnSeverity(resource, generation);
+				if (resource instanceof IContainer) {
+					IResource[] members= getMembers((IContainer) resource);
+					for (int i= 0; i < members.length && severity != IMarker.SEVERITY_ERROR; i++) {
+						if (members[i].isAccessible())
+							severity= Math.max(severity, getOwnSeverity(members[i], generation));
+					}
+				}
+				return severity;
+			default:
+				return getSubtreeSeverity(resource, generation);
+		}
+	}
+
+	/**
+	 * Invalidates the given resources. The parents of a resource must be invalidated as well.
+	 *
+	 * @param resources the resources whose problem markers have changed
+	 */
+	public synchronized void invalidate(Collection<IResource> resources) {
+		for (IResource resource : resources)
+			fEntries.remove(resource);
+		fGeneration++;
+	}
+
+	/**
+	 * Clears the index.
+	 */
+	public synchronized void clear() {
+		fEntries.clear();
+		fGeneration++;
+	}
+
+	private int getOwnSeverity(IResource resource, long generation) throws CoreException {
+		synchronized (this) {
+			Entry entry= fEntries.get(resource);
+			if (entry != null && entry.fOwnSeverity != UNKNOWN)
+				return entry.fOwnSeverity;
+		}
+		int severity= resource.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+		synchronized (this) {
+			// don't store the severity if the markers have changed in the meantime
+			if (generation == fGeneration)
+				getEntry(resource).fOwnSeverity= severity;
+		}
+		return severity;
+	}
+
+	private int getSubtreeSeverity(IResource resource, long generation) throws CoreException {
+		if (!(resource instanceof IContainer))
+			return getOwnSeverity(resource, generation);
+
+		synchronized (this) {
+			Entry entry= fEntries.get(resource);
+			if (entry != null && entry.fSubtreeSeverity != UNKNOWN)
+				return entry.fSubtreeSeverity;
+		}
+		int severity= getOwnSeverity(resource, generation);
+		IResource[] members= getMembers((IContainer) resource);
+		for (int i= 0; i < members.length && severity != IMarker.SEVERITY_ERROR; i++) {
+			// closed projects have no markers
+			if (members[i].isAccessible())
+				severity= Math.max(severity, getSubtreeSeverity(members[i], generation));
+		}
+		synchronized (this) {
+			if (generation == fGeneration)
+				getEntry(resource).fSubtreeSeverity= severity;
+		}
+		return severity;
+	}
+
+	private static IResource[] getMembers(IContainer container) throws CoreException {
+		return container.members(IContainer.INCLUDE_HIDDEN | IContainer.INCLUDE_TEAM_PRIVATE_MEMBERS);
+	}
+
+	private Entry getEntry(IResource resource) {
+		Entry entry= fEntries.get(resource);
+		if (entry == null) {
+			entry= new Entry();
+			fEntries.put(resource, entry);
+		}
+		return entry;
+	}
+}
@@ -86,6 +86,8 @@ public class JarPackageData {
 	private IPath		fJarLocation; // external location
 	private boolean	fOverwrite;
 	private boolean	fCompress;
+	private boolean	fParallelCompression;
+	private boolean	fIncrementalExport;
 
 	private boolean	fSaveDescription;
 	private IPath		fDescriptionLocation; // internal location
@@ -197,6 +199,49 @@ public class JarPackageData {
 		fCompress= state;
 	}
 
+	/**
+	 * Tells whether the entries of the JAR are compressed in parallel.
+	 * The entries are written in the same order as without this option.
+	 *
+	 * @return	<code>true</code> if the entries are compressed by several threads
+	 * @since 3.17
+	 */
+	public boolean isParallelCompression() {
+		return fParallelCompression;
+	}
+
+	/**
+	 * Set whether the entries of the JAR are compressed in parallel.
+	 *
+	 * @param state a boolean indicating the new state
+	 * @since 3.17
+	 */
+	public void setParallelCompression(boolean state) {
+		fParallelCompression= state;
+	}
+
+	/**
+	 * Tells whether the compressed entries of an existing JAR are reused for
+	 * files whose content has not changed.
+	 *
+	 * @return	<code>true</code> if unchanged entries are copied from the existing JAR
+	 * @since 3.17
+	 */
+	public boolean isIncrementalExport() {
+		return fIncrementalExport;
+	}
+
+	/**
+	 * Set whether the compressed entries of an existing JAR are reused for
+	 * files whose content has not changed.
+	 *
+	 * @param state a boolean indicating the new state
+	 * @since 3.17
+	 */
+	public void setIncrementalExport(boolean state) {
+		fIncrementalExport= state;
+	}
+
 	/**
 	 * Tells whether files can be overwritten without warning.
 	 *
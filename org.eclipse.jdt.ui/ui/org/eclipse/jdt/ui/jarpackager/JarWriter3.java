@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,6 +17,7 @@ package org.eclipse.jdt.ui.jarpackager;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -25,16 +26,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.eclipse.swt.widgets.Shell;
 
@@ -64,6 +72,8 @@ import org.eclipse.jdt.internal.corext.util.Messages;
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.jarpackager.JarPackagerMessages;
 import org.eclipse.jdt.internal.ui.jarpackager.JarPackagerUtil;
+import org.eclipse.jdt.internal.ui.jarpackager.RawZipFile;
+import org.eclipse.jdt.internal.ui.jarpackager.RawZipWriter;
 import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
 
 
@@ -78,10 +88,28 @@ import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
  */
 public class JarWriter3 {
 
+	/** Files up to this size are read into memory, so that they can be compressed in parallel */
+	private static final long MAX_BUFFERED_ENTRY_SIZE= 16 * 1024 * 1024;
+
 	private Set<String> fDirectories= new HashSet<>();
 
 	private JarOutputStream fJarOutputStream;
 
+	/**
+	 * The writer used instead of {@link #fJarOutputStream} to compress in parallel or to reuse
+	 * entries of the previous JAR.
+	 */
+	private RawZipWriter fRawZipWriter;
+
+	/** The previous JAR if it is exported incrementally */
+	private RawZipFile fPreviousJar;
+
+	/** The file which replaces the previous JAR when closed */
+	private File fTemporaryJar;
+
+	/** The archives whose entries have been copied, by name, <code>null</code> if unreadable */
+	private Map<String, RawZipFile> fCopiedArchives;
+
 	private JarPackageData fJarPackage;
 
 	/**
@@ -97,6 +125,28 @@ public class JarWriter3 {
 	 * 							in the status object.
 	 */
 	public JarWriter3(JarPackageData jarPackage, Shell parent) throws CoreException {
+		this(jarPackage, parent, false);
+	}
+
+	/**
+	 * Creates an instance which is used to create a JAR based
+	 * on the given JarPackage.
+	 *
+	 * @param jarPackage		the JAR specification
+	 * @param parent			the shell used to display question dialogs,
+	 *				 			or <code>null</code> if "false/no/cancel" is the answer
+	 * 							and no dialog should be shown
+	 * @param copyCompressedEntries	<code>true</code> if {@link #copyZipEntry(ZipFile, ZipEntry, String, long)}
+	 * 							copies the compressed data of entries of other archives
+	 * 							instead of inflating and deflating them again. This is
+	 * 							also the case if the JAR is compressed in parallel or
+	 * 							exported incrementally.
+	 * @throws	CoreException	to signal any other unusual termination.
+	 * 							This can also be used to return information
+	 * 							in the status object.
+	 * @since 3.17
+	 */
+	protected JarWriter3(JarPackageData jarPackage, Shell parent, boolean copyCompressedEntries) throws CoreException {
 		Assert.isNotNull(jarPackage, "The JAR specification is null"); //$NON-NLS-1$
 		fJarPackage= jarPackage;
 		Assert.isTrue(fJarPackage.isValid(), "The JAR package specification is invalid"); //$NON-NLS-1$
@@ -104,14 +154,20 @@ public class JarWriter3 {
 			throw new OperationCanceledException();
 
 		try {
-			if (fJarPackage.usesManifest() && fJarPackage.areGeneratedFilesExported()) {
+			if (fJarPackage.isParallelCompression() || fJarPackage.isIncrementalExport() || copyCompressedEntries) {
+				openRawZipWriter();
+			} else if (fJarPackage.usesManifest() && fJarPackage.areGeneratedFilesExported()) {
 				Manifest manifest= fJarPackage.getManifestProvider().create(fJarPackage);
 				fJarOutputStream= new JarOutputStream(new BufferedOutputStream(new FileOutputStream(fJarPackage.getAbsoluteJarLocation().toFile())), manifest);
 			} else
 				fJarOutputStream= new JarOutputStream(new BufferedOutputStream(new FileOutputStream(fJarPackage.getAbsoluteJarLocation().toFile())));
 			String comment= jarPackage.getComment();
-			if (comment != null)
-				fJarOutputStream.setComment(comment);
+			if (comment != null) {
+				if (fRawZipWriter != null)
+					fRawZipWriter.setComment(comment);
+				else
+					fJarOutputStream.setComment(comment);
+			}
 			if (fJarPackage.isRefactoringAware()) {
 				Assert.isTrue(fJarPackage.areDirectoryEntriesIncluded());
 				final IPath metaPath= new Path(JarPackagerUtil.getMetaEntry());
@@ -122,6 +178,53 @@ public class JarWriter3 {
 			throw JarPackagerUtil.createCoreException(exception.getLocalizedMessage(), exception);
 		}
 	}
+
+	/**
+	 * Opens the writer for parallel compression and incremental export and writes the manifest.
+	 * If the JAR is exported incrementally, the new JAR is written to a temporary file which
+	 * replaces the previous JAR when this writer is closed.
+	 *
+	 * @throws IOException if an I/O error has occurred
+	 * @throws CoreException if the manifest cannot be created
+	 */
+	private void openRawZipWriter() throws IOException, CoreException {
+		File jarFile= fJarPackage.getAbsoluteJarLocation().toFile();
+		File target= jarFile;
+		if (fJarPackage.isIncrementalExport() && jarFile.isFile()) {
+			try {
+				fPreviousJar= new RawZipFile(jarFile);
+				fTemporaryJar= File.createTempFile(jarFile.getName(), ".tmp", jarFile.getAbsoluteFile().getParentFile()); //$NON-NLS-1$
+				target= fTemporaryJar;
+			} catch (IOException e) {
+				// not a readable JAR, export all entries
+				if (fPreviousJar != null)
+					fPreviousJar.close();
+				fPreviousJar= null;
+			}
+		}
+		int threadCount= fJarPackage.isParallelCompression() ? Runtime.getRuntime().availableProcessors() : 1;
+		fRawZipWriter= new RawZipWriter(new BufferedOutputStream(new FileOutputStream(target)), threadCount);
+		if (fJarPackage.usesManifest() && fJarPackage.areGeneratedFilesExported()) {
+			Manifest manifest= fJarPackage.getManifestProvider().create(fJarPackage);
+			ByteArrayOutputStream out= new ByteArrayOutputStream();
+			manifest.write(out);
+			// JarOutputStream always deflates the manifest
+			fRawZipWriter.addBytes(JarFile.MANIFEST_NAME, System.currentTimeMillis(), out.toByteArray(), true);
+		}
+	}
+
+	/**
+	 * Writes the given directory entry to the current archive.
+	 *
+	 * @param entry the directory entry
+	 * @throws IOException if an I/O error has occurred
+	 */
+	private void putDirectoryEntry(JarEntry entry) throws IOException {
+		if (fRawZipWriter != null)
+			fRawZipWriter.addDirectory(entry.getName(), entry.getTime());
+		else
+			fJarOutputStream.putNextEntry(entry);
+	}
 	
 	/**
 	 * Creates the directory entries for the given path and writes it to the current archive.
@@ -162,7 +265,7 @@ public class JarWriter3 {
 		}
 
 		for (int i= directories.size() - 1; i >= 0; --i) {
-			fJarOutputStream.putNextEntry(directories.get(i));
+			putDirectoryEntry(directories.get(i));
 		}
 	}
 
@@ -210,7 +313,7 @@ public class JarWriter3 {
 		}
 
 		for (int i= directories.size() - 1; i >= 0; --i) {
-			fJarOutputStream.putNextEntry(directories.get(i));
+			putDirectoryEntry(directories.get(i));
 		}
 	}
 
@@ -228,6 +331,22 @@ public class JarWriter3 {
 		JarEntry newEntry= new JarEntry(path.toString().replace(File.separatorChar, '/'));
 		byte[] readBuffer= new byte[4096];
 
+		long lastModified= System.currentTimeMillis();
+		long length= -1;
+		URI locationURI= resource.getLocationURI();
+		if (locationURI != null) {
+			IFileInfo info= EFS.getStore(locationURI).fetchInfo();
+			if (info.exists()) {
+				lastModified= info.getLastModified();
+				length= info.getLength();
+			}
+		}
+
+		if (fRawZipWriter != null && length >= 0 && length <= MAX_BUFFERED_ENTRY_SIZE) {
+			addFileContent(newEntry.getName(), lastModified, resource.getContents(false));
+			return;
+		}
+
 		if (fJarPackage.isCompressed())
 			newEntry.setMethod(ZipEntry.DEFLATED);
 			// Entry is filled automatically.
@@ -236,14 +355,6 @@ public class JarWriter3 {
 			JarPackagerUtil.calculateCrcAndSize(newEntry, resource.getContents(false), readBuffer);
 		}
 
-		long lastModified= System.currentTimeMillis();
-		URI locationURI= resource.getLocationURI();
-		if (locationURI != null) {
-			IFileInfo info= EFS.getStore(locationURI).fetchInfo();
-			if (info.exists())
-				lastModified= info.getLastModified();
-		}
-
 		// Set modification time
 		newEntry.setTime(lastModified);
 
@@ -264,6 +375,12 @@ public class JarWriter3 {
 	 * @since 3.4
 	 */
 	protected void addEntry(JarEntry entry, InputStream content) throws IOException {
+		if (fRawZipWriter != null) {
+			long time= entry.getTime() != -1 ? entry.getTime() : System.currentTimeMillis();
+			int method= entry.getMethod() != -1 ? entry.getMethod() : ZipEntry.DEFLATED;
+			fRawZipWriter.addStream(entry.getName(), time, content, method, entry.getCrc(), entry.getSize());
+			return;
+		}
 		byte[] readBuffer= new byte[4096];
 		try {
 			fJarOutputStream.putNextEntry(entry);
@@ -386,7 +503,9 @@ public class JarWriter3 {
 	 *             used to return information in the status object.
 	 */
 	public void close() throws CoreException {
-		if (fJarOutputStream != null)
+		if (fRawZipWriter != null)
+			closeRawZipWriter();
+		else if (fJarOutputStream != null)
 			try {
 				fJarOutputStream.close();
 				registerInWorkspaceIfNeeded();
@@ -395,6 +514,116 @@ public class JarWriter3 {
 			}
 	}
 
+	private void closeRawZipWriter() throws CoreException {
+		try {
+			try {
+				fRawZipWriter.close();
+			} finally {
+				if (fPreviousJar != null)
+					fPreviousJar.close();
+				if (fCopiedArchives != null) {
+					for (RawZipFile archive : fCopiedArchives.values()) {
+						if (archive != null)
+							archive.close();
+					}
+				}
+			}
+			if (fTemporaryJar != null) {
+				Files.move(fTemporaryJar.toPath(), fJarPackage.getAbsoluteJarLocation().toFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+				fTemporaryJar= null;
+			}
+			registerInWorkspaceIfNeeded();
+		} catch (IOException ex) {
+			throw JarPackagerUtil.createCoreException(ex.getLocalizedMessage(), ex);
+		} finally {
+			if (fTemporaryJar != null)
+				fTemporaryJar.delete();
+		}
+	}
+
+	/**
+	 * Copies the given entry of another archive to the current archive without inflating and
+	 * deflating its content. This is only possible if the entry is compressed like the entries of
+	 * the JAR, see {@link JarPackageData#isCompressed()}, and if this writer has been created to
+	 * copy compressed entries or one of the options which use the same writer is enabled.
+	 *
+	 * @param zipFile the archive which contains the entry
+	 * @param zipEntry the entry to copy
+	 * @param path the path of the entry inside the JAR
+	 * @param time the modification time of the entry
+	 * @return <code>true</code> if the entry has been copied, <code>false</code> if it has to be
+	 *         added with {@link #addEntry(JarEntry, InputStream)}
+	 * @throws IOException if an I/O error has occurred
+	 * @since 3.17
+	 */
+	protected boolean copyZipEntry(ZipFile zipFile, ZipEntry zipEntry, String path, long time) throws IOException {
+		if (fRawZipWriter == null)
+			return false;
+		RawZipFile archive= getCopiedArchive(zipFile);
+		if (archive == null)
+			return false;
+		RawZipFile.Entry entry= archive.getEntry(zipEntry.getName());
+		int method= fJarPackage.isCompressed() ? ZipEntry.DEFLATED : ZipEntry.STORED;
+		if (entry == null || !entry.isCopyable() || entry.getMethod() != method)
+			return false;
+		fRawZipWriter.addRaw(path.replace(File.separatorChar, '/'), time, entry, archive.readRawData(entry));
+		return true;
+	}
+
+	private RawZipFile getCopiedArchive(ZipFile zipFile) {
+		if (fCopiedArchives == null)
+			fCopiedArchives= new HashMap<>();
+		String name= zipFile.getName();
+		if (fCopiedArchives.containsKey(name))
+			return fCopiedArchives.get(name);
+		RawZipFile archive= null;
+		try {
+			archive= new RawZipFile(new File(name));
+		} catch (IOException e) {
+			// the entries are read through the zip file
+		}
+		fCopiedArchives.put(name, archive);
+		return archive;
+	}
+
+	/**
+	 * Writes a file entry with the given content to the current archive. If the JAR is exported
+	 * incrementally and the previous JAR contains an entry with the same name, size and CRC, its
+	 * compressed data is copied instead of compressing the content again.
+	 *
+	 * @param name the name of the entry
+	 * @param lastModified the modification time of the entry
+	 * @param contentStream the content, is closed
+	 * @throws IOException if an I/O error has occurred
+	 */
+	private void addFileContent(String name, long lastModified, InputStream contentStream) throws IOException {
+		byte[] content;
+		try {
+			ByteArrayOutputStream out= new ByteArrayOutputStream();
+			byte[] buffer= new byte[8192];
+			int count;
+			while ((count= contentStream.read(buffer)) != -1)
+				out.write(buffer, 0, count);
+			content= out.toByteArray();
+		} finally {
+			contentStream.close();
+		}
+
+		boolean compress= fJarPackage.isCompressed();
+		if (fPreviousJar != null) {
+			RawZipFile.Entry previous= fPreviousJar.getEntry(name);
+			if (previous != null && previous.isCopyable() && previous.getMethod() == (compress ? ZipEntry.DEFLATED : ZipEntry.STORED) && previous.getSize() == content.length) {
+				CRC32 crc= new CRC32();
+				crc.update(content, 0, content.length);
+				if (previous.getCrc() == crc.getValue()) {
+					fRawZipWriter.addRaw(name, lastModified, previous, fPreviousJar.readRawData(previous));
+					return;
+				}
+			}
+		}
+		fRawZipWriter.addBytes(name, lastModified, content, compress);
+	}
+
 	private void registerInWorkspaceIfNeeded() {
 		IPath jarPath= fJarPackage.getAbsoluteJarLocation();
 		IProject[] projects= ResourcesPlugin.getWorkspace().getRoot().getProjects();
@@ -474,6 +703,10 @@ public class JarWriter3 {
 		}
 		entry.setTime(System.currentTimeMillis());
 		final InputStream stream= new BufferedInputStream(new FileInputStream(file));
+		if (fRawZipWriter != null) {
+			fRawZipWriter.addStream(entry.getName(), entry.getTime(), stream, entry.getMethod(), entry.getCrc(), entry.getSize());
+			return;
+		}
 		try {
 			fJarOutputStream.putNextEntry(entry);
 			int count;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2015 IBM Corporation and others.
+ * Copyright (c) 2006, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.ltk.core.refactoring.tests.history;
 
+import java.io.File;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -39,10 +40,12 @@ import org.eclipse.ltk.core.refactoring.history.RefactoringExecutionEvent;
 import org.eclipse.ltk.core.refactoring.history.RefactoringHistory;
 import org.eclipse.ltk.core.refactoring.history.RefactoringHistoryEvent;
 import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
 import org.eclipse.ltk.internal.core.refactoring.RefactoringPreferenceConstants;
 import org.eclipse.ltk.internal.core.refactoring.history.RefactoringDescriptorProxyAdapter;
 import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryImplementation;
 import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryService;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryStore;
 
 import junit.framework.TestCase;
 
@@ -167,6 +170,14 @@ public class RefactoringHistoryServiceTests extends TestCase {
 			assertTrue("", proxies[index].getTimeStamp() > proxies[index + 1].getTimeStamp());
 	}
 
+	private File[] getHistoryDirectories(File folder) {
+		return folder.listFiles(file -> file.isDirectory() && file.getName().matches("[0-9]+"));
+	}
+
+	private File getPrivateHistoryFolder() {
+		return RefactoringCorePlugin.getDefault().getStateLocation().append(RefactoringHistoryService.NAME_HISTORY_FOLDER).append(fProject.getProject().getName()).toFile();
+	}
+
 	private RefactoringDescriptor executeRefactoring(String project, int index, int flags) throws CoreException {
 		RefactoringHistoryService service= RefactoringHistoryService.getInstance();
 		try {
@@ -637,6 +648,61 @@ public class RefactoringHistoryServiceTests extends TestCase {
 		assertTrue("Refactoring history folder should exist.", folder.exists());
 	}
 
+	public void testMigration() throws Exception {
+		final IProject project= fProject.getProject();
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		RefactoringHistory previousHistory= service.getProjectHistory(project, null);
+		setSharedRefactoringHistory(false);
+		File folder= getPrivateHistoryFolder();
+		File file= new File(folder, RefactoringHistoryStore.NAME_STORE_FILE);
+		assertTrue("Refactoring history should have been copied in the directory layout", getHistoryDirectories(folder).length > 0);
+		assertFalse("Refactoring history store should not exist", file.exists());
+		RefactoringHistory nextHistory= service.getProjectHistory(project, null);
+		assertEquals("Refactoring history should be the same:", previousHistory, nextHistory);
+		assertTrue("Refactoring history store should exist", file.isFile());
+		assertEquals("Refactoring history should have been migrated", 0, getHistoryDirectories(folder).length);
+		assertEquals("Refactoring history store has wrong size", TOTAL_PROJECT_NUMBER, RefactoringHistoryStore.getStore(file).getSize());
+		RefactoringDescriptorProxy[] proxies= nextHistory.getDescriptors();
+		for (int index= 0; index < proxies.length; index++)
+			assertNotNull("Refactoring descriptor should be resolved", proxies[index].requestDescriptor(null));
+	}
+
+	public void testExport() throws Exception {
+		final IProject project= fProject.getProject();
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		setSharedRefactoringHistory(false);
+		RefactoringHistory previousHistory= service.getProjectHistory(project, null);
+		File privateFolder= getPrivateHistoryFolder();
+		assertTrue("Refactoring history store should exist", new File(privateFolder, RefactoringHistoryStore.NAME_STORE_FILE).isFile());
+		setSharedRefactoringHistory(true);
+		assertFalse("Private refactoring history should not exist", privateFolder.exists());
+		IFolder folder= project.getFolder(RefactoringHistoryService.NAME_HISTORY_FOLDER);
+		assertTrue("Refactoring history folder should exist.", folder.exists());
+		assertFalse("Shared refactoring history should not contain a store", folder.getFile(RefactoringHistoryStore.NAME_STORE_FILE).exists());
+		assertTrue("Refactoring history should have been exported in the directory layout", getHistoryDirectories(folder.getLocation().toFile()).length > 0);
+		RefactoringHistory nextHistory= service.getProjectHistory(project, null);
+		assertEquals("Refactoring history should be the same:", previousHistory, nextHistory);
+		RefactoringDescriptorProxy[] proxies= nextHistory.getDescriptors();
+		for (int index= 0; index < proxies.length; index++)
+			assertNotNull("Refactoring descriptor should be resolved", proxies[index].requestDescriptor(null));
+	}
+
+	public void testStoreDisposedOnClose() throws Exception {
+		final IProject project= fProject.getProject();
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		setSharedRefactoringHistory(false);
+		service.getProjectHistory(project, null);
+		File file= new File(getPrivateHistoryFolder(), RefactoringHistoryStore.NAME_STORE_FILE);
+		RefactoringHistoryStore store= RefactoringHistoryStore.getStore(file);
+		assertSame("Refactoring history store should be cached", store, RefactoringHistoryStore.getStore(file));
+		project.close(null);
+		try {
+			assertNotSame("Refactoring history store should have been discarded", store, RefactoringHistoryStore.getStore(file));
+		} finally {
+			project.open(null);
+		}
+	}
+
 	public void testSortOrder0() throws Exception {
 		RefactoringHistory history= RefactoringHistoryService.getInstance().getProjectHistory(fProject.getProject(), null);
 		assertTrue("Refactoring history must not be empty", !history.isEmpty());
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests.history;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryStore;
+
+public class RefactoringHistoryStoreTests extends TestCase {
+
+	private File fFolder;
+
+	private RefactoringHistoryStore fStore;
+
+	@Override
+	protected void setUp() throws Exception {
+		fFolder= Files.createTempDirectory("history").toFile();
+		fStore= RefactoringHistoryStore.getStore(new File(fFolder, RefactoringHistoryStore.NAME_STORE_FILE));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fStore.delete();
+		fFolder.delete();
+	}
+
+	private void addEntries(long... stamps) throws IOException {
+		String[] descriptions= new String[stamps.length];
+		byte[][] bodies= new byte[stamps.length][];
+		for (int index= 0; index < stamps.length; index++) {
+			descriptions[index]= "Refactoring " + stamps[index];
+			bodies[index]= ("<session stamp=\"" + stamps[index] + "\"/>").getBytes(StandardCharsets.UTF_8);
+		}
+		fStore.add(stamps, descriptions, bodies);
+	}
+
+	private void assertStamps(long start, long end, long... expected) throws IOException {
+		RefactoringDescriptorProxy[] proxies= fStore.readProxies("project", start, end);
+		assertEquals(expected.length, proxies.length);
+		for (int index= 0; index < expected.length; index++) {
+			assertEquals(expected[index], proxies[index].getTimeStamp());
+			assertEquals("Refactoring " + expected[index], proxies[index].getDescription());
+			assertEquals("project", proxies[index].getProject());
+		}
+	}
+
+	private String readBody(long stamp) throws IOException {
+		byte[] body= fStore.readBody(stamp);
+		return body != null ? new String(body, StandardCharsets.UTF_8) : null;
+	}
+
+	public void testEmptyStore() throws Exception {
+		assertEquals(0, fStore.getSize());
+		assertStamps(0, Long.MAX_VALUE);
+		assertNull(fStore.readBody(1));
+		assertFalse(fStore.contains(1));
+	}
+
+	public void testTimeRangeQueries() throws Exception {
+		addEntries(50, 10, 40);
+		addEntries(30, 20);
+		assertEquals(5, fStore.getSize());
+		assertStamps(0, Long.MAX_VALUE, 10, 20, 30, 40, 50);
+		assertStamps(20, 40, 20, 30, 40);
+		assertStamps(21, 39, 30);
+		assertStamps(51, Long.MAX_VALUE);
+		assertEquals("<session stamp=\"30\"/>", readBody(30));
+		assertTrue(fStore.contains(40));
+		assertFalse(fStore.contains(41));
+	}
+
+	public void testRemoveAndReplace() throws Exception {
+		addEntries(10, 20, 30);
+		fStore.remove(new long[] { 20, 99 });
+		assertStamps(0, Long.MAX_VALUE, 10, 30);
+		assertNull(fStore.readBody(20));
+		fStore.replaceBody(30, "<session comment=\"changed\"/>".getBytes(StandardCharsets.UTF_8));
+		assertStamps(0, Long.MAX_VALUE, 10, 30);
+		assertEquals("<session comment=\"changed\"/>", readBody(30));
+		fStore.remove(new long[] { 10, 30 });
+		assertFalse(new File(fFolder, RefactoringHistoryStore.NAME_STORE_FILE).exists());
+	}
+
+	public void testCompaction() throws Exception {
+		long[] stamps= new long[3000];
+		for (int index= 0; index < stamps.length; index++)
+			stamps[index]= index;
+		addEntries(stamps);
+		File file= new File(fFolder, RefactoringHistoryStore.NAME_STORE_FILE);
+		long length= file.length();
+		long[] removed= new long[2700];
+		for (int index= 0; index < removed.length; index++)
+			removed[index]= index;
+		fStore.remove(removed);
+		assertTrue(file.length() < length / 2);
+		assertStamps(2995, Long.MAX_VALUE, 2995, 2996, 2997, 2998, 2999);
+		assertEquals("<session stamp=\"2950\"/>", readBody(2950));
+	}
+
+	public void testRecovery() throws Exception {
+		addEntries(10, 20, 30);
+		File file= new File(fFolder, RefactoringHistoryStore.NAME_STORE_FILE);
+		try (RandomAccessFile access= new RandomAccessFile(file, "rw")) {
+			// corrupt the table, as if writing has been interrupted
+			access.seek(access.length() - 3);
+			access.write(new byte[] { 1, 2, 3 });
+		}
+		file.setLastModified(file.lastModified() + 2000);
+		assertStamps(0, Long.MAX_VALUE, 10, 20, 30);
+		assertEquals("<session stamp=\"20\"/>", readBody(20));
+	}
+}
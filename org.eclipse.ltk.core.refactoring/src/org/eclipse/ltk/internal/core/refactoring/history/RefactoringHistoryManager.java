@@ -16,6 +16,9 @@ package org.eclipse.ltk.internal.core.refactoring.history;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -169,6 +172,87 @@ public final class RefactoringHistoryManager {
 		return string;
 	}
 
+	/**
+	 * Exports a refactoring history kept in a {@link RefactoringHistoryStore}
+	 * to the directory layout and deletes the store.
+	 * <p>
+	 * Refactoring histories which are shared with other workspaces are kept in
+	 * the directory layout.
+	 * </p>
+	 *
+	 * @param store
+	 *            the history file store
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @throws CoreException
+	 *             if an error occurs
+	 */
+	static void exportIndexedHistory(final IFileStore store, final IProgressMonitor monitor) throws CoreException {
+		try {
+			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_updating_history, 100);
+			final File folder= store.toLocalFile(EFS.NONE, new SubProgressMonitor(monitor, 5, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+			if (folder == null)
+				return;
+			final File file= new File(folder, RefactoringHistoryStore.NAME_STORE_FILE);
+			if (!file.isFile())
+				return;
+			final RefactoringHistoryStore indexed= RefactoringHistoryStore.getStore(file);
+			final Map<IPath, Collection<RefactoringDescriptorProxy>> paths= new HashMap<>();
+			final RefactoringDescriptorProxy[] proxies= indexed.readProxies(null, 0, Long.MAX_VALUE);
+			for (int index= 0; index < proxies.length; index++) {
+				final IPath path= stampToPath(proxies[index].getTimeStamp());
+				Collection<RefactoringDescriptorProxy> collection= paths.get(path);
+				if (collection == null) {
+					collection= new ArrayList<>(64);
+					paths.put(path, collection);
+				}
+				collection.add(proxies[index]);
+			}
+			final IProgressMonitor subMonitor= new SubProgressMonitor(monitor, 90);
+			try {
+				subMonitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_updating_history, paths.size() * 2);
+				final DocumentBuilder parser= createDocumentBuilder();
+				for (final Iterator<Entry<IPath, Collection<RefactoringDescriptorProxy>>> iterator= paths.entrySet().iterator(); iterator.hasNext();) {
+					final Entry<IPath, Collection<RefactoringDescriptorProxy>> entry= iterator.next();
+					final Collection<RefactoringDescriptorProxy> collection= entry.getValue();
+					final Document document= parser.newDocument();
+					final Element session= document.createElement(IRefactoringSerializationConstants.ELEMENT_SESSION);
+					session.setAttribute(IRefactoringSerializationConstants.ATTRIBUTE_VERSION, IRefactoringSerializationConstants.CURRENT_VERSION);
+					document.appendChild(session);
+					final Set<Long> stamps= new HashSet<>(collection.size());
+					for (final Iterator<RefactoringDescriptorProxy> current= collection.iterator(); current.hasNext();) {
+						final long stamp= current.next().getTimeStamp();
+						if (!stamps.add(Long.valueOf(stamp)))
+							continue;
+						final byte[] body= indexed.readBody(stamp);
+						if (body != null) {
+							final NodeList list= parser.parse(new InputSource(new ByteArrayInputStream(body))).getElementsByTagName(IRefactoringSerializationConstants.ELEMENT_REFACTORING);
+							for (int offset= 0; offset < list.getLength(); offset++)
+								session.appendChild(document.importNode(list.item(offset), true));
+						}
+					}
+					final IFileStore history= store.getFileStore(entry.getKey()).getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
+					history.getParent().mkdir(EFS.NONE, null);
+					try (OutputStream output= new BufferedOutputStream(history.openOutputStream(EFS.NONE, new SubProgressMonitor(subMonitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)))) {
+						writeNode(output, document);
+					}
+					writeIndexEntry(history.getParent().getChild(RefactoringHistoryService.NAME_INDEX_FILE), collection.toArray(new RefactoringDescriptorProxy[collection.size()]), EFS.NONE, new SubProgressMonitor(subMonitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
+				}
+			} finally {
+				subMonitor.done();
+			}
+			indexed.delete();
+		} catch (ParserConfigurationException exception) {
+			throw createCoreException(exception);
+		} catch (IOException exception) {
+			throw createCoreException(exception);
+		} catch (SAXException exception) {
+			throw createCoreException(exception);
+		} finally {
+			monitor.done();
+		}
+	}
+
 	/**
 	 * Returns the argument map of the specified descriptor.
 	 *
@@ -186,6 +270,189 @@ public final class RefactoringHistoryManager {
 		return arguments;
 	}
 
+	/**
+	 * Returns the {@link RefactoringHistoryStore} of the specified history
+	 * location.
+	 * <p>
+	 * A refactoring history in the directory layout found at this location,
+	 * e.g. because it has been written by an earlier version or because it
+	 * has been unshared, is migrated into the store.
+	 * </p>
+	 *
+	 * @param store
+	 *            the history file store
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @return the refactoring history store, or <code>null</code> if the
+	 *         history location is not in the local file system
+	 * @throws CoreException
+	 *             if an error occurs
+	 */
+	private static RefactoringHistoryStore getIndexedStore(final IFileStore store, final IProgressMonitor monitor) throws CoreException {
+		try {
+			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_retrieving_history, 10);
+			final File folder= store.toLocalFile(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+			if (folder == null)
+				return null;
+			final RefactoringHistoryStore indexed= RefactoringHistoryStore.getStore(new File(folder, RefactoringHistoryStore.NAME_STORE_FILE));
+			migrateHistoryTree(store, indexed, new SubProgressMonitor(monitor, 9));
+			return indexed;
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Creates a document builder for refactoring history documents.
+	 *
+	 * @return the document builder
+	 * @throws ParserConfigurationException
+	 *             if an error occurs in the parser configuration
+	 */
+	private static DocumentBuilder createDocumentBuilder() throws ParserConfigurationException {
+		final DocumentBuilder parser= DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		parser.setErrorHandler(new DefaultHandler());
+		return parser;
+	}
+
+	/**
+	 * Migrates a refactoring history in the directory layout into the
+	 * specified refactoring history store and deletes it.
+	 *
+	 * @param store
+	 *            the history file store
+	 * @param indexed
+	 *            the refactoring history store
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @throws CoreException
+	 *             if an error occurs
+	 */
+	private static void migrateHistoryTree(final IFileStore store, final RefactoringHistoryStore indexed, final IProgressMonitor monitor) throws CoreException {
+		try {
+			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_updating_history, 100);
+			final IFileStore[] stores= store.childStores(EFS.NONE, new SubProgressMonitor(monitor, 5, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+			final List<IFileStore> years= new ArrayList<>(stores.length);
+			for (int index= 0; index < stores.length; index++) {
+				if (stores[index].getName().matches("[0-9]+") && stores[index].fetchInfo().isDirectory()) //$NON-NLS-1$
+					years.add(stores[index]);
+			}
+			if (years.isEmpty())
+				return;
+			final Set<RefactoringDescriptorProxy> proxies= new HashSet<>();
+			for (final Iterator<IFileStore> iterator= years.iterator(); iterator.hasNext();)
+				readRefactoringDescriptorProxies(iterator.next(), null, proxies, 0, Long.MAX_VALUE, new SubProgressMonitor(monitor, 20 / years.size()), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
+			final Map<IPath, Collection<RefactoringDescriptorProxy>> paths= new HashMap<>();
+			for (final Iterator<RefactoringDescriptorProxy> iterator= proxies.iterator(); iterator.hasNext();) {
+				final RefactoringDescriptorProxy proxy= iterator.next();
+				final IPath path= stampToPath(proxy.getTimeStamp());
+				Collection<RefactoringDescriptorProxy> collection= paths.get(path);
+				if (collection == null) {
+					collection= new ArrayList<>(64);
+					paths.put(path, collection);
+				}
+				collection.add(proxy);
+			}
+			final List<Long> stamps= new ArrayList<>(proxies.size());
+			final List<String> descriptions= new ArrayList<>(proxies.size());
+			final List<byte[]> bodies= new ArrayList<>(proxies.size());
+			final IProgressMonitor subMonitor= new SubProgressMonitor(monitor, 60);
+			try {
+				subMonitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_updating_history, paths.size());
+				final DocumentBuilder parser= createDocumentBuilder();
+				for (final Iterator<Entry<IPath, Collection<RefactoringDescriptorProxy>>> iterator= paths.entrySet().iterator(); iterator.hasNext();) {
+					final Entry<IPath, Collection<RefactoringDescriptorProxy>> entry= iterator.next();
+					final IFileStore history= store.getFileStore(entry.getKey()).getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
+					if (!history.fetchInfo(EFS.NONE, new SubProgressMonitor(subMonitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
+						continue;
+					final Document document;
+					try (InputStream input= new BufferedInputStream(history.openInputStream(EFS.NONE, null))) {
+						document= parser.parse(new InputSource(input));
+					}
+					final Element root= document.getDocumentElement();
+					final Map<String, Element> elements= new HashMap<>();
+					final NodeList list= document.getElementsByTagName(IRefactoringSerializationConstants.ELEMENT_REFACTORING);
+					for (int offset= 0; offset < list.getLength(); offset++) {
+						final Element element= (Element) list.item(offset);
+						elements.putIfAbsent(element.getAttribute(IRefactoringSerializationConstants.ATTRIBUTE_STAMP), element);
+					}
+					for (final Iterator<RefactoringDescriptorProxy> current= entry.getValue().iterator(); current.hasNext();) {
+						final RefactoringDescriptorProxy proxy= current.next();
+						final long stamp= proxy.getTimeStamp();
+						final Element element= elements.remove(String.valueOf(stamp));
+						if (element == null || indexed.contains(stamp))
+							continue;
+						final Document result= parser.newDocument();
+						final Node session= result.importNode(root, false);
+						result.appendChild(session);
+						session.appendChild(result.importNode(element, true));
+						final ByteArrayOutputStream output= new ByteArrayOutputStream(1024);
+						writeNode(output, result);
+						stamps.add(Long.valueOf(stamp));
+						descriptions.add(proxy.getDescription());
+						bodies.add(output.toByteArray());
+					}
+				}
+			} finally {
+				subMonitor.done();
+			}
+			final long[] array= new long[stamps.size()];
+			for (int index= 0; index < array.length; index++)
+				array[index]= stamps.get(index).longValue();
+			indexed.add(array, descriptions.toArray(new String[descriptions.size()]), bodies.toArray(new byte[bodies.size()][]));
+			for (final Iterator<IFileStore> iterator= years.iterator(); iterator.hasNext();)
+				iterator.next().delete(EFS.NONE, new SubProgressMonitor(monitor, 15 / years.size(), SubProgressMonitor.SUPPRESS_SUBTASK_LABEL));
+		} catch (ParserConfigurationException exception) {
+			throw createCoreException(exception);
+		} catch (IOException exception) {
+			throw createCoreException(exception);
+		} catch (SAXException exception) {
+			throw createCoreException(exception);
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Reads refactoring descriptor proxies from a history location.
+	 *
+	 * @param store
+	 *            the history file store
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param indexed
+	 *            <code>true</code> if the history is kept in a
+	 *            {@link RefactoringHistoryStore}, <code>false</code> if it is
+	 *            kept in the directory layout
+	 * @param collection
+	 *            the collection of proxies to fill in
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @param task
+	 *            the task label to use
+	 * @throws CoreException
+	 *             if an error occurs
+	 */
+	private static void readRefactoringDescriptorProxies(final IFileStore store, final String project, final boolean indexed, final Collection<RefactoringDescriptorProxy> collection, final long start, final long end, final IProgressMonitor monitor, final String task) throws CoreException {
+		try {
+			monitor.beginTask(task, 100);
+			final RefactoringHistoryStore history= indexed ? getIndexedStore(store, new SubProgressMonitor(monitor, 20)) : null;
+			if (history != null)
+				collection.addAll(Arrays.asList(history.readProxies(project, start, end)));
+			else
+				readRefactoringDescriptorProxies(store, project, collection, start, end, new SubProgressMonitor(monitor, 80), task);
+		} catch (IOException exception) {
+			throw createCoreException(exception);
+		} finally {
+			monitor.done();
+		}
+	}
+
 	/**
 	 * Reads refactoring descriptor proxies.
 	 *
@@ -774,6 +1041,13 @@ public final class RefactoringHistoryManager {
 	/** The history file store */
 	private final IFileStore fHistoryStore;
 
+	/**
+	 * <code>true</code> if the history is kept in a
+	 * {@link RefactoringHistoryStore}, <code>false</code> if it is kept in
+	 * the directory layout
+	 */
+	private final boolean fIndexed;
+
 	/**
 	 * The non-empty name of the managed project, or <code>null</code> for the
 	 * workspace
@@ -788,12 +1062,18 @@ public final class RefactoringHistoryManager {
 	 * @param name
 	 *            the non-empty name of the managed project, or
 	 *            <code>null</code> for the workspace
+	 * @param indexed
+	 *            <code>true</code> to keep the history in a
+	 *            {@link RefactoringHistoryStore}, <code>false</code> to keep
+	 *            it in the directory layout which can be shared with other
+	 *            workspaces
 	 */
-	RefactoringHistoryManager(final IFileStore store, final String name) {
+	RefactoringHistoryManager(final IFileStore store, final String name, final boolean indexed) {
 		Assert.isNotNull(store);
 		Assert.isTrue(name == null || !"".equals(name)); //$NON-NLS-1$
 		fHistoryStore= store;
 		fProjectName= name;
+		fIndexed= indexed;
 	}
 
 	/**
@@ -816,6 +1096,17 @@ public final class RefactoringHistoryManager {
 			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_updating_history, 18);
 			final long stamp= descriptor.getTimeStamp();
 			if (stamp >= 0) {
+				final RefactoringHistoryStore indexed= fIndexed ? getIndexedStore(fHistoryStore, new SubProgressMonitor(monitor, 2)) : null;
+				if (indexed != null) {
+					try {
+						final ByteArrayOutputStream output= new ByteArrayOutputStream(1024);
+						writeNode(output, transformDescriptor(descriptor, false));
+						indexed.add(new long[] { stamp}, new String[] { descriptor.getDescription()}, new byte[][] { output.toByteArray()});
+					} catch (IOException exception) {
+						throw createCoreException(exception);
+					}
+					return;
+				}
 				final IPath path= stampToPath(stamp);
 				final IFileStore folder= fHistoryStore.getFileStore(path);
 				final IFileStore history= folder.getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
@@ -910,9 +1201,7 @@ public final class RefactoringHistoryManager {
 	private Document getCachedDocument(final IPath path, final InputStream input) throws SAXException, IOException, ParserConfigurationException {
 		if (path.equals(fCachedPath) && fCachedDocument != null)
 			return fCachedDocument;
-		DocumentBuilder parser= DocumentBuilderFactory.newInstance().newDocumentBuilder();
-		parser.setErrorHandler(new DefaultHandler());
-		final Document document= parser.parse(new InputSource(input));
+		final Document document= createDocumentBuilder().parse(new InputSource(input));
 		fCachedDocument= document;
 		fCachedPath= path;
 		return document;
@@ -967,10 +1256,10 @@ public final class RefactoringHistoryManager {
 			final Set<RefactoringDescriptorProxy> set= new HashSet<>();
 			try {
 				if (fHistoryStore.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
-					readRefactoringDescriptorProxies(fHistoryStore, fProjectName, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+					readRefactoringDescriptorProxies(fHistoryStore, fProjectName, fIndexed, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
 				final IFileStore store= EFS.getLocalFileSystem().getStore(RefactoringCorePlugin.getDefault().getStateLocation()).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER).getChild(RefactoringHistoryService.NAME_WORKSPACE_PROJECT);
 				if (store.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
-					readRefactoringDescriptorProxies(store, null, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+					readRefactoringDescriptorProxies(store, null, true, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
 			} catch (CoreException exception) {
 				RefactoringCorePlugin.log(exception);
 			}
@@ -1090,6 +1379,18 @@ public final class RefactoringHistoryManager {
 		try {
 			final Map<IPath, Collection<RefactoringDescriptorProxy>> paths= new HashMap<>();
 			monitor.beginTask(task, proxies.length + 300);
+			final RefactoringHistoryStore indexed= fIndexed ? getIndexedStore(fHistoryStore, new SubProgressMonitor(monitor, proxies.length)) : null;
+			if (indexed != null) {
+				final long[] stamps= new long[proxies.length];
+				for (int index= 0; index < proxies.length; index++)
+					stamps[index]= proxies[index].getTimeStamp();
+				try {
+					indexed.remove(stamps);
+				} catch (IOException exception) {
+					throw createCoreException(exception);
+				}
+				return;
+			}
 			for (int index= 0; index < proxies.length; index++) {
 				final IPath path= stampToPath(proxies[index].getTimeStamp());
 				Collection<RefactoringDescriptorProxy> collection= paths.get(path);
@@ -1133,6 +1434,18 @@ public final class RefactoringHistoryManager {
 			if (stamp >= 0) {
 				InputStream input= null;
 				try {
+					final RefactoringHistoryStore indexed= fIndexed ? getIndexedStore(fHistoryStore, new SubProgressMonitor(monitor, 1)) : null;
+					if (indexed != null) {
+						final byte[] body= indexed.readBody(stamp);
+						if (body != null) {
+							final RefactoringDescriptor[] descriptors= new RefactoringSessionReader(false, fProjectName).readSession(new InputSource(new ByteArrayInputStream(body))).getRefactorings();
+							for (int index= 0; index < descriptors.length; index++) {
+								if (descriptors[index].getTimeStamp() == stamp)
+									return descriptors[index];
+							}
+						}
+						return null;
+					}
 					final IFileStore folder= fHistoryStore.getFileStore(stampToPath(stamp));
 					final IFileStore file= folder.getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
 					if (file.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists()) {
@@ -1150,6 +1463,8 @@ public final class RefactoringHistoryManager {
 					}
 				} catch (CoreException exception) {
 					RefactoringCorePlugin.log(exception);
+				} catch (IOException exception) {
+					RefactoringCorePlugin.log(exception);
 				} finally {
 					try {
 						if (input != null)
@@ -1182,6 +1497,28 @@ public final class RefactoringHistoryManager {
 			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_updating_history, 100);
 			final long stamp= proxy.getTimeStamp();
 			if (stamp >= 0) {
+				final RefactoringHistoryStore indexed= fIndexed ? getIndexedStore(fHistoryStore, new SubProgressMonitor(monitor, 20)) : null;
+				if (indexed != null) {
+					try {
+						final byte[] body= indexed.readBody(stamp);
+						if (body != null) {
+							final Document document= createDocumentBuilder().parse(new InputSource(new ByteArrayInputStream(body)));
+							final NodeList list= document.getElementsByTagName(IRefactoringSerializationConstants.ELEMENT_REFACTORING);
+							for (int index= 0; index < list.getLength(); index++)
+								((Element) list.item(index)).setAttribute(IRefactoringSerializationConstants.ATTRIBUTE_COMMENT, comment);
+							final ByteArrayOutputStream output= new ByteArrayOutputStream(body.length + comment.length());
+							writeNode(output, document);
+							indexed.replaceBody(stamp, output.toByteArray());
+						}
+					} catch (ParserConfigurationException exception) {
+						throw createCoreException(exception);
+					} catch (IOException exception) {
+						throw createCoreException(exception);
+					} catch (SAXException exception) {
+						throw createCoreException(exception);
+					}
+					return;
+				}
 				final IPath path= stampToPath(stamp);
 				final IFileStore folder= fHistoryStore.getFileStore(path);
 				final IFileStore history= folder.getChild(RefactoringHistoryService.NAME_HISTORY_FILE);
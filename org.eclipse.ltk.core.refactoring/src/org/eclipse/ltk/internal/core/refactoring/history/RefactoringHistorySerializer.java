@@ -60,7 +60,7 @@ public final class RefactoringHistorySerializer implements IRefactoringHistoryLi
 								final URI uri= project.getLocationURI();
 								if (uri != null) {
 									try {
-										processHistoryNotification(EFS.getStore(uri).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER), event, name);
+										processHistoryNotification(EFS.getStore(uri).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER), event, name, false);
 									} catch (CoreException exception) {
 										RefactoringCorePlugin.log(exception);
 									} finally {
@@ -73,7 +73,7 @@ public final class RefactoringHistorySerializer implements IRefactoringHistoryLi
 								}
 							} else {
 								try {
-									processHistoryNotification(store.getChild(name), event, name);
+									processHistoryNotification(store.getChild(name), event, name, true);
 								} catch (CoreException exception) {
 									RefactoringCorePlugin.log(exception);
 								}
@@ -81,7 +81,7 @@ public final class RefactoringHistorySerializer implements IRefactoringHistoryLi
 						}
 					} else {
 						try {
-							processHistoryNotification(store.getChild(RefactoringHistoryService.NAME_WORKSPACE_PROJECT), event, name);
+							processHistoryNotification(store.getChild(RefactoringHistoryService.NAME_WORKSPACE_PROJECT), event, name, true);
 						} catch (CoreException exception) {
 							RefactoringCorePlugin.log(exception);
 						}
@@ -100,13 +100,17 @@ public final class RefactoringHistorySerializer implements IRefactoringHistoryLi
 	 *            the history event
 	 * @param name
 	 *            the project name, or <code>null</code>
+	 * @param indexed
+	 *            <code>true</code> if the history is kept in a
+	 *            {@link RefactoringHistoryStore}, <code>false</code> if it is
+	 *            shared
 	 * @throws CoreException
 	 *             if an error occurs
 	 */
-	private void processHistoryNotification(final IFileStore store, final RefactoringHistoryEvent event, final String name) throws CoreException {
+	private void processHistoryNotification(final IFileStore store, final RefactoringHistoryEvent event, final String name, final boolean indexed) throws CoreException {
 		final RefactoringDescriptorProxy proxy= event.getDescriptor();
 		final int type= event.getEventType();
-		final RefactoringHistoryManager manager= new RefactoringHistoryManager(store, name);
+		final RefactoringHistoryManager manager= new RefactoringHistoryManager(store, name, indexed);
 		final NullProgressMonitor monitor= new NullProgressMonitor();
 		if (type == RefactoringHistoryEvent.PUSHED || type == RefactoringHistoryEvent.ADDED) {
 			final RefactoringDescriptor descriptor= proxy.requestDescriptor(monitor);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -253,6 +253,7 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 					if (enable) {
 						final IFileStore source= history.getChild(name);
 						if (source.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20)).exists()) {
+							RefactoringHistoryManager.exportIndexedHistory(source, new SubProgressMonitor(monitor, 20));
 							IFileStore destination= EFS.getStore(uri).getChild(NAME_HISTORY_FOLDER);
 							if (destination.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20)).exists())
 								destination.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
@@ -378,7 +379,7 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 					peformResourceChanged(event);
 				}
 			};
-			ResourcesPlugin.getWorkspace().addResourceChangeListener(fResourceListener, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.POST_CHANGE);
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(fResourceListener, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE | IResourceChangeEvent.POST_CHANGE);
 		}
 	}
 
@@ -526,12 +527,14 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 			if (name.equals(NAME_WORKSPACE_PROJECT)) {
 				final IFileStore metaStore= stateStore.getChild(NAME_HISTORY_FOLDER).getChild(name);
 				metaStore.delete(EFS.NONE, new SubProgressMonitor(monitor, 100));
+				disposeHistoryStores(name);
 			} else {
 				final URI uri= project.getLocationURI();
 				if (uri != null && project.isAccessible()) {
 					try {
 						final IFileStore metaStore= stateStore.getChild(NAME_HISTORY_FOLDER).getChild(name);
 						metaStore.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
+						disposeHistoryStores(name);
 						final IFileStore projectStore= EFS.getStore(uri).getChild(NAME_HISTORY_FOLDER);
 						projectStore.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
 					} finally {
@@ -861,6 +864,7 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 			final String oldName= oldProject.getName();
 			final String newName= newProject.getName();
 			final IFileStore oldStore= historyStore.getChild(oldName);
+			disposeHistoryStores(oldName);
 			if (oldStore.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 10, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists()) {
 				final IFileStore newStore= historyStore.getChild(newName);
 				if (newStore.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 10, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
@@ -874,8 +878,24 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 		}
 	}
 
+	/**
+	 * Discards the refactoring history stores of the specified project, so that
+	 * they are not kept after the project has been closed or deleted.
+	 *
+	 * @param name
+	 *            the name of the project
+	 */
+	private static void disposeHistoryStores(final String name) {
+		RefactoringHistoryStore.disposeStores(RefactoringCorePlugin.getDefault().getStateLocation().append(NAME_HISTORY_FOLDER).append(name).toFile());
+	}
+
 	private void peformResourceChanged(final IResourceChangeEvent event) {
 		final int type= event.getType();
+		if ((type & (IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE)) != 0) {
+			final IResource resource= event.getResource();
+			if (resource != null && resource.getType() == IResource.PROJECT)
+				disposeHistoryStores(resource.getName());
+		}
 		if ((type & IResourceChangeEvent.POST_CHANGE) != 0) {
 			final IResourceDelta delta= event.getDelta();
 			if (delta != null) {
@@ -975,15 +995,15 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 					if (hasSharedRefactoringHistory(project)) {
 						final URI uri= project.getLocationURI();
 						if (uri != null)
-							return getManager(EFS.getStore(uri).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER), name);
+							return getManager(EFS.getStore(uri).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER), name, false);
 					} else
-						return getManager(store.getChild(name), name);
+						return getManager(store.getChild(name), name, true);
 				}
 			} catch (CoreException exception) {
 				// Do nothing
 			}
 		} else
-			return getManager(store.getChild(NAME_WORKSPACE_PROJECT), null);
+			return getManager(store.getChild(NAME_WORKSPACE_PROJECT), null, true);
 		return null;
 	}
 
@@ -996,13 +1016,17 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 	 * @param name
 	 *            the non-empty project name, or <code>null</code> for the
 	 *            workspace
+	 * @param indexed
+	 *            <code>true</code> if the history is kept in a
+	 *            {@link RefactoringHistoryStore}, <code>false</code> if it is
+	 *            shared
 	 * @return the refactoring history manager
 	 */
-	private RefactoringHistoryManager getManager(final IFileStore store, final String name) {
+	private RefactoringHistoryManager getManager(final IFileStore store, final String name, final boolean indexed) {
 		Assert.isNotNull(store);
 		RefactoringHistoryManager manager= fManagerCache.get(store);
 		if (manager == null) {
-			manager= new RefactoringHistoryManager(store, name);
+			manager= new RefactoringHistoryManager(store, name, indexed);
 			fManagerCache.put(store, manager);
 		}
 		return manager;
@@ -0,0 +1,664 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring.history;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.eclipse.core.runtime.Assert;
+
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
+
+/**
+ * Indexed single-file store of a refactoring history.
+ * <p>
+ * The store file consists of a header, the refactoring records and a table of the
+ * records sorted by time stamp. A record holds the time stamp, the description
+ * and the body of a refactoring descriptor, which is a refactoring session
+ * document with exactly this refactoring. Records are never modified except
+ * for being marked as deleted; deleted records are removed when the store is
+ * compacted.
+ * </p>
+ * <p>
+ * The table is kept in memory and re-read only if the store file changes, so
+ * that time range queries take logarithmic time plus the time to read the
+ * descriptions of the result. Bodies are only read when a descriptor is
+ * requested. If the table is corrupt, e.g. because writing the store has been
+ * interrupted, it is rebuilt from the records.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class RefactoringHistoryStore {
+
+	/** The file name of the store */
+	public static final String NAME_STORE_FILE= "refactorings.store"; //$NON-NLS-1$
+
+	/** The magic number of the store file */
+	private static final int MAGIC= 0x52485354;
+
+	/** The version of the store file format */
+	private static final int VERSION= 1;
+
+	/**
+	 * The length of the header: magic, version, number of records, table
+	 * offset, number of bytes of deleted records, table checksum
+	 */
+	private static final int HEADER_LENGTH= 4 + 4 + 4 + 8 + 8 + 4;
+
+	/** The magic number of a record */
+	private static final int RECORD_MAGIC= 0x52454346;
+
+	/**
+	 * The length of a record header: magic, state, time stamp, length of the
+	 * description, length of the body
+	 */
+	private static final int RECORD_HEADER_LENGTH= 4 + 1 + 8 + 4 + 4;
+
+	/** The length of a table entry: time stamp, record offset */
+	private static final int TABLE_ENTRY_LENGTH= 8 + 8;
+
+	/** The state of a deleted record */
+	private static final byte STATE_DELETED= 0;
+
+	/** The state of a live record */
+	private static final byte STATE_LIVE= 1;
+
+	/** The minimal number of bytes of deleted records before compacting */
+	private static final long COMPACTION_THRESHOLD= 64 * 1024;
+
+	/**
+	 * The open stores, by store file. Stores are discarded when their project
+	 * is closed, deleted or renamed.
+	 */
+	private static final Map<File, RefactoringHistoryStore> fgStores= new HashMap<>();
+
+	/**
+	 * Discards the stores whose store files are located in the specified
+	 * folder or one of its sub folders.
+	 *
+	 * @param folder
+	 *            the folder
+	 */
+	public static void disposeStores(final File folder) {
+		Assert.isNotNull(folder);
+		final String prefix= folder.getAbsolutePath() + File.separator;
+		synchronized (fgStores) {
+			for (final Iterator<File> iterator= fgStores.keySet().iterator(); iterator.hasNext();) {
+				if (iterator.next().getPath().startsWith(prefix))
+					iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns the store for the specified store file.
+	 *
+	 * @param file
+	 *            the store file, which need not exist yet
+	 * @return the store
+	 */
+	public static RefactoringHistoryStore getStore(final File file) {
+		Assert.isNotNull(file);
+		synchronized (fgStores) {
+			final File key= file.getAbsoluteFile();
+			RefactoringHistoryStore store= fgStores.get(key);
+			if (store == null) {
+				store= new RefactoringHistoryStore(key);
+				fgStores.put(key, store);
+			}
+			return store;
+		}
+	}
+
+	/** The store file */
+	private final File fFile;
+
+	/** The number of records in the table */
+	private int fCount= 0;
+
+	/** The number of bytes of deleted records */
+	private long fGarbage= 0;
+
+	/** The length of the store file when the table has been read, or -1 */
+	private long fLength= -1;
+
+	/** The modification time of the store file when the table has been read */
+	private long fModified= 0;
+
+	/** The record offsets of the table */
+	private long[] fOffsets= new long[16];
+
+	/** The time stamps of the table, in ascending order */
+	private long[] fStamps= new long[16];
+
+	/** The offset of the table, which follows the last record */
+	private long fTableOffset= HEADER_LENGTH;
+
+	/**
+	 * Creates a new refactoring history store.
+	 *
+	 * @param file
+	 *            the store file
+	 */
+	private RefactoringHistoryStore(final File file) {
+		fFile= file;
+	}
+
+	/**
+	 * Adds refactoring descriptors to the store.
+	 *
+	 * @param stamps
+	 *            the time stamps of the descriptors
+	 * @param descriptions
+	 *            the descriptions of the descriptors
+	 * @param bodies
+	 *            the bodies of the descriptors, encoded in UTF-8
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	public synchronized void add(final long[] stamps, final String[] descriptions, final byte[][] bodies) throws IOException {
+		Assert.isTrue(stamps.length == descriptions.length && stamps.length == bodies.length);
+		if (stamps.length == 0)
+			return;
+		load();
+		fFile.getParentFile().mkdirs();
+		try (FileChannel channel= FileChannel.open(fFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long position= fTableOffset;
+			for (int index= 0; index < stamps.length; index++) {
+				final byte[] description= descriptions[index].getBytes(StandardCharsets.UTF_8);
+				final ByteBuffer record= ByteBuffer.allocate(RECORD_HEADER_LENGTH + description.length + bodies[index].length);
+				record.putInt(RECORD_MAGIC);
+				record.put(STATE_LIVE);
+				record.putLong(stamps[index]);
+				record.putInt(description.length);
+				record.putInt(bodies[index].length);
+				record.put(description);
+				record.put(bodies[index]);
+				record.flip();
+				write(channel, record, position);
+				insert(stamps[index], position);
+				position+= record.limit();
+			}
+			fTableOffset= position;
+			writeTable(channel);
+		} finally {
+			update();
+		}
+	}
+
+	/**
+	 * Does the store contain a refactoring descriptor with the specified time
+	 * stamp?
+	 *
+	 * @param stamp
+	 *            the time stamp
+	 * @return <code>true</code> if the store contains such a descriptor,
+	 *         <code>false</code> otherwise
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	public synchronized boolean contains(final long stamp) throws IOException {
+		load();
+		return indexOf(stamp) >= 0;
+	}
+
+	/**
+	 * Deletes the store file.
+	 *
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	public synchronized void delete() throws IOException {
+		Files.deleteIfExists(fFile.toPath());
+		fCount= 0;
+		fGarbage= 0;
+		fTableOffset= HEADER_LENGTH;
+		fLength= -1;
+	}
+
+	/**
+	 * Returns the number of refactoring descriptors in the store.
+	 *
+	 * @return the number of descriptors
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	public synchronized int getSize() throws IOException {
+		load();
+		return fCount;
+	}
+
+	/**
+	 * Reads the body of the refactoring descriptor with the specified time
+	 * stamp.
+	 *
+	 * @param stamp
+	 *            the time stamp
+	 * @return the body encoded in UTF-8, or <code>null</code> if there is no
+	 *         such descriptor
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	public synchronized byte[] readBody(final long stamp) throws IOException {
+		load();
+		final int index= indexOf(stamp);
+		if (index < 0)
+			return null;
+		try (FileChannel channel= FileChannel.open(fFile.toPath(), StandardOpenOption.READ)) {
+			final ByteBuffer header= readRecordHeader(channel, fOffsets[index]);
+			final int descriptionLength= header.getInt(RECORD_HEADER_LENGTH - 8);
+			final int bodyLength= header.getInt(RECORD_HEADER_LENGTH - 4);
+			return read(channel, fOffsets[index] + RECORD_HEADER_LENGTH + descriptionLength, bodyLength).array();
+		}
+	}
+
+	/**
+	 * Reads the refactoring descriptor proxies in the specified time range.
+	 *
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @return the refactoring descriptor proxies, in ascending order of their
+	 *         time stamps
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	public synchronized RefactoringDescriptorProxy[] readProxies(final String project, final long start, final long end) throws IOException {
+		load();
+		final int first= lowerBound(start);
+		final int last= end == Long.MAX_VALUE ? fCount : lowerBound(end + 1);
+		if (first >= last)
+			return new RefactoringDescriptorProxy[0];
+		final RefactoringDescriptorProxy[] proxies= new RefactoringDescriptorProxy[last - first];
+		try (FileChannel channel= FileChannel.open(fFile.toPath(), StandardOpenOption.READ)) {
+			for (int index= first; index < last; index++) {
+				final ByteBuffer header= readRecordHeader(channel, fOffsets[index]);
+				final int descriptionLength= header.getInt(RECORD_HEADER_LENGTH - 8);
+				final String description= new String(read(channel, fOffsets[index] + RECORD_HEADER_LENGTH, descriptionLength).array(), StandardCharsets.UTF_8);
+				proxies[index - first]= new DefaultRefactoringDescriptorProxy(description, project, fStamps[index]);
+			}
+		}
+		return proxies;
+	}
+
+	/**
+	 * Removes the refactoring descriptors with the specified time stamps from
+	 * the store.
+	 *
+	 * @param stamps
+	 *            the time stamps
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	public synchronized void remove(final long[] stamps) throws IOException {
+		load();
+		if (fCount == 0)
+			return;
+		try (FileChannel channel= FileChannel.open(fFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			for (int index= 0; index < stamps.length; index++) {
+				int position;
+				while ((position= indexOf(stamps[index])) >= 0)
+					removeRecord(channel, position);
+			}
+			writeTable(channel);
+		} finally {
+			update();
+		}
+		if (fCount == 0)
+			delete();
+		else if (fGarbage > COMPACTION_THRESHOLD && fGarbage > (fTableOffset - HEADER_LENGTH) / 2)
+			compact();
+	}
+
+	/**
+	 * Replaces the body of the refactoring descriptor with the specified time
+	 * stamp.
+	 *
+	 * @param stamp
+	 *            the time stamp
+	 * @param body
+	 *            the new body, encoded in UTF-8
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	public synchronized void replaceBody(final long stamp, final byte[] body) throws IOException {
+		load();
+		final int index= indexOf(stamp);
+		if (index < 0)
+			return;
+		final String description;
+		try (FileChannel channel= FileChannel.open(fFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final ByteBuffer header= readRecordHeader(channel, fOffsets[index]);
+			description= new String(read(channel, fOffsets[index] + RECORD_HEADER_LENGTH, header.getInt(RECORD_HEADER_LENGTH - 8)).array(), StandardCharsets.UTF_8);
+			removeRecord(channel, index);
+		} finally {
+			update();
+		}
+		add(new long[] { stamp }, new String[] { description }, new byte[][] { body });
+	}
+
+	/**
+	 * Writes the live records into a new store file, dropping deleted records.
+	 *
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void compact() throws IOException {
+		final File temp= new File(fFile.getPath() + ".tmp"); //$NON-NLS-1$
+		try (FileChannel source= FileChannel.open(fFile.toPath(), StandardOpenOption.READ); FileChannel target= FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			long position= HEADER_LENGTH;
+			for (int index= 0; index < fCount; index++) {
+				final ByteBuffer header= readRecordHeader(source, fOffsets[index]);
+				final int length= RECORD_HEADER_LENGTH + header.getInt(RECORD_HEADER_LENGTH - 8) + header.getInt(RECORD_HEADER_LENGTH - 4);
+				write(target, read(source, fOffsets[index], length), position);
+				fOffsets[index]= position;
+				position+= length;
+			}
+			fTableOffset= position;
+			fGarbage= 0;
+			writeTable(target);
+		}
+		Files.move(temp.toPath(), fFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		update();
+	}
+
+	/**
+	 * Returns the index of the first table entry with the specified time
+	 * stamp.
+	 *
+	 * @param stamp
+	 *            the time stamp
+	 * @return the index, or <code>-1</code>
+	 */
+	private int indexOf(final long stamp) {
+		final int index= lowerBound(stamp);
+		if (index < fCount && fStamps[index] == stamp)
+			return index;
+		return -1;
+	}
+
+	/**
+	 * Inserts a table entry after all entries with a smaller or equal time
+	 * stamp.
+	 *
+	 * @param stamp
+	 *            the time stamp
+	 * @param offset
+	 *            the record offset
+	 */
+	private void insert(final long stamp, final long offset) {
+		if (fCount == fStamps.length) {
+			final int capacity= Math.max(16, fCount * 2);
+			final long[] stamps= new long[capacity];
+			final long[] offsets= new long[capacity];
+			System.arraycopy(fStamps, 0, stamps, 0, fCount);
+			System.arraycopy(fOffsets, 0, offsets, 0, fCount);
+			fStamps= stamps;
+			fOffsets= offsets;
+		}
+		final int index= stamp == Long.MAX_VALUE ? fCount : lowerBound(stamp + 1);
+		System.arraycopy(fStamps, index, fStamps, index + 1, fCount - index);
+		System.arraycopy(fOffsets, index, fOffsets, index + 1, fCount - index);
+		fStamps[index]= stamp;
+		fOffsets[index]= offset;
+		fCount++;
+	}
+
+	/**
+	 * Makes sure that the table corresponds to the store file.
+	 *
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void load() throws IOException {
+		if (!fFile.isFile()) {
+			fCount= 0;
+			fGarbage= 0;
+			fTableOffset= HEADER_LENGTH;
+			fLength= -1;
+			return;
+		}
+		if (fFile.length() == fLength && fFile.lastModified() == fModified)
+			return;
+		try (FileChannel channel= FileChannel.open(fFile.toPath(), StandardOpenOption.READ)) {
+			final long length= channel.size();
+			if (length < HEADER_LENGTH)
+				throw new IOException("Invalid refactoring history store: " + fFile); //$NON-NLS-1$
+			final ByteBuffer header= read(channel, 0, HEADER_LENGTH);
+			if (header.getInt() != MAGIC)
+				throw new IOException("Invalid refactoring history store: " + fFile); //$NON-NLS-1$
+			if (header.getInt() != VERSION)
+				throw new IOException("Unsupported refactoring history store version: " + fFile); //$NON-NLS-1$
+			final int count= header.getInt();
+			final long offset= header.getLong();
+			final long garbage= header.getLong();
+			final int checksum= header.getInt();
+			if (count >= 0 && offset >= HEADER_LENGTH && offset + (long) count * TABLE_ENTRY_LENGTH == length) {
+				final ByteBuffer table= read(channel, offset, count * TABLE_ENTRY_LENGTH);
+				final CRC32 crc= new CRC32();
+				crc.update(table.array(), 0, table.capacity());
+				if ((int) crc.getValue() == checksum) {
+					fStamps= new long[Math.max(16, count)];
+					fOffsets= new long[fStamps.length];
+					for (int index= 0; index < count; index++) {
+						fStamps[index]= table.getLong();
+						fOffsets[index]= table.getLong();
+					}
+					fCount= count;
+					fGarbage= garbage;
+					fTableOffset= offset;
+					fLength= length;
+					fModified= fFile.lastModified();
+					return;
+				}
+			}
+		}
+		recover();
+	}
+
+	/**
+	 * Returns the index of the first table entry with a time stamp greater or
+	 * equal than the specified one.
+	 *
+	 * @param stamp
+	 *            the time stamp
+	 * @return the index, or the number of entries
+	 */
+	private int lowerBound(final long stamp) {
+		int low= 0;
+		int high= fCount;
+		while (low < high) {
+			final int middle= (low + high) >>> 1;
+			if (fStamps[middle] < stamp)
+				low= middle + 1;
+			else
+				high= middle;
+		}
+		return low;
+	}
+
+	/**
+	 * Rebuilds the table by scanning the records of the store file.
+	 *
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void recover() throws IOException {
+		fCount= 0;
+		fGarbage= 0;
+		try (FileChannel channel= FileChannel.open(fFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final long length= channel.size();
+			long position= HEADER_LENGTH;
+			while (position + RECORD_HEADER_LENGTH <= length) {
+				final ByteBuffer header= read(channel, position, RECORD_HEADER_LENGTH);
+				final int magic= header.getInt();
+				final byte state= header.get();
+				final long stamp= header.getLong();
+				final int descriptionLength= header.getInt();
+				final int bodyLength= header.getInt();
+				if (magic != RECORD_MAGIC || (state != STATE_LIVE && state != STATE_DELETED) || descriptionLength < 0 || bodyLength < 0)
+					break;
+				final long next= position + RECORD_HEADER_LENGTH + descriptionLength + bodyLength;
+				if (next > length)
+					break;
+				if (state == STATE_LIVE)
+					insert(stamp, position);
+				else
+					fGarbage+= next - position;
+				position= next;
+			}
+			fTableOffset= position;
+			writeTable(channel);
+		} finally {
+			update();
+		}
+	}
+
+	/**
+	 * Marks a record as deleted and removes its table entry.
+	 *
+	 * @param channel
+	 *            the channel of the store file
+	 * @param index
+	 *            the index of the table entry
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void removeRecord(final FileChannel channel, final int index) throws IOException {
+		final ByteBuffer header= readRecordHeader(channel, fOffsets[index]);
+		write(channel, ByteBuffer.wrap(new byte[] { STATE_DELETED }), fOffsets[index] + 4);
+		fGarbage+= RECORD_HEADER_LENGTH + header.getInt(RECORD_HEADER_LENGTH - 8) + header.getInt(RECORD_HEADER_LENGTH - 4);
+		System.arraycopy(fStamps, index + 1, fStamps, index, fCount - index - 1);
+		System.arraycopy(fOffsets, index + 1, fOffsets, index, fCount - index - 1);
+		fCount--;
+	}
+
+	/**
+	 * Records the length and modification time of the store file after it has
+	 * been written.
+	 */
+	private void update() {
+		if (fFile.isFile()) {
+			fLength= fFile.length();
+			fModified= fFile.lastModified();
+		} else
+			fLength= -1;
+	}
+
+	/**
+	 * Writes the table and the header.
+	 *
+	 * @param channel
+	 *            the channel of the store file
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private void writeTable(final FileChannel channel) throws IOException {
+		final ByteBuffer table= ByteBuffer.allocate(fCount * TABLE_ENTRY_LENGTH);
+		for (int index= 0; index < fCount; index++) {
+			table.putLong(fStamps[index]);
+			table.putLong(fOffsets[index]);
+		}
+		final CRC32 crc= new CRC32();
+		crc.update(table.array(), 0, table.capacity());
+		table.flip();
+		write(channel, table, fTableOffset);
+		channel.truncate(fTableOffset + table.capacity());
+
+		final ByteBuffer header= ByteBuffer.allocate(HEADER_LENGTH);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(fCount);
+		header.putLong(fTableOffset);
+		header.putLong(fGarbage);
+		header.putInt((int) crc.getValue());
+		header.flip();
+		write(channel, header, 0);
+	}
+
+	/**
+	 * Reads bytes from a channel.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param position
+	 *            the position to read from
+	 * @param length
+	 *            the number of bytes to read
+	 * @return a buffer with the bytes, positioned at its beginning
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private static ByteBuffer read(final FileChannel channel, final long position, final int length) throws IOException {
+		final ByteBuffer buffer= ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0)
+				throw new EOFException();
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Reads and checks a record header.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param offset
+	 *            the offset of the record
+	 * @return the record header
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private ByteBuffer readRecordHeader(final FileChannel channel, final long offset) throws IOException {
+		final ByteBuffer header= read(channel, offset, RECORD_HEADER_LENGTH);
+		if (header.getInt(0) != RECORD_MAGIC)
+			throw new IOException("Invalid refactoring history record at " + offset + ": " + fFile); //$NON-NLS-1$ //$NON-NLS-2$
+		return header;
+	}
+
+	/**
+	 * Writes bytes to a channel.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param buffer
+	 *            the bytes to write
+	 * @param position
+	 *            the position to write to
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private static void write(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+		final long start= position - buffer.position();
+		while (buffer.hasRemaining())
+			channel.write(buffer, start + buffer.position());
+	}
+}